@@ -0,0 +1,180 @@
+package space.lasf.sparkjava.handler;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import space.lasf.sparkjava.dao.CrawlerDao;
+import space.lasf.sparkjava.entity.Crawler;
+import space.lasf.sparkjava.helper.AsyncHtmlFetcher;
+import space.lasf.sparkjava.helper.ExecutorFactory;
+
+/**
+ * Compares the crawl engine on platform and on virtual threads ({@code CRAWLER_VIRTUAL_THREADS}) at 10, 100 and
+ * 1000 fetches in flight. A local site with slow responses is crawled: headers arrive after 50 ms and the rest of
+ * the body 50 ms later, so every page keeps a task blocked on its body for a while. The benchmark reports pages
+ * per second, the peak RSS of the JVM and its peak number of platform threads.
+ * <p>
+ * Every configuration runs in a fresh JVM so that peak RSS is comparable. Virtual threads need Java 21:
+ * {@code mvn -P benchmark,java21 test-compile exec:exec -Dbenchmark.main=space.lasf.sparkjava.handler.CrawlLoadBenchmark};
+ * add {@code -Djmh.args="virtual 1000"} to run a single configuration.
+ */
+public final class CrawlLoadBenchmark {
+
+    private static final int[] CONCURRENCY = {10, 100, 1000};
+    private static final long HEADER_DELAY_MS = 50;
+    private static final long BODY_DELAY_MS = 50;
+    private static final int FAN_OUT = 50;
+    private static final int MIN_PAGES = 1000;
+    private static final int PAGES_PER_SLOT = 20;
+    private static final String RESULT = "RESULT ";
+    private static final String PADDING = "<p>" + "lorem ipsum dolor sit amet ".repeat(40) + "</p>\n";
+
+    private CrawlLoadBenchmark() {}
+
+    public static void main(final String[] args) throws Exception {
+        if (args.length == 2) {
+            runOne(args[0], Integer.parseInt(args[1]));
+            return;
+        }
+        System.out.printf("%-9s %11s %9s %14s %22s%n", "threads", "concurrency", "pages/s", "peak RSS (MB)", "peak platform threads");
+        for (String mode : List.of("platform", "virtual")) {
+            if ("virtual".equals(mode) && !ExecutorFactory.isVirtualThreadsSupported()) {
+                System.out.println("virtual threads need Java 21 or later; skipped");
+                continue;
+            }
+            for (int concurrency : CONCURRENCY) {
+                System.out.println(runInFreshJvm(mode, concurrency));
+            }
+        }
+    }
+
+    private static String runInFreshJvm(final String mode, final int concurrency) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(ProcessHandle.current().info().command().orElse("java"));
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add("-Dorg.slf4j.simpleLogger.defaultLogLevel=warn");
+        command.add(CrawlLoadBenchmark.class.getName());
+        command.add(mode);
+        command.add(Integer.toString(concurrency));
+        Process process = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.DISCARD).start();
+        String result = "";
+        try (BufferedReader out = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            for (String line = out.readLine(); line != null; line = out.readLine()) {
+                if (line.startsWith(RESULT)) {
+                    result = line.substring(RESULT.length());
+                }
+            }
+        }
+        process.waitFor();
+        return result.isEmpty() ? String.format("%-9s %11d failed (exit %d)", mode, concurrency, process.exitValue()) : result;
+    }
+
+    private static void runOne(final String mode, final int concurrency) throws Exception {
+        configure(concurrency);
+        int pages = Math.max(MIN_PAGES, PAGES_PER_SLOT * concurrency);
+        AtomicInteger served = new AtomicInteger();
+        ScheduledExecutorService delays = Executors.newScheduledThreadPool(2);
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 4096);
+        server.createContext("/", exchange -> {
+            served.incrementAndGet();
+            delays.schedule(() -> sendHead(exchange, pages, delays), HEADER_DELAY_MS, TimeUnit.MILLISECONDS);
+        });
+        server.start();
+        ExecutorService executor = ExecutorFactory.newCrawlExecutor("virtual".equals(mode));
+        try {
+            CrawlerDao dao = new CrawlerDao();
+            CrawlerHandler handler = new CrawlerHandler(dao, executor, new AsyncHtmlFetcher(executor));
+            Crawler crawler = dao.create(List.of("lorem"));
+            String seed = "http://127.0.0.1:" + server.getAddress().getPort() + "/";
+            long start = System.nanoTime();
+            executor.submit(() -> handler.crawlResource(seed, crawler.getId())).get();
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf(
+                    "%s%-9s %11d %9.0f %14d %22d%n",
+                    RESULT,
+                    mode,
+                    concurrency,
+                    served.get() / seconds,
+                    peakRssMegabytes(),
+                    ManagementFactory.getThreadMXBean().getPeakThreadCount());
+        } finally {
+            executor.shutdownNow();
+            server.stop(0);
+            delays.shutdownNow();
+        }
+    }
+
+    private static void configure(final int concurrency) {
+        String slots = Integer.toString(concurrency);
+        System.setProperty("CRAWLER_MAX_CONCURRENCY", slots);
+        System.setProperty("HOST_MAX_IN_FLIGHT", slots);
+        System.setProperty("HOST_BURST", slots);
+        System.setProperty("HOST_REQUESTS_PER_SECOND", "1000000");
+        System.setProperty("HOST_MIN_DELAY_MS", "0");
+        System.setProperty("FETCH_TIMEOUT_MS", "60000");
+    }
+
+    /** Sends the headers and the first half of the page, and schedules the rest. */
+    private static void sendHead(final HttpExchange exchange, final int pages, final ScheduledExecutorService delays) {
+        try {
+            byte[] html = page(exchange.getRequestURI().getPath(), pages);
+            exchange.getResponseHeaders().set("Content-Type", "text/html; charset=utf-8");
+            exchange.sendResponseHeaders(200, html.length);
+            OutputStream body = exchange.getResponseBody();
+            body.write(html, 0, html.length / 2);
+            body.flush();
+            delays.schedule(() -> sendTail(exchange, html), BODY_DELAY_MS, TimeUnit.MILLISECONDS);
+        } catch (IOException e) {
+            exchange.close();
+        }
+    }
+
+    private static void sendTail(final HttpExchange exchange, final byte[] html) {
+        try (OutputStream body = exchange.getResponseBody()) {
+            body.write(html, html.length / 2, html.length - html.length / 2);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** Page {@code n} links to pages {@code 50n + 1} to {@code 50n + 50}, up to the size of the site. */
+    private static byte[] page(final String path, final int pages) {
+        int n = path.startsWith("/p/") ? Integer.parseInt(path.substring("/p/".length())) : 0;
+        StringBuilder html = new StringBuilder("<html><body>\n").append(PADDING);
+        for (int child = n * FAN_OUT + 1; child <= n * FAN_OUT + FAN_OUT && child < pages; child++) {
+            html.append("<a href=\"/p/").append(child).append("\">page ").append(child).append("</a>\n");
+        }
+        return html.append("</body></html>").toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static long peakRssMegabytes() throws IOException {
+        Path status = Path.of("/proc/self/status");
+        if (!Files.exists(status)) {
+            return -1;
+        }
+        for (String line : Files.readAllLines(status)) {
+            if (line.startsWith("VmHWM:")) {
+                return Long.parseLong(line.replaceAll("\\D", "")) / 1024;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,95 @@
+package space.lasf.sparkjava.helper;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the single-keyword search strategies over pages of 10KB to 5MB of text, fed in 8KB chunks as the
+ * streaming fetcher does. The keyword occurs once, near the end of the page.
+ * <p>
+ * Run with {@code mvn -P simd,benchmark test-compile exec:exec -Djmh.args=KeywordSearchBenchmark}; without the
+ * {@code simd} profile the vectorized case falls back to the skip table.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class KeywordSearchBenchmark {
+
+    private static final String KEYWORD = "SparkJava";
+    private static final int CHUNK = 8192;
+    private static final String WORDS =
+            "the quick brown fox jumps over a lazy dog while spark plugs and java beans are sold at the market ";
+
+    @Param({"10240", "102400", "1048576", "5242880"})
+    private int pageSize;
+
+    private char[] page;
+    private String pageText;
+    private KeywordMatcher ahoCorasick;
+    private KeywordMatcher horspool;
+    private KeywordMatcher horspoolVector;
+
+    @Setup
+    public void setUp() {
+        StringBuilder text = new StringBuilder(pageSize);
+        Random random = new Random(1);
+        while (text.length() < pageSize - KEYWORD.length() - WORDS.length()) {
+            int start = random.nextInt(WORDS.length() / 2);
+            text.append(WORDS, start, start + WORDS.length() / 2);
+        }
+        text.append("sparkjava");
+        while (text.length() < pageSize) {
+            text.append(' ');
+        }
+        pageText = text.toString();
+        page = pageText.toCharArray();
+        ahoCorasick = new AhoCorasickMatcher(List.of(KEYWORD));
+        horspool = new HorspoolMatcher(KEYWORD, null);
+        horspoolVector = new HorspoolMatcher(KEYWORD, HorspoolMatcher.loadFilter(true));
+    }
+
+    /** The search the crawler started with: lower-case the whole page, then {@code String.contains}. */
+    @Benchmark
+    public boolean lowerCaseContains() {
+        return pageText.toLowerCase(Locale.ROOT).contains(KEYWORD.toLowerCase(Locale.ROOT));
+    }
+
+    @Benchmark
+    public boolean ahoCorasick() {
+        return scan(ahoCorasick);
+    }
+
+    @Benchmark
+    public boolean horspool() {
+        return scan(horspool);
+    }
+
+    @Benchmark
+    public boolean horspoolVector() {
+        return scan(horspoolVector);
+    }
+
+    private boolean scan(final KeywordMatcher matcher) {
+        KeywordMatcher.Scan scan = matcher.newScan();
+        for (int offset = 0; offset < page.length; offset += CHUNK) {
+            scan.feed(page, offset, Math.min(CHUNK, page.length - offset));
+        }
+        return scan.isFound();
+    }
+}
@@ -0,0 +1,80 @@
+package space.lasf.sparkjava.helper;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compares {@link UrlCanonicalizer} with the {@code java.net.URI} based resolution it replaced, over the links
+ * of a typical page.
+ * <p>
+ * Run with {@code mvn -P benchmark test-compile exec:exec}; add {@code -Djmh.args="-prof gc"} to report
+ * allocations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UrlCanonicalizerBenchmark {
+
+    private static final String BASE_URL = "https://www.example.com/docs/guide/index.html";
+
+    private static final String[] LINKS = {
+        "getting-started.html",
+        "./install.html#linux",
+        "../api/overview.html",
+        "/blog/2024/05/release-notes?utm_source=docs",
+        "https://www.example.com/docs/guide/faq.html",
+        "HTTPS://WWW.EXAMPLE.COM:443/Docs/Guide/",
+        "//cdn.example.com/assets/app.js",
+        "#top",
+        "search?q=web+crawler&page=2",
+        "../../../about/team/../careers.html",
+        "/%7Eadmin/%2e%2e/settings",
+        "page with spaces.html"
+    };
+
+    private final UrlCanonicalizer.Base base = UrlCanonicalizer.parseBase(BASE_URL);
+
+    @Benchmark
+    public void canonicalizer(final Blackhole blackhole) {
+        for (String link : LINKS) {
+            blackhole.consume(UrlCanonicalizer.resolve(base, link));
+        }
+    }
+
+    @Benchmark
+    public void uriResolve(final Blackhole blackhole) {
+        for (String link : LINKS) {
+            blackhole.consume(resolveWithUri(BASE_URL, link));
+        }
+    }
+
+    /** The former {@code HtmlFetcher.resolve}. */
+    private static String resolveWithUri(final String baseUrl, final String link) {
+        try {
+            URI resolvedUri = new URI(baseUrl).resolve(link);
+            return new URI(
+                            resolvedUri.getScheme(),
+                            resolvedUri.getAuthority(),
+                            resolvedUri.getPath(),
+                            resolvedUri.getQuery(),
+                            null)
+                    .toString();
+        } catch (URISyntaxException | IllegalArgumentException e) {
+            return "";
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package space.lasf.sparkjava.helper;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the {@link VisitedSet} implementations: the throughput of {@code add} for new and for already seen
+ * URLs with 4 threads, and (from {@link #main(String[])}) the heap retained per URL.
+ * <p>
+ * Run the throughput benchmarks with {@code mvn -P benchmark test-compile exec:exec -Djmh.args=VisitedSetBenchmark}
+ * and the memory measurement with
+ * {@code mvn -P benchmark test-compile exec:exec -Dbenchmark.main=space.lasf.sparkjava.helper.VisitedSetBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class VisitedSetBenchmark {
+
+    private static final int PRELOADED = 1_000_000;
+    private static final int[] MEMORY_SIZES = {1_000_000, 5_000_000};
+
+    @Param({"exact", "hash", "bloom"})
+    private String mode;
+
+    private VisitedSet visited;
+    private final AtomicLong next = new AtomicLong();
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        visited = VisitedSet.create(mode, BloomVisitedSet.DEFAULT_FALSE_POSITIVE_RATE);
+        for (int i = 0; i < PRELOADED; i++) {
+            visited.add(url(i));
+        }
+        next.set(PRELOADED);
+    }
+
+    @Benchmark
+    public boolean addNew() {
+        return visited.add(url(next.getAndIncrement()));
+    }
+
+    @Benchmark
+    public boolean addSeen() {
+        return visited.add(url(ThreadLocalRandom.current().nextInt(PRELOADED)));
+    }
+
+    /**
+     * Prints the heap retained per URL by each implementation.
+     *
+     * @param args Unused.
+     */
+    public static void main(final String[] args) {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        System.out.printf("%-6s %10s %14s%n", "mode", "URLs", "bytes per URL");
+        for (int size : MEMORY_SIZES) {
+            for (String mode : new String[] {"exact", "hash", "bloom"}) {
+                long before = usedHeap(memory);
+                VisitedSet visited = VisitedSet.create(mode, BloomVisitedSet.DEFAULT_FALSE_POSITIVE_RATE);
+                for (int i = 0; i < size; i++) {
+                    visited.add(url(i));
+                }
+                long retained = usedHeap(memory) - before;
+                System.out.printf("%-6s %10d %14.1f%n", mode, visited.size(), (double) retained / size);
+            }
+        }
+    }
+
+    private static long usedHeap(final MemoryMXBean memory) {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+
+    /** A URL shaped like those of a large catalogue site, about 70 characters long. */
+    private static String url(final long i) {
+        return "https://www.example-shop.com/catalog/category-" + (i % 997) + "/product-" + i + "?ref=list&page="
+                + (i % 50);
+    }
+}
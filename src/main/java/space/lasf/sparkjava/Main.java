@@ -1,10 +1,7 @@
 package space.lasf.sparkjava;
 
-import static spark.Spark.port;
-
 import java.util.Optional;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -15,7 +12,10 @@ import space.lasf.sparkjava.dao.DaoInterface;
 import space.lasf.sparkjava.dto.CrawlerDto;
 import space.lasf.sparkjava.entity.Crawler;
 import space.lasf.sparkjava.handler.CrawlerHandler;
+import space.lasf.sparkjava.helper.AsyncHtmlFetcher;
+import space.lasf.sparkjava.helper.ExecutorFactory;
 import space.lasf.sparkjava.route.ApiRoutes;
+import spark.Service;
 
 /**
  * Main application class for the web crawler service.
@@ -29,15 +29,17 @@ public class Main {
 
     private final ControllerInterface<CrawlerDto> crawlerController;
     private final ExecutorService executorService;
+    private final CrawlerHandler crawlerHandler;
 
     public Main() {
-        // Using a cached thread pool is more efficient than creating a new thread for each request.
-        this.executorService = Executors.newCachedThreadPool();
+        // A cached thread pool, or one virtual thread per task with CRAWLER_VIRTUAL_THREADS=true on Java 21+.
+        this.executorService = ExecutorFactory.newCrawlExecutor();
 
         // --- Dependency Injection ---
         // Create and wire the application components.
         DaoInterface<Crawler> crawlerDao = new CrawlerDao();
-        CrawlerHandler crawlerHandler = new CrawlerHandler(crawlerDao, this.executorService);
+        AsyncHtmlFetcher fetcher = new AsyncHtmlFetcher(this.executorService);
+        this.crawlerHandler = new CrawlerHandler(crawlerDao, this.executorService, fetcher);
         this.crawlerController = new CrawlerControllerImpl(crawlerDao, crawlerHandler);
     }
 
@@ -50,17 +52,25 @@ public class Main {
         int serverPort = Optional.ofNullable(System.getenv(ENV_PORT))
                 .map(Integer::parseInt)
                 .orElse(DEFAULT_PORT);
-        port(serverPort);
+        Service http = Service.ignite().port(serverPort);
         LOG.info("Server started on port {}", serverPort);
 
-        ApiRoutes.defineRoutes(this.crawlerController, executorService);
+        ApiRoutes.defineRoutes(http, this.crawlerController, executorService);
+
+        // Jobs interrupted by the previous shutdown, if CRAWLER_CHECKPOINT_DIR is set.
+        int resumed = crawlerHandler.resumeFromCheckpoints();
+        if (resumed > 0) {
+            LOG.info("Resumed {} crawl jobs from their checkpoints", resumed);
+        }
 
         addShutdownHook();
     }
 
     private void addShutdownHook() {
         Runtime.getRuntime().addShutdownHook(new Thread(() -> {
-            LOG.info("Shutdown hook initiated. Shutting down ExecutorService...");
+            LOG.info("Shutdown hook initiated. Checkpointing running jobs...");
+            crawlerHandler.closeCheckpoints();
+            LOG.info("Shutting down ExecutorService...");
             executorService.shutdown(); // Disable new tasks from being submitted
             try {
                 // Wait a while for existing tasks to terminate
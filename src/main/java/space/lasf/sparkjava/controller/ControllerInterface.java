@@ -1,6 +1,12 @@
 package space.lasf.sparkjava.controller;
 
 import java.util.List;
+import space.lasf.sparkjava.dto.ClusterBatchDto;
+import space.lasf.sparkjava.dto.ClusterJobDto;
+import space.lasf.sparkjava.dto.ClusterStatusDto;
+import space.lasf.sparkjava.dto.CrawlRequestDto;
+import space.lasf.sparkjava.dto.PipelineStageDto;
+import space.lasf.sparkjava.dto.ScheduleDto;
 import space.lasf.sparkjava.exception.InvalidRequestException;
 import space.lasf.sparkjava.exception.ResourceNotFoundException;
 
@@ -11,7 +17,7 @@ import space.lasf.sparkjava.exception.ResourceNotFoundException;
 public interface ControllerInterface<T> {
 
     /**
-     * Initiates the processing for a given resource in the background.
+     * Initiates the processing for a given resource in the background, without waiting for it.
      *
      * @param base The base value to start processing from.
      * @param id The ID of resource that should be processed.
@@ -27,6 +33,15 @@ public interface ControllerInterface<T> {
      */
     T create(final String keyword);
 
+    /**
+     * Validates a parsed request and creates a new resource from it.
+     *
+     * @param request The parsed creation request.
+     * @return The newly created object instance.
+     * @throws InvalidRequestException if the request is invalid.
+     */
+    T createFromRequest(final CrawlRequestDto request);
+
     /**
      * Finds a resource by its ID and returns its data transfer object.
      *
@@ -36,10 +51,91 @@ public interface ControllerInterface<T> {
      */
     T findById(final String id);
 
+    /**
+     * Cancels the processing of a resource, keeping the partial results, and returns its data transfer object.
+     * Cancelling a resource that is no longer being processed leaves it unchanged.
+     *
+     * @param id The ID of the resource.
+     * @return A {@link T} representing the state of the resource.
+     * @throws ResourceNotFoundException if no resource with the given ID is found.
+     */
+    T cancel(final String id);
+
     /**
      * Retrieves all resources.
      *
      * @return A list of {@link T} objects for all resources.
      */
     List<T> findAll();
+
+    /**
+     * Retrieves the load of every stage of the processing pipeline, shared by all resources.
+     *
+     * @return A list of {@link PipelineStageDto} objects, in pipeline order.
+     */
+    List<PipelineStageDto> findPipelineStages();
+
+    /**
+     * Finds a recurring resource by its ID and returns its schedule.
+     *
+     * @param id The ID of the recurring resource, which is the ID of its first run.
+     * @return A {@link ScheduleDto} representing the schedule and its runs.
+     * @throws ResourceNotFoundException if no recurring resource with the given ID is found.
+     */
+    ScheduleDto findSchedule(final String id);
+
+    /**
+     * Stops a recurring resource from starting new runs, and returns its schedule. A run in progress goes on.
+     *
+     * @param id The ID of the recurring resource.
+     * @return A {@link ScheduleDto} representing the schedule, no longer active.
+     * @throws ResourceNotFoundException if no recurring resource with the given ID is found.
+     */
+    ScheduleDto cancelSchedule(final String id);
+
+    /**
+     * Takes part in a resource coordinated by another node of the cluster.
+     *
+     * @param job The resource, as described by its coordinator.
+     * @return A {@link ClusterStatusDto} representing the state of the resource on this node.
+     * @throws InvalidRequestException if the description is invalid, or this node is not part of a cluster.
+     */
+    ClusterStatusDto joinClusterJob(final ClusterJobDto job);
+
+    /**
+     * Takes a batch sent by another node of the cluster for a resource.
+     *
+     * @param id    The ID of the resource.
+     * @param batch The URLs this node owns and the pages crawled by the sender.
+     * @return A {@link ClusterStatusDto} representing the state of the resource on this node.
+     * @throws ResourceNotFoundException if this node takes no part in the resource.
+     */
+    ClusterStatusDto acceptClusterBatch(final String id, final ClusterBatchDto batch);
+
+    /**
+     * Finds the state of a clustered resource on this node.
+     *
+     * @param id The ID of the resource.
+     * @return A {@link ClusterStatusDto} representing the state of the resource on this node.
+     * @throws ResourceNotFoundException if this node takes no part in the resource.
+     */
+    ClusterStatusDto findClusterStatus(final String id);
+
+    /**
+     * Ends a clustered resource on this node, once its coordinator finds it over everywhere.
+     *
+     * @param id The ID of the resource.
+     * @return A {@link ClusterStatusDto} representing the last state of the resource on this node.
+     * @throws ResourceNotFoundException if this node takes no part in the resource.
+     */
+    ClusterStatusDto finishClusterJob(final String id);
+
+    /**
+     * Cancels a clustered resource on this node, once its coordinator has stopped it.
+     *
+     * @param id The ID of the resource.
+     * @return A {@link ClusterStatusDto} representing the last state of the resource on this node.
+     * @throws ResourceNotFoundException if this node takes no part in the resource.
+     */
+    ClusterStatusDto cancelClusterJob(final String id);
 }
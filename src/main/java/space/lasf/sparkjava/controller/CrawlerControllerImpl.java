@@ -1,16 +1,36 @@
 package space.lasf.sparkjava.controller;
 
+import java.time.Duration;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
+import java.util.regex.Pattern;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import space.lasf.sparkjava.dao.DaoInterface;
+import space.lasf.sparkjava.dto.ClusterBatchDto;
+import space.lasf.sparkjava.dto.ClusterJobDto;
+import space.lasf.sparkjava.dto.ClusterStatusDto;
+import space.lasf.sparkjava.dto.CrawlRequestDto;
 import space.lasf.sparkjava.dto.CrawlerDto;
+import space.lasf.sparkjava.dto.PipelineStageDto;
+import space.lasf.sparkjava.dto.ScheduleDto;
+import space.lasf.sparkjava.entity.CrawlBudget;
+import space.lasf.sparkjava.entity.CrawlOptions;
+import space.lasf.sparkjava.entity.CrawlTarget;
 import space.lasf.sparkjava.entity.Crawler;
+import space.lasf.sparkjava.entity.FrontierLimits;
+import space.lasf.sparkjava.entity.FrontierOrder;
+import space.lasf.sparkjava.entity.Priority;
 import space.lasf.sparkjava.exception.InvalidRequestException;
 import space.lasf.sparkjava.exception.ResourceNotFoundException;
 import space.lasf.sparkjava.handler.CrawlerHandler;
+import space.lasf.sparkjava.helper.ClusterMapper;
 import space.lasf.sparkjava.helper.CrawlerMapper;
+import space.lasf.sparkjava.helper.CronExpression;
+import space.lasf.sparkjava.helper.UrlCanonicalizer;
 
 /**
  * Controller responsible for handling web requests related to crawling.
@@ -21,7 +41,21 @@ public class CrawlerControllerImpl implements ControllerInterface<CrawlerDto> {
     private static final Logger LOGGER = LoggerFactory.getLogger(CrawlerControllerImpl.class);
     private static final int MIN_KEYWORD_LENGTH = 4;
     private static final int MAX_KEYWORD_LENGTH = 32;
+    private static final int MAX_KEYWORDS = 32;
+    private static final int MAX_SEEDS = 100;
+    private static final int MAX_WEIGHT = 100;
+    private static final int MAX_CONCURRENCY = 256;
+    private static final int MIN_FRONTIER_MEMORY_URLS = 100;
+    private static final int MAX_FRONTIER_MEMORY_URLS = 10_000_000;
+    private static final int MAX_FRONTIER_DISK_MB = 1_048_576;
+    private static final long BYTES_PER_MB = 1_048_576L;
     private static final int ID_LENGTH = 8;
+    private static final Pattern SECONDS = Pattern.compile("\\d+");
+    private static final String MAX_DURATION_MESSAGE =
+            "The maxDuration must be a positive number of seconds or an ISO-8601 duration such as PT10M.";
+    private static final Duration MIN_INTERVAL = Duration.ofMinutes(1);
+    private static final String EVERY_MESSAGE =
+            "The every must be at least 60 seconds, as a number of seconds or an ISO-8601 duration such as PT1H.";
 
     private final DaoInterface<Crawler> dao;
     private final CrawlerHandler crawlerHandler;
@@ -38,15 +72,16 @@ public class CrawlerControllerImpl implements ControllerInterface<CrawlerDto> {
     }
 
     /**
-     * Initiates the crawling process for a given request in the background.
+     * Initiates the crawling process for a given request in the background. The crawl runs on the shared stages
+     * of the crawl pipeline, so this returns as soon as it is started.
      *
-     * @param crawlerUrl The base URL to start crawling from.
+     * @param crawlerUrl The base URL to start crawling from, unless the job names seed URLs of its own.
      * @param id The ID of the crawl request used on processing.
      */
     @Override
     public void process(final String crawlerUrl, final String id) {
         LOGGER.info("Starting crawl for request ID: {}", id);
-        crawlerHandler.crawlResource(crawlerUrl, id);
+        crawlerHandler.startCrawl(crawlerUrl, id);
         LOGGER.info("Crawl process submitted for request ID: {}", id);
     }
 
@@ -59,15 +94,215 @@ public class CrawlerControllerImpl implements ControllerInterface<CrawlerDto> {
      */
     @Override
     public CrawlerDto create(final String keyword) {
+        validateKeyword(keyword);
+
+        Crawler request = dao.create(keyword);
+        return CrawlerMapper.toCrawlerDto(request);
+    }
+
+    /**
+     * Validates the keywords of a request and creates a new crawl request searching for all of them at once.
+     * The optional priority class ({@code interactive}, {@code normal} or {@code bulk}), weight (1 to 100) and
+     * concurrency cap (1 to 256) decide how the job shares the fetch slots with the other jobs. The optional
+     * {@code maxPages}, {@code maxDepth}, {@code maxDuration} (seconds or an ISO-8601 duration such as
+     * {@code PT10M}), {@code maxBytes} and {@code stopAfterHits} limits make up the budget the job stops at.
+     * With {@code every} (an interval of at least 60 seconds) or {@code cron} (a five-field cron expression) the
+     * job is the first run of a recurring crawl, whose ID is the ID of the job. With {@code seeds} (1 to 100
+     * absolute URLs) the job crawls from those URLs rather than from the server {@code BASE_URL}, within the
+     * URL prefixes of its {@code scope} (1 to 100, each seed by default).
+     *
+     * @param request The parsed request. Must hold 1 to 32 keywords, each between 4 and 32 characters.
+     * @return The newly created Crawler instance.
+     * @throws InvalidRequestException if the request, one of its keywords, its scheduling options, its limits,
+     *     its schedule, its seeds or its scope are invalid.
+     */
+    @Override
+    public CrawlerDto createFromRequest(final CrawlRequestDto request) {
+        List<String> keywords = request == null ? null : request.getKeywords();
+        if (keywords == null || keywords.isEmpty() || keywords.size() > MAX_KEYWORDS) {
+            throw new InvalidRequestException("A crawl must search for between 1 and 32 keywords.");
+        }
+        keywords.forEach(CrawlerControllerImpl::validateKeyword);
+        Duration every = toInterval(request.getEvery());
+        CronExpression cron = toCron(request.getCron());
+        if (every != null && cron != null) {
+            throw new InvalidRequestException("A recurring crawl takes either every or cron, not both.");
+        }
+
+        CrawlTarget target = toTarget(request);
+        Crawler crawler = target == null
+                ? dao.create(keywords, toOptions(request), toBudget(request))
+                : dao.create(keywords, toOptions(request), toBudget(request), target);
+        if (every != null || cron != null) {
+            crawlerHandler.schedule(crawler, every, cron);
+        }
+        return CrawlerMapper.toCrawlerDto(crawler);
+    }
+
+    private static CrawlTarget toTarget(final CrawlRequestDto request) {
+        if (request.getSeeds() == null || request.getSeeds().isEmpty()) {
+            if (request.getScope() != null && !request.getScope().isEmpty()) {
+                throw new InvalidRequestException("A scope needs seeds to crawl from.");
+            }
+            return null;
+        }
+        List<String> seeds = toUrls(request.getSeeds(), "seeds");
+        List<String> scope = request.getScope() == null || request.getScope().isEmpty()
+                ? seeds
+                : toUrls(request.getScope(), "scope");
+        for (String seed : seeds) {
+            if (scope.stream().noneMatch(seed::startsWith)) {
+                throw new InvalidRequestException("Every seed must be within the scope: " + seed);
+            }
+        }
+        return new CrawlTarget(seeds, scope);
+    }
+
+    /** Puts a list of URLs in canonical form, without duplicates. */
+    private static List<String> toUrls(final List<String> urls, final String name) {
+        if (urls.size() > MAX_SEEDS) {
+            throw new InvalidRequestException("The " + name + " must hold between 1 and 100 URLs.");
+        }
+        List<String> canonical = new ArrayList<>();
+        for (String url : urls) {
+            String value = url == null ? null : UrlCanonicalizer.canonicalize(url);
+            if (value == null) {
+                throw new InvalidRequestException("The " + name + " must be absolute http or https URLs.");
+            }
+            if (!canonical.contains(value)) {
+                canonical.add(value);
+            }
+        }
+        return canonical;
+    }
+
+    private static CrawlOptions toOptions(final CrawlRequestDto request) {
+        int weight = Optional.ofNullable(request.getWeight()).orElse(CrawlOptions.DEFAULT_WEIGHT);
+        if (weight < 1 || weight > MAX_WEIGHT) {
+            throw new InvalidRequestException("The weight must be between 1 and 100.");
+        }
+        int maxConcurrency = Optional.ofNullable(request.getMaxConcurrency()).orElse(0);
+        if (request.getMaxConcurrency() != null && (maxConcurrency < 1 || maxConcurrency > MAX_CONCURRENCY)) {
+            throw new InvalidRequestException("The maxConcurrency must be between 1 and 256.");
+        }
+        return new CrawlOptions(
+                toPriority(request.getPriority()),
+                weight,
+                maxConcurrency,
+                toFrontierLimits(request),
+                toFrontierOrder(request.getFrontierOrder()));
+    }
+
+    private static FrontierLimits toFrontierLimits(final CrawlRequestDto request) {
+        int memoryUrls = Optional.ofNullable(request.getFrontierMemoryUrls()).orElse(0);
+        if (request.getFrontierMemoryUrls() != null
+                && (memoryUrls < MIN_FRONTIER_MEMORY_URLS || memoryUrls > MAX_FRONTIER_MEMORY_URLS)) {
+            throw new InvalidRequestException("The frontierMemoryUrls must be between 100 and 10000000.");
+        }
+        int diskMb = Optional.ofNullable(request.getFrontierDiskMb()).orElse(0);
+        if (request.getFrontierDiskMb() != null && (diskMb < 1 || diskMb > MAX_FRONTIER_DISK_MB)) {
+            throw new InvalidRequestException("The frontierDiskMb must be between 1 and 1048576.");
+        }
+        return new FrontierLimits(memoryUrls, diskMb * BYTES_PER_MB);
+    }
+
+    private static CrawlBudget toBudget(final CrawlRequestDto request) {
+        long maxPages = positiveLimit(request.getMaxPages(), "maxPages");
+        long maxBytes = positiveLimit(request.getMaxBytes(), "maxBytes");
+        long stopAfterHits = positiveLimit(request.getStopAfterHits(), "stopAfterHits");
+        int maxDepth = Optional.ofNullable(request.getMaxDepth()).orElse((int) CrawlBudget.UNLIMITED);
+        if (request.getMaxDepth() != null && maxDepth < 0) {
+            throw new InvalidRequestException("The maxDepth cannot be negative.");
+        }
+        return new CrawlBudget(maxPages, maxDepth, toDurationMillis(request.getMaxDuration()), maxBytes, stopAfterHits);
+    }
+
+    private static long positiveLimit(final Long value, final String name) {
+        if (value == null) {
+            return CrawlBudget.UNLIMITED;
+        }
+        if (value < 1) {
+            throw new InvalidRequestException("The " + name + " must be at least 1.");
+        }
+        return value;
+    }
+
+    private static long toDurationMillis(final String maxDuration) {
+        if (maxDuration == null) {
+            return CrawlBudget.UNLIMITED;
+        }
+        return toDuration(maxDuration, MAX_DURATION_MESSAGE).toMillis();
+    }
+
+    private static Duration toInterval(final String every) {
+        if (every == null) {
+            return null;
+        }
+        Duration interval = toDuration(every, EVERY_MESSAGE);
+        if (interval.compareTo(MIN_INTERVAL) < 0) {
+            throw new InvalidRequestException(EVERY_MESSAGE);
+        }
+        return interval;
+    }
+
+    /** Parses a positive duration given in seconds or in ISO-8601 form. */
+    private static Duration toDuration(final String text, final String message) {
+        Duration duration;
+        try {
+            String value = text.trim();
+            duration = SECONDS.matcher(value).matches()
+                    ? Duration.ofSeconds(Long.parseLong(value))
+                    : Duration.parse(value.toUpperCase(Locale.ROOT));
+        } catch (DateTimeParseException | ArithmeticException | NumberFormatException e) {
+            throw new InvalidRequestException(message, e);
+        }
+        if (duration.isNegative() || duration.isZero()) {
+            throw new InvalidRequestException(message);
+        }
+        return duration;
+    }
+
+    private static CronExpression toCron(final String cron) {
+        if (cron == null) {
+            return null;
+        }
+        try {
+            return CronExpression.parse(cron);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidRequestException(
+                    "The cron must be a valid five-field cron expression: " + e.getMessage(), e);
+        }
+    }
+
+    private static Priority toPriority(final String priority) {
+        if (priority == null) {
+            return CrawlOptions.defaults().getPriority();
+        }
+        try {
+            return Priority.valueOf(priority.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidRequestException("The priority must be one of interactive, normal or bulk.", e);
+        }
+    }
+
+    private static FrontierOrder toFrontierOrder(final String order) {
+        if (order == null) {
+            return null;
+        }
+        try {
+            return FrontierOrder.parse(order);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidRequestException("The frontierOrder must be fifo or best-first.", e);
+        }
+    }
+
+    private static void validateKeyword(final String keyword) {
         if (keyword == null
                 || keyword.isBlank()
                 || keyword.length() < MIN_KEYWORD_LENGTH
                 || keyword.length() > MAX_KEYWORD_LENGTH) {
             throw new InvalidRequestException("The keyword must be between 4 and 32 characters.");
         }
-
-        Crawler request = dao.create(keyword);
-        return CrawlerMapper.toCrawlerDto(request);
     }
 
     /**
@@ -79,13 +314,170 @@ public class CrawlerControllerImpl implements ControllerInterface<CrawlerDto> {
      */
     @Override
     public CrawlerDto findById(final String id) {
-        if (id == null || id.isBlank() || id.length() != ID_LENGTH) {
-            throw new InvalidRequestException("The id must be have 8 characters.");
-        }
+        validateId(id);
         LOGGER.info("Finding request by ID: {}", id);
         return Optional.ofNullable(dao.findById(id))
                 .map(CrawlerMapper::toCrawlerDto)
-                .orElseThrow(() -> new ResourceNotFoundException("Crawl request with ID '" + id + "' not found."));
+                .orElseThrow(() -> notFound(id));
+    }
+
+    /**
+     * Cancels a crawl request: it stops fetching at once, gives its fetch slots back and keeps the URLs and hits
+     * found so far. A crawl that has already finished is left unchanged.
+     *
+     * @param id The ID of the crawl request.
+     * @return A {@link CrawlerDto} representing the state of the crawl, CANCELLED if it was still active.
+     * @throws ResourceNotFoundException if no crawl with the given ID is found.
+     */
+    @Override
+    public CrawlerDto cancel(final String id) {
+        validateId(id);
+        Crawler crawler = Optional.ofNullable(dao.findById(id)).orElseThrow(() -> notFound(id));
+        if (crawlerHandler.cancel(id)) {
+            LOGGER.info("Cancelled request ID: {}", id);
+        }
+        return CrawlerMapper.toCrawlerDto(crawler);
+    }
+
+    /**
+     * Finds a recurring crawl by its ID and returns its schedule, with the IDs of its runs.
+     *
+     * @param id The ID of the recurring crawl, which is the ID of its first run.
+     * @return A {@link ScheduleDto} representing the recurring crawl.
+     * @throws ResourceNotFoundException if no recurring crawl with the given ID is found.
+     */
+    @Override
+    public ScheduleDto findSchedule(final String id) {
+        validateId(id);
+        return Optional.ofNullable(crawlerHandler.findSchedule(id))
+                .map(CrawlerMapper::toScheduleDto)
+                .orElseThrow(() -> scheduleNotFound(id));
+    }
+
+    /**
+     * Stops a recurring crawl from starting new runs. A run in progress goes on, and can be cancelled on its own.
+     *
+     * @param id The ID of the recurring crawl.
+     * @return A {@link ScheduleDto} representing the recurring crawl, no longer active.
+     * @throws ResourceNotFoundException if no recurring crawl with the given ID is found.
+     */
+    @Override
+    public ScheduleDto cancelSchedule(final String id) {
+        validateId(id);
+        return Optional.ofNullable(crawlerHandler.cancelSchedule(id))
+                .map(CrawlerMapper::toScheduleDto)
+                .orElseThrow(() -> scheduleNotFound(id));
+    }
+
+    /**
+     * Takes part in a crawl coordinated by another node of the cluster: the job is stored under the ID the
+     * coordinator gave it, and this node starts crawling the URLs it owns.
+     *
+     * @param job The job, as described by its coordinator.
+     * @return A {@link ClusterStatusDto} representing the state of the job on this node.
+     * @throws InvalidRequestException if the description is invalid, its coordinator is not a node of the cluster,
+     *                                 or this node is not part of a cluster.
+     */
+    @Override
+    public ClusterStatusDto joinClusterJob(final ClusterJobDto job) {
+        if (job == null || job.getBaseUrl() == null || job.getCoordinator() == null) {
+            throw new InvalidRequestException("A clustered job needs an id, a baseUrl, a coordinator and keywords.");
+        }
+        validateId(job.getId());
+        try {
+            return Optional.ofNullable(crawlerHandler.joinCluster(
+                            ClusterMapper.toCrawler(job), job.getBaseUrl(), job.getCoordinator()))
+                    .map(status -> ClusterMapper.toClusterStatusDto(job.getId(), status))
+                    .orElseThrow(() -> new InvalidRequestException("This instance is not part of a cluster."));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidRequestException("Invalid clustered job: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Takes a batch sent by another node of the cluster: the URLs this node owns are queued, and the pages the
+     * sender crawled for a job this node coordinates are recorded.
+     *
+     * @param id    The ID of the job.
+     * @param batch The URLs and the page reports.
+     * @return A {@link ClusterStatusDto} representing the state of the job on this node.
+     * @throws ResourceNotFoundException if this node takes no part in the job.
+     */
+    @Override
+    public ClusterStatusDto acceptClusterBatch(final String id, final ClusterBatchDto batch) {
+        validateId(id);
+        if (batch == null) {
+            throw new InvalidRequestException("A batch needs urls or pages.");
+        }
+        return Optional.ofNullable(crawlerHandler.acceptClusterBatch(
+                        id, ClusterMapper.toFrontierEntries(batch), ClusterMapper.toPageReports(batch)))
+                .map(status -> ClusterMapper.toClusterStatusDto(id, status))
+                .orElseThrow(() -> clusterJobNotFound(id));
+    }
+
+    /**
+     * Finds the state of a clustered job on this node, as polled by its coordinator.
+     *
+     * @param id The ID of the job.
+     * @return A {@link ClusterStatusDto} representing the state of the job on this node.
+     * @throws ResourceNotFoundException if this node takes no part in the job.
+     */
+    @Override
+    public ClusterStatusDto findClusterStatus(final String id) {
+        validateId(id);
+        return Optional.ofNullable(crawlerHandler.findClusterStatus(id))
+                .map(status -> ClusterMapper.toClusterStatusDto(id, status))
+                .orElseThrow(() -> clusterJobNotFound(id));
+    }
+
+    /**
+     * Ends a clustered job on this node, once its coordinator finds it over everywhere: the crawl of the job
+     * ends as soon as it is idle.
+     *
+     * @param id The ID of the job.
+     * @return A {@link ClusterStatusDto} representing the last state of the job on this node.
+     * @throws ResourceNotFoundException if this node takes no part in the job.
+     */
+    @Override
+    public ClusterStatusDto finishClusterJob(final String id) {
+        return leaveClusterJob(id, false);
+    }
+
+    /**
+     * Cancels a clustered job on this node, once its coordinator has stopped it by its budget or a cancellation.
+     *
+     * @param id The ID of the job.
+     * @return A {@link ClusterStatusDto} representing the last state of the job on this node.
+     * @throws ResourceNotFoundException if this node takes no part in the job.
+     */
+    @Override
+    public ClusterStatusDto cancelClusterJob(final String id) {
+        return leaveClusterJob(id, true);
+    }
+
+    private ClusterStatusDto leaveClusterJob(final String id, final boolean cancel) {
+        validateId(id);
+        return Optional.ofNullable(crawlerHandler.leaveCluster(id, cancel))
+                .map(status -> ClusterMapper.toClusterStatusDto(id, status))
+                .orElseThrow(() -> clusterJobNotFound(id));
+    }
+
+    private static ResourceNotFoundException clusterJobNotFound(final String id) {
+        return new ResourceNotFoundException("Clustered job with ID '" + id + "' not found on this node.");
+    }
+
+    private static ResourceNotFoundException scheduleNotFound(final String id) {
+        return new ResourceNotFoundException("Recurring crawl with ID '" + id + "' not found.");
+    }
+
+    private static void validateId(final String id) {
+        if (id == null || id.isBlank() || id.length() != ID_LENGTH) {
+            throw new InvalidRequestException("The id must be have 8 characters.");
+        }
+    }
+
+    private static ResourceNotFoundException notFound(final String id) {
+        return new ResourceNotFoundException("Crawl request with ID '" + id + "' not found.");
     }
 
     /**
@@ -98,4 +490,14 @@ public class CrawlerControllerImpl implements ControllerInterface<CrawlerDto> {
         LOGGER.info("Finding all requests.");
         return CrawlerMapper.toCrawlerDtoList(dao.findAll());
     }
+
+    /**
+     * Retrieves the load of the fetch, parse and persist stages of the crawl pipeline.
+     *
+     * @return A list of {@link PipelineStageDto} objects, in pipeline order.
+     */
+    @Override
+    public List<PipelineStageDto> findPipelineStages() {
+        return CrawlerMapper.toPipelineStageDtoList(crawlerHandler.getPipelineStats());
+    }
 }
@@ -10,6 +10,9 @@ import java.util.Random;
 import java.util.concurrent.ConcurrentHashMap;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import space.lasf.sparkjava.entity.CrawlBudget;
+import space.lasf.sparkjava.entity.CrawlOptions;
+import space.lasf.sparkjava.entity.CrawlTarget;
 import space.lasf.sparkjava.entity.Crawler;
 import space.lasf.sparkjava.entity.Status;
 
@@ -40,13 +43,82 @@ public class CrawlerDao implements DaoInterface<Crawler> {
      */
     @Override
     public Crawler create(final String keyword) {
+        return create(List.of(keyword));
+    }
+
+    /**
+     * Creates a new Crawler instance searching for several keywords, initializes its state to ACTIVE, and stores it.
+     *
+     * @param keywords The keywords for the new crawl request.
+     * @return The newly created and initialized Crawler instance.
+     */
+    @Override
+    public Crawler create(final List<String> keywords) {
+        return create(keywords, CrawlOptions.defaults());
+    }
+
+    /**
+     * Creates a new Crawler instance with explicit scheduling options, initializes its state to ACTIVE,
+     * and stores it.
+     *
+     * @param keywords The keywords for the new crawl request.
+     * @param options  How the crawl shares the fetch slots with the other jobs.
+     * @return The newly created and initialized Crawler instance.
+     */
+    @Override
+    public Crawler create(final List<String> keywords, final CrawlOptions options) {
+        return create(keywords, options, CrawlBudget.unlimited());
+    }
+
+    /**
+     * Creates a new Crawler instance with explicit scheduling options and limits, initializes its state to ACTIVE,
+     * and stores it.
+     *
+     * @param keywords The keywords for the new crawl request.
+     * @param options  How the crawl shares the fetch slots with the other jobs.
+     * @param budget   The limits the crawl stops at.
+     * @return The newly created and initialized Crawler instance.
+     */
+    @Override
+    public Crawler create(final List<String> keywords, final CrawlOptions options, final CrawlBudget budget) {
+        return create(keywords, options, budget, null);
+    }
+
+    /**
+     * Creates a new Crawler instance with explicit scheduling options, limits, seed URLs and scope, initializes
+     * its state to ACTIVE, and stores it.
+     *
+     * @param keywords The keywords for the new crawl request.
+     * @param options  How the crawl shares the fetch slots with the other jobs.
+     * @param budget   The limits the crawl stops at.
+     * @param target   The seed URLs and the scope of the crawl, or {@code null} to crawl the seed URL the job is
+     *                 started with.
+     * @return The newly created and initialized Crawler instance.
+     */
+    @Override
+    public Crawler create(
+            final List<String> keywords,
+            final CrawlOptions options,
+            final CrawlBudget budget,
+            final CrawlTarget target) {
         String randomCode = generateRandomCode();
-        Crawler request = new Crawler(randomCode, keyword);
+        Crawler request = new Crawler(randomCode, keywords, options, budget, target);
         crawlerMap.put(request.getId(), request);
         LOGGER.info("Created and started new crawler with ID: {}. Total crawlers: {}", randomCode, crawlerMap.size());
         return request;
     }
 
+    /**
+     * Stores a Crawler instance recovered from a checkpoint, keeping its ID.
+     *
+     * @param crawler The restored Crawler instance.
+     */
+    @Override
+    public void restore(final Crawler crawler) {
+        crawlerMap.put(crawler.getId(), crawler);
+        LOGGER.info("Restored crawler with ID: {}. Total crawlers: {}", crawler.getId(), crawlerMap.size());
+    }
+
     @Override
     public List<Crawler> findAll() {
         // Return a copy to prevent modification of the underlying values collection
@@ -72,6 +144,11 @@ public class CrawlerDao implements DaoInterface<Crawler> {
         Optional.ofNullable(crawlerMap.get(id)).ifPresent(crawler -> crawler.addLinks(values));
     }
 
+    @Override
+    public void appendHits(final String id, final String url, final List<String> keywords) {
+        Optional.ofNullable(crawlerMap.get(id)).ifPresent(crawler -> crawler.addHits(url, keywords));
+    }
+
     private void endProcessing(final String id) {
         Optional.ofNullable(crawlerMap.get(id)).ifPresent(Crawler::endProcess);
     }
@@ -1,6 +1,9 @@
 package space.lasf.sparkjava.dao;
 
 import java.util.List;
+import space.lasf.sparkjava.entity.CrawlBudget;
+import space.lasf.sparkjava.entity.CrawlOptions;
+import space.lasf.sparkjava.entity.CrawlTarget;
 import space.lasf.sparkjava.entity.Status;
 
 /**
@@ -25,6 +28,58 @@ public interface DaoInterface<T> {
      */
     T create(final String keyword);
 
+    /**
+     * Creates a new object instance searching for several keywords, initializes its state to ACTIVE, and stores it.
+     *
+     * @param keywords The keywords used to start processing request.
+     * @return The newly created and initialized Object instance.
+     */
+    T create(final List<String> keywords);
+
+    /**
+     * Creates a new object instance searching for several keywords with explicit scheduling options,
+     * initializes its state to ACTIVE, and stores it.
+     *
+     * @param keywords The keywords used to start processing request.
+     * @param options  How the crawl shares the fetch slots with the other jobs.
+     * @return The newly created and initialized Object instance.
+     */
+    T create(final List<String> keywords, final CrawlOptions options);
+
+    /**
+     * Creates a new object instance searching for several keywords with explicit scheduling options and limits,
+     * initializes its state to ACTIVE, and stores it.
+     *
+     * @param keywords The keywords used to start processing request.
+     * @param options  How the crawl shares the fetch slots with the other jobs.
+     * @param budget   The limits the crawl stops at.
+     * @return The newly created and initialized Object instance.
+     */
+    T create(final List<String> keywords, final CrawlOptions options, final CrawlBudget budget);
+
+    /**
+     * Creates a new object instance searching for several keywords with explicit scheduling options, limits, seed
+     * URLs and scope, initializes its state to ACTIVE, and stores it.
+     *
+     * @param keywords The keywords used to start processing request.
+     * @param options  How the crawl shares the fetch slots with the other jobs.
+     * @param budget   The limits the crawl stops at.
+     * @param target   The seed URLs and the scope of the crawl.
+     * @return The newly created and initialized Object instance.
+     */
+    T create(
+            final List<String> keywords,
+            final CrawlOptions options,
+            final CrawlBudget budget,
+            final CrawlTarget target);
+
+    /**
+     * Stores an object instance recovered from a checkpoint, keeping its ID.
+     *
+     * @param item The restored object instance.
+     */
+    void restore(final T item);
+
     /**
      * Returns a list of all stored crawler instances.
      *
@@ -40,6 +95,15 @@ public interface DaoInterface<T> {
      */
     void appendAll(final String id, final List<String> value);
 
+    /**
+     * Records which keywords were found on a page of an specific object instance.
+     *
+     * @param id       The ID of the object.
+     * @param url      The page the keywords were found on.
+     * @param keywords The keywords found on the page.
+     */
+    void appendHits(final String id, final String url, final List<String> keywords);
+
     /**
      * Updates an specific object instance data.
      *
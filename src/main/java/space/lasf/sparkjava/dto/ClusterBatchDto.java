@@ -0,0 +1,25 @@
+package space.lasf.sparkjava.dto;
+
+import java.util.List;
+
+public class ClusterBatchDto {
+
+    private List<ClusterUrlDto> urls;
+    private List<ClusterPageDto> pages;
+
+    public List<ClusterUrlDto> getUrls() {
+        return urls;
+    }
+
+    public void setUrls(final List<ClusterUrlDto> urls) {
+        this.urls = urls;
+    }
+
+    public List<ClusterPageDto> getPages() {
+        return pages;
+    }
+
+    public void setPages(final List<ClusterPageDto> pages) {
+        this.pages = pages;
+    }
+}
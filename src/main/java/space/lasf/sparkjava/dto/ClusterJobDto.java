@@ -0,0 +1,106 @@
+package space.lasf.sparkjava.dto;
+
+import java.util.List;
+
+public class ClusterJobDto {
+
+    private String id;
+    private String baseUrl;
+    private List<String> seeds;
+    private List<String> scope;
+    private String coordinator;
+    private List<String> keywords;
+    private String priority;
+    private Integer weight;
+    private Integer maxConcurrency;
+    private String frontierOrder;
+    private CrawlBudgetDto budget;
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(final String id) {
+        this.id = id;
+    }
+
+    public String getBaseUrl() {
+        return baseUrl;
+    }
+
+    public void setBaseUrl(final String baseUrl) {
+        this.baseUrl = baseUrl;
+    }
+
+    public List<String> getSeeds() {
+        return seeds;
+    }
+
+    public void setSeeds(final List<String> seeds) {
+        this.seeds = seeds;
+    }
+
+    public List<String> getScope() {
+        return scope;
+    }
+
+    public void setScope(final List<String> scope) {
+        this.scope = scope;
+    }
+
+    public String getCoordinator() {
+        return coordinator;
+    }
+
+    public void setCoordinator(final String coordinator) {
+        this.coordinator = coordinator;
+    }
+
+    public List<String> getKeywords() {
+        return keywords;
+    }
+
+    public void setKeywords(final List<String> keywords) {
+        this.keywords = keywords;
+    }
+
+    public String getPriority() {
+        return priority;
+    }
+
+    public void setPriority(final String priority) {
+        this.priority = priority;
+    }
+
+    public Integer getWeight() {
+        return weight;
+    }
+
+    public void setWeight(final Integer weight) {
+        this.weight = weight;
+    }
+
+    public Integer getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    public void setMaxConcurrency(final Integer maxConcurrency) {
+        this.maxConcurrency = maxConcurrency;
+    }
+
+    public String getFrontierOrder() {
+        return frontierOrder;
+    }
+
+    public void setFrontierOrder(final String frontierOrder) {
+        this.frontierOrder = frontierOrder;
+    }
+
+    public CrawlBudgetDto getBudget() {
+        return budget;
+    }
+
+    public void setBudget(final CrawlBudgetDto budget) {
+        this.budget = budget;
+    }
+}
@@ -0,0 +1,52 @@
+package space.lasf.sparkjava.dto;
+
+import java.util.List;
+
+public class ClusterPageDto {
+
+    private String url;
+    private List<String> hits;
+    private long wireBytes;
+    private long decodedBytes;
+    private boolean fromCache;
+
+    public String getUrl() {
+        return url;
+    }
+
+    public void setUrl(final String url) {
+        this.url = url;
+    }
+
+    public List<String> getHits() {
+        return hits;
+    }
+
+    public void setHits(final List<String> hits) {
+        this.hits = hits;
+    }
+
+    public long getWireBytes() {
+        return wireBytes;
+    }
+
+    public void setWireBytes(final long wireBytes) {
+        this.wireBytes = wireBytes;
+    }
+
+    public long getDecodedBytes() {
+        return decodedBytes;
+    }
+
+    public void setDecodedBytes(final long decodedBytes) {
+        this.decodedBytes = decodedBytes;
+    }
+
+    public boolean isFromCache() {
+        return fromCache;
+    }
+
+    public void setFromCache(final boolean fromCache) {
+        this.fromCache = fromCache;
+    }
+}
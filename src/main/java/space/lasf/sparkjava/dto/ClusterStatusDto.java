@@ -0,0 +1,41 @@
+package space.lasf.sparkjava.dto;
+
+public class ClusterStatusDto {
+
+    private String id;
+    private boolean idle;
+    private long sent;
+    private long received;
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(final String id) {
+        this.id = id;
+    }
+
+    public boolean isIdle() {
+        return idle;
+    }
+
+    public void setIdle(final boolean idle) {
+        this.idle = idle;
+    }
+
+    public long getSent() {
+        return sent;
+    }
+
+    public void setSent(final long sent) {
+        this.sent = sent;
+    }
+
+    public long getReceived() {
+        return received;
+    }
+
+    public void setReceived(final long received) {
+        this.received = received;
+    }
+}
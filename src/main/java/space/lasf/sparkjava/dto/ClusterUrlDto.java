@@ -0,0 +1,32 @@
+package space.lasf.sparkjava.dto;
+
+public class ClusterUrlDto {
+
+    private String url;
+    private int depth;
+    private double score;
+
+    public String getUrl() {
+        return url;
+    }
+
+    public void setUrl(final String url) {
+        this.url = url;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public void setDepth(final int depth) {
+        this.depth = depth;
+    }
+
+    public double getScore() {
+        return score;
+    }
+
+    public void setScore(final double score) {
+        this.score = score;
+    }
+}
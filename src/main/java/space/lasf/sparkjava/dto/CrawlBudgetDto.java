@@ -0,0 +1,86 @@
+package space.lasf.sparkjava.dto;
+
+public class CrawlBudgetDto {
+
+    private Long maxPages;
+    private Integer maxDepth;
+    private Long maxDurationMs;
+    private Long maxBytes;
+    private Long stopAfterHits;
+    private Long remainingPages;
+    private Long remainingDurationMs;
+    private Long remainingBytes;
+    private Long remainingHits;
+
+    public Long getMaxPages() {
+        return maxPages;
+    }
+
+    public void setMaxPages(final Long maxPages) {
+        this.maxPages = maxPages;
+    }
+
+    public Integer getMaxDepth() {
+        return maxDepth;
+    }
+
+    public void setMaxDepth(final Integer maxDepth) {
+        this.maxDepth = maxDepth;
+    }
+
+    public Long getMaxDurationMs() {
+        return maxDurationMs;
+    }
+
+    public void setMaxDurationMs(final Long maxDurationMs) {
+        this.maxDurationMs = maxDurationMs;
+    }
+
+    public Long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public void setMaxBytes(final Long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    public Long getStopAfterHits() {
+        return stopAfterHits;
+    }
+
+    public void setStopAfterHits(final Long stopAfterHits) {
+        this.stopAfterHits = stopAfterHits;
+    }
+
+    public Long getRemainingPages() {
+        return remainingPages;
+    }
+
+    public void setRemainingPages(final Long remainingPages) {
+        this.remainingPages = remainingPages;
+    }
+
+    public Long getRemainingDurationMs() {
+        return remainingDurationMs;
+    }
+
+    public void setRemainingDurationMs(final Long remainingDurationMs) {
+        this.remainingDurationMs = remainingDurationMs;
+    }
+
+    public Long getRemainingBytes() {
+        return remainingBytes;
+    }
+
+    public void setRemainingBytes(final Long remainingBytes) {
+        this.remainingBytes = remainingBytes;
+    }
+
+    public Long getRemainingHits() {
+        return remainingHits;
+    }
+
+    public void setRemainingHits(final Long remainingHits) {
+        this.remainingHits = remainingHits;
+    }
+}
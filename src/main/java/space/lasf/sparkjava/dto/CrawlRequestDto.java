@@ -0,0 +1,160 @@
+package space.lasf.sparkjava.dto;
+
+import java.util.List;
+
+public class CrawlRequestDto {
+
+    private String keyword;
+    private List<String> keywords;
+    private List<String> seeds;
+    private List<String> scope;
+    private String priority;
+    private Integer weight;
+    private Integer maxConcurrency;
+    private Integer frontierMemoryUrls;
+    private Integer frontierDiskMb;
+    private String frontierOrder;
+    private Long maxPages;
+    private Integer maxDepth;
+    private String maxDuration;
+    private Long maxBytes;
+    private Long stopAfterHits;
+    private String every;
+    private String cron;
+
+    public String getKeyword() {
+        return keyword;
+    }
+
+    public void setKeyword(final String keyword) {
+        this.keyword = keyword;
+    }
+
+    public List<String> getKeywords() {
+        return keywords;
+    }
+
+    public void setKeywords(final List<String> keywords) {
+        this.keywords = keywords;
+    }
+
+    public List<String> getSeeds() {
+        return seeds;
+    }
+
+    public void setSeeds(final List<String> seeds) {
+        this.seeds = seeds;
+    }
+
+    public List<String> getScope() {
+        return scope;
+    }
+
+    public void setScope(final List<String> scope) {
+        this.scope = scope;
+    }
+
+    public String getPriority() {
+        return priority;
+    }
+
+    public void setPriority(final String priority) {
+        this.priority = priority;
+    }
+
+    public Integer getWeight() {
+        return weight;
+    }
+
+    public void setWeight(final Integer weight) {
+        this.weight = weight;
+    }
+
+    public Integer getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    public void setMaxConcurrency(final Integer maxConcurrency) {
+        this.maxConcurrency = maxConcurrency;
+    }
+
+    public Integer getFrontierMemoryUrls() {
+        return frontierMemoryUrls;
+    }
+
+    public void setFrontierMemoryUrls(final Integer frontierMemoryUrls) {
+        this.frontierMemoryUrls = frontierMemoryUrls;
+    }
+
+    public Integer getFrontierDiskMb() {
+        return frontierDiskMb;
+    }
+
+    public void setFrontierDiskMb(final Integer frontierDiskMb) {
+        this.frontierDiskMb = frontierDiskMb;
+    }
+
+    public String getFrontierOrder() {
+        return frontierOrder;
+    }
+
+    public void setFrontierOrder(final String frontierOrder) {
+        this.frontierOrder = frontierOrder;
+    }
+
+    public Long getMaxPages() {
+        return maxPages;
+    }
+
+    public void setMaxPages(final Long maxPages) {
+        this.maxPages = maxPages;
+    }
+
+    public Integer getMaxDepth() {
+        return maxDepth;
+    }
+
+    public void setMaxDepth(final Integer maxDepth) {
+        this.maxDepth = maxDepth;
+    }
+
+    public String getMaxDuration() {
+        return maxDuration;
+    }
+
+    public void setMaxDuration(final String maxDuration) {
+        this.maxDuration = maxDuration;
+    }
+
+    public Long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public void setMaxBytes(final Long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    public Long getStopAfterHits() {
+        return stopAfterHits;
+    }
+
+    public void setStopAfterHits(final Long stopAfterHits) {
+        this.stopAfterHits = stopAfterHits;
+    }
+
+    public String getEvery() {
+        return every;
+    }
+
+    public void setEvery(final String every) {
+        this.every = every;
+    }
+
+    public String getCron() {
+        return cron;
+    }
+
+    public void setCron(final String cron) {
+        this.cron = cron;
+    }
+}
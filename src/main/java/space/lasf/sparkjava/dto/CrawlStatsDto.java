@@ -0,0 +1,106 @@
+package space.lasf.sparkjava.dto;
+
+import java.util.Map;
+
+public class CrawlStatsDto {
+
+    private long pagesFetched;
+    private long pagesFromCache;
+    private long compressedBytes;
+    private long decompressedBytes;
+    private long retries;
+    private long failures;
+    private long frontierDropped;
+    private long pagesUnchanged;
+    private Long timeToFirstHitMs;
+    private Map<String, Long> skipped;
+    private Map<String, String> skippedUrls;
+
+    public long getPagesFetched() {
+        return pagesFetched;
+    }
+
+    public void setPagesFetched(final long pagesFetched) {
+        this.pagesFetched = pagesFetched;
+    }
+
+    public long getPagesFromCache() {
+        return pagesFromCache;
+    }
+
+    public void setPagesFromCache(final long pagesFromCache) {
+        this.pagesFromCache = pagesFromCache;
+    }
+
+    public long getCompressedBytes() {
+        return compressedBytes;
+    }
+
+    public void setCompressedBytes(final long compressedBytes) {
+        this.compressedBytes = compressedBytes;
+    }
+
+    public long getDecompressedBytes() {
+        return decompressedBytes;
+    }
+
+    public void setDecompressedBytes(final long decompressedBytes) {
+        this.decompressedBytes = decompressedBytes;
+    }
+
+    public long getRetries() {
+        return retries;
+    }
+
+    public void setRetries(final long retries) {
+        this.retries = retries;
+    }
+
+    public long getFailures() {
+        return failures;
+    }
+
+    public void setFailures(final long failures) {
+        this.failures = failures;
+    }
+
+    public long getFrontierDropped() {
+        return frontierDropped;
+    }
+
+    public void setFrontierDropped(final long frontierDropped) {
+        this.frontierDropped = frontierDropped;
+    }
+
+    public Long getTimeToFirstHitMs() {
+        return timeToFirstHitMs;
+    }
+
+    public void setTimeToFirstHitMs(final Long timeToFirstHitMs) {
+        this.timeToFirstHitMs = timeToFirstHitMs;
+    }
+
+    public Map<String, Long> getSkipped() {
+        return skipped;
+    }
+
+    public void setSkipped(final Map<String, Long> skipped) {
+        this.skipped = skipped;
+    }
+
+    public Map<String, String> getSkippedUrls() {
+        return skippedUrls;
+    }
+
+    public void setSkippedUrls(final Map<String, String> skippedUrls) {
+        this.skippedUrls = skippedUrls;
+    }
+
+    public long getPagesUnchanged() {
+        return pagesUnchanged;
+    }
+
+    public void setPagesUnchanged(final long pagesUnchanged) {
+        this.pagesUnchanged = pagesUnchanged;
+    }
+}
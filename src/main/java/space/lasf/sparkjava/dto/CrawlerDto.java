@@ -1,12 +1,22 @@
 package space.lasf.sparkjava.dto;
 
 import java.util.List;
+import java.util.Map;
 
 public class CrawlerDto {
 
     private String id;
     private String status;
+    private List<String> keywords;
+    private List<String> seeds;
+    private List<String> scope;
     private List<String> urls;
+    private Map<String, List<String>> hits;
+    private CrawlStatsDto stats;
+    private String stopReason;
+    private CrawlBudgetDto budget;
+    private String scheduleId;
+    private HitChangesDto changes;
 
     public String getId() {
         return id;
@@ -24,6 +34,30 @@ public class CrawlerDto {
         this.status = status;
     }
 
+    public List<String> getKeywords() {
+        return keywords;
+    }
+
+    public void setKeywords(final List<String> keywords) {
+        this.keywords = keywords;
+    }
+
+    public List<String> getSeeds() {
+        return seeds;
+    }
+
+    public void setSeeds(final List<String> seeds) {
+        this.seeds = seeds;
+    }
+
+    public List<String> getScope() {
+        return scope;
+    }
+
+    public void setScope(final List<String> scope) {
+        this.scope = scope;
+    }
+
     public List<String> getUrls() {
         return urls;
     }
@@ -31,4 +65,52 @@ public class CrawlerDto {
     public void setUrls(final List<String> urls) {
         this.urls = urls;
     }
+
+    public Map<String, List<String>> getHits() {
+        return hits;
+    }
+
+    public void setHits(final Map<String, List<String>> hits) {
+        this.hits = hits;
+    }
+
+    public CrawlStatsDto getStats() {
+        return stats;
+    }
+
+    public void setStats(final CrawlStatsDto stats) {
+        this.stats = stats;
+    }
+
+    public String getStopReason() {
+        return stopReason;
+    }
+
+    public void setStopReason(final String stopReason) {
+        this.stopReason = stopReason;
+    }
+
+    public CrawlBudgetDto getBudget() {
+        return budget;
+    }
+
+    public void setBudget(final CrawlBudgetDto budget) {
+        this.budget = budget;
+    }
+
+    public String getScheduleId() {
+        return scheduleId;
+    }
+
+    public void setScheduleId(final String scheduleId) {
+        this.scheduleId = scheduleId;
+    }
+
+    public HitChangesDto getChanges() {
+        return changes;
+    }
+
+    public void setChanges(final HitChangesDto changes) {
+        this.changes = changes;
+    }
 }
@@ -0,0 +1,35 @@
+package space.lasf.sparkjava.dto;
+
+import java.util.List;
+import java.util.Map;
+
+public class HitChangesDto {
+
+    private String previousRunId;
+    private Map<String, List<String>> added;
+    private Map<String, List<String>> removed;
+
+    public String getPreviousRunId() {
+        return previousRunId;
+    }
+
+    public void setPreviousRunId(final String previousRunId) {
+        this.previousRunId = previousRunId;
+    }
+
+    public Map<String, List<String>> getAdded() {
+        return added;
+    }
+
+    public void setAdded(final Map<String, List<String>> added) {
+        this.added = added;
+    }
+
+    public Map<String, List<String>> getRemoved() {
+        return removed;
+    }
+
+    public void setRemoved(final Map<String, List<String>> removed) {
+        this.removed = removed;
+    }
+}
@@ -0,0 +1,50 @@
+package space.lasf.sparkjava.dto;
+
+public class PipelineStageDto {
+
+    private String name;
+    private int workers;
+    private int active;
+    private int queued;
+    private int capacity;
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(final String name) {
+        this.name = name;
+    }
+
+    public int getWorkers() {
+        return workers;
+    }
+
+    public void setWorkers(final int workers) {
+        this.workers = workers;
+    }
+
+    public int getActive() {
+        return active;
+    }
+
+    public void setActive(final int active) {
+        this.active = active;
+    }
+
+    public int getQueued() {
+        return queued;
+    }
+
+    public void setQueued(final int queued) {
+        this.queued = queued;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public void setCapacity(final int capacity) {
+        this.capacity = capacity;
+    }
+}
@@ -0,0 +1,70 @@
+package space.lasf.sparkjava.dto;
+
+import java.util.List;
+
+public class ScheduleDto {
+
+    private String id;
+    private List<String> keywords;
+    private String every;
+    private String cron;
+    private boolean active;
+    private List<String> runs;
+    private String nextRun;
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(final String id) {
+        this.id = id;
+    }
+
+    public List<String> getKeywords() {
+        return keywords;
+    }
+
+    public void setKeywords(final List<String> keywords) {
+        this.keywords = keywords;
+    }
+
+    public String getEvery() {
+        return every;
+    }
+
+    public void setEvery(final String every) {
+        this.every = every;
+    }
+
+    public String getCron() {
+        return cron;
+    }
+
+    public void setCron(final String cron) {
+        this.cron = cron;
+    }
+
+    public boolean isActive() {
+        return active;
+    }
+
+    public void setActive(final boolean active) {
+        this.active = active;
+    }
+
+    public List<String> getRuns() {
+        return runs;
+    }
+
+    public void setRuns(final List<String> runs) {
+        this.runs = runs;
+    }
+
+    public String getNextRun() {
+        return nextRun;
+    }
+
+    public void setNextRun(final String nextRun) {
+        this.nextRun = nextRun;
+    }
+}
@@ -0,0 +1,166 @@
+package space.lasf.sparkjava.entity;
+
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * The limits a crawl job stops at. Every limit is optional: {@link #UNLIMITED} leaves it out.
+ * This class is immutable.
+ */
+public final class CrawlBudget {
+
+    /** The value of a limit that is not set. */
+    public static final long UNLIMITED = -1;
+
+    private static final CrawlBudget NONE =
+            new CrawlBudget(UNLIMITED, (int) UNLIMITED, UNLIMITED, UNLIMITED, UNLIMITED);
+
+    private final long maxPages;
+    private final int maxDepth;
+    private final long maxDurationMillis;
+    private final long maxBytes;
+    private final long stopAfterHits;
+
+    /**
+     * Creates the budget of a job.
+     *
+     * @param maxPages          The number of URLs fetched (including skipped and failed ones) after which the job
+     *                          stops.
+     * @param maxDepth          The number of links followed from the seed URL; deeper links are not crawled.
+     * @param maxDurationMillis How long after its creation the job stops.
+     * @param maxBytes          The number of bytes received over the network after which the job stops.
+     * @param stopAfterHits     The number of pages with keyword hits after which the job stops.
+     */
+    public CrawlBudget(
+            final long maxPages,
+            final int maxDepth,
+            final long maxDurationMillis,
+            final long maxBytes,
+            final long stopAfterHits) {
+        if (maxPages < UNLIMITED
+                || maxDepth < UNLIMITED
+                || maxDurationMillis < UNLIMITED
+                || maxBytes < UNLIMITED
+                || stopAfterHits < UNLIMITED) {
+            throw new IllegalArgumentException("Invalid crawl budget.");
+        }
+        this.maxPages = maxPages;
+        this.maxDepth = maxDepth;
+        this.maxDurationMillis = maxDurationMillis;
+        this.maxBytes = maxBytes;
+        this.stopAfterHits = stopAfterHits;
+    }
+
+    /**
+     * Returns the budget of a job that does not ask for any limit: it runs until its frontier is empty.
+     *
+     * @return The unlimited budget.
+     */
+    public static CrawlBudget unlimited() {
+        return NONE;
+    }
+
+    /**
+     * Returns whether no limit is set.
+     *
+     * @return {@code true} for the unlimited budget.
+     */
+    public boolean isUnlimited() {
+        return equals(NONE);
+    }
+
+    /**
+     * Returns whether a page this many links away from the seed URL may be crawled.
+     *
+     * @param depth The depth of the page, 0 for the seed URL.
+     * @return {@code true} if the depth is within {@code maxDepth}.
+     */
+    public boolean allowsDepth(final int depth) {
+        return maxDepth == UNLIMITED || depth <= maxDepth;
+    }
+
+    /**
+     * Returns the first limit the counters of a job have reached, if any. {@code maxDepth} is not checked here,
+     * since deeper pages are simply not crawled.
+     *
+     * @param stats The live counters of the job.
+     * @return The reason the job must stop, or an empty optional if it is within budget.
+     */
+    public Optional<StopReason> exceededBy(final CrawlStats stats) {
+        if (reached(maxPages, stats.getUrlsProcessed())) {
+            return Optional.of(StopReason.MAX_PAGES);
+        }
+        if (reached(stopAfterHits, stats.getPagesWithHits())) {
+            return Optional.of(StopReason.STOP_AFTER_HITS);
+        }
+        if (reached(maxBytes, stats.getWireBytes())) {
+            return Optional.of(StopReason.MAX_BYTES);
+        }
+        if (reached(maxDurationMillis, stats.getElapsedMillis())) {
+            return Optional.of(StopReason.MAX_DURATION);
+        }
+        return Optional.empty();
+    }
+
+    private static boolean reached(final long limit, final long used) {
+        return limit != UNLIMITED && used >= limit;
+    }
+
+    /**
+     * Returns how much of a limit is left.
+     *
+     * @param limit The limit, possibly {@link #UNLIMITED}.
+     * @param used  How much of it the job has used.
+     * @return The remaining amount, never negative, or {@code null} if the limit is not set.
+     */
+    public static Long remaining(final long limit, final long used) {
+        return limit == UNLIMITED ? null : Math.max(0, limit - used);
+    }
+
+    public long getMaxPages() {
+        return maxPages;
+    }
+
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    public long getMaxDurationMillis() {
+        return maxDurationMillis;
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public long getStopAfterHits() {
+        return stopAfterHits;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof CrawlBudget)) {
+            return false;
+        }
+        CrawlBudget other = (CrawlBudget) o;
+        return maxPages == other.maxPages
+                && maxDepth == other.maxDepth
+                && maxDurationMillis == other.maxDurationMillis
+                && maxBytes == other.maxBytes
+                && stopAfterHits == other.stopAfterHits;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(maxPages, maxDepth, maxDurationMillis, maxBytes, stopAfterHits);
+    }
+
+    @Override
+    public String toString() {
+        return "CrawlBudget{maxPages=" + maxPages + ", maxDepth=" + maxDepth + ", maxDurationMillis="
+                + maxDurationMillis + ", maxBytes=" + maxBytes + ", stopAfterHits=" + stopAfterHits + '}';
+    }
+}
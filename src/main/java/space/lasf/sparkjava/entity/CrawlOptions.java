@@ -0,0 +1,152 @@
+package space.lasf.sparkjava.entity;
+
+import java.util.Objects;
+
+/**
+ * How a crawl job shares the fetch slots with the other active jobs: its priority class, its weight within
+ * that class and the maximum number of its requests in flight. It also carries the limits and the order of the
+ * job frontier.
+ * This class is immutable.
+ */
+public final class CrawlOptions {
+
+    /** The weight of a job that does not ask for one. */
+    public static final int DEFAULT_WEIGHT = 1;
+
+    private static final CrawlOptions DEFAULTS = new CrawlOptions(Priority.NORMAL, DEFAULT_WEIGHT, 0);
+
+    private final Priority priority;
+    private final int weight;
+    private final int maxConcurrency;
+    private final FrontierLimits frontierLimits;
+    private final FrontierOrder frontierOrder;
+
+    /**
+     * Creates the options of a job.
+     *
+     * @param priority       The priority class of the job.
+     * @param weight         The share of the fetch slots the job gets within its class, at least 1.
+     * @param maxConcurrency The maximum number of requests of the job in flight, or 0 for the default cap.
+     */
+    public CrawlOptions(final Priority priority, final int weight, final int maxConcurrency) {
+        this(priority, weight, maxConcurrency, FrontierLimits.defaults());
+    }
+
+    /**
+     * Creates the options of a job with explicit frontier limits.
+     *
+     * @param priority       The priority class of the job.
+     * @param weight         The share of the fetch slots the job gets within its class, at least 1.
+     * @param maxConcurrency The maximum number of requests of the job in flight, or 0 for the default cap.
+     * @param frontierLimits How many pending URLs the job keeps on the heap and on disk.
+     */
+    public CrawlOptions(
+            final Priority priority, final int weight, final int maxConcurrency, final FrontierLimits frontierLimits) {
+        this(priority, weight, maxConcurrency, frontierLimits, null);
+    }
+
+    /**
+     * Creates the options of a job with explicit frontier limits and order.
+     *
+     * @param priority       The priority class of the job.
+     * @param weight         The share of the fetch slots the job gets within its class, at least 1.
+     * @param maxConcurrency The maximum number of requests of the job in flight, or 0 for the default cap.
+     * @param frontierLimits How many pending URLs the job keeps on the heap and on disk.
+     * @param frontierOrder  The order the job fetches discovered URLs in, or {@code null} for the server default.
+     */
+    public CrawlOptions(
+            final Priority priority,
+            final int weight,
+            final int maxConcurrency,
+            final FrontierLimits frontierLimits,
+            final FrontierOrder frontierOrder) {
+        if (priority == null || weight < 1 || maxConcurrency < 0 || frontierLimits == null) {
+            throw new IllegalArgumentException("Invalid crawl options.");
+        }
+        this.priority = priority;
+        this.weight = weight;
+        this.maxConcurrency = maxConcurrency;
+        this.frontierLimits = frontierLimits;
+        this.frontierOrder = frontierOrder;
+    }
+
+    /**
+     * Returns the options of a job that does not ask for any: normal priority, weight 1 and the default cap.
+     *
+     * @return The default options.
+     */
+    public static CrawlOptions defaults() {
+        return DEFAULTS;
+    }
+
+    /**
+     * Combines the options of two jobs served by the same crawl, keeping the most demanding of each setting.
+     * The default cap wins over an explicit one, so that a job never runs slower for sharing a crawl.
+     * The frontier limits and order are those of this job: a frontier is set up once, by the job that starts the
+     * crawl.
+     *
+     * @param other The options of the other job.
+     * @return The combined options.
+     */
+    public CrawlOptions merge(final CrawlOptions other) {
+        boolean defaultCap = maxConcurrency == 0 || other.maxConcurrency == 0;
+        return new CrawlOptions(
+                priority.compareTo(other.priority) <= 0 ? priority : other.priority,
+                Math.max(weight, other.weight),
+                defaultCap ? 0 : Math.max(maxConcurrency, other.maxConcurrency),
+                frontierLimits,
+                frontierOrder);
+    }
+
+    public Priority getPriority() {
+        return priority;
+    }
+
+    public int getWeight() {
+        return weight;
+    }
+
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    public FrontierLimits getFrontierLimits() {
+        return frontierLimits;
+    }
+
+    /**
+     * Returns the order the job fetches discovered URLs in.
+     *
+     * @return The order, or {@code null} for the server default.
+     */
+    public FrontierOrder getFrontierOrder() {
+        return frontierOrder;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof CrawlOptions)) {
+            return false;
+        }
+        CrawlOptions other = (CrawlOptions) o;
+        return priority == other.priority
+                && weight == other.weight
+                && maxConcurrency == other.maxConcurrency
+                && frontierLimits.equals(other.frontierLimits)
+                && frontierOrder == other.frontierOrder;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(priority, weight, maxConcurrency, frontierLimits, frontierOrder);
+    }
+
+    @Override
+    public String toString() {
+        return "CrawlOptions{priority=" + priority + ", weight=" + weight + ", maxConcurrency=" + maxConcurrency
+                + ", frontierLimits=" + frontierLimits + ", frontierOrder=" + frontierOrder + '}';
+    }
+}
@@ -0,0 +1,128 @@
+package space.lasf.sparkjava.entity;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * A recurring crawl: the same keywords crawled again at a fixed interval or on a cron schedule. Each run is a
+ * crawl job of its own; the recurring crawl is identified by the ID of its first run. This class is thread-safe.
+ */
+public class CrawlSchedule {
+
+    private final String id;
+    private final List<String> keywords;
+    private final CrawlOptions options;
+    private final CrawlBudget budget;
+    private final CrawlTarget target;
+    private final Duration interval;
+    private final String cron;
+    private final List<String> runIds = new CopyOnWriteArrayList<>();
+    private boolean active = true;
+    private Instant nextRun;
+
+    /**
+     * Creates a recurring crawl whose runs search for the keywords of its first run, with the same options,
+     * limits, seed URLs and scope.
+     *
+     * @param firstRun The first run.
+     * @param interval The time between the starts of two runs, or {@code null} for a cron schedule.
+     * @param cron     The cron expression the runs start at, or {@code null} for a fixed interval.
+     */
+    public CrawlSchedule(final Crawler firstRun, final Duration interval, final String cron) {
+        if ((interval == null) == (cron == null)) {
+            throw new IllegalArgumentException("A recurring crawl has either an interval or a cron expression.");
+        }
+        this.id = firstRun.getId();
+        this.keywords = firstRun.getKeywords();
+        this.options = firstRun.getOptions();
+        this.budget = firstRun.getBudget();
+        this.target = firstRun.getTarget();
+        this.interval = interval;
+        this.cron = cron;
+        this.runIds.add(firstRun.getId());
+    }
+
+    /**
+     * Records a new run.
+     *
+     * @param runId The ID of the run.
+     */
+    public void addRun(final String runId) {
+        runIds.add(runId);
+    }
+
+    /**
+     * Stops scheduling runs; a run in progress goes on.
+     *
+     * @return {@code true} if the recurring crawl was active.
+     */
+    public synchronized boolean cancel() {
+        if (!active) {
+            return false;
+        }
+        active = false;
+        nextRun = null;
+        return true;
+    }
+
+    public synchronized void setNextRun(final Instant nextRun) {
+        this.nextRun = nextRun;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public List<String> getKeywords() {
+        return keywords;
+    }
+
+    public CrawlOptions getOptions() {
+        return options;
+    }
+
+    public CrawlBudget getBudget() {
+        return budget;
+    }
+
+    /**
+     * Returns the seed URLs and the scope of the runs.
+     *
+     * @return The target, or {@code null} if the runs crawl the seed URL of the recurring crawl.
+     */
+    public CrawlTarget getTarget() {
+        return target;
+    }
+
+    public Duration getInterval() {
+        return interval;
+    }
+
+    public String getCron() {
+        return cron;
+    }
+
+    /**
+     * Returns the IDs of the runs, oldest first.
+     *
+     * @return An immutable copy of the run IDs.
+     */
+    public List<String> getRunIds() {
+        return List.copyOf(runIds);
+    }
+
+    public synchronized boolean isActive() {
+        return active;
+    }
+
+    /**
+     * Returns when the next run starts.
+     *
+     * @return The start time, or {@code null} while a run is in progress or once the recurring crawl is cancelled.
+     */
+    public synchronized Instant getNextRun() {
+        return nextRun;
+    }
+}
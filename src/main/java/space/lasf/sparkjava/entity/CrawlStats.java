@@ -0,0 +1,264 @@
+package space.lasf.sparkjava.entity;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Live counters of a single crawl job. Updated by the crawl workers and read by status requests,
+ * so every counter is lock-free and thread-safe.
+ */
+public class CrawlStats {
+
+    /** The maximum number of skipped URLs remembered per job. */
+    public static final int MAX_SKIPPED_URLS = 1000;
+
+    // The counter fields, the elapsed time and the time to the first hit, ahead of the skip counters.
+    private static final int RESTORED_COUNTERS = 10;
+
+    private final AtomicLong pagesFetched = new AtomicLong();
+    private final AtomicLong pagesFromCache = new AtomicLong();
+    private final AtomicLong wireBytes = new AtomicLong();
+    private final AtomicLong decodedBytes = new AtomicLong();
+    private final AtomicLong retries = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong frontierDropped = new AtomicLong();
+    private final AtomicLong pagesWithHits = new AtomicLong();
+    // Pages of a recurring run found unchanged since the previous run, and not parsed again.
+    private final AtomicLong pagesUnchanged = new AtomicLong();
+    // Moved back by restore(), so that a resumed job keeps its elapsed time.
+    private final AtomicLong createdNanos = new AtomicLong(System.nanoTime());
+    private final AtomicLong firstHitNanos = new AtomicLong(-1);
+    private final Map<SkipReason, AtomicLong> skippedByReason;
+    // Only the first skipped URLs are kept so that a site full of downloads cannot grow the job without bound.
+    private final Map<String, SkipReason> skippedUrls = new ConcurrentHashMap<>();
+
+    /**
+     * Creates an empty set of counters.
+     */
+    public CrawlStats() {
+        // Every reason is present up front, so the map is never modified after construction.
+        skippedByReason = new EnumMap<>(SkipReason.class);
+        for (SkipReason reason : SkipReason.values()) {
+            skippedByReason.put(reason, new AtomicLong());
+        }
+    }
+
+    /**
+     * Records a page whose body has been processed.
+     *
+     * @param wire      The bytes received over the network (compressed size, zero for cache hits).
+     * @param decoded   The decoded body bytes processed.
+     * @param fromCache Whether the body was served from the local HTTP cache.
+     */
+    public void recordPage(final long wire, final long decoded, final boolean fromCache) {
+        pagesFetched.incrementAndGet();
+        if (fromCache) {
+            pagesFromCache.incrementAndGet();
+        }
+        wireBytes.addAndGet(wire);
+        decodedBytes.addAndGet(decoded);
+    }
+
+    /**
+     * Records a response whose body was not downloaded.
+     *
+     * @param url    The skipped URL.
+     * @param reason Why the body was skipped.
+     */
+    public void recordSkip(final String url, final SkipReason reason) {
+        skippedByReason.get(reason).incrementAndGet();
+        if (skippedUrls.size() < MAX_SKIPPED_URLS) {
+            skippedUrls.putIfAbsent(url, reason);
+        }
+    }
+
+    /**
+     * Records a failed fetch that is scheduled to be retried.
+     */
+    public void recordRetry() {
+        retries.incrementAndGet();
+    }
+
+    /**
+     * Records a URL given up on after its last attempt failed.
+     */
+    public void recordFailure() {
+        failures.incrementAndGet();
+    }
+
+    /**
+     * Records a page on which at least one keyword of the job was found. Only the first one is timed.
+     */
+    public void recordHit() {
+        pagesWithHits.incrementAndGet();
+        firstHitNanos.compareAndSet(-1, System.nanoTime() - createdNanos.get());
+    }
+
+    /**
+     * Records a page of a recurring run that is unchanged since the previous run, whose results were reused.
+     */
+    public void recordUnchanged() {
+        pagesUnchanged.incrementAndGet();
+    }
+
+    /**
+     * Records a discovered URL dropped because the frontier of the job was full.
+     */
+    public void recordFrontierDrop() {
+        frontierDropped.incrementAndGet();
+    }
+
+    /**
+     * Records discovered URLs dropped because the frontier of the job was full.
+     *
+     * @param count The number of URLs dropped.
+     */
+    public void recordFrontierDrops(final long count) {
+        frontierDropped.addAndGet(count);
+    }
+
+    /**
+     * Returns every counter, in the order {@link #restore(long[])} expects: pages fetched, pages from cache,
+     * wire bytes, decoded bytes, retries, failures, frontier drops, pages with hits, elapsed nanoseconds, nanoseconds
+     * to the first hit (or -1), then the skipped responses per {@link SkipReason}, in declaration order.
+     * The skipped URLs and the unchanged pages are not included.
+     *
+     * @return A snapshot of the counters, used to checkpoint the job.
+     */
+    public long[] toCounters() {
+        long[] counters = new long[RESTORED_COUNTERS + SkipReason.values().length];
+        AtomicLong[] fields = counterFields();
+        for (int i = 0; i < fields.length; i++) {
+            counters[i] = fields[i].get();
+        }
+        counters[fields.length] = System.nanoTime() - createdNanos.get();
+        counters[fields.length + 1] = firstHitNanos.get();
+        for (SkipReason reason : SkipReason.values()) {
+            counters[RESTORED_COUNTERS + reason.ordinal()] =
+                    skippedByReason.get(reason).get();
+        }
+        return counters;
+    }
+
+    /**
+     * Sets the counters of a job resumed from a checkpoint. Counters missing from a shorter array are left at 0.
+     *
+     * @param counters The counters returned by {@link #toCounters()}.
+     */
+    public void restore(final long[] counters) {
+        AtomicLong[] fields = counterFields();
+        for (int i = 0; i < fields.length && i < counters.length; i++) {
+            fields[i].set(counters[i]);
+        }
+        if (counters.length >= RESTORED_COUNTERS) {
+            createdNanos.set(System.nanoTime() - counters[fields.length]);
+            firstHitNanos.set(counters[fields.length + 1]);
+        }
+        for (SkipReason reason : SkipReason.values()) {
+            int index = RESTORED_COUNTERS + reason.ordinal();
+            if (index < counters.length) {
+                skippedByReason.get(reason).set(counters[index]);
+            }
+        }
+    }
+
+    private AtomicLong[] counterFields() {
+        return new AtomicLong[] {
+            pagesFetched, pagesFromCache, wireBytes, decodedBytes, retries, failures, frontierDropped, pagesWithHits
+        };
+    }
+
+    public long getPagesFetched() {
+        return pagesFetched.get();
+    }
+
+    public long getPagesFromCache() {
+        return pagesFromCache.get();
+    }
+
+    public long getWireBytes() {
+        return wireBytes.get();
+    }
+
+    public long getDecodedBytes() {
+        return decodedBytes.get();
+    }
+
+    public long getRetries() {
+        return retries.get();
+    }
+
+    public long getFailures() {
+        return failures.get();
+    }
+
+    public long getFrontierDropped() {
+        return frontierDropped.get();
+    }
+
+    public long getPagesWithHits() {
+        return pagesWithHits.get();
+    }
+
+    public long getPagesUnchanged() {
+        return pagesUnchanged.get();
+    }
+
+    /**
+     * Returns the number of URLs the job is done with: fetched pages, skipped responses and URLs given up on.
+     *
+     * @return The processed URL count.
+     */
+    public long getUrlsProcessed() {
+        long skipped =
+                skippedByReason.values().stream().mapToLong(AtomicLong::get).sum();
+        return pagesFetched.get() + failures.get() + skipped;
+    }
+
+    /**
+     * Returns how long ago the job was created.
+     *
+     * @return The elapsed time in milliseconds.
+     */
+    public long getElapsedMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - createdNanos.get());
+    }
+
+    /**
+     * Returns how long after the job was created the first keyword hit was found.
+     *
+     * @return The time to the first hit in milliseconds, or {@code -1} if nothing was found yet.
+     */
+    public long getTimeToFirstHitMillis() {
+        long nanos = firstHitNanos.get();
+        return nanos < 0 ? -1 : TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+
+    /**
+     * Returns the number of skipped responses per reason.
+     *
+     * @return An immutable snapshot of the counters, containing every reason.
+     */
+    public Map<SkipReason, Long> getSkippedByReason() {
+        return Collections.unmodifiableMap(skippedByReason.entrySet().stream()
+                .collect(Collectors.toMap(
+                        Map.Entry::getKey,
+                        entry -> entry.getValue().get(),
+                        Long::sum,
+                        () -> new EnumMap<>(SkipReason.class))));
+    }
+
+    /**
+     * Returns the skipped URLs with the reason each one was skipped, capped at {@link #MAX_SKIPPED_URLS}.
+     *
+     * @return An immutable snapshot of the skipped URLs.
+     */
+    public Map<String, SkipReason> getSkippedUrls() {
+        return Map.copyOf(skippedUrls);
+    }
+}
@@ -0,0 +1,78 @@
+package space.lasf.sparkjava.entity;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Where a crawl job starts and how far it goes: its seed URLs, all queued when the crawl starts, and the URL
+ * prefixes that bound it. A URL is crawled only if it starts with one of the prefixes.
+ * This class is immutable.
+ */
+public final class CrawlTarget {
+
+    private final List<String> seeds;
+    private final List<String> scope;
+
+    /**
+     * Creates the target of a job.
+     *
+     * @param seeds The URLs the crawl starts from, at least one. The first one names the crawl.
+     * @param scope The URL prefixes the crawl is bounded by, at least one.
+     */
+    public CrawlTarget(final List<String> seeds, final List<String> scope) {
+        if (seeds == null || seeds.isEmpty() || scope == null || scope.isEmpty()) {
+            throw new IllegalArgumentException("A crawl target needs seeds and a scope.");
+        }
+        this.seeds = List.copyOf(seeds);
+        this.scope = List.copyOf(scope);
+    }
+
+    /**
+     * Returns the target of a job that crawls a single site section: the seed URL, which also bounds the crawl.
+     *
+     * @param seed The seed URL.
+     * @return The target.
+     */
+    public static CrawlTarget of(final String seed) {
+        return new CrawlTarget(List.of(seed), List.of(seed));
+    }
+
+    public List<String> getSeeds() {
+        return seeds;
+    }
+
+    /**
+     * Returns the first seed URL, which names the crawl.
+     *
+     * @return The seed URL.
+     */
+    public String getSeed() {
+        return seeds.get(0);
+    }
+
+    public List<String> getScope() {
+        return scope;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof CrawlTarget)) {
+            return false;
+        }
+        CrawlTarget other = (CrawlTarget) o;
+        return seeds.equals(other.seeds) && scope.equals(other.scope);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(seeds, scope);
+    }
+
+    @Override
+    public String toString() {
+        return "CrawlTarget{seeds=" + seeds + ", scope=" + scope + '}';
+    }
+}
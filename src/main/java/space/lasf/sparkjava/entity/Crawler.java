@@ -2,8 +2,10 @@ package space.lasf.sparkjava.entity;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
 
 /**
  * Represents the state of a single crawl job.
@@ -13,16 +15,28 @@ import java.util.concurrent.ConcurrentHashMap;
 public class Crawler {
 
     private final String id;
-    private final String keyword;
+    private final List<String> keywords;
+    private final CrawlOptions options;
+    private final CrawlBudget budget;
+    // Null for a job that crawls the seed URL it is started with.
+    private final CrawlTarget target;
 
     private Status status;
+    private StopReason stopReason;
 
     // Use a thread-safe Set implementation.
     private final Set<String> urls = ConcurrentHashMap.newKeySet();
+    // The pages each keyword was found on, keyed by keyword.
+    private final Map<String, Set<String>> hits = new ConcurrentHashMap<>();
+    private final CrawlStats stats = new CrawlStats();
 
     private final LocalDateTime startDate;
     private LocalDateTime lastUpdate;
 
+    // The recurring crawl this job is a run of, and how its hits differ from the previous run.
+    private String scheduleId;
+    private HitChanges changes;
+
     /**
      * Constructs a new Crawler instance, initializing it to an ACTIVE state.
      *
@@ -30,8 +44,67 @@ public class Crawler {
      * @param keyword The keyword to search for.
      */
     public Crawler(final String id, final String keyword) {
+        this(id, List.of(keyword));
+    }
+
+    /**
+     * Constructs a new Crawler instance searching for several keywords, initializing it to an ACTIVE state.
+     *
+     * @param id       The unique identifier for this crawl.
+     * @param keywords The keywords to search for.
+     */
+    public Crawler(final String id, final List<String> keywords) {
+        this(id, keywords, CrawlOptions.defaults());
+    }
+
+    /**
+     * Constructs a new Crawler instance with explicit scheduling options, initializing it to an ACTIVE state.
+     *
+     * @param id       The unique identifier for this crawl.
+     * @param keywords The keywords to search for.
+     * @param options  How the crawl shares the fetch slots with the other jobs.
+     */
+    public Crawler(final String id, final List<String> keywords, final CrawlOptions options) {
+        this(id, keywords, options, CrawlBudget.unlimited());
+    }
+
+    /**
+     * Constructs a new Crawler instance with explicit scheduling options and limits, initializing it to an ACTIVE
+     * state.
+     *
+     * @param id       The unique identifier for this crawl.
+     * @param keywords The keywords to search for.
+     * @param options  How the crawl shares the fetch slots with the other jobs.
+     * @param budget   The limits the crawl stops at.
+     */
+    public Crawler(final String id, final List<String> keywords, final CrawlOptions options, final CrawlBudget budget) {
+        this(id, keywords, options, budget, null);
+    }
+
+    /**
+     * Constructs a new Crawler instance with its own seed URLs and scope, initializing it to an ACTIVE state.
+     *
+     * @param id       The unique identifier for this crawl.
+     * @param keywords The keywords to search for.
+     * @param options  How the crawl shares the fetch slots with the other jobs.
+     * @param budget   The limits the crawl stops at.
+     * @param target   The seed URLs and the scope of the crawl, or {@code null} to crawl the seed URL the job is
+     *                 started with.
+     */
+    public Crawler(
+            final String id,
+            final List<String> keywords,
+            final CrawlOptions options,
+            final CrawlBudget budget,
+            final CrawlTarget target) {
         this.id = id;
-        this.keyword = keyword;
+        this.keywords = List.copyOf(keywords);
+        this.options = options;
+        this.budget = budget;
+        this.target = target;
+        for (String keyword : this.keywords) {
+            hits.put(keyword, ConcurrentHashMap.newKeySet());
+        }
         this.status = Status.ACTIVE;
         this.startDate = LocalDateTime.now();
         this.lastUpdate = this.startDate;
@@ -49,13 +122,44 @@ public class Crawler {
     }
 
     /**
-     * Marks the crawl as having encountered an error. This method is synchronized.
+     * Records why the crawl finished, but only if it's currently ACTIVE and no reason was recorded yet.
+     * This method is synchronized.
+     *
+     * @param reason Why the crawl finished.
+     */
+    public synchronized void stopWith(final StopReason reason) {
+        if (this.status == Status.ACTIVE && this.stopReason == null) {
+            this.stopReason = reason;
+        }
+    }
+
+    /**
+     * Marks the crawl as having encountered an error, unless it was cancelled. This method is synchronized.
      */
     public synchronized void errorProcess() {
+        if (this.status == Status.CANCELLED) {
+            return;
+        }
         this.status = Status.ERROR;
         this.lastUpdate = LocalDateTime.now();
     }
 
+    /**
+     * Marks the crawl as cancelled (CANCELLED), but only if it's currently ACTIVE. The results found so far are
+     * kept, and no more are recorded. This method is synchronized.
+     *
+     * @return {@code true} if the crawl was active and is now cancelled.
+     */
+    public synchronized boolean cancel() {
+        if (this.status != Status.ACTIVE) {
+            return false;
+        }
+        this.status = Status.CANCELLED;
+        this.stopReason = StopReason.CANCELLED;
+        this.lastUpdate = LocalDateTime.now();
+        return true;
+    }
+
     /**
      * Adds a found URL to the result set if the crawl is still active.
      * This method is synchronized to ensure atomic check-and-add behavior.
@@ -69,12 +173,102 @@ public class Crawler {
         }
     }
 
+    /**
+     * Records the keywords found on a page, if the crawl is still active.
+     * The page is also added to the result set.
+     *
+     * @param url     The URL of the page.
+     * @param matched The keywords of this crawl found on the page.
+     */
+    public synchronized void addHits(final String url, final List<String> matched) {
+        if (this.status == Status.ACTIVE) {
+            for (String keyword : matched) {
+                hits.computeIfAbsent(keyword, key -> ConcurrentHashMap.newKeySet())
+                        .add(url);
+            }
+            this.urls.add(url);
+            this.lastUpdate = LocalDateTime.now();
+        }
+    }
+
+    /**
+     * Marks the job as a run of a recurring crawl.
+     *
+     * @param scheduleId The ID of the recurring crawl.
+     */
+    public synchronized void linkToSchedule(final String scheduleId) {
+        this.scheduleId = scheduleId;
+    }
+
+    /**
+     * Records how the hits of this run differ from those of the previous run of its recurring crawl.
+     *
+     * @param changes The hits added and removed.
+     */
+    public synchronized void recordChanges(final HitChanges changes) {
+        this.changes = changes;
+        this.lastUpdate = LocalDateTime.now();
+    }
+
     public String getId() {
         return id;
     }
 
+    public synchronized String getScheduleId() {
+        return scheduleId;
+    }
+
+    /**
+     * Returns how the hits of this run differ from the previous run of its recurring crawl.
+     *
+     * @return The changes, or {@code null} for a job that is not a run or is the first one.
+     */
+    public synchronized HitChanges getChanges() {
+        return changes;
+    }
+
+    /**
+     * Returns the first keyword of the crawl.
+     *
+     * @return The first keyword.
+     */
     public String getKeyword() {
-        return keyword;
+        return keywords.get(0);
+    }
+
+    public List<String> getKeywords() {
+        return keywords;
+    }
+
+    public CrawlOptions getOptions() {
+        return options;
+    }
+
+    public CrawlBudget getBudget() {
+        return budget;
+    }
+
+    /**
+     * Returns the seed URLs and the scope of the crawl.
+     *
+     * @return The target, or {@code null} if the job crawls the seed URL it is started with.
+     */
+    public CrawlTarget getTarget() {
+        return target;
+    }
+
+    public synchronized StopReason getStopReason() {
+        return stopReason;
+    }
+
+    /**
+     * Returns an immutable copy of the pages each keyword was found on.
+     *
+     * @return A map from every keyword of the crawl to the URLs it was found on.
+     */
+    public Map<String, Set<String>> getHits() {
+        return hits.entrySet().stream()
+                .collect(Collectors.toUnmodifiableMap(Map.Entry::getKey, e -> Set.copyOf(e.getValue())));
     }
 
     public synchronized Status getStatus() {
@@ -91,6 +285,10 @@ public class Crawler {
         return Set.copyOf(urls);
     }
 
+    public CrawlStats getStats() {
+        return stats;
+    }
+
     public LocalDateTime getStartDate() {
         return startDate;
     }
@@ -103,8 +301,8 @@ public class Crawler {
     @Override
     public String toString() {
         return "Crawler{" + "id='"
-                + id + '\'' + ", keyword='"
-                + keyword + '\'' + ", status="
+                + id + '\'' + ", keywords="
+                + keywords + ", status="
                 + status + ", urls.size="
                 + urls.size() + ", startDate="
                 + startDate + ", lastUpdate="
@@ -0,0 +1,68 @@
+package space.lasf.sparkjava.entity;
+
+import java.util.Objects;
+
+/**
+ * How much of the frontier of a crawl job may be kept on the heap, and how much may spill to local disk.
+ * A limit of 0 stands for the server default. This class is immutable.
+ */
+public final class FrontierLimits {
+
+    private static final FrontierLimits DEFAULTS = new FrontierLimits(0, 0);
+
+    private final int maxInMemory;
+    private final long maxDiskBytes;
+
+    /**
+     * Creates the frontier limits of a job.
+     *
+     * @param maxInMemory  The maximum number of pending URLs kept on the heap, across all hosts, or 0 for the default.
+     * @param maxDiskBytes The maximum number of bytes of pending URLs spilled to disk, or 0 for the default.
+     */
+    public FrontierLimits(final int maxInMemory, final long maxDiskBytes) {
+        if (maxInMemory < 0 || maxDiskBytes < 0) {
+            throw new IllegalArgumentException("Invalid frontier limits.");
+        }
+        this.maxInMemory = maxInMemory;
+        this.maxDiskBytes = maxDiskBytes;
+    }
+
+    /**
+     * Returns the limits of a job that does not ask for any: the server defaults.
+     *
+     * @return The default limits.
+     */
+    public static FrontierLimits defaults() {
+        return DEFAULTS;
+    }
+
+    public int getMaxInMemory() {
+        return maxInMemory;
+    }
+
+    public long getMaxDiskBytes() {
+        return maxDiskBytes;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof FrontierLimits)) {
+            return false;
+        }
+        FrontierLimits other = (FrontierLimits) o;
+        return maxInMemory == other.maxInMemory && maxDiskBytes == other.maxDiskBytes;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(maxInMemory, maxDiskBytes);
+    }
+
+    @Override
+    public String toString() {
+        return "FrontierLimits{maxInMemory=" + maxInMemory + ", maxDiskBytes=" + maxDiskBytes + '}';
+    }
+}
@@ -0,0 +1,24 @@
+package space.lasf.sparkjava.entity;
+
+import java.util.Locale;
+
+/**
+ * The order in which a crawl job fetches the URLs it has discovered.
+ */
+public enum FrontierOrder {
+    /** Breadth-first: URLs are fetched in the order they were discovered. */
+    FIFO,
+    /** Best-first: the URLs most likely to contain the keywords are fetched first. */
+    BEST_FIRST;
+
+    /**
+     * Parses an order as written in requests and configuration, e.g. {@code fifo} or {@code best-first}.
+     *
+     * @param value The order name, case-insensitive.
+     * @return The order.
+     * @throws IllegalArgumentException if the name is not a known order.
+     */
+    public static FrontierOrder parse(final String value) {
+        return valueOf(value.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+    }
+}
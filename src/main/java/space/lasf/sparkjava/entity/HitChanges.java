@@ -0,0 +1,72 @@
+package space.lasf.sparkjava.entity;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * How the hits of a run of a recurring crawl differ from those of the previous run: the pages each keyword was
+ * newly found on, and those it is no longer found on. This class is immutable.
+ */
+public final class HitChanges {
+
+    private final String previousRunId;
+    private final Map<String, Set<String>> added;
+    private final Map<String, Set<String>> removed;
+
+    private HitChanges(
+            final String previousRunId, final Map<String, Set<String>> added, final Map<String, Set<String>> removed) {
+        this.previousRunId = previousRunId;
+        this.added = added;
+        this.removed = removed;
+    }
+
+    /**
+     * Compares the hits of two runs.
+     *
+     * @param previousRunId The ID of the previous run.
+     * @param previous      The pages each keyword was found on by the previous run.
+     * @param current       The pages each keyword was found on by this run.
+     * @return The changes; keywords whose pages did not change are left out.
+     */
+    public static HitChanges between(
+            final String previousRunId,
+            final Map<String, Set<String>> previous,
+            final Map<String, Set<String>> current) {
+        return new HitChanges(previousRunId, difference(current, previous), difference(previous, current));
+    }
+
+    private static Map<String, Set<String>> difference(
+            final Map<String, Set<String>> from, final Map<String, Set<String>> minus) {
+        return from.entrySet().stream()
+                .map(entry -> {
+                    Set<String> pages = new HashSet<>(entry.getValue());
+                    pages.removeAll(minus.getOrDefault(entry.getKey(), Set.of()));
+                    return Map.entry(entry.getKey(), Set.copyOf(pages));
+                })
+                .filter(entry -> !entry.getValue().isEmpty())
+                .collect(Collectors.toUnmodifiableMap(Map.Entry::getKey, Map.Entry::getValue));
+    }
+
+    public String getPreviousRunId() {
+        return previousRunId;
+    }
+
+    public Map<String, Set<String>> getAdded() {
+        return added;
+    }
+
+    public Map<String, Set<String>> getRemoved() {
+        return removed;
+    }
+
+    /**
+     * Returns whether the hits of the two runs are the same.
+     *
+     * @return {@code true} if no hit was added or removed.
+     */
+    public boolean isEmpty() {
+        return added.isEmpty() && removed.isEmpty();
+    }
+}
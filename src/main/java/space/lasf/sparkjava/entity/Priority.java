@@ -0,0 +1,11 @@
+package space.lasf.sparkjava.entity;
+
+/**
+ * The priority class of a crawl job. Jobs of a higher class get the free fetch slots first; jobs of the same
+ * class share them in proportion to their weights.
+ */
+public enum Priority {
+    INTERACTIVE,
+    NORMAL,
+    BULK
+}
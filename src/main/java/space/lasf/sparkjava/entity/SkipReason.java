@@ -0,0 +1,10 @@
+package space.lasf.sparkjava.entity;
+
+/**
+ * Why a fetched URL was not processed as a page.
+ */
+public enum SkipReason {
+    NOT_HTML,
+    TOO_LARGE,
+    UNSUPPORTED_ENCODING
+}
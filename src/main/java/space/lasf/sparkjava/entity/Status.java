@@ -3,5 +3,6 @@ package space.lasf.sparkjava.entity;
 public enum Status {
     ACTIVE,
     DONE,
-    ERROR
+    ERROR,
+    CANCELLED
 }
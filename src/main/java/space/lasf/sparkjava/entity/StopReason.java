@@ -0,0 +1,22 @@
+package space.lasf.sparkjava.entity;
+
+/**
+ * Why a crawl job finished: because it ran out of URLs, because one of the limits of its
+ * {@link CrawlBudget} was reached or because it was cancelled.
+ */
+public enum StopReason {
+    /** Every URL in scope was fetched. */
+    COMPLETED,
+    /** Every URL in scope was fetched, but links deeper than {@code maxDepth} were left out. */
+    MAX_DEPTH,
+    /** {@code maxPages} URLs were fetched. */
+    MAX_PAGES,
+    /** The job ran for {@code maxDuration}. */
+    MAX_DURATION,
+    /** {@code maxBytes} bytes were received over the network. */
+    MAX_BYTES,
+    /** Keywords were found on {@code stopAfterHits} pages. */
+    STOP_AFTER_HITS,
+    /** The job was cancelled through {@code DELETE /crawl/:id}. */
+    CANCELLED
+}
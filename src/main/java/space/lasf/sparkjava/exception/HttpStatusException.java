@@ -0,0 +1,31 @@
+package space.lasf.sparkjava.exception;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Exception thrown when a fetched page answers with an HTTP error status (4xx or 5xx).
+ * Carries the status code and the delay requested by a {@code Retry-After} header, if any.
+ */
+public class HttpStatusException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int statusCode;
+    private final transient Duration retryAfter;
+
+    public HttpStatusException(final String message, final int statusCode, final Duration retryAfter) {
+        super(message);
+        this.statusCode = statusCode;
+        this.retryAfter = retryAfter;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    public Optional<Duration> getRetryAfter() {
+        return Optional.ofNullable(retryAfter);
+    }
+}
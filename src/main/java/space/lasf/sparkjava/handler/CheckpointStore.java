@@ -0,0 +1,233 @@
+package space.lasf.sparkjava.handler;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import space.lasf.sparkjava.entity.Crawler;
+import space.lasf.sparkjava.helper.ConfigUtil;
+import space.lasf.sparkjava.helper.FairSlotScheduler;
+import space.lasf.sparkjava.helper.HostPoliteness;
+
+/**
+ * Periodically writes a {@link CrawlCheckpoint} of every running job to a local directory, and lists the jobs to
+ * resume on startup.
+ * <p>
+ * Checkpoints are enabled by {@code CRAWLER_CHECKPOINT_DIR} and written every
+ * {@code CRAWLER_CHECKPOINT_INTERVAL_SECONDS}. Each one is written to a temporary file and then moved over the
+ * previous one, so a crash while writing leaves the last complete checkpoint in place. The checkpoint of a job is
+ * deleted once it finishes; {@link #close()} writes a last checkpoint of the running jobs and keeps them, so that
+ * they are resumed on the next start. This class is thread-safe.
+ */
+final class CheckpointStore {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CheckpointStore.class);
+    private static final String ENV_DIR = "CRAWLER_CHECKPOINT_DIR";
+    private static final String ENV_INTERVAL_SECONDS = "CRAWLER_CHECKPOINT_INTERVAL_SECONDS";
+    private static final long DEFAULT_INTERVAL_SECONDS = 60;
+    private static final String SUFFIX = ".ckpt";
+    private static final String TEMPORARY_SUFFIX = ".tmp";
+
+    private final Path directory;
+    private final Map<String, Registration> running = new ConcurrentHashMap<>();
+    // The checkpoints of resumed jobs whose crawl has not been rebuilt yet.
+    private final Map<String, CrawlCheckpoint> resumable = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService timer;
+    private boolean closed;
+
+    /**
+     * Creates a store writing checkpoints at a fixed interval.
+     *
+     * @param directory The directory of the checkpoint files, or {@code null} to disable checkpoints.
+     * @param interval  The time between two checkpoints of a job.
+     */
+    CheckpointStore(final Path directory, final Duration interval) {
+        this.directory = directory;
+        if (directory == null) {
+            this.timer = null;
+            return;
+        }
+        this.timer = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "crawl-checkpoint");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long millis = Math.max(1, interval.toMillis());
+        timer.scheduleWithFixedDelay(this::checkpointAll, millis, millis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Creates the store configured by {@code CRAWLER_CHECKPOINT_DIR} and {@code CRAWLER_CHECKPOINT_INTERVAL_SECONDS}.
+     *
+     * @return The store; it does nothing if no directory is configured.
+     */
+    static CheckpointStore fromEnvironment() {
+        String directory = ConfigUtil.getString(ENV_DIR, "");
+        return new CheckpointStore(
+                directory.isBlank() ? null : Paths.get(directory),
+                Duration.ofSeconds(ConfigUtil.getLong(ENV_INTERVAL_SECONDS, DEFAULT_INTERVAL_SECONDS)));
+    }
+
+    boolean isEnabled() {
+        return directory != null;
+    }
+
+    /**
+     * Reads the checkpoints left by a previous run and passes each job to an action that restarts it. The crawl of
+     * a job is rebuilt from its checkpoint by {@link #restoreCrawl} when the job runs.
+     *
+     * @param start Receives each checkpoint, whose job is restored in the ACTIVE state.
+     * @return The number of jobs resumed.
+     */
+    int resume(final Consumer<CrawlCheckpoint> start) {
+        List<CrawlCheckpoint> found = load();
+        for (CrawlCheckpoint checkpoint : found) {
+            resumable.put(checkpoint.getCrawler().getId(), checkpoint);
+            LOGGER.info("Resuming job {} from {}", checkpoint.getCrawler().getId(), checkpoint.getFile());
+            start.accept(checkpoint);
+        }
+        return found.size();
+    }
+
+    /**
+     * Creates the crawl of a job: rebuilt from its checkpoint if the job is being resumed, new otherwise.
+     *
+     * @param id         The ID of the job.
+     * @param politeness The per-host limits shared with the other crawls.
+     * @param slots      The flow through which the crawl takes its fetch slots.
+     * @param fresh      Creates a new crawl, if the job has no checkpoint or it cannot be read.
+     * @return The crawl.
+     */
+    CrawlContext restoreCrawl(
+            final String id,
+            final HostPoliteness politeness,
+            final FairSlotScheduler.Flow slots,
+            final Function<FairSlotScheduler.Flow, CrawlContext> fresh) {
+        CrawlCheckpoint checkpoint = resumable.remove(id);
+        if (checkpoint != null) {
+            try {
+                return checkpoint.restore(politeness, slots);
+            } catch (IOException | RuntimeException e) {
+                LOGGER.warn("Could not restore the crawl of job {}; starting over: {}", id, e.toString());
+            }
+        }
+        return fresh.apply(slots);
+    }
+
+    /**
+     * Reads the checkpoints left by a previous run. Unreadable files are logged and skipped.
+     *
+     * @return The checkpoints of the jobs to resume.
+     */
+    List<CrawlCheckpoint> load() {
+        List<CrawlCheckpoint> checkpoints = new ArrayList<>();
+        if (!isEnabled() || !Files.isDirectory(directory)) {
+            return checkpoints;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+            for (Path file : files) {
+                try {
+                    checkpoints.add(CrawlCheckpoint.read(file));
+                } catch (IOException | RuntimeException e) {
+                    LOGGER.warn("Skipping unreadable checkpoint {}: {}", file, e.toString());
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.warn("Could not list the checkpoints in {}: {}", directory, e.toString());
+        }
+        return checkpoints;
+    }
+
+    /**
+     * Starts checkpointing a job, once it is subscribed to a crawl.
+     *
+     * @param crawler The job.
+     * @param context The crawl the job is subscribed to.
+     */
+    void register(final Crawler crawler, final CrawlContext context) {
+        // A resumed job that joined a crawl already running has no use for its own crawl state.
+        resumable.remove(crawler.getId());
+        if (isEnabled()) {
+            running.put(crawler.getId(), new Registration(crawler, context));
+        }
+    }
+
+    /**
+     * Stops checkpointing a finished job and deletes its checkpoint, unless the store is closed: the job was then
+     * interrupted by the shutdown and must be resumed.
+     *
+     * @param id The ID of the job.
+     */
+    synchronized void unregister(final String id) {
+        if (running.remove(id) != null && !closed) {
+            try {
+                Files.deleteIfExists(fileOf(id));
+            } catch (IOException e) {
+                LOGGER.warn("Could not delete the checkpoint of job {}: {}", id, e.toString());
+            }
+        }
+    }
+
+    /**
+     * Writes a checkpoint of every running job.
+     */
+    synchronized void checkpointAll() {
+        if (closed) {
+            return;
+        }
+        running.values().forEach(this::write);
+    }
+
+    /**
+     * Writes a last checkpoint of the running jobs and stops checkpointing, keeping their files.
+     */
+    synchronized void close() {
+        if (!isEnabled() || closed) {
+            return;
+        }
+        checkpointAll();
+        closed = true;
+        timer.shutdownNow();
+        LOGGER.info("Checkpointed {} running jobs to {}", running.size(), directory);
+    }
+
+    private void write(final Registration registration) {
+        final String id = registration.crawler.getId();
+        final Path temporary = directory.resolve(id + SUFFIX + TEMPORARY_SUFFIX);
+        try {
+            Files.createDirectories(directory);
+            CrawlCheckpoint.write(temporary, registration.crawler, registration.context);
+            Files.move(temporary, fileOf(id), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException e) {
+            LOGGER.warn("Could not checkpoint job {}: {}", id, e.toString());
+        }
+    }
+
+    private Path fileOf(final String id) {
+        return directory.resolve(id + SUFFIX);
+    }
+
+    private static final class Registration {
+        private final Crawler crawler;
+        private final CrawlContext context;
+
+        private Registration(final Crawler crawler, final CrawlContext context) {
+            this.crawler = crawler;
+            this.context = context;
+        }
+    }
+}
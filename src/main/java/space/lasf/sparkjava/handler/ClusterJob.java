@@ -0,0 +1,323 @@
+package space.lasf.sparkjava.handler;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import space.lasf.sparkjava.entity.Crawler;
+import space.lasf.sparkjava.helper.ClusterStatus;
+import space.lasf.sparkjava.helper.FrontierEntry;
+import space.lasf.sparkjava.helper.PageReport;
+
+/**
+ * The part of a clustered job run by this node: the crawl of the URLs the node owns, and the batches it exchanges
+ * with the other nodes taking part.
+ * <p>
+ * Links owned by another node are buffered per node and sent in batches, once a batch is full or on the next
+ * tick of the {@link ClusterNode}; the pages crawled here are reported the same way to the coordinator, which
+ * records their hits and statistics. A batch that cannot be delivered drops its node from the job, and the URLs
+ * it carried are crawled here instead.
+ * <p>
+ * The crawl is held open until the coordinator ends the job. The coordinator polls every node for its status
+ * whenever it has run out of work itself, and ends the job once two consecutive rounds find every node idle and
+ * the same number of batches sent and received by each: a batch only counts as sent once acknowledged, and its
+ * sender is busy until then, so no work can be in flight unseen. This class is thread-safe.
+ */
+final class ClusterJob {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ClusterJob.class);
+
+    private final ClusterNode node;
+    private final String id;
+    private final String coordinator;
+    private final CrawlContext context;
+    // The other nodes still taking part in the job, in a stable order.
+    private final Set<String> peers;
+    // The batches being filled, keyed by the node they go to; the monitor of the map guards them and sending.
+    private final Map<String, Batch> outbox = new HashMap<>();
+    private int sending;
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong received = new AtomicLong();
+    private final AtomicBoolean checking = new AtomicBoolean();
+    // The statuses found by the previous round of the termination check, written only while checking.
+    private List<ClusterStatus> lastRound = List.of();
+
+    /**
+     * Creates the part of a job run by this node.
+     *
+     * @param node        This node.
+     * @param id          The ID of the job, the same on every node.
+     * @param coordinator The base URL of the coordinator, which is this node for a job it started.
+     * @param context     The crawl of the URLs this node owns.
+     * @param peers       The other nodes of the cluster.
+     */
+    ClusterJob(
+            final ClusterNode node,
+            final String id,
+            final String coordinator,
+            final CrawlContext context,
+            final Collection<String> peers) {
+        this.node = node;
+        this.id = id;
+        this.coordinator = coordinator;
+        this.context = context;
+        this.peers = new CopyOnWriteArraySet<>(peers);
+    }
+
+    boolean isCoordinator() {
+        return coordinator.equals(node.getSelf());
+    }
+
+    String getCoordinator() {
+        return coordinator;
+    }
+
+    /**
+     * Asks the other nodes to take part in the job; the nodes that cannot be reached are left out of it.
+     *
+     * @param crawler The job.
+     * @param baseUrl The seed URL of the crawl.
+     * @return A future completed once every node has answered; it never completes exceptionally.
+     */
+    CompletableFuture<Void> open(final Crawler crawler, final String baseUrl) {
+        return CompletableFuture.allOf(peers.stream()
+                .map(peer -> node.getClient()
+                        .openJob(peer, crawler, baseUrl, node.getSelf())
+                        .exceptionally(error -> {
+                            drop(peer, error);
+                            return null;
+                        }))
+                .toArray(CompletableFuture[]::new));
+    }
+
+    /**
+     * Sends a new URL to the node that owns it.
+     *
+     * @param entry The frontier entry of the URL, already marked as seen here.
+     * @return {@code false} if the URL is crawled by this node.
+     */
+    boolean forward(final FrontierEntry entry) {
+        final String owner = node.ownerOf(entry.getUrl());
+        if (!peers.contains(owner)) {
+            return false;
+        }
+        add(owner, entry, null);
+        return true;
+    }
+
+    /**
+     * Reports a page crawled here to the coordinator; does nothing on the coordinator, which stores its pages.
+     *
+     * @param page What the page was found to hold.
+     */
+    void report(final PageReport page) {
+        if (!isCoordinator()) {
+            add(coordinator, null, page);
+        }
+    }
+
+    private void add(final String target, final FrontierEntry url, final PageReport page) {
+        Batch full = null;
+        synchronized (outbox) {
+            final Batch batch = outbox.computeIfAbsent(target, Batch::new);
+            batch.add(url, page);
+            if (batch.size() >= node.getBatchSize()) {
+                full = outbox.remove(target);
+                sending++;
+            }
+        }
+        if (full != null) {
+            send(full);
+        }
+    }
+
+    /** Sends every batch being filled, however small. */
+    void flush() {
+        final List<Batch> batches;
+        synchronized (outbox) {
+            batches = new ArrayList<>(outbox.values());
+            outbox.clear();
+            sending += batches.size();
+        }
+        batches.forEach(this::send);
+    }
+
+    private void send(final Batch batch) {
+        node.getClient().sendBatch(batch.target, id, batch.urls, batch.pages).whenComplete((ignored, error) -> {
+            if (error == null) {
+                sent.incrementAndGet();
+            } else {
+                fail(batch, error);
+            }
+            synchronized (outbox) {
+                sending--;
+            }
+        });
+    }
+
+    /** Crawls the URLs of a batch that could not be delivered here; page reports are lost with the coordinator. */
+    private void fail(final Batch batch, final Throwable error) {
+        drop(batch.target, error);
+        batch.urls.forEach(url -> CrawlPipeline.enqueueLocally(context, url));
+        node.getPipeline().dispatch(context);
+        if (batch.target.equals(coordinator)) {
+            LOGGER.warn("Lost the coordinator of job {}; crawling what is left of its share alone", id);
+            node.release(id, false);
+        }
+    }
+
+    private void drop(final String peer, final Throwable error) {
+        if (peers.remove(peer)) {
+            LOGGER.warn("Node {} left job {}: {}", peer, id, error.toString());
+        }
+    }
+
+    /**
+     * Takes a batch sent by another node: queues the URLs not seen here yet and, on the coordinator, records the
+     * reported pages.
+     *
+     * @param urls  The URLs this node owns.
+     * @param pages The pages crawled by the sender, for a job this node coordinates.
+     * @return The status of the job on this node, once the batch is taken.
+     */
+    ClusterStatus accept(final List<FrontierEntry> urls, final List<PageReport> pages) {
+        for (FrontierEntry url : urls) {
+            if (context.getVisitedUrls().add(url.getUrl())) {
+                CrawlPipeline.enqueueLocally(context, url);
+            }
+        }
+        if (!pages.isEmpty() && isCoordinator()) {
+            store(pages);
+        }
+        // Counted once the URLs are queued, so that a status counting the batch also finds the node busy.
+        received.incrementAndGet();
+        node.getPipeline().dispatch(context);
+        return status();
+    }
+
+    /**
+     * Records the pages other nodes crawled for the job as the pipeline records those crawled here: their hits
+     * first, then the pages in the statistics of the job, which is stopped if they exhausted its budget.
+     */
+    private void store(final List<PageReport> pages) {
+        for (Subscription subscription : context.getSubscriptions()) {
+            for (PageReport page : pages) {
+                if (!page.getHits().isEmpty()) {
+                    node.getDao().appendAll(subscription.getId(), List.of(page.getUrl()));
+                    node.getDao().appendHits(subscription.getId(), page.getUrl(), page.getHits());
+                    subscription.getStats().recordHit();
+                }
+                subscription.getStats().recordPage(page.getWireBytes(), page.getDecodedBytes(), page.isFromCache());
+            }
+            subscription.checkBudget();
+        }
+    }
+
+    /**
+     * Returns the status of the job on this node.
+     *
+     * @return Whether the node is idle, and the batches it has sent and received.
+     */
+    ClusterStatus status() {
+        return new ClusterStatus(isIdle(), sent.get(), received.get());
+    }
+
+    private boolean isIdle() {
+        synchronized (outbox) {
+            if (!outbox.isEmpty() || sending > 0) {
+                return false;
+            }
+        }
+        return context.isIdle()
+                && (context.getFrontier().isEmpty()
+                        || context.getSubscriptions().stream().noneMatch(Subscription::isActive));
+    }
+
+    /**
+     * On the coordinator, runs a round of the termination check if this node is idle and no round is running:
+     * the other nodes are polled for their status, and the job is ended if the round matches the previous one.
+     */
+    void checkTermination() {
+        if (!isCoordinator() || !checking.compareAndSet(false, true)) {
+            return;
+        }
+        final ClusterStatus own = status();
+        if (!own.isIdle()) {
+            lastRound = List.of();
+            checking.set(false);
+            return;
+        }
+        final List<CompletableFuture<ClusterStatus>> polls = peers.stream()
+                .map(peer -> node.getClient().status(peer, id).exceptionally(error -> {
+                    drop(peer, error);
+                    return null;
+                }))
+                .toList();
+        CompletableFuture.allOf(polls.toArray(CompletableFuture[]::new))
+                .thenRun(() -> {
+                    final List<ClusterStatus> round = new ArrayList<>();
+                    round.add(own);
+                    polls.forEach(poll -> round.add(poll.join()));
+                    conclude(round);
+                })
+                .whenComplete((ignored, error) -> checking.set(false));
+    }
+
+    private void conclude(final List<ClusterStatus> round) {
+        final boolean quiet = round.stream().allMatch(status -> status != null && status.isIdle());
+        if (quiet && round.equals(lastRound)) {
+            LOGGER.info("Job {} is over on all of its {} nodes", id, round.size());
+            node.release(id, false);
+        }
+        lastRound = quiet ? round : List.of();
+    }
+
+    /**
+     * Lets the crawl end once it is idle; the coordinator also tells the other nodes the job is over.
+     *
+     * @param cancel Whether the job was stopped before it ran out of work, so that the other nodes stop too.
+     */
+    void release(final boolean cancel) {
+        flush();
+        if (isCoordinator()) {
+            peers.forEach(peer -> node.getClient().leave(peer, id, cancel).exceptionally(error -> {
+                LOGGER.debug("Could not tell {} that job {} is over: {}", peer, id, error.toString());
+                return null;
+            }));
+        }
+        context.leaveCluster();
+        node.getPipeline().dispatch(context);
+    }
+
+    /** The URLs and page reports waiting to be sent to one node. */
+    private static final class Batch {
+        private final String target;
+        private final List<FrontierEntry> urls = new ArrayList<>();
+        private final List<PageReport> pages = new ArrayList<>();
+
+        private Batch(final String target) {
+            this.target = target;
+        }
+
+        private void add(final FrontierEntry url, final PageReport page) {
+            if (url != null) {
+                urls.add(url);
+            }
+            if (page != null) {
+                pages.add(page);
+            }
+        }
+
+        private int size() {
+            return urls.size() + pages.size();
+        }
+    }
+}
@@ -0,0 +1,275 @@
+package space.lasf.sparkjava.handler;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import space.lasf.sparkjava.dao.DaoInterface;
+import space.lasf.sparkjava.entity.Crawler;
+import space.lasf.sparkjava.helper.ClusterClient;
+import space.lasf.sparkjava.helper.ClusterStatus;
+import space.lasf.sparkjava.helper.ConfigUtil;
+import space.lasf.sparkjava.helper.FrontierEntry;
+import space.lasf.sparkjava.helper.HashRing;
+import space.lasf.sparkjava.helper.HostPoliteness;
+import space.lasf.sparkjava.helper.PageReport;
+
+/**
+ * This instance as a node of a cluster of crawler instances that split every crawl between them.
+ * <p>
+ * Enabled by {@code CLUSTER_NODES}, the comma-separated base URLs of every node, and {@code CLUSTER_SELF}, the
+ * one of this node. The URL space of a crawl is partitioned by consistent hashing (see {@link HashRing}) on the
+ * host of each URL, or on its path with {@code CLUSTER_PARTITION=path}: every node crawls the URLs it owns, and
+ * sends the others the links it finds for them, in batches of up to {@code CLUSTER_BATCH_SIZE} sent at least
+ * every {@code CLUSTER_FLUSH_MS}. The per-host limits of {@link HostPoliteness} apply on each node, so only a
+ * partition by host keeps every site within them: by path, a host may receive up to as many times the limits as
+ * there are nodes. The nodes authenticate each other with {@code CLUSTER_SECRET}, without which this instance runs
+ * standalone, and a node only takes part in the jobs of a coordinator among them. The node a job is submitted to
+ * coordinates it (see {@link ClusterJob}). This class is thread-safe.
+ */
+final class ClusterNode {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ClusterNode.class);
+    private static final String ENV_CLUSTER_NODES = "CLUSTER_NODES";
+    private static final String ENV_CLUSTER_SELF = "CLUSTER_SELF";
+    private static final String ENV_CLUSTER_SECRET = "CLUSTER_SECRET";
+    private static final String ENV_CLUSTER_PARTITION = "CLUSTER_PARTITION";
+    private static final String ENV_CLUSTER_BATCH_SIZE = "CLUSTER_BATCH_SIZE";
+    private static final String ENV_CLUSTER_FLUSH_MS = "CLUSTER_FLUSH_MS";
+    private static final String ENV_CLUSTER_TIMEOUT_MS = "CLUSTER_TIMEOUT_MS";
+    private static final String PATH_PARTITION = "path";
+    private static final int MIN_NODES = 2;
+    private static final int DEFAULT_BATCH_SIZE = 500;
+    private static final long DEFAULT_FLUSH_MS = 100;
+    private static final long DEFAULT_TIMEOUT_MS = 5_000;
+
+    private final String self;
+    private final HashRing ring;
+    private final ClusterClient client;
+    private final DaoInterface<Crawler> dao;
+    private final CrawlPipeline pipeline;
+    private final boolean byHost;
+    private final int batchSize;
+    // The jobs this node takes part in, keyed by job ID.
+    private final Map<String, ClusterJob> jobs = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(task -> {
+        Thread thread = new Thread(task, "cluster-node");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Creates a node, whose partitioning and batching are configured from the environment.
+     *
+     * @param self      The base URL of this node, one of the nodes.
+     * @param nodes     The base URLs of every node of the cluster.
+     * @param client    Sends messages to the other nodes.
+     * @param dao       Receives the hits of the jobs this node coordinates.
+     * @param pipeline  Runs the crawls of this node.
+     */
+    ClusterNode(
+            final String self,
+            final List<String> nodes,
+            final ClusterClient client,
+            final DaoInterface<Crawler> dao,
+            final CrawlPipeline pipeline) {
+        this.self = self;
+        this.ring = new HashRing(nodes, HashRing.DEFAULT_VIRTUAL_NODES);
+        this.client = client;
+        this.dao = dao;
+        this.pipeline = pipeline;
+        this.byHost = !PATH_PARTITION.equals(
+                ConfigUtil.getString(ENV_CLUSTER_PARTITION, "host").trim().toLowerCase(Locale.ROOT));
+        if (!byHost) {
+            LOGGER.warn(
+                    "Partitioning by path: each of the {} nodes applies the per-host limits on its own", nodes.size());
+        }
+        this.batchSize = Math.max(1, ConfigUtil.getInt(ENV_CLUSTER_BATCH_SIZE, DEFAULT_BATCH_SIZE));
+        final long flushMillis = Math.max(1, ConfigUtil.getLong(ENV_CLUSTER_FLUSH_MS, DEFAULT_FLUSH_MS));
+        timer.scheduleWithFixedDelay(this::tick, flushMillis, flushMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Creates the node configured by {@code CLUSTER_NODES} and {@code CLUSTER_SELF}, if any.
+     *
+     * @param dao      Receives the hits of the jobs this node coordinates.
+     * @param pipeline Runs the crawls of this node.
+     * @param executor Runs the handling of the responses of the other nodes.
+     * @return The node, or {@code null} if this instance runs standalone.
+     */
+    static ClusterNode fromEnvironment(
+            final DaoInterface<Crawler> dao, final CrawlPipeline pipeline, final Executor executor) {
+        final List<String> nodes = Arrays.stream(
+                        ConfigUtil.getString(ENV_CLUSTER_NODES, "").split(","))
+                .map(ClusterNode::normalize)
+                .filter(node -> !node.isEmpty())
+                .distinct()
+                .toList();
+        final String self = normalize(ConfigUtil.getString(ENV_CLUSTER_SELF, ""));
+        if (nodes.size() < MIN_NODES) {
+            return null;
+        }
+        if (!nodes.contains(self)) {
+            LOGGER.warn("{} '{}' is not one of the {}; running standalone", ENV_CLUSTER_SELF, self, ENV_CLUSTER_NODES);
+            return null;
+        }
+        final String secret = ConfigUtil.getString(ENV_CLUSTER_SECRET, "");
+        if (secret.isEmpty()) {
+            LOGGER.warn("{} is not set; running standalone", ENV_CLUSTER_SECRET);
+            return null;
+        }
+        LOGGER.info("Running as node {} of a cluster of {}", self, nodes.size());
+        final Duration timeout = Duration.ofMillis(ConfigUtil.getLong(ENV_CLUSTER_TIMEOUT_MS, DEFAULT_TIMEOUT_MS));
+        return new ClusterNode(self, nodes, new ClusterClient(timeout, secret, executor), dao, pipeline);
+    }
+
+    private static String normalize(final String node) {
+        final String trimmed = node.trim();
+        return trimmed.endsWith("/") ? trimmed.substring(0, trimmed.length() - 1) : trimmed;
+    }
+
+    /**
+     * Returns whether a node is one of the other nodes of the cluster.
+     *
+     * @param node The base URL of the node.
+     * @return {@code true} if the node is configured in {@code CLUSTER_NODES} and is not this node.
+     */
+    boolean isPeer(final String node) {
+        final String normalized = normalize(node);
+        return !normalized.equals(self) && ring.getNodes().contains(normalized);
+    }
+
+    /**
+     * Makes a crawl part of a clustered job, before it is started. On the coordinator, the other nodes are asked
+     * to take part; elsewhere the frontier is not seeded, since the coordinator seeds it.
+     *
+     * @param context     The crawl, not started yet.
+     * @param crawler     The job.
+     * @param baseUrl     The seed URL of the crawl.
+     * @param coordinator The base URL of the coordinator, or {@code null} if this node coordinates the job.
+     * @return A future completed once the crawl may be started; it never completes exceptionally.
+     */
+    CompletableFuture<Void> join(
+            final CrawlContext context, final Crawler crawler, final String baseUrl, final String coordinator) {
+        final List<String> peers =
+                ring.getNodes().stream().filter(node -> !node.equals(self)).toList();
+        final ClusterJob job =
+                new ClusterJob(this, crawler.getId(), coordinator == null ? self : coordinator, context, peers);
+        context.joinCluster(job);
+        jobs.put(crawler.getId(), job);
+        if (coordinator != null) {
+            context.claimSeeding();
+            return CompletableFuture.completedFuture(null);
+        }
+        return job.open(crawler, baseUrl);
+    }
+
+    /**
+     * Takes a batch of URLs and page reports sent by another node for a job.
+     *
+     * @param id    The ID of the job.
+     * @param urls  The URLs this node owns.
+     * @param pages The pages crawled by the sender.
+     * @return The status of the job on this node, or {@code null} if the node takes no part in it.
+     */
+    ClusterStatus accept(final String id, final List<FrontierEntry> urls, final List<PageReport> pages) {
+        final ClusterJob job = jobs.get(id);
+        return job == null ? null : job.accept(urls, pages);
+    }
+
+    /**
+     * Returns the status of a job on this node.
+     *
+     * @param id The ID of the job.
+     * @return The status, or {@code null} if the node takes no part in the job.
+     */
+    ClusterStatus status(final String id) {
+        final ClusterJob job = jobs.get(id);
+        return job == null ? null : job.status();
+    }
+
+    /**
+     * Ends a job on this node at the request of its coordinator: the crawl ends once it is idle.
+     *
+     * @param id The ID of the job.
+     * @return The last status of the job on this node, or {@code null} if the node takes no part in it.
+     */
+    ClusterStatus leave(final String id) {
+        final ClusterJob job = jobs.get(id);
+        if (job == null) {
+            return null;
+        }
+        final ClusterStatus status = job.status();
+        release(id, false);
+        return status;
+    }
+
+    /**
+     * Lets the crawl of a job end on this node, once the job is over or stopped; the coordinator also tells the
+     * other nodes. Does nothing if the job was released already.
+     *
+     * @param id     The ID of the job.
+     * @param cancel Whether the job was stopped early, so that the other nodes stop too.
+     */
+    void release(final String id, final boolean cancel) {
+        final ClusterJob job = jobs.remove(id);
+        if (job != null) {
+            job.release(cancel);
+        }
+    }
+
+    /**
+     * Returns the node that owns a URL.
+     *
+     * @param url The URL, in canonical form.
+     * @return The base URL of its owner.
+     */
+    String ownerOf(final String url) {
+        if (byHost) {
+            return ring.ownerOf(HostPoliteness.hostOf(url));
+        }
+        final int query = url.indexOf('?');
+        return ring.ownerOf(query < 0 ? url : url.substring(0, query));
+    }
+
+    String getSelf() {
+        return self;
+    }
+
+    ClusterClient getClient() {
+        return client;
+    }
+
+    DaoInterface<Crawler> getDao() {
+        return dao;
+    }
+
+    CrawlPipeline getPipeline() {
+        return pipeline;
+    }
+
+    int getBatchSize() {
+        return batchSize;
+    }
+
+    /** Sends the batches being filled, and runs the termination check of the jobs this node coordinates. */
+    private void tick() {
+        for (ClusterJob job : jobs.values()) {
+            try {
+                job.flush();
+                job.checkTermination();
+            } catch (RuntimeException e) {
+                LOGGER.warn("Cluster tick failed: {}", e.toString());
+            }
+        }
+    }
+}
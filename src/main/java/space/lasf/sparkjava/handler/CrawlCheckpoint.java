@@ -0,0 +1,315 @@
+package space.lasf.sparkjava.handler;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import space.lasf.sparkjava.entity.CrawlBudget;
+import space.lasf.sparkjava.entity.CrawlOptions;
+import space.lasf.sparkjava.entity.CrawlTarget;
+import space.lasf.sparkjava.entity.Crawler;
+import space.lasf.sparkjava.entity.FrontierLimits;
+import space.lasf.sparkjava.entity.FrontierOrder;
+import space.lasf.sparkjava.entity.Priority;
+import space.lasf.sparkjava.helper.FairSlotScheduler;
+import space.lasf.sparkjava.helper.FrontierEntry;
+import space.lasf.sparkjava.helper.HostPoliteness;
+import space.lasf.sparkjava.helper.SpillingFrontier;
+import space.lasf.sparkjava.helper.VisitedSet;
+
+/**
+ * A checkpoint of one crawl job on local disk, from which the job is resumed after a restart.
+ * <p>
+ * The file holds, in a compact binary form: the first seed URL, the coordinator of a clustered job that another
+ * node coordinates, and the frontier order, the visited set of the crawl,
+ * the pending URLs (queued and in flight) with their depth and score, and then the job itself: its keywords,
+ * options, budget, seed URLs and scope, counters and hits. The offset of the job section is stored in the last 8
+ * bytes, so that the jobs to resume can be listed without reading the crawl state. The crawl state is captured
+ * before the job, so that a page completed while the checkpoint is written is never lost: at worst it is fetched
+ * again.
+ */
+final class CrawlCheckpoint {
+
+    private static final int MAGIC = 0x43524B50;
+    private static final int VERSION = 3;
+    // Terminates the list of pending URLs, which is streamed without a count.
+    private static final String END_OF_FRONTIER = "";
+
+    private final Path file;
+    private final String baseUrl;
+    // The base URL of the node coordinating the job, or empty if this node coordinates it or runs standalone.
+    private final String coordinator;
+    private final Crawler crawler;
+
+    private CrawlCheckpoint(final Path file, final String baseUrl, final String coordinator, final Crawler crawler) {
+        this.file = file;
+        this.baseUrl = baseUrl;
+        this.coordinator = coordinator;
+        this.crawler = crawler;
+    }
+
+    /**
+     * Writes the checkpoint of a job and of the crawl it is subscribed to.
+     *
+     * @param file    The destination, replaced if it exists.
+     * @param crawler The job.
+     * @param context The crawl of the job.
+     * @throws IOException if writing fails.
+     */
+    static void write(final Path file, final Crawler crawler, final CrawlContext context) throws IOException {
+        try (FileChannel channel = FileChannel.open(
+                file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF(context.getBaseUrl());
+            out.writeUTF(coordinatorOf(context));
+            writeCrawl(out, context);
+            out.flush();
+            long jobOffset = channel.position();
+            writeJob(out, crawler);
+            out.writeLong(jobOffset);
+            out.flush();
+            channel.force(false);
+        }
+    }
+
+    /**
+     * Reads the job of a checkpoint, without the crawl state.
+     *
+     * @param file The checkpoint file.
+     * @return The checkpoint, holding the restored job in the ACTIVE state.
+     * @throws IOException if the file cannot be read or is not a checkpoint.
+     */
+    static CrawlCheckpoint read(final Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            DataInputStream header = open(channel, 0);
+            String baseUrl = header.readUTF();
+            String coordinator = header.readUTF();
+            ByteBuffer trailer = ByteBuffer.allocate(Long.BYTES);
+            channel.read(trailer, channel.size() - Long.BYTES);
+            long jobOffset = trailer.flip().getLong();
+            if (jobOffset < 0 || jobOffset > channel.size() - Long.BYTES) {
+                throw new IOException("Corrupt checkpoint " + file);
+            }
+            return new CrawlCheckpoint(file, baseUrl, coordinator, readJob(open(channel, jobOffset)));
+        }
+    }
+
+    /**
+     * Rebuilds the crawl of the job: its visited set and a frontier holding the pending URLs.
+     *
+     * @param politeness The per-host limits shared with the other crawls.
+     * @param slots      The flow through which the crawl takes its fetch slots.
+     * @return The resumed crawl.
+     * @throws IOException if the file cannot be read.
+     */
+    CrawlContext restore(final HostPoliteness politeness, final FairSlotScheduler.Flow slots) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            DataInputStream in = open(channel, 0);
+            in.readUTF();
+            in.readUTF();
+            boolean bestFirst = in.readBoolean();
+            VisitedSet visited = VisitedSet.readFrom(in);
+            CrawlTarget target = Optional.ofNullable(crawler.getTarget()).orElseGet(() -> CrawlTarget.of(baseUrl));
+            CrawlContext context = new CrawlContext(
+                    target,
+                    SpillingFrontier.factory(crawler.getOptions().getFrontierLimits(), bestFirst),
+                    politeness,
+                    slots,
+                    visited);
+            for (String url = in.readUTF(); !END_OF_FRONTIER.equals(url); url = in.readUTF()) {
+                context.getFrontier().add(new FrontierEntry(url, in.readInt(), in.readDouble()));
+            }
+            return context;
+        }
+    }
+
+    Path getFile() {
+        return file;
+    }
+
+    String getBaseUrl() {
+        return baseUrl;
+    }
+
+    /**
+     * Returns the coordinator of the job, so that a node resumes its share of a job another node coordinates
+     * instead of coordinating it.
+     *
+     * @return The base URL of the coordinator, or {@code null} if the job is not coordinated by another node.
+     */
+    String getCoordinator() {
+        return coordinator.isEmpty() ? null : coordinator;
+    }
+
+    Crawler getCrawler() {
+        return crawler;
+    }
+
+    private static String coordinatorOf(final CrawlContext context) {
+        final ClusterJob job = context.getCluster();
+        return job == null || job.isCoordinator() ? "" : job.getCoordinator();
+    }
+
+    private static DataInputStream open(final FileChannel channel, final long position) throws IOException {
+        channel.position(position);
+        DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+        if (position == 0 && (in.readInt() != MAGIC || in.readInt() != VERSION)) {
+            throw new IOException("Not a crawl checkpoint, or written by another version");
+        }
+        return in;
+    }
+
+    private static void writeCrawl(final DataOutput out, final CrawlContext context) throws IOException {
+        out.writeBoolean(context.isBestFirst());
+        // The visited set goes first: a URL discovered meanwhile is then at worst both pending and unseen.
+        context.getVisitedUrls().writeTo(out);
+        try {
+            context.forEachPending(entry -> {
+                try {
+                    out.writeUTF(entry.getUrl());
+                    out.writeInt(entry.getDepth());
+                    out.writeDouble(entry.getScore());
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        out.writeUTF(END_OF_FRONTIER);
+    }
+
+    private static void writeJob(final DataOutput out, final Crawler crawler) throws IOException {
+        out.writeUTF(crawler.getId());
+        writeStrings(out, crawler.getKeywords());
+        writeOptions(out, crawler.getOptions());
+        writeBudget(out, crawler.getBudget());
+        writeTarget(out, crawler.getTarget());
+        long[] counters = crawler.getStats().toCounters();
+        out.writeInt(counters.length);
+        for (long counter : counters) {
+            out.writeLong(counter);
+        }
+        Map<String, Set<String>> hits = crawler.getHits();
+        out.writeInt(hits.size());
+        for (Map.Entry<String, Set<String>> entry : hits.entrySet()) {
+            out.writeUTF(entry.getKey());
+            writeStrings(out, entry.getValue());
+        }
+        writeStrings(out, crawler.getUrls());
+    }
+
+    private static Crawler readJob(final DataInput in) throws IOException {
+        String id = in.readUTF();
+        List<String> keywords = readStrings(in);
+        Crawler crawler = new Crawler(id, keywords, readOptions(in), readBudget(in), readTarget(in));
+        long[] counters = new long[in.readInt()];
+        for (int i = 0; i < counters.length; i++) {
+            counters[i] = in.readLong();
+        }
+        crawler.getStats().restore(counters);
+        for (int i = in.readInt(); i > 0; i--) {
+            List<String> keyword = List.of(in.readUTF());
+            for (String url : readStrings(in)) {
+                crawler.addHits(url, keyword);
+            }
+        }
+        crawler.addLinks(readStrings(in));
+        return crawler;
+    }
+
+    private static void writeOptions(final DataOutput out, final CrawlOptions options) throws IOException {
+        out.writeUTF(options.getPriority().name());
+        out.writeInt(options.getWeight());
+        out.writeInt(options.getMaxConcurrency());
+        out.writeInt(options.getFrontierLimits().getMaxInMemory());
+        out.writeLong(options.getFrontierLimits().getMaxDiskBytes());
+        out.writeUTF(
+                options.getFrontierOrder() == null
+                        ? ""
+                        : options.getFrontierOrder().name());
+    }
+
+    private static CrawlOptions readOptions(final DataInput in) throws IOException {
+        try {
+            Priority priority = Priority.valueOf(in.readUTF());
+            int weight = in.readInt();
+            int maxConcurrency = in.readInt();
+            FrontierLimits limits = new FrontierLimits(in.readInt(), in.readLong());
+            String order = in.readUTF();
+            return new CrawlOptions(
+                    priority, weight, maxConcurrency, limits, order.isEmpty() ? null : FrontierOrder.valueOf(order));
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Invalid crawl options in checkpoint", e);
+        }
+    }
+
+    private static void writeBudget(final DataOutput out, final CrawlBudget budget) throws IOException {
+        out.writeLong(budget.getMaxPages());
+        out.writeInt(budget.getMaxDepth());
+        out.writeLong(budget.getMaxDurationMillis());
+        out.writeLong(budget.getMaxBytes());
+        out.writeLong(budget.getStopAfterHits());
+    }
+
+    private static CrawlBudget readBudget(final DataInput in) throws IOException {
+        try {
+            return new CrawlBudget(in.readLong(), in.readInt(), in.readLong(), in.readLong(), in.readLong());
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Invalid crawl budget in checkpoint", e);
+        }
+    }
+
+    private static void writeTarget(final DataOutput out, final CrawlTarget target) throws IOException {
+        out.writeBoolean(target != null);
+        if (target != null) {
+            writeStrings(out, target.getSeeds());
+            writeStrings(out, target.getScope());
+        }
+    }
+
+    private static CrawlTarget readTarget(final DataInput in) throws IOException {
+        if (!in.readBoolean()) {
+            return null;
+        }
+        try {
+            return new CrawlTarget(readStrings(in), readStrings(in));
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Invalid crawl target in checkpoint", e);
+        }
+    }
+
+    private static void writeStrings(final DataOutput out, final Collection<String> values) throws IOException {
+        List<String> snapshot = List.copyOf(values);
+        out.writeInt(snapshot.size());
+        for (String value : snapshot) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static List<String> readStrings(final DataInput in) throws IOException {
+        int count = in.readInt();
+        List<String> values = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            values.add(in.readUTF());
+        }
+        return values;
+    }
+}
@@ -0,0 +1,600 @@
+package space.lasf.sparkjava.handler;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import space.lasf.sparkjava.entity.CrawlOptions;
+import space.lasf.sparkjava.entity.CrawlTarget;
+import space.lasf.sparkjava.entity.FrontierOrder;
+import space.lasf.sparkjava.helper.FairSlotScheduler;
+import space.lasf.sparkjava.helper.FetchResponse;
+import space.lasf.sparkjava.helper.Frontier;
+import space.lasf.sparkjava.helper.FrontierEntry;
+import space.lasf.sparkjava.helper.HashVisitedSet;
+import space.lasf.sparkjava.helper.HostPoliteness;
+import space.lasf.sparkjava.helper.HostScheduler;
+import space.lasf.sparkjava.helper.PageReport;
+import space.lasf.sparkjava.helper.SpillingFrontier;
+import space.lasf.sparkjava.helper.UrlCanonicalizer;
+import space.lasf.sparkjava.helper.VisitedSet;
+
+/**
+ * The state of one crawl of a target (see {@link CrawlTarget}): its frontier, the URLs seen so far and the jobs
+ * subscribed to it.
+ * <p>
+ * All the seed URLs of the target are queued when the crawl is created. The frontier groups URLs by host and
+ * visits the hosts in turn, so the fetches of a crawl with seeds on several sites are interleaved across them.
+ * <p>
+ * Every page is fetched once and handed to all the jobs subscribed when it is dispatched. A job that subscribes
+ * while the crawl is running is only handed the pages dispatched after it joined, unless the crawl replays the
+ * earlier ones to it (see {@link #replayToLateJobs()}): those are then logged to disk, queued again and fetched
+ * once more, normally from the response cache. Once the crawl runs out of work, or every job has reached its
+ * budget, it is closed, and later jobs start a new one. The crawl has no thread of its own: it is driven by the
+ * {@link CrawlPipeline}, and it is over once no work is in flight and nothing is left to dispatch.
+ * This class is thread-safe.
+ */
+final class CrawlContext {
+
+    private final String baseUrl;
+    // The seed URLs in canonical form, the first one parsed to resolve the URLs not found on a page against.
+    private final List<String> seeds;
+    private final UrlCanonicalizer.Base base;
+    private final List<String> scope;
+    private final HostScheduler frontier;
+    private final FairSlotScheduler.Flow slots;
+    private final VisitedSet visitedUrls;
+    private final boolean bestFirst;
+    private final SpillingFrontier.Factory queues;
+    // The pages handed out so far, by 64-bit hash, and their entries, spilled to disk and replayed to late jobs;
+    // only logged by a shared crawl that replays them, within the disk quota of its frontier.
+    private final HashVisitedSet dispatchedUrls = new HashVisitedSet();
+    private Frontier dispatchedPages;
+    // The pages left out of the log once the disk quota was reached, counted as frontier drops of late jobs.
+    private long droppedPages;
+    private final Map<String, Integer> attempts = new ConcurrentHashMap<>();
+    // The pages polled from the frontier and not done yet, retries waiting for their backoff included.
+    private final Map<String, FrontierEntry> inFlight = new ConcurrentHashMap<>();
+    // The fetches in flight, until their page is parsed, so that they can be aborted once every job is cancelled.
+    private final Map<String, CompletableFuture<FetchResponse>> fetches = new ConcurrentHashMap<>();
+    // The pages dispatched and not done yet, pending retries and hit writes included; the crawl ends at zero.
+    private final AtomicInteger work = new AtomicInteger();
+    // Serializes dispatching without a thread of its own: the caller that raises it from zero runs the dispatcher.
+    private final AtomicInteger dispatchRequests = new AtomicInteger();
+    // Whether a page was taken from the frontier and waits for a fetch slot; one at most, as a dispatcher did.
+    private final AtomicBoolean awaitingSlot = new AtomicBoolean();
+    private final AtomicBoolean wakeUpScheduled = new AtomicBoolean();
+    private final AtomicBoolean seeded = new AtomicBoolean();
+    // Whether the crawl takes part in a clustered job, which keeps it open while other nodes may send it URLs.
+    private final AtomicBoolean heldOpen = new AtomicBoolean();
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+    private final CompletableFuture<Void> finished = new CompletableFuture<>();
+    private boolean closed;
+    private boolean cancelled;
+    // Set before the crawl starts, for a run of a recurring crawl, which is never shared.
+    private RunHistory history;
+    // Set before the crawl starts, for a clustered job, which is never shared.
+    private ClusterJob cluster;
+
+    /**
+     * Creates a crawl whose frontier holds the seed URLs, in canonical form, except those the visited set has seen.
+     * Discovered links are scored, so that the frontier fetches the most promising first, if the queues of the
+     * frontier are best-first.
+     *
+     * @param target     The seed URLs and the scope of the crawl.
+     * @param queues     Creates the queues of the frontier, within the limits of the job.
+     * @param politeness The per-host limits shared with the other crawls.
+     * @param slots      The flow through which the crawl takes its fetch slots.
+     * @param visited    The set of URLs seen by the crawl: empty, or restored from a checkpoint.
+     */
+    CrawlContext(
+            final CrawlTarget target,
+            final SpillingFrontier.Factory queues,
+            final HostPoliteness politeness,
+            final FairSlotScheduler.Flow slots,
+            final VisitedSet visited) {
+        this.baseUrl = target.getSeed();
+        this.base = UrlCanonicalizer.parseBase(target.getSeed());
+        this.seeds = target.getSeeds().stream().map(CrawlContext::canonical).toList();
+        this.scope = target.getScope().stream().map(CrawlContext::canonical).toList();
+        this.queues = queues;
+        this.frontier = new HostScheduler(politeness, queues);
+        this.slots = slots;
+        this.visitedUrls = visited;
+        this.bestFirst = queues.isBestFirst();
+        // A crawl resumed from a checkpoint, or run for a clustered job it does not coordinate, has seen its seeds.
+        for (String seed : seeds) {
+            if (visitedUrls.add(seed)) {
+                frontier.add(seed);
+            }
+        }
+    }
+
+    /**
+     * Creates a crawl set up for the options of the job that starts it: a frontier with its limits and order,
+     * and a visited-URL set chosen by {@code CRAWLER_VISITED_SET}.
+     *
+     * @param target       The seed URLs and the scope of the crawl.
+     * @param options      The options of the job starting the crawl.
+     * @param defaultOrder The frontier order used when the job does not ask for one.
+     * @param politeness   The per-host limits shared with the other crawls.
+     * @param slots        The flow through which the crawl takes its fetch slots.
+     * @return The new crawl, holding the seed URLs.
+     */
+    static CrawlContext create(
+            final CrawlTarget target,
+            final CrawlOptions options,
+            final FrontierOrder defaultOrder,
+            final HostPoliteness politeness,
+            final FairSlotScheduler.Flow slots) {
+        return new CrawlContext(
+                target, newQueues(options, defaultOrder), politeness, slots, VisitedSet.fromEnvironment());
+    }
+
+    /**
+     * Creates the part of a clustered crawl run by a node other than its coordinator: set up like
+     * {@link #create}, except that its frontier starts empty, since the coordinator crawls the seed URLs.
+     *
+     * @param target       The seed URLs and the scope of the crawl.
+     * @param options      The options of the job.
+     * @param defaultOrder The frontier order used when the job does not ask for one.
+     * @param politeness   The per-host limits shared with the other crawls.
+     * @param slots        The flow through which the crawl takes its fetch slots.
+     * @return The new crawl, with the seed URLs marked as seen.
+     */
+    static CrawlContext follow(
+            final CrawlTarget target,
+            final CrawlOptions options,
+            final FrontierOrder defaultOrder,
+            final HostPoliteness politeness,
+            final FairSlotScheduler.Flow slots) {
+        final VisitedSet visited = VisitedSet.fromEnvironment();
+        target.getSeeds().forEach(seed -> visited.add(canonical(seed)));
+        return new CrawlContext(target, newQueues(options, defaultOrder), politeness, slots, visited);
+    }
+
+    /** Returns a URL in canonical form, or as given if it is not a valid web URL. */
+    private static String canonical(final String url) {
+        return Optional.ofNullable(UrlCanonicalizer.canonicalize(url)).orElse(url);
+    }
+
+    private static SpillingFrontier.Factory newQueues(final CrawlOptions options, final FrontierOrder defaultOrder) {
+        final boolean bestFirst =
+                Optional.ofNullable(options.getFrontierOrder()).orElse(defaultOrder) == FrontierOrder.BEST_FIRST;
+        return SpillingFrontier.factory(options.getFrontierLimits(), bestFirst);
+    }
+
+    /**
+     * Makes the crawl replay the pages it dispatched to the jobs that join it while it runs: from then on, it logs
+     * the pages it dispatches. Must be called before the crawl is started.
+     *
+     * @return This crawl.
+     */
+    synchronized CrawlContext replayToLateJobs() {
+        if (dispatchedPages == null) {
+            dispatchedPages = queues.newLog();
+        }
+        return this;
+    }
+
+    /**
+     * Makes the crawl a run of a recurring crawl: its pages are compared against those of the previous run. Must
+     * be called before the crawl is started.
+     *
+     * @param runHistory The pages of the previous run, and the record of this one.
+     */
+    void trackChanges(final RunHistory runHistory) {
+        this.history = runHistory;
+    }
+
+    /**
+     * Returns the history of the run, if the crawl is a run of a recurring crawl.
+     *
+     * @return The history, or {@code null} for an ordinary crawl.
+     */
+    RunHistory getHistory() {
+        return history;
+    }
+
+    /**
+     * Makes the crawl the part of a clustered job run by this node, and holds it open: it does not end when it
+     * runs out of work, since other nodes may still send it URLs, until {@link #leaveCluster()} is called. Must be
+     * called before the crawl is started.
+     *
+     * @param job The clustered job.
+     */
+    void joinCluster(final ClusterJob job) {
+        this.cluster = job;
+        heldOpen.set(true);
+    }
+
+    /**
+     * Returns the clustered job the crawl is part of.
+     *
+     * @return The job, or {@code null} for a crawl run by this node alone.
+     */
+    ClusterJob getCluster() {
+        return cluster;
+    }
+
+    /**
+     * Sends a new URL to the node that owns it, if the crawl is part of a clustered job.
+     *
+     * @param entry The frontier entry of the URL, already marked as seen.
+     * @return {@code false} if the URL is crawled here.
+     */
+    boolean forward(final FrontierEntry entry) {
+        return cluster != null && cluster.forward(entry);
+    }
+
+    /**
+     * Reports a page crawled here to the coordinator, if the crawl is part of a job coordinated by another node.
+     *
+     * @param url          The page URL.
+     * @param hits         The keywords found on the page.
+     * @param wireBytes    The bytes of the page as received.
+     * @param decodedBytes The bytes of the page once decompressed.
+     * @param fromCache    Whether the page was served by the response cache.
+     */
+    void reportPage(
+            final String url,
+            final List<String> hits,
+            final long wireBytes,
+            final long decodedBytes,
+            final boolean fromCache) {
+        if (cluster != null) {
+            cluster.report(new PageReport(url, hits, wireBytes, decodedBytes, fromCache));
+        }
+    }
+
+    /** Stops holding the crawl open, once its clustered job is over; it ends as soon as it is idle. */
+    void leaveCluster() {
+        heldOpen.set(false);
+    }
+
+    /**
+     * Returns whether the crawl is held open by its clustered job, even when it runs out of work.
+     *
+     * @return {@code true} until the job is over.
+     */
+    boolean isHeldOpen() {
+        return heldOpen.get();
+    }
+
+    /**
+     * Claims the seeding of the frontier from the sitemaps of the site, which is done once per crawl.
+     *
+     * @return {@code true} for the first caller only.
+     */
+    boolean claimSeeding() {
+        return seeded.compareAndSet(false, true);
+    }
+
+    /**
+     * Subscribes a job to the crawl, replaying the pages it missed if the crawl logs them. The crawl is scheduled
+     * with the most demanding options of its jobs.
+     *
+     * @param subscription The job to subscribe.
+     * @return {@code false} if the crawl is already closed.
+     */
+    synchronized boolean subscribe(final Subscription subscription) {
+        if (closed) {
+            return false;
+        }
+        if (dispatchedPages != null) {
+            replay(subscription);
+        }
+        if (!subscriptions.isEmpty()) {
+            slots.update(slots.getOptions().merge(subscription.getOptions()));
+        }
+        subscriptions.add(subscription);
+        return true;
+    }
+
+    /**
+     * Queues the pages dispatched so far again, for a job joining the crawl; those the frontier or the log had no
+     * room for are counted as frontier drops of the job.
+     */
+    private void replay(final Subscription subscription) {
+        dispatchedPages.forEach(page -> {
+            if (!frontier.add(page)) {
+                subscription.getStats().recordFrontierDrop();
+            }
+        });
+        subscription.getStats().recordFrontierDrops(droppedPages);
+    }
+
+    /**
+     * Runs the dispatcher of the crawl, unless another thread is running it; that thread then runs it once more,
+     * so that no request is lost. The dispatcher must not throw.
+     *
+     * @param dispatcher Hands pending pages out to the pipeline.
+     */
+    void requestDispatch(final Runnable dispatcher) {
+        if (dispatchRequests.getAndIncrement() != 0) {
+            return;
+        }
+        int missed = 1;
+        do {
+            dispatcher.run();
+            missed = dispatchRequests.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    /** Counts a unit of work in flight: a page being fetched or processed, or a retry waiting for its backoff. */
+    void beginWork() {
+        work.incrementAndGet();
+    }
+
+    /** Counts a unit of work as done. */
+    void endWork() {
+        work.decrementAndGet();
+    }
+
+    /**
+     * Returns whether no page is being fetched or processed and no retry is pending.
+     *
+     * @return {@code true} if no work is in flight.
+     */
+    boolean isIdle() {
+        return work.get() == 0;
+    }
+
+    /**
+     * Marks whether a page taken from the frontier waits for a fetch slot.
+     *
+     * @param waiting {@code true} while it waits.
+     */
+    void setAwaitingSlot(final boolean waiting) {
+        awaitingSlot.set(waiting);
+    }
+
+    boolean isAwaitingSlot() {
+        return awaitingSlot.get();
+    }
+
+    /**
+     * Claims the single pending wake-up of the dispatcher, scheduled when no host is ready yet.
+     *
+     * @return {@code false} if a wake-up is already scheduled.
+     */
+    boolean scheduleWakeUp() {
+        return wakeUpScheduled.compareAndSet(false, true);
+    }
+
+    /** Lets a new wake-up be scheduled, once the pending one fires. */
+    void wokeUp() {
+        wakeUpScheduled.set(false);
+    }
+
+    /**
+     * Hands a dispatched page out to the subscribed jobs that have not been given it yet and still have the
+     * budget for it.
+     *
+     * @param page The frontier entry of the page.
+     * @return The jobs the page must be processed for, possibly none.
+     */
+    synchronized List<Subscription> claim(final FrontierEntry page) {
+        if (!closed && dispatchedPages != null && dispatchedUrls.add(page.getUrl()) && !dispatchedPages.add(page)) {
+            droppedPages++;
+        }
+        return subscriptions.stream()
+                .filter(subscription -> subscription.claim(page))
+                .toList();
+    }
+
+    /**
+     * Records a page as taken out of the frontier, so that a checkpoint keeps it until it is done.
+     *
+     * @param page The frontier entry of the page.
+     */
+    void startPage(final FrontierEntry page) {
+        inFlight.put(page.getUrl(), page);
+    }
+
+    /**
+     * Records a page as done, or as back in the frontier for a retry.
+     *
+     * @param url The page URL.
+     */
+    void finishPage(final String url) {
+        inFlight.remove(url);
+    }
+
+    /**
+     * Records the fetch of a page, so that it is aborted if the crawl is cancelled before its page is parsed.
+     *
+     * @param url   The page URL.
+     * @param fetch The fetch in flight.
+     */
+    void startFetch(final String url, final CompletableFuture<FetchResponse> fetch) {
+        fetches.put(url, fetch);
+        if (isCancelled()) {
+            abort(fetch);
+        }
+    }
+
+    /** Aborts a fetch: before its headers arrive, or while its body streams into the parse stage. */
+    private static void abort(final CompletableFuture<FetchResponse> fetch) {
+        fetch.cancel(true);
+        fetch.thenAccept(FetchResponse::abort);
+    }
+
+    /**
+     * Records the fetch of a page as complete.
+     *
+     * @param url The page URL.
+     */
+    void finishFetch(final String url) {
+        fetches.remove(url);
+    }
+
+    /**
+     * Cancels a subscribed job: it is handed no more pages. Once no job of the crawl is running any more, the
+     * fetches in flight are aborted, bodies being read included, which gives their slots back, and the crawl
+     * closes as soon as they are done.
+     *
+     * @param jobId The ID of the job.
+     * @return {@code false} if the job is not subscribed to this crawl.
+     */
+    synchronized boolean cancel(final String jobId) {
+        Optional<Subscription> job = subscriptions.stream()
+                .filter(subscription -> subscription.getId().equals(jobId))
+                .findFirst();
+        job.ifPresent(Subscription::cancel);
+        if (job.isPresent() && subscriptions.stream().noneMatch(Subscription::isActive)) {
+            cancelled = true;
+            fetches.values().forEach(CrawlContext::abort);
+        }
+        return job.isPresent();
+    }
+
+    /**
+     * Returns whether every job of the crawl has stopped and its fetches in flight were aborted.
+     *
+     * @return {@code true} once the crawl is cancelled.
+     */
+    synchronized boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Passes every URL still to be fetched to an action: the queued ones and those in flight. A URL dispatched
+     * meanwhile may be passed twice, but none is missed.
+     *
+     * @param action Receives the pending entries.
+     */
+    void forEachPending(final Consumer<FrontierEntry> action) {
+        Map<String, FrontierEntry> running = new HashMap<>(inFlight);
+        frontier.forEachPending(action);
+        inFlight.forEach(running::putIfAbsent);
+        running.values().forEach(action);
+    }
+
+    /**
+     * Returns whether links this deep are crawled for any of the jobs still running; the others are marked as
+     * having had links left out.
+     *
+     * @param depth The depth of the links, 0 for the seed URL.
+     * @return {@code true} if at least one running job may crawl them.
+     */
+    boolean allowsDepth(final int depth) {
+        boolean allowed = false;
+        for (Subscription subscription : subscriptions) {
+            if (subscription.getBudget().allowsDepth(depth)) {
+                allowed |= subscription.isActive();
+            } else {
+                subscription.markDepthLimited();
+            }
+        }
+        return allowed;
+    }
+
+    /**
+     * Stops the jobs that have reached a limit of their budget.
+     *
+     * @return {@code true} if no job is running any more.
+     */
+    boolean checkBudgets() {
+        boolean allStopped = true;
+        for (Subscription subscription : subscriptions) {
+            allStopped &= subscription.checkBudget();
+        }
+        return allStopped;
+    }
+
+    /**
+     * Closes the crawl if no URL is left to fetch or every job has stopped, so that no further job subscribes.
+     *
+     * @return {@code true} if the crawl is closed.
+     */
+    synchronized boolean closeIfIdle() {
+        closed = closed || frontier.isEmpty() || subscriptions.stream().noneMatch(Subscription::isActive);
+        return closed;
+    }
+
+    /**
+     * Closes the crawl unconditionally, withdraws it from the fetch slot scheduler and discards its frontier and
+     * the log of its dispatched pages, deleting any part of them spilled to disk.
+     */
+    synchronized void close() {
+        closed = true;
+        slots.close();
+        frontier.close();
+        if (dispatchedPages != null) {
+            dispatchedPages.close();
+        }
+    }
+
+    String getBaseUrl() {
+        return baseUrl;
+    }
+
+    /**
+     * Resolves a URL the crawl learned of other than through a link against the first seed URL, in canonical form.
+     *
+     * @param href The URL, possibly relative.
+     * @return The canonical absolute URL, or {@code null} if the URL cannot be crawled.
+     */
+    String resolve(final String href) {
+        return UrlCanonicalizer.resolve(base, href);
+    }
+
+    /**
+     * Returns the seed URLs of the crawl, in canonical form.
+     *
+     * @return The seed URLs.
+     */
+    List<String> getSeeds() {
+        return seeds;
+    }
+
+    /**
+     * Returns whether a URL may be crawled: it must start with one of the scope prefixes, in canonical form.
+     *
+     * @param url The canonical URL.
+     * @return {@code true} if the URL is in scope.
+     */
+    boolean isInScope(final String url) {
+        for (String prefix : scope) {
+            if (url.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    HostScheduler getFrontier() {
+        return frontier;
+    }
+
+    FairSlotScheduler.Flow getSlots() {
+        return slots;
+    }
+
+    VisitedSet getVisitedUrls() {
+        return visitedUrls;
+    }
+
+    boolean isBestFirst() {
+        return bestFirst;
+    }
+
+    Map<String, Integer> getAttempts() {
+        return attempts;
+    }
+
+    List<Subscription> getSubscriptions() {
+        return subscriptions;
+    }
+
+    CompletableFuture<Void> getFinished() {
+        return finished;
+    }
+}
@@ -0,0 +1,572 @@
+package space.lasf.sparkjava.handler;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.DigestInputStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import space.lasf.sparkjava.dao.DaoInterface;
+import space.lasf.sparkjava.entity.Crawler;
+import space.lasf.sparkjava.helper.AsyncHtmlFetcher;
+import space.lasf.sparkjava.helper.ConfigUtil;
+import space.lasf.sparkjava.helper.FairSlotScheduler;
+import space.lasf.sparkjava.helper.FanOutMatcher;
+import space.lasf.sparkjava.helper.FetchResponse;
+import space.lasf.sparkjava.helper.FrontierEntry;
+import space.lasf.sparkjava.helper.HostPoliteness;
+import space.lasf.sparkjava.helper.LinkScorer;
+import space.lasf.sparkjava.helper.PageScan;
+import space.lasf.sparkjava.helper.PipelineStage;
+import space.lasf.sparkjava.helper.RetryPolicy;
+import space.lasf.sparkjava.helper.StageStats;
+import space.lasf.sparkjava.helper.StreamingPageScanner;
+import space.lasf.sparkjava.helper.UrlCanonicalizer;
+import spark.utils.StringUtils;
+
+/**
+ * Drives every crawl through a staged pipeline, without a thread per crawl.
+ * <ol>
+ * <li><b>fetch</b>: pages are requested without blocking, within the fetch slots shared by the crawls
+ * ({@code CRAWLER_MAX_CONCURRENCY}, see {@link FairSlotScheduler}); the slot is granted through a callback.</li>
+ * <li><b>parse</b>: the body is tokenized as it streams in, the keywords of every job are matched in the same
+ * pass and the discovered links are queued in the frontier, on {@code CRAWLER_PARSE_WORKERS} threads (one per
+ * core by default). A page holds its fetch slot until it is parsed, since its body is read here.</li>
+ * <li><b>persist</b>: the hits are written to the DAO and the page is recorded in the job statistics, on
+ * {@code CRAWLER_PERSIST_WORKERS} threads.</li>
+ * </ol>
+ * The stages are connected by bounded queues whose depths are reported by {@link #getStats()}. New pages are
+ * dispatched whenever something may have freed work: a page finishing, a retry coming back, a job subscribing,
+ * or a timer when every host of a crawl is rate-limited. The runs of a recurring crawl fetch their pages
+ * conditionally, and parse only those the server reports as changed since the previous run (see
+ * {@link RunHistory}). In a cluster,
+ * the links owned by other nodes are sent to them and the pages are reported to the coordinator of the job (see
+ * {@link ClusterJob}). A crawl ends once it has no work in flight and nothing left to dispatch. This class is
+ * thread-safe.
+ */
+final class CrawlPipeline {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CrawlPipeline.class);
+    // REGEX to filter out common non-HTML file extensions.
+    private static final Pattern FILTERS = Pattern.compile(
+            ".*(\\.(css|js|gif|jpg|jpeg|png|mp3|mp4|zip|gz|pdf|xls|xlsx|doc|docx))$", Pattern.CASE_INSENSITIVE);
+
+    private static final String ENV_STREAMING = "CRAWLER_STREAMING";
+    private static final String ENV_MAX_CONCURRENCY = "CRAWLER_MAX_CONCURRENCY";
+    private static final String ENV_JOB_MAX_CONCURRENCY = "CRAWLER_JOB_MAX_CONCURRENCY";
+    private static final String ENV_PARSE_WORKERS = "CRAWLER_PARSE_WORKERS";
+    private static final String ENV_PERSIST_WORKERS = "CRAWLER_PERSIST_WORKERS";
+    private static final int DEFAULT_MAX_CONCURRENCY = 16;
+    private static final int DEFAULT_PERSIST_WORKERS = 2;
+    private static final int PERSIST_QUEUE_CAPACITY = 1024;
+    private static final String FETCH_STAGE = "fetch";
+
+    private final DaoInterface<Crawler> dao;
+    private final AsyncHtmlFetcher fetcher;
+    private final HostPoliteness politeness;
+    private final RetryPolicy retryPolicy;
+    private final FairSlotScheduler slots;
+    private final PipelineStage parse;
+    private final PipelineStage persist;
+    private final boolean streaming;
+    private final long maxBodyBytes;
+
+    /**
+     * Creates the pipeline, with its stages sized by the environment.
+     *
+     * @param dao         Receives the hits of the jobs.
+     * @param fetcher     The non-blocking fetch engine used to download pages.
+     * @param politeness  The per-host rate limits and circuit breakers shared by every crawl.
+     * @param retryPolicy The policy deciding which failed fetches are retried, and when.
+     */
+    CrawlPipeline(
+            final DaoInterface<Crawler> dao,
+            final AsyncHtmlFetcher fetcher,
+            final HostPoliteness politeness,
+            final RetryPolicy retryPolicy) {
+        this.dao = dao;
+        this.fetcher = fetcher;
+        this.politeness = politeness;
+        this.retryPolicy = retryPolicy;
+        this.streaming = ConfigUtil.getBoolean(ENV_STREAMING, true);
+        this.maxBodyBytes = fetcher.getContentGate().getMaxBodyBytes();
+        final int maxConcurrency = ConfigUtil.getInt(ENV_MAX_CONCURRENCY, DEFAULT_MAX_CONCURRENCY);
+        this.slots = new FairSlotScheduler(maxConcurrency, ConfigUtil.getInt(ENV_JOB_MAX_CONCURRENCY, 0));
+        // Every page waiting to be parsed holds a fetch slot, so the parse queue never outgrows the slots.
+        this.parse = new PipelineStage(
+                "parse",
+                ConfigUtil.getInt(ENV_PARSE_WORKERS, Runtime.getRuntime().availableProcessors()),
+                maxConcurrency);
+        this.persist = new PipelineStage(
+                "persist", ConfigUtil.getInt(ENV_PERSIST_WORKERS, DEFAULT_PERSIST_WORKERS), PERSIST_QUEUE_CAPACITY);
+    }
+
+    /**
+     * Returns the fetch slots the crawls register with.
+     *
+     * @return The slot scheduler.
+     */
+    FairSlotScheduler getSlots() {
+        return slots;
+    }
+
+    /**
+     * Returns the load of every stage. The fetch stage has no workers: its active tasks are the requests in
+     * flight, and its queued ones the pages waiting for a fetch slot.
+     *
+     * @return The statistics of the fetch, parse and persist stages.
+     */
+    List<StageStats> getStats() {
+        final int inUse = slots.getCapacity() - slots.getAvailable();
+        return List.of(
+                new StageStats(FETCH_STAGE, 0, inUse, slots.getWaiting(), slots.getCapacity()),
+                parse.getStats(),
+                persist.getStats());
+    }
+
+    /**
+     * Hands the pending pages of a crawl to the pipeline, as far as its fetch slots and hosts allow, and ends the
+     * crawl if nothing is left to do. It never blocks, and may be called from any thread at any time.
+     *
+     * @param context The crawl.
+     */
+    void dispatch(final CrawlContext context) {
+        context.requestDispatch(() -> dispatchPages(context));
+    }
+
+    private void dispatchPages(final CrawlContext context) {
+        if (context.getFinished().isDone()) {
+            return;
+        }
+        try {
+            boolean allStopped = context.checkBudgets();
+            while (!allStopped && !context.isAwaitingSlot()) {
+                final FrontierEntry page = context.getFrontier().pollEntry();
+                if (page == null) {
+                    break;
+                }
+                requestSlot(context, page);
+                allStopped = context.checkBudgets();
+            }
+            settle(context, allStopped);
+        } catch (RuntimeException e) {
+            complete(context, e);
+        }
+    }
+
+    /** Ends the crawl once it has nothing left to do, or wakes it up later if its hosts are rate-limited. */
+    private void settle(final CrawlContext context, final boolean allStopped) {
+        if (context.isIdle() && (allStopped || context.getFrontier().isEmpty())) {
+            // A clustered crawl waits for its coordinator to tell it the job is over.
+            if (!context.isHeldOpen() && context.closeIfIdle()) {
+                complete(context, null);
+            }
+        } else if (!allStopped && !context.isAwaitingSlot()) {
+            scheduleWakeUp(context);
+        }
+    }
+
+    /** Dispatches again once the earliest rate-limited host of the crawl may be ready. */
+    private void scheduleWakeUp(final CrawlContext context) {
+        if (context.getFrontier().isEmpty() || !context.scheduleWakeUp()) {
+            return;
+        }
+        CompletableFuture.runAsync(
+                () -> {
+                    context.wokeUp();
+                    dispatch(context);
+                },
+                CompletableFuture.delayedExecutor(context.getFrontier().getReadyInNanos(), TimeUnit.NANOSECONDS));
+    }
+
+    private static void complete(final CrawlContext context, final RuntimeException error) {
+        context.close();
+        if (error == null) {
+            context.getFinished().complete(null);
+        } else {
+            LOGGER.error("Crawl of {} failed", context.getBaseUrl(), error);
+            context.getFinished().completeExceptionally(error);
+        }
+    }
+
+    /** Hands a page out to the jobs that need it, then asks for a fetch slot without waiting for it. */
+    private void requestSlot(final CrawlContext context, final FrontierEntry page) {
+        final List<Subscription> audience = context.claim(page);
+        if (audience.isEmpty()) {
+            // Every subscribed job has already been given this page, or has no budget left for it.
+            context.getFrontier().release(page.getUrl());
+            return;
+        }
+        context.startPage(page);
+        context.beginWork();
+        context.setAwaitingSlot(true);
+        context.getSlots().acquire(() -> {
+            context.setAwaitingSlot(false);
+            fetch(context, page, audience);
+            dispatch(context);
+        });
+    }
+
+    private void fetch(final CrawlContext context, final FrontierEntry page, final List<Subscription> audience) {
+        final RunHistory history = context.getHistory();
+        final PageState previous = history == null ? null : history.previous(page.getUrl());
+        final CompletableFuture<FetchResponse> response = previous == null
+                ? fetcher.fetchStream(page.getUrl())
+                : fetcher.fetchStream(page.getUrl(), previous.getEtag(), previous.getLastModified());
+        context.startFetch(page.getUrl(), response);
+        response.whenComplete((fetched, error) -> recordOutcome(page.getUrl(), fetched, error));
+        response.thenApplyAsync(fetched -> parse(context, page, fetched, audience), parse)
+                .whenComplete((result, error) -> completePage(context, page, audience, result, error));
+    }
+
+    /**
+     * Feeds the circuit breaker of a host once the headers of a page arrive. A cancelled fetch, a page served from
+     * the cache and a failure that is not transient say nothing about the health of the host and are not recorded.
+     */
+    private void recordOutcome(final String url, final FetchResponse fetched, final Throwable error) {
+        if (error != null ? RetryPolicy.isTransient(error) : !fetched.isFromCache()) {
+            politeness.recordOutcome(HostPoliteness.hostOf(url), error != null);
+        }
+    }
+
+    /**
+     * Parses a fetched page: finds the keywords of every job and the links in a single tokenizer pass, and queues
+     * the new links. Cancelling the crawl closes a body still streaming in, which ends the scan at its next read.
+     *
+     * @return What the persist stage must record, or {@code null} if the page was skipped.
+     */
+    private PageResult parse(
+            final CrawlContext context,
+            final FrontierEntry page,
+            final FetchResponse response,
+            final List<Subscription> audience) {
+        final String currentUrl = response.getUrl();
+        if (context.isCancelled()) {
+            discard(response);
+            return null;
+        }
+        if (response.isSkipped()) {
+            LOGGER.debug("Skipped {} ({}) [seed: {}]", currentUrl, response.getSkipReason(), context.getBaseUrl());
+            audience.forEach(subscription -> subscription.getStats().recordSkip(currentUrl, response.getSkipReason()));
+            return null;
+        }
+        if (context.getHistory() != null) {
+            return parseRun(context, page, response, audience);
+        }
+        final FanOutMatcher matcher = new FanOutMatcher(
+                audience.stream().map(Subscription::getMatcher).toList());
+        final PageScan scan;
+        try (FetchResponse in = response) {
+            scan = scan(in, matcher);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        enqueueLinks(context, page, scan, matcher);
+        return new PageResult(audience, matcher, scan, response, false);
+    }
+
+    /**
+     * Parses a page of a run of a recurring crawl: a page the server reports as not modified is not read, and
+     * keeps the links and keywords found by the previous run. A page the previous run saw is hashed before it is
+     * scanned, and is only fetched again and scanned if its hash changed. Pages new to the run are hashed as they
+     * are scanned.
+     */
+    private PageResult parseRun(
+            final CrawlContext context,
+            final FrontierEntry page,
+            final FetchResponse response,
+            final List<Subscription> audience) {
+        final RunHistory history = context.getHistory();
+        final PageState previous = history.previous(page.getUrl());
+        final FanOutMatcher matcher = new FanOutMatcher(
+                audience.stream().map(Subscription::getMatcher).toList());
+        final PageScan scan;
+        final long hash;
+        try (FetchResponse in = response) {
+            if (previous == null) {
+                final DigestInputStream body = PageState.hashing(in.getBody());
+                scan = StreamingPageScanner.scan(body, in.getCharset(), matcher, maxBodyBytes, true);
+                hash = PageState.hash(body);
+            } else {
+                hash = in.isNotModified() ? previous.getHash() : PageState.hashOf(in.getBody(), maxBodyBytes);
+                scan = hash == previous.getHash()
+                        ? history.previousScan(page.getUrl(), previous, matcher.getKeywords())
+                        : rescan(context, page.getUrl(), matcher);
+            }
+            history.record(
+                    page.getUrl(),
+                    previous != null && in.isNotModified()
+                            ? previous.revalidated(in.getEtag(), in.getLastModified())
+                            : new PageState(hash, in.getEtag(), in.getLastModified(), scan.getLinks()));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        enqueueLinks(context, page, scan, matcher);
+        return new PageResult(audience, matcher, scan, response, previous != null && hash == previous.getHash());
+    }
+
+    /**
+     * Fetches a page found changed again, to scan it: its first response was consumed by hashing it. The page
+     * still holds its fetch slot and host reservation, and the new response may come from the response cache.
+     */
+    private PageScan rescan(final CrawlContext context, final String url, final FanOutMatcher matcher)
+            throws IOException {
+        final CompletableFuture<FetchResponse> refetch = fetcher.fetchStream(url);
+        context.startFetch(url, refetch);
+        try (FetchResponse again = refetch.join()) {
+            if (again.isSkipped()) {
+                throw new IOException("Page " + url + " changed to a skipped one: " + again.getSkipReason());
+            }
+            return scan(again, matcher);
+        }
+    }
+
+    private PageScan scan(final FetchResponse response, final FanOutMatcher matcher) throws IOException {
+        if (!streaming) {
+            final String html = new String(response.getBody().readAllBytes(), response.getCharset());
+            return StreamingPageScanner.scan(html, matcher);
+        }
+        final PageScan scan =
+                StreamingPageScanner.scan(response.getBody(), response.getCharset(), matcher, maxBodyBytes, true);
+        if (scan.isTruncated()) {
+            LOGGER.debug("Body of {} exceeded {} bytes and was truncated", response.getUrl(), maxBodyBytes);
+        }
+        return scan;
+    }
+
+    /** Closes a response without reading its body, which aborts the transfer. */
+    private static void discard(final FetchResponse response) {
+        try {
+            response.close();
+        } catch (IOException e) {
+            LOGGER.debug("Could not close the response of {}: {}", response.getUrl(), e.toString());
+        }
+    }
+
+    /**
+     * Gives the fetch slot and the host of a page back once it is parsed or has failed, schedules a retry if
+     * needed, and hands what the page found to the persist stage.
+     */
+    private void completePage(
+            final CrawlContext context,
+            final FrontierEntry page,
+            final List<Subscription> audience,
+            final PageResult result,
+            final Throwable error) {
+        final String currentUrl = page.getUrl();
+        boolean retrying = false;
+        context.finishFetch(currentUrl);
+        try {
+            // The fetches aborted by a cancellation are not failures.
+            if (error == null || context.isCancelled()) {
+                context.getAttempts().remove(currentUrl);
+            } else {
+                retrying = handleFailure(context, page, audience, error);
+            }
+        } finally {
+            if (!retrying) {
+                context.finishPage(currentUrl);
+            }
+            context.getSlots().release();
+            context.getFrontier().release(currentUrl);
+            if (result == null) {
+                finishWork(context, audience);
+            } else {
+                persist.execute(() -> store(context, result));
+                dispatch(context);
+            }
+        }
+    }
+
+    /** Schedules a retry of a failed page, or gives up on it; returns whether a retry is scheduled. */
+    private boolean handleFailure(
+            final CrawlContext context,
+            final FrontierEntry page,
+            final List<Subscription> audience,
+            final Throwable error) {
+        final String currentUrl = page.getUrl();
+        final int attempts = context.getAttempts().merge(currentUrl, 1, Integer::sum);
+        if (retryPolicy.shouldRetry(error, attempts)) {
+            audience.forEach(subscription -> {
+                subscription.unclaim(currentUrl);
+                subscription.getStats().recordRetry();
+            });
+            scheduleRetry(context, page, retryPolicy.backoff(error, attempts));
+            return true;
+        }
+        context.getAttempts().remove(currentUrl);
+        audience.forEach(subscription -> subscription.getStats().recordFailure());
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        LOGGER.warn("Could not process URL [seed: {}]: {} - {}", context.getBaseUrl(), currentUrl, cause.getMessage());
+        return false;
+    }
+
+    /**
+     * Puts a URL back into the frontier once its backoff delay has elapsed. The retry counts as work in flight
+     * meanwhile, so the crawl cannot finish while a retry is pending.
+     */
+    private void scheduleRetry(final CrawlContext context, final FrontierEntry page, final Duration delay) {
+        context.beginWork();
+        LOGGER.debug("Retrying {} in {} ms [seed: {}]", page.getUrl(), delay.toMillis(), context.getBaseUrl());
+        CompletableFuture.runAsync(
+                () -> {
+                    try {
+                        context.getFrontier().add(page);
+                        context.finishPage(page.getUrl());
+                    } finally {
+                        context.endWork();
+                        dispatch(context);
+                    }
+                },
+                CompletableFuture.delayedExecutor(delay.toMillis(), TimeUnit.MILLISECONDS));
+    }
+
+    /**
+     * Writes the hits of a page for every job, then records the page in their statistics. The statistics come
+     * last, so that a job stopped by its budget has all its hits written.
+     */
+    private void store(final CrawlContext context, final PageResult result) {
+        try {
+            for (int i = 0; i < result.audience.size(); i++) {
+                final Subscription subscription = result.audience.get(i);
+                final List<String> matched = result.matched.get(i);
+                if (!matched.isEmpty()) {
+                    dao.appendAll(subscription.getId(), List.of(result.url));
+                    dao.appendHits(subscription.getId(), result.url, matched);
+                    subscription.getStats().recordHit();
+                }
+                subscription.getStats().recordPage(result.wireBytes, result.decodedBytes, result.fromCache);
+                if (result.unchanged) {
+                    subscription.getStats().recordUnchanged();
+                }
+            }
+            report(context, result);
+        } finally {
+            finishWork(context, result.audience);
+        }
+    }
+
+    /** Tells the coordinator of a clustered job about a page this node crawled for it. */
+    private static void report(final CrawlContext context, final PageResult result) {
+        if (!result.audience.isEmpty()) {
+            context.reportPage(
+                    result.url, result.matched.get(0), result.wireBytes, result.decodedBytes, result.fromCache);
+        }
+    }
+
+    private void finishWork(final CrawlContext context, final List<Subscription> audience) {
+        audience.forEach(Subscription::checkBudget);
+        context.endWork();
+        dispatch(context);
+    }
+
+    private static void enqueueLinks(
+            final CrawlContext context, final FrontierEntry parent, final PageScan scan, final FanOutMatcher matcher) {
+        final List<String> links = scan.getLinks();
+        final LinkScorer scorer = context.isBestFirst() ? new LinkScorer(matcher.getKeywords()) : null;
+        final double parentHitRate =
+                (double) scan.getMatches().cardinality() / matcher.getKeywords().size();
+        final int depth = parent.getDepth() + 1;
+        if (links.isEmpty() || !context.allowsDepth(depth)) {
+            return;
+        }
+        // Relative links are relative to the page they are on; the seeds only bound the scope.
+        final List<String> urls = UrlCanonicalizer.resolveAll(parent.getUrl(), links);
+        for (int i = 0; i < urls.size(); i++) {
+            String nextUrl = urls.get(i);
+
+            if (isValid(nextUrl) && context.isInScope(nextUrl)) {
+                if (context.getVisitedUrls().add(nextUrl)) {
+                    double score = scorer == null
+                            ? 0
+                            : scorer.score(nextUrl, scan.getAnchorTexts().get(i), depth, parentHitRate);
+                    enqueue(context, new FrontierEntry(nextUrl, depth, score));
+                }
+            }
+        }
+    }
+
+    /**
+     * Queues a URL the crawl learned of other than through a link, such as from a sitemap, one level below the
+     * seed URLs. It goes through the same filters as the links found on the pages.
+     *
+     * @param context The crawl.
+     * @param url     The URL.
+     * @return {@code true} if the URL is in scope and was not seen before.
+     */
+    static boolean seed(final CrawlContext context, final String url) {
+        final String nextUrl = context.resolve(url);
+        if (!isValid(nextUrl)
+                || !context.isInScope(nextUrl)
+                || !context.getVisitedUrls().add(nextUrl)) {
+            return false;
+        }
+        enqueue(context, new FrontierEntry(nextUrl, 1, 0));
+        return true;
+    }
+
+    /** Queues a new URL, unless it belongs to another node of a clustered job, which is sent the URL instead. */
+    private static void enqueue(final CrawlContext context, final FrontierEntry entry) {
+        if (!context.forward(entry)) {
+            enqueueLocally(context, entry);
+        }
+    }
+
+    /**
+     * Queues a URL in the frontier of the crawl, counting it as dropped if the frontier is full.
+     *
+     * @param context The crawl.
+     * @param entry   The frontier entry of the URL, already marked as seen.
+     */
+    static void enqueueLocally(final CrawlContext context, final FrontierEntry entry) {
+        if (!context.getFrontier().add(entry)) {
+            context.getSubscriptions()
+                    .forEach(subscription -> subscription.getStats().recordFrontierDrop());
+        }
+    }
+
+    /**
+     * Checks if a URL is valid for crawling (i.e., not empty and does not match filtered extensions).
+     * @param url The URL to validate.
+     * @return {@code true} if the URL is valid, {@code false} otherwise.
+     */
+    private static boolean isValid(final String url) {
+        return StringUtils.hasLength(url) && !FILTERS.matcher(url).matches();
+    }
+
+    /** What the parse stage found on a page, for the persist stage to record. */
+    private static final class PageResult {
+        private final String url;
+        private final List<Subscription> audience;
+        // The keywords of each job found on the page, in audience order.
+        private final List<List<String>> matched;
+        private final long wireBytes;
+        private final long decodedBytes;
+        private final boolean fromCache;
+        private final boolean unchanged;
+
+        private PageResult(
+                final List<Subscription> audience,
+                final FanOutMatcher matcher,
+                final PageScan scan,
+                final FetchResponse response,
+                final boolean unchanged) {
+            this.url = response.getUrl();
+            this.audience = audience;
+            this.matched = new ArrayList<>(audience.size());
+            for (int i = 0; i < audience.size(); i++) {
+                matched.add(matcher.getMatchedKeywords(scan, i));
+            }
+            this.wireBytes = response.getWireBytes();
+            this.decodedBytes = response.getDecodedBytes();
+            this.fromCache = response.isFromCache();
+            this.unchanged = unchanged;
+        }
+    }
+}
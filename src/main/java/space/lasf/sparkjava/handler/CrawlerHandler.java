@@ -1,38 +1,70 @@
 package space.lasf.sparkjava.handler;
 
-import java.io.IOException;
+import java.time.Duration;
 import java.util.List;
-import java.util.Queue;
-import java.util.Set;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Phaser;
-import java.util.concurrent.Semaphore;
-import java.util.regex.Pattern;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import space.lasf.sparkjava.dao.DaoInterface;
+import space.lasf.sparkjava.entity.CrawlSchedule;
+import space.lasf.sparkjava.entity.CrawlTarget;
 import space.lasf.sparkjava.entity.Crawler;
+import space.lasf.sparkjava.entity.FrontierOrder;
 import space.lasf.sparkjava.entity.Status;
-import space.lasf.sparkjava.helper.HtmlFetcher;
-import spark.utils.StringUtils;
+import space.lasf.sparkjava.helper.AsyncHtmlFetcher;
+import space.lasf.sparkjava.helper.ClusterStatus;
+import space.lasf.sparkjava.helper.ConfigUtil;
+import space.lasf.sparkjava.helper.CronExpression;
+import space.lasf.sparkjava.helper.FrontierEntry;
+import space.lasf.sparkjava.helper.HostPoliteness;
+import space.lasf.sparkjava.helper.KeywordMatcher;
+import space.lasf.sparkjava.helper.PageReport;
+import space.lasf.sparkjava.helper.RetryPolicy;
+import space.lasf.sparkjava.helper.StageStats;
 
 /**
- * Handles the logic of crawling a website for a specific keyword.
- * This implementation uses an iterative, breadth-first search (BFS) approach.
+ * Runs crawl jobs: each job crawls the seed URL it is started with, or the seed URLs and scope of its own target
+ * (see {@link CrawlTarget}), and records the pages each of its keywords is found on.
+ * <p>
+ * No thread is parked per job: pages flow through the fetch, parse and persist stages of a {@link CrawlPipeline}
+ * shared by every crawl, whose load is reported by {@link #getPipelineStats()}. The state of a crawl, its per-host
+ * frontier and the URLs it has seen, is a {@link CrawlContext}; active jobs on the same target share one unless
+ * {@code CRAWLER_SHARED_CRAWLS=false}. Its frontier is visited breadth-first by default, or best-first
+ * ({@code CRAWLER_FRONTIER_ORDER}, or {@code frontierOrder} in the request).
+ * <p>
+ * Each job is a {@link Subscription} to a crawl, with its own keywords and budget. A job can be
+ * {@link #cancel(String) cancelled}, resumed after a restart from its checkpoint (see {@link CheckpointStore}),
+ * made {@link #schedule recurring} (see {@link RecurringCrawls}), or split between the nodes of a cluster (see
+ * {@link ClusterNode}). A new crawl may be seeded from the sitemaps of its site (see {@link SitemapSeeder}).
  */
 public class CrawlerHandler {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(CrawlerHandler.class);
-    // REGEX to filter out common non-HTML file extensions.
-    private static final Pattern FILTERS = Pattern.compile(
-            ".*(\\.(css|js|gif|jpg|jpeg|png|mp3|mp4|zip|gz|pdf|xls|xlsx|doc|docx))$", Pattern.CASE_INSENSITIVE);
+
+    private static final String ENV_SHARED_CRAWLS = "CRAWLER_SHARED_CRAWLS";
+    private static final String ENV_FRONTIER_ORDER = "CRAWLER_FRONTIER_ORDER";
 
     private final DaoInterface<Crawler> dao;
     private final ExecutorService executorService;
-    private final Semaphore semaphore;
-    private static final int MAX_CONCURRENT_REQUESTS = 5;
+    private final HostPoliteness politeness;
+    private final CrawlPipeline pipeline;
+    private final boolean sharedCrawls;
+    // Whether jobs joining a running crawl replay the pages it fetched before, which only the cache makes cheap.
+    private final boolean replayToLateJobs;
+    private final FrontierOrder frontierOrder;
+    // The running crawls jobs may subscribe to, keyed by target.
+    private final Map<CrawlTarget, CrawlContext> activeCrawls = new ConcurrentHashMap<>();
+    // The crawl each running job is subscribed to, keyed by job ID, so that a job can be cancelled.
+    private final Map<String, CrawlContext> jobCrawls = new ConcurrentHashMap<>();
+    private final CheckpointStore checkpoints;
+    private final RecurringCrawls recurring;
+    private final SitemapSeeder seeder;
+    // This instance as a node of a cluster, or null when it runs standalone.
+    private final ClusterNode cluster;
 
     /**
      * Constructs a new CrawlerHandler with its dependencies.
@@ -41,144 +73,382 @@ public class CrawlerHandler {
      * @param executorService The ExecutorService to used to execute requests in parallel.
      */
     public CrawlerHandler(final DaoInterface<Crawler> dao, final ExecutorService executorService) {
+        this(dao, executorService, new AsyncHtmlFetcher());
+    }
+
+    /**
+     * Constructs a new CrawlerHandler that shares an existing fetch engine (and its connection pool).
+     *
+     * @param dao The data access object for managing crawler instances.
+     * @param executorService The ExecutorService used to start the jobs resumed from checkpoints.
+     * @param fetcher The non-blocking fetch engine used to download pages.
+     */
+    public CrawlerHandler(
+            final DaoInterface<Crawler> dao, final ExecutorService executorService, final AsyncHtmlFetcher fetcher) {
+        this(dao, executorService, fetcher, HostPoliteness.fromEnvironment(), RetryPolicy.fromEnvironment());
+    }
+
+    /**
+     * Constructs a new CrawlerHandler with explicit per-host limits and retry policy.
+     *
+     * @param dao The data access object for managing crawler instances.
+     * @param executorService The ExecutorService used to start the jobs resumed from checkpoints.
+     * @param fetcher The non-blocking fetch engine used to download pages.
+     * @param politeness The per-host rate limits and circuit breakers shared by every crawl job.
+     * @param retryPolicy The policy deciding which failed fetches are retried, and when.
+     */
+    public CrawlerHandler(
+            final DaoInterface<Crawler> dao,
+            final ExecutorService executorService,
+            final AsyncHtmlFetcher fetcher,
+            final HostPoliteness politeness,
+            final RetryPolicy retryPolicy) {
         this.dao = dao;
         this.executorService = executorService;
-        this.semaphore = new Semaphore(MAX_CONCURRENT_REQUESTS);
+        this.politeness = politeness;
+        this.pipeline = new CrawlPipeline(dao, fetcher, politeness, retryPolicy);
+        this.sharedCrawls = ConfigUtil.getBoolean(ENV_SHARED_CRAWLS, true);
+        this.replayToLateJobs = fetcher.hasCache();
+        this.frontierOrder = frontierOrderFromEnvironment();
+        this.checkpoints = CheckpointStore.fromEnvironment();
+        this.recurring = new RecurringCrawls(dao, this::startCrawl);
+        this.seeder = SitemapSeeder.fromEnvironment(fetcher, executorService);
+        this.cluster = ClusterNode.fromEnvironment(dao, pipeline, executorService);
     }
 
-    private static final class CrawlContext {
-        private String baseUrl;
-        private String id;
-        private String keyword;
-        private Queue<String> frontier;
-        private Set<String> visitedUrls;
-        private Phaser phaser;
+    /**
+     * Crawls for the keywords of a job, starting from a base URL, and returns once the job is finished.
+     *
+     * @param baseUrl The starting URL for the crawl, unless the job names seed URLs of its own.
+     * @param id      The ID of the crawl job to update.
+     * @see #startCrawl(String, String)
+     */
+    public void crawlResource(final String baseUrl, final String id) {
+        startCrawl(baseUrl, id).join();
     }
 
     /**
-     * Performs a breadth-first search (BFS) crawl starting from a base URL.
+     * Starts crawling for the keywords of a job from a base URL without waiting for it: the frontier is visited in
+     * the order of the job, and the pages are fetched, parsed and stored by the stages of the crawl pipeline, while
+     * no thread is held by the job.
+     * <p>
+     * When crawls are shared ({@code CRAWLER_SHARED_CRAWLS=true}), a job whose seeds and scope are already being
+     * crawled by other active jobs subscribes to that crawl instead of starting its own: each page dispatched from
+     * then on is fetched once and scanned for the keywords of all the subscribed jobs.
      *
-     * @param baseUrl The starting URL for the crawl.
+     * @param baseUrl The starting URL for the crawl, unless the job names seed URLs of its own.
      * @param id      The ID of the crawl job to update.
+     * @return A future completed once the crawl is finished, or once the job has reached a limit of its budget or
+     *         was cancelled. It never completes exceptionally: a failed job is set to ERROR.
      */
-    public void crawlResource(final String baseUrl, final String id) {
-        final Queue<String> frontier = new ConcurrentLinkedQueue<>();
-        final Set<String> visitedUrls = ConcurrentHashMap.newKeySet();
-        final Phaser phaser = new Phaser(1);
-        final String keyword = dao.findById(id).getKeyword();
-
-        frontier.add(baseUrl);
-        visitedUrls.add(baseUrl);
-
-        final CrawlContext context = new CrawlContext();
-        context.baseUrl = baseUrl;
-        context.id = id;
-        context.keyword = keyword;
-        context.frontier = frontier;
-        context.visitedUrls = visitedUrls;
-        context.phaser = phaser;
+    public CompletableFuture<Void> startCrawl(final String baseUrl, final String id) {
+        return start(baseUrl, id, null);
+    }
 
+    private CompletableFuture<Void> start(final String baseUrl, final String id, final String coordinator) {
+        final Crawler crawler = dao.findById(id);
+        final CrawlTarget target = Optional.ofNullable(crawler.getTarget()).orElseGet(() -> CrawlTarget.of(baseUrl));
+        final RunHistory history = recurring.beginRun(crawler, target.getSeed());
+        if (crawler.getStatus() == Status.CANCELLED) {
+            LOGGER.info("Job {} was cancelled before it started", id);
+            recurring.endRun(crawler, null);
+            return CompletableFuture.completedFuture(null);
+        }
+        final Subscription subscription = newSubscription(crawler);
         try {
-            runDispatchLoop(context);
-        } catch (Exception e) {
-            LOGGER.error("A critical error occurred during crawl for ID: {}", id, e);
-            dao.changeStatus(id, Status.ERROR);
-        } finally {
-            dao.changeStatus(id, Status.DONE);
-            LOGGER.info("Crawl finished for ID: {}. Visited {} pages.", id, visitedUrls.size());
+            final CrawlContext context = subscribe(target, subscription, history, coordinator);
+            track(crawler, subscription, context);
+            final CompletableFuture<Void> joined = cluster == null
+                    ? CompletableFuture.completedFuture(null)
+                    : cluster.join(context, crawler, target.getSeed(), coordinator);
+            joined.thenCompose(ignored -> seeder.seed(context)).thenRun(() -> pipeline.dispatch(context));
+            return CompletableFuture.anyOf(context.getFinished(), subscription.getStopped())
+                    .handle((ignored, error) -> {
+                        done(crawler, subscription, context, history, error);
+                        return null;
+                    });
+        } catch (RuntimeException e) {
+            done(crawler, subscription, null, history, e);
+            return CompletableFuture.completedFuture(null);
         }
     }
 
-    private void runDispatchLoop(final CrawlContext context) {
-        while (!context.phaser.isTerminated()) {
-            final String currentUrl = context.frontier.poll();
-            if (currentUrl == null) {
-                waitForMoreWork(context);
-                continue;
-            }
-
-            submitPageTask(context, currentUrl);
+    private void done(
+            final Crawler crawler,
+            final Subscription subscription,
+            final CrawlContext context,
+            final RunHistory history,
+            final Throwable error) {
+        if (error != null) {
+            LOGGER.error("A critical error occurred during crawl for ID: {}", crawler.getId(), error);
+            dao.changeStatus(crawler.getId(), Status.ERROR);
+        }
+        finish(crawler, subscription);
+        if (cluster != null) {
+            // A job stopped before its crawl is over stops on the other nodes too.
+            cluster.release(crawler.getId(), true);
         }
+        recurring.endRun(crawler, history);
+        LOGGER.info(
+                "Crawl finished for ID: {}. Visited {} pages.",
+                crawler.getId(),
+                context == null ? 0 : context.getVisitedUrls().size());
     }
 
-    private void waitForMoreWork(final CrawlContext context) {
-        context.phaser.arriveAndAwaitAdvance();
-        if (context.frontier.isEmpty()) {
-            context.phaser.forceTermination();
-        }
+    /**
+     * Returns the load of every stage of the crawl pipeline, shared by all the running crawls.
+     *
+     * @return The statistics of the fetch, parse and persist stages, in pipeline order.
+     */
+    public List<StageStats> getPipelineStats() {
+        return pipeline.getStats();
     }
 
-    private void submitPageTask(final CrawlContext context, final String currentUrl) {
-        try {
-            semaphore.acquire();
-            context.phaser.register();
-            executorService.submit(() -> runPageTask(context, currentUrl));
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            LOGGER.error("Crawl interrupted for ID: {}", context.id, e);
-            dao.changeStatus(context.id, Status.ERROR);
-            context.phaser.forceTermination();
+    /**
+     * Cancels a running job: it stops being handed pages at once and keeps the results found so far. If no other
+     * job shares its crawl, the fetches in flight are aborted and their slots given back, and the crawl ends.
+     *
+     * @param id The ID of the job.
+     * @return {@code true} if the job was active and is now cancelled.
+     */
+    public boolean cancel(final String id) {
+        final Crawler crawler = dao.findById(id);
+        if (crawler == null || !crawler.cancel()) {
+            return false;
+        }
+        LOGGER.info("Job {} cancelled", id);
+        final CrawlContext context = jobCrawls.get(id);
+        if (context != null) {
+            context.cancel(id);
         }
+        return true;
     }
 
-    private void runPageTask(final CrawlContext context, final String currentUrl) {
-        try {
-            processPage(currentUrl, context);
-        } catch (IOException e) {
-            LOGGER.warn("Could not process URL [ID: {}]: {} - {}", context.id, currentUrl, e.getMessage());
-        } finally {
-            semaphore.release();
-            context.phaser.arriveAndDeregister();
+    /**
+     * Makes a job the first run of a recurring crawl, before it is started. The next run is started once it is
+     * over, either an interval after its start or at the next time the cron expression fires.
+     *
+     * @param firstRun The job, not started yet.
+     * @param interval The time between the starts of two runs, or {@code null} for a cron schedule.
+     * @param cron     The schedule the runs start at, or {@code null} for a fixed interval.
+     * @return The recurring crawl, identified by the ID of its first run.
+     */
+    public CrawlSchedule schedule(final Crawler firstRun, final Duration interval, final CronExpression cron) {
+        return recurring.schedule(firstRun, interval, cron);
+    }
+
+    /**
+     * Finds a recurring crawl.
+     *
+     * @param id The ID of the recurring crawl, which is the ID of its first run.
+     * @return The recurring crawl, or {@code null} if there is none with this ID.
+     */
+    public CrawlSchedule findSchedule(final String id) {
+        return recurring.find(id);
+    }
+
+    /**
+     * Stops a recurring crawl from starting new runs; a run in progress goes on.
+     *
+     * @param id The ID of the recurring crawl.
+     * @return The recurring crawl, or {@code null} if there is none with this ID.
+     */
+    public CrawlSchedule cancelSchedule(final String id) {
+        return recurring.cancel(id);
+    }
+
+    /**
+     * Returns whether this instance is a node of a cluster, configured by {@code CLUSTER_NODES} and
+     * {@code CLUSTER_SELF}.
+     *
+     * @return {@code true} if crawls are split between the nodes of a cluster.
+     */
+    public boolean isClustered() {
+        return cluster != null;
+    }
+
+    /**
+     * Takes part in a job coordinated by another node of the cluster: the job is stored under the ID the
+     * coordinator gave it, and a crawl of the URLs this node owns is started, with an empty frontier that the
+     * other nodes fill. Nothing is done if the job is already known here.
+     *
+     * @param crawler     The job, as described by its coordinator.
+     * @param baseUrl     The seed URL of the crawl.
+     * @param coordinator The base URL of the coordinator, one of the other nodes of the cluster.
+     * @return The status of the job on this node, or {@code null} if this instance is not part of a cluster.
+     * @throws IllegalArgumentException if the coordinator is not one of the other nodes.
+     */
+    public ClusterStatus joinCluster(final Crawler crawler, final String baseUrl, final String coordinator) {
+        if (cluster == null) {
+            return null;
         }
+        if (!cluster.isPeer(coordinator)) {
+            throw new IllegalArgumentException("the coordinator " + coordinator + " is not a node of this cluster");
+        }
+        if (dao.findById(crawler.getId()) == null) {
+            dao.restore(crawler);
+            LOGGER.info("Job {} joined from coordinator {}", crawler.getId(), coordinator);
+            start(baseUrl, crawler.getId(), coordinator);
+        }
+        return cluster.status(crawler.getId());
+    }
+
+    /**
+     * Takes a batch sent by another node of the cluster for a job: the URLs this node owns are queued, and the
+     * pages the sender crawled for a job this node coordinates are recorded.
+     *
+     * @param id    The ID of the job.
+     * @param urls  The URLs this node owns.
+     * @param pages The pages crawled by the sender.
+     * @return The status of the job on this node, or {@code null} if this node takes no part in it.
+     */
+    public ClusterStatus acceptClusterBatch(
+            final String id, final List<FrontierEntry> urls, final List<PageReport> pages) {
+        return cluster == null ? null : cluster.accept(id, urls, pages);
     }
 
     /**
-     * Fetches and processes a single page: finds the keyword and discovers new links.
+     * Returns the status of a clustered job on this node, as polled by its coordinator.
      *
-     * @param currentUrl   The URL of the page to process.
-     * @param keyword      The keyword to search for.
-     * @param id           The ID of the crawl job.
-     * @param baseUrl      The base URL of the site to maintain scope.
-     * @param frontier     The queue of URLs to visit next.
-     * @param visitedUrls  The set of already visited URLs to prevent cycles.
-     * @throws IOException if there is an error fetching the HTML content.
+     * @param id The ID of the job.
+     * @return The status, or {@code null} if this node takes no part in the job.
      */
-    private void processPage(final String currentUrl, final CrawlContext context) throws IOException {
-        String html = HtmlFetcher.getHtmlContent(currentUrl);
+    public ClusterStatus findClusterStatus(final String id) {
+        return cluster == null ? null : cluster.status(id);
+    }
 
-        if (html.toLowerCase().contains(context.keyword.toLowerCase())) {
-            dao.appendAll(context.id, List.of(currentUrl));
+    /**
+     * Ends a clustered job on this node, at the request of its coordinator.
+     *
+     * @param id     The ID of the job.
+     * @param cancel Whether the job was stopped early, so that it is cancelled here rather than finished.
+     * @return The last status of the job on this node, or {@code null} if this node takes no part in it.
+     */
+    public ClusterStatus leaveCluster(final String id, final boolean cancel) {
+        final ClusterStatus status = cluster == null ? null : cluster.leave(id);
+        if (status != null && cancel) {
+            cancel(id);
         }
+        return status;
+    }
 
-        List<String> links = HtmlFetcher.getlinks(html);
-        for (String link : links) {
-            String nextUrl = HtmlFetcher.resolve(context.baseUrl, link);
+    /**
+     * Makes a subscribed job reachable for checkpoints and cancellation, starts the clock of its time limit, and
+     * catches a cancellation missed.
+     */
+    private void track(final Crawler crawler, final Subscription subscription, final CrawlContext context) {
+        checkpoints.register(crawler, context);
+        jobCrawls.put(crawler.getId(), context);
+        subscription.startClock(() -> pipeline.dispatch(context));
+        if (crawler.getStatus() == Status.CANCELLED) {
+            context.cancel(crawler.getId());
+        }
+    }
 
-            if (isValid(nextUrl) && isInScope(nextUrl, context.baseUrl)) {
-                if (context.visitedUrls.add(nextUrl)) {
-                    context.frontier.add(nextUrl);
-                }
-            }
+    /** Creates the subscription of a job, which finishes the job as soon as it reaches its budget. */
+    private Subscription newSubscription(final Crawler crawler) {
+        final Subscription subscription = new Subscription(
+                crawler.getId(),
+                KeywordMatcher.compile(crawler.getKeywords()),
+                crawler.getStats(),
+                crawler.getOptions(),
+                crawler.getBudget());
+        subscription.getStopped().thenAccept(reason -> {
+            LOGGER.info("Job {} stopped: {}", crawler.getId(), reason);
+            finish(crawler, subscription);
+        });
+        return subscription;
+    }
+
+    private void finish(final Crawler crawler, final Subscription subscription) {
+        if (subscription.markFinished()) {
+            jobCrawls.remove(crawler.getId());
+            checkpoints.unregister(crawler.getId());
+            crawler.stopWith(subscription.getStopReason());
+            dao.changeStatus(crawler.getId(), Status.DONE);
         }
     }
 
     /**
-     * Checks if a given URL is within the scope of the original crawl (i.e., starts with the base URL).
+     * Resumes the jobs checkpointed by a previous run: each one is stored again under its ID and its crawl is
+     * restarted in the background from its last checkpoint, with the URLs it had seen and those still pending. The
+     * share of a clustered job coordinated by another node is resumed under that coordinator.
      *
-     * @param url     The URL to check.
-     * @param baseUrl The base URL that defines the crawl scope.
-     * @return {@code true} if the URL is in scope, {@code false} otherwise.
+     * @return The number of resumed jobs.
+     */
+    public int resumeFromCheckpoints() {
+        return checkpoints.resume(checkpoint -> {
+            final Crawler crawler = checkpoint.getCrawler();
+            dao.restore(crawler);
+            executorService.submit(() -> start(checkpoint.getBaseUrl(), crawler.getId(), checkpoint.getCoordinator()));
+        });
+    }
+
+    /**
+     * Writes a last checkpoint of the running jobs and stops checkpointing, so that the jobs interrupted by the
+     * shutdown are resumed on the next start. Does nothing unless {@code CRAWLER_CHECKPOINT_DIR} is set.
      */
-    private boolean isInScope(final String url, final String baseUrl) {
-        return url.startsWith(baseUrl);
+    public void closeCheckpoints() {
+        checkpoints.close();
     }
 
     /**
-     * Checks if a URL is valid for crawling (i.e., not empty and does not match filtered extensions).
-     * @param url The URL to validate.
-     * @return {@code true} if the URL is valid, {@code false} otherwise.
+     * Subscribes a job to a crawl of its target; the runs of a recurring crawl and the jobs of a cluster always
+     * crawl on their own.
      */
-    private boolean isValid(final String url) {
-        return StringUtils.hasLength(url) && !FILTERS.matcher(url).matches();
+    private CrawlContext subscribe(
+            final CrawlTarget target,
+            final Subscription subscription,
+            final RunHistory history,
+            final String coordinator) {
+        while (true) {
+            final CrawlContext context = sharedCrawls && history == null && cluster == null
+                    ? activeCrawls.computeIfAbsent(target, key -> newSharedContext(key, subscription))
+                    : newContext(target, subscription, coordinator);
+            if (history != null) {
+                context.trackChanges(history);
+            }
+            if (context.subscribe(subscription)) {
+                if (context.getSubscriptions().size() > 1) {
+                    LOGGER.info("Job {} joined the running crawl of {}", subscription.getId(), target.getSeed());
+                }
+                return context;
+            }
+            // The crawl closed in the meantime; a new one is started on the next attempt.
+            activeCrawls.remove(target, context);
+        }
+    }
+
+    private static FrontierOrder frontierOrderFromEnvironment() {
+        String order = ConfigUtil.getString(ENV_FRONTIER_ORDER, FrontierOrder.FIFO.name());
+        try {
+            return FrontierOrder.parse(order);
+        } catch (IllegalArgumentException e) {
+            LOGGER.warn("Unknown {} '{}'; crawling breadth-first", ENV_FRONTIER_ORDER, order);
+            return FrontierOrder.FIFO;
+        }
+    }
+
+    /**
+     * Creates a crawl other jobs can join, which replays the pages it already dispatched to them if the fetcher has
+     * a response cache to serve those pages from.
+     */
+    private CrawlContext newSharedContext(final CrawlTarget target, final Subscription subscription) {
+        final CrawlContext context = newContext(target, subscription, null);
+        return replayToLateJobs ? context.replayToLateJobs() : context;
+    }
+
+    /** Creates a crawl, whose seed URLs are left to the coordinator if the job is coordinated by another node. */
+    private CrawlContext newContext(
+            final CrawlTarget target, final Subscription subscription, final String coordinator) {
+        final CrawlContext context = checkpoints.restoreCrawl(
+                subscription.getId(),
+                politeness,
+                pipeline.getSlots().register(target.getSeed(), subscription.getOptions()),
+                flow -> coordinator == null
+                        ? CrawlContext.create(target, subscription.getOptions(), frontierOrder, politeness, flow)
+                        : CrawlContext.follow(target, subscription.getOptions(), frontierOrder, politeness, flow));
+        context.getFinished().whenComplete((ignored, error) -> activeCrawls.remove(target, context));
+        return context;
     }
 }
@@ -0,0 +1,101 @@
+package space.lasf.sparkjava.handler;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import space.lasf.sparkjava.helper.BoundedInputStream;
+
+/**
+ * What a run of a recurring crawl recorded about a page: a hash of its body, its HTTP validators and its links,
+ * so that the next run can fetch it conditionally, tell whether it changed, and queue its links again if it did
+ * not. The keywords found on the page are not kept here: they are the hits of the run. This class is immutable.
+ */
+final class PageState {
+
+    private final long hash;
+    private final String etag;
+    private final String lastModified;
+    private final List<String> links;
+
+    PageState(final long hash, final String etag, final String lastModified, final List<String> links) {
+        this.hash = hash;
+        this.etag = etag;
+        this.lastModified = lastModified;
+        this.links = List.copyOf(links);
+    }
+
+    /**
+     * Wraps a page body so that it is hashed as it is read, by the scan of the page.
+     *
+     * @param body The decoded body.
+     * @return The body, to read instead of the original one.
+     */
+    static DigestInputStream hashing(final InputStream body) {
+        try {
+            return new DigestInputStream(body, MessageDigest.getInstance("SHA-256"));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Returns the hash of what was read through a hashing stream: the first 64 bits of its SHA-256 digest, which
+     * is plenty to tell two versions of a page apart.
+     *
+     * @param body The stream returned by {@link #hashing}, read as far as the page is scanned or hashed.
+     * @return The hash.
+     */
+    static long hash(final DigestInputStream body) {
+        return ByteBuffer.wrap(body.getMessageDigest().digest()).getLong();
+    }
+
+    /**
+     * Hashes a page body without scanning it, reading it as far as a scan would.
+     *
+     * @param body     The decoded body, which is consumed.
+     * @param maxBytes The most bytes of the body a scan reads.
+     * @return The hash, equal to the one {@link #hash} returns after scanning the same body.
+     * @throws IOException If the body cannot be read.
+     */
+    static long hashOf(final InputStream body, final long maxBytes) throws IOException {
+        final DigestInputStream hashing = hashing(new BoundedInputStream(body, maxBytes));
+        hashing.transferTo(OutputStream.nullOutputStream());
+        return hash(hashing);
+    }
+
+    /**
+     * Returns the state of the page found unchanged, with the validators of the new response if it has any.
+     *
+     * @param newEtag         The {@code ETag} of the new response, or {@code null}.
+     * @param newLastModified The {@code Last-Modified} date of the new response, or {@code null}.
+     * @return The state, sharing the links of this one.
+     */
+    PageState revalidated(final String newEtag, final String newLastModified) {
+        return new PageState(
+                hash,
+                newEtag == null ? etag : newEtag,
+                newLastModified == null ? lastModified : newLastModified,
+                links);
+    }
+
+    long getHash() {
+        return hash;
+    }
+
+    String getEtag() {
+        return etag;
+    }
+
+    String getLastModified() {
+        return lastModified;
+    }
+
+    List<String> getLinks() {
+        return links;
+    }
+}
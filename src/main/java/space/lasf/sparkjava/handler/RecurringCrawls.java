@@ -0,0 +1,234 @@
+package space.lasf.sparkjava.handler;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import space.lasf.sparkjava.dao.DaoInterface;
+import space.lasf.sparkjava.entity.CrawlSchedule;
+import space.lasf.sparkjava.entity.Crawler;
+import space.lasf.sparkjava.entity.HitChanges;
+import space.lasf.sparkjava.entity.Status;
+import space.lasf.sparkjava.entity.StopReason;
+import space.lasf.sparkjava.helper.CronExpression;
+
+/**
+ * Starts the runs of the recurring crawls, and carries what each run learned about its pages over to the next.
+ * <p>
+ * The next run is scheduled once a run is over, so runs never overlap: a run that overruns its interval is
+ * followed by the next one right away. Every run reports the hits added and removed since the previous complete
+ * run, whose pages it fetches conditionally and does not parse again if they have not changed. A run stopped by
+ * its budget, cancelled or failed is compared like the others but does not replace that baseline, since the pages
+ * it did not reach would otherwise count as removed. Recurring crawls are kept in memory. This class is
+ * thread-safe.
+ */
+final class RecurringCrawls {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RecurringCrawls.class);
+
+    private final DaoInterface<Crawler> dao;
+    private final BiConsumer<String, String> start;
+    private final Map<String, Registration> schedules = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(task -> {
+        Thread thread = new Thread(task, "crawl-schedule");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Creates the scheduler of the recurring crawls.
+     *
+     * @param dao   Stores the runs.
+     * @param start Starts a run, given the seed URL and the ID of the run.
+     */
+    RecurringCrawls(final DaoInterface<Crawler> dao, final BiConsumer<String, String> start) {
+        this.dao = dao;
+        this.start = start;
+    }
+
+    /**
+     * Makes a job the first run of a new recurring crawl. The next run is scheduled once it is over.
+     *
+     * @param firstRun The first run, not started yet.
+     * @param interval The time between the starts of two runs, or {@code null} for a cron schedule.
+     * @param cron     The schedule the runs start at, or {@code null} for a fixed interval.
+     * @return The recurring crawl, identified by the ID of its first run.
+     */
+    CrawlSchedule schedule(final Crawler firstRun, final Duration interval, final CronExpression cron) {
+        CrawlSchedule schedule = new CrawlSchedule(firstRun, interval, cron == null ? null : cron.toString());
+        firstRun.linkToSchedule(schedule.getId());
+        schedules.put(schedule.getId(), new Registration(schedule, cron));
+        LOGGER.info("Job {} recurs {}", schedule.getId(), cron == null ? "every " + interval : "at '" + cron + "'");
+        return schedule;
+    }
+
+    CrawlSchedule find(final String id) {
+        Registration registration = schedules.get(id);
+        return registration == null ? null : registration.schedule;
+    }
+
+    /**
+     * Stops a recurring crawl from starting new runs; a run in progress goes on.
+     *
+     * @param id The ID of the recurring crawl.
+     * @return The recurring crawl, or {@code null} if there is none with this ID.
+     */
+    CrawlSchedule cancel(final String id) {
+        Registration registration = schedules.get(id);
+        if (registration == null) {
+            return null;
+        }
+        if (registration.cancel()) {
+            LOGGER.info("Recurring crawl {} cancelled", id);
+        }
+        return registration.schedule;
+    }
+
+    /**
+     * Prepares a job about to run: if it is a run of a recurring crawl, returns the pages of the previous run.
+     *
+     * @param run     The job.
+     * @param baseUrl The seed URL, kept for the next runs.
+     * @return The history the run compares against and records into, or {@code null} if the job does not recur.
+     */
+    RunHistory beginRun(final Crawler run, final String baseUrl) {
+        Registration registration = registrationOf(run);
+        return registration == null ? null : registration.begin(baseUrl, dao);
+    }
+
+    /**
+     * Completes a job that has finished: if it is a run of a recurring crawl, records how its hits changed since
+     * the previous run, keeps its pages for the next run if it is complete, and schedules the next run.
+     *
+     * @param run     The finished job.
+     * @param history The history returned by {@link #beginRun}, or {@code null} if the run never started.
+     */
+    void endRun(final Crawler run, final RunHistory history) {
+        Registration registration = registrationOf(run);
+        if (registration == null) {
+            return;
+        }
+        String baselineRunId = registration.getBaselineRunId();
+        Crawler previous = baselineRunId == null ? null : dao.findById(baselineRunId);
+        if (history != null && previous != null) {
+            run.recordChanges(HitChanges.between(previous.getId(), previous.getHits(), run.getHits()));
+        }
+        if (history != null && isComplete(run)) {
+            registration.setBaseline(run.getId(), history.getCurrent());
+        }
+        scheduleNext(registration);
+    }
+
+    private Registration registrationOf(final Crawler run) {
+        return run == null || run.getScheduleId() == null ? null : schedules.get(run.getScheduleId());
+    }
+
+    private static boolean isComplete(final Crawler run) {
+        StopReason reason = run.getStopReason();
+        return run.getStatus() != Status.ERROR && (reason == StopReason.COMPLETED || reason == StopReason.MAX_DEPTH);
+    }
+
+    private void scheduleNext(final Registration registration) {
+        try {
+            Instant next = registration.nextRunAfter(Instant.now());
+            long delay = Math.max(0, Duration.between(Instant.now(), next).toMillis());
+            registration.setPending(timer.schedule(() -> runNext(registration), delay, TimeUnit.MILLISECONDS), next);
+        } catch (IllegalArgumentException e) {
+            LOGGER.warn("Recurring crawl {} has no next run: {}", registration.schedule.getId(), e.getMessage());
+            registration.cancel();
+        }
+    }
+
+    private void runNext(final Registration registration) {
+        final CrawlSchedule schedule = registration.schedule;
+        try {
+            if (!schedule.isActive()) {
+                return;
+            }
+            schedule.setNextRun(null);
+            Crawler run = schedule.getTarget() == null
+                    ? dao.create(schedule.getKeywords(), schedule.getOptions(), schedule.getBudget())
+                    : dao.create(
+                            schedule.getKeywords(), schedule.getOptions(), schedule.getBudget(), schedule.getTarget());
+            run.linkToSchedule(schedule.getId());
+            schedule.addRun(run.getId());
+            LOGGER.info("Starting run {} of recurring crawl {}", run.getId(), schedule.getId());
+            start.accept(registration.getBaseUrl(), run.getId());
+        } catch (RuntimeException e) {
+            LOGGER.error("Could not start a run of recurring crawl {}", schedule.getId(), e);
+        }
+    }
+
+    /** A recurring crawl, with its seed URL and the baseline its next run compares against. */
+    private static final class Registration {
+        private final CrawlSchedule schedule;
+        private final CronExpression cron;
+        private String baseUrl;
+        private Instant lastStart;
+        private String baselineRunId;
+        private Map<String, PageState> baseline = Map.of();
+        private Future<?> pending;
+
+        private Registration(final CrawlSchedule schedule, final CronExpression cron) {
+            this.schedule = schedule;
+            this.cron = cron;
+        }
+
+        /** Starts a run, which compares against the baseline unless the run that recorded it is gone. */
+        private synchronized RunHistory begin(final String seed, final DaoInterface<Crawler> dao) {
+            baseUrl = seed;
+            lastStart = Instant.now();
+            Crawler baselineRun = baselineRunId == null ? null : dao.findById(baselineRunId);
+            return baselineRun == null
+                    ? new RunHistory(Map.of(), Map.of())
+                    : new RunHistory(baseline, baselineRun.getHits());
+        }
+
+        private synchronized Instant nextRunAfter(final Instant now) {
+            if (cron != null) {
+                return cron.next(ZonedDateTime.ofInstant(now, ZoneId.systemDefault()))
+                        .toInstant();
+            }
+            Instant next = (lastStart == null ? now : lastStart).plus(schedule.getInterval());
+            return next.isBefore(now) ? now : next;
+        }
+
+        private synchronized void setBaseline(final String runId, final Map<String, PageState> pages) {
+            baselineRunId = runId;
+            baseline = pages;
+        }
+
+        private synchronized void setPending(final Future<?> next, final Instant at) {
+            pending = next;
+            if (schedule.isActive()) {
+                schedule.setNextRun(at);
+            } else {
+                next.cancel(false);
+            }
+        }
+
+        private synchronized boolean cancel() {
+            if (pending != null) {
+                pending.cancel(false);
+            }
+            return schedule.cancel();
+        }
+
+        private synchronized String getBaseUrl() {
+            return baseUrl;
+        }
+
+        private synchronized String getBaselineRunId() {
+            return baselineRunId;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package space.lasf.sparkjava.handler;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import space.lasf.sparkjava.helper.PageScan;
+
+/**
+ * The pages a run of a recurring crawl can compare against: those recorded by the previous complete run, with
+ * the hits of that run, and those the current run records for the next one. This class is thread-safe.
+ */
+final class RunHistory {
+
+    private final Map<String, PageState> previous;
+    // The URLs the previous run found each keyword on.
+    private final Map<String, Set<String>> previousHits;
+    private final Map<String, PageState> current = new ConcurrentHashMap<>();
+
+    /**
+     * Creates the history of a run.
+     *
+     * @param previous     The pages of the previous run, keyed by URL; empty for a first run.
+     * @param previousHits The hits of the previous run: the URLs of the pages each keyword was found on.
+     */
+    RunHistory(final Map<String, PageState> previous, final Map<String, Set<String>> previousHits) {
+        this.previous = previous;
+        this.previousHits = previousHits;
+    }
+
+    /**
+     * Returns what the previous run recorded about a page.
+     *
+     * @param url The page URL.
+     * @return The state of the page, or {@code null} if the previous run did not fetch it.
+     */
+    PageState previous(final String url) {
+        return previous.get(url);
+    }
+
+    /**
+     * Rebuilds the scan of a page found unchanged since the previous run, without reading it again: its links, as
+     * recorded then, and the keywords that run found on it.
+     *
+     * @param url      The page URL.
+     * @param state    The state of the page in the previous run.
+     * @param keywords The keywords the scan reports on, in matcher order.
+     * @return The scan; the anchor texts of the links are not known.
+     */
+    PageScan previousScan(final String url, final PageState state, final List<String> keywords) {
+        final BitSet matches = new BitSet(keywords.size());
+        for (int i = 0; i < keywords.size(); i++) {
+            if (previousHits.getOrDefault(keywords.get(i), Set.of()).contains(url)) {
+                matches.set(i);
+            }
+        }
+        return new PageScan(matches, state.getLinks(), 0, false);
+    }
+
+    /**
+     * Records a page fetched by the current run.
+     *
+     * @param url   The page URL.
+     * @param state The state of the page.
+     */
+    void record(final String url, final PageState state) {
+        current.put(url, state);
+    }
+
+    /**
+     * Returns the pages recorded by the current run.
+     *
+     * @return An immutable copy of the states, keyed by URL.
+     */
+    Map<String, PageState> getCurrent() {
+        return Map.copyOf(current);
+    }
+}
@@ -0,0 +1,177 @@
+package space.lasf.sparkjava.handler;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import space.lasf.sparkjava.helper.AsyncHtmlFetcher;
+import space.lasf.sparkjava.helper.BoundedInputStream;
+import space.lasf.sparkjava.helper.ConfigUtil;
+import space.lasf.sparkjava.helper.FetchResponse;
+import space.lasf.sparkjava.helper.SitemapReader;
+
+/**
+ * Seeds the frontier of a new crawl with the URLs the site lists in its sitemaps, so that every fetch slot has
+ * work from the start instead of waiting for the links of the first pages.
+ * <p>
+ * Enabled by {@code CRAWLER_SITEMAP_SEEDING=true}. The sitemaps of each site a seed URL is on are those named by
+ * the {@code Sitemap:} lines of its {@code robots.txt}, or {@code /sitemap.xml} if it names none; sitemap indexes
+ * are followed, up to {@code CRAWLER_SITEMAP_MAX_FILES} files, and up to {@code CRAWLER_SITEMAP_MAX_URLS} URLs are
+ * seeded. The URLs go through the scope and extension filters of the links, one level below the seed URLs. A site
+ * without sitemaps is crawled from its seed URLs alone. This class is thread-safe.
+ */
+final class SitemapSeeder {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SitemapSeeder.class);
+    private static final String ENV_SITEMAP_SEEDING = "CRAWLER_SITEMAP_SEEDING";
+    private static final String ENV_SITEMAP_MAX_URLS = "CRAWLER_SITEMAP_MAX_URLS";
+    private static final String ENV_SITEMAP_MAX_FILES = "CRAWLER_SITEMAP_MAX_FILES";
+    private static final int DEFAULT_MAX_URLS = 100_000;
+    private static final int DEFAULT_MAX_FILES = 100;
+    // The size of robots.txt crawlers are expected to read.
+    private static final long MAX_ROBOTS_BYTES = 500L * 1024;
+
+    private final AsyncHtmlFetcher fetcher;
+    private final ExecutorService executor;
+    private final boolean enabled;
+    private final int maxUrls;
+    private final int maxFiles;
+
+    /**
+     * Creates a seeder.
+     *
+     * @param fetcher  Fetches robots.txt and the sitemaps.
+     * @param executor Runs the seeding, which blocks while the sitemaps are read.
+     * @param enabled  Whether crawls are seeded at all.
+     * @param maxUrls  The maximum number of URLs seeded per crawl.
+     * @param maxFiles The maximum number of sitemap files read per crawl.
+     */
+    SitemapSeeder(
+            final AsyncHtmlFetcher fetcher,
+            final ExecutorService executor,
+            final boolean enabled,
+            final int maxUrls,
+            final int maxFiles) {
+        this.fetcher = fetcher;
+        this.executor = executor;
+        this.enabled = enabled;
+        this.maxUrls = maxUrls;
+        this.maxFiles = maxFiles;
+    }
+
+    /**
+     * Creates a seeder configured from the environment.
+     *
+     * @param fetcher  Fetches robots.txt and the sitemaps.
+     * @param executor Runs the seeding.
+     * @return The seeder, disabled unless {@code CRAWLER_SITEMAP_SEEDING=true}.
+     */
+    static SitemapSeeder fromEnvironment(final AsyncHtmlFetcher fetcher, final ExecutorService executor) {
+        return new SitemapSeeder(
+                fetcher,
+                executor,
+                ConfigUtil.getBoolean(ENV_SITEMAP_SEEDING, false),
+                ConfigUtil.getInt(ENV_SITEMAP_MAX_URLS, DEFAULT_MAX_URLS),
+                ConfigUtil.getInt(ENV_SITEMAP_MAX_FILES, DEFAULT_MAX_FILES));
+    }
+
+    /**
+     * Seeds the frontier of a crawl from the sitemaps of its site, unless it was seeded already. The crawl counts
+     * the seeding as work in flight, so that it cannot end meanwhile.
+     *
+     * @param context The crawl, not dispatched yet.
+     * @return A future completed once the frontier is seeded; it never completes exceptionally.
+     */
+    CompletableFuture<Void> seed(final CrawlContext context) {
+        if (!enabled || !context.claimSeeding() || !context.allowsDepth(1)) {
+            return CompletableFuture.completedFuture(null);
+        }
+        context.beginWork();
+        return CompletableFuture.runAsync(() -> new Seeding(context).run(), executor)
+                .handle((ignored, error) -> {
+                    if (error != null) {
+                        LOGGER.warn("Could not seed the crawl of {}: {}", context.getBaseUrl(), error.toString());
+                    }
+                    context.endWork();
+                    return null;
+                });
+    }
+
+    /** The seeding of one crawl: the sitemaps left to read and the URLs seeded so far. */
+    private final class Seeding {
+        private final CrawlContext context;
+        private final Deque<String> pending = new ArrayDeque<>();
+        private final Set<String> sitemaps = new HashSet<>();
+        private int seeded;
+
+        private Seeding(final CrawlContext context) {
+            this.context = context;
+        }
+
+        private void run() {
+            final Set<URI> origins = new LinkedHashSet<>();
+            context.getSeeds().forEach(seed -> origins.add(URI.create(seed).resolve("/")));
+            for (URI origin : origins) {
+                List<String> listed = sitemapsInRobots(origin);
+                (listed.isEmpty() ? List.of("/sitemap.xml") : listed).forEach(url -> addSitemap(origin, url));
+            }
+            while (!pending.isEmpty() && isWanted()) {
+                read(pending.poll());
+            }
+            LOGGER.info("Seeded {} URLs from {} sitemaps [seed: {}]", seeded, sitemaps.size(), context.getBaseUrl());
+        }
+
+        private List<String> sitemapsInRobots(final URI origin) {
+            final String robots = origin.resolve("/robots.txt").toString();
+            try (FetchResponse response = fetcher.fetchResource(robots).join();
+                    InputStream body = new BoundedInputStream(response.getBody(), MAX_ROBOTS_BYTES)) {
+                return SitemapReader.sitemapsInRobots(new String(body.readAllBytes(), response.getCharset()));
+            } catch (IOException | CompletionException e) {
+                LOGGER.debug("No robots.txt at {}: {}", robots, e.toString());
+                return List.of();
+            }
+        }
+
+        private void read(final String sitemap) {
+            try (FetchResponse response = fetcher.fetchResource(sitemap).join()) {
+                final URI base = URI.create(sitemap);
+                SitemapReader.read(response.getBody(), this::addPage, url -> addSitemap(base, url));
+            } catch (IOException | CompletionException e) {
+                LOGGER.debug("Could not read the sitemap {}: {}", sitemap, e.toString());
+            }
+        }
+
+        private boolean addPage(final String url) {
+            if (CrawlPipeline.seed(context, url)) {
+                seeded++;
+            }
+            return isWanted();
+        }
+
+        private boolean addSitemap(final URI base, final String url) {
+            try {
+                String sitemap = base.resolve(url).toString();
+                if (sitemaps.size() < maxFiles && sitemaps.add(sitemap)) {
+                    pending.add(sitemap);
+                }
+            } catch (IllegalArgumentException e) {
+                LOGGER.debug("Invalid sitemap URL {}: {}", url, e.getMessage());
+            }
+            return true;
+        }
+
+        private boolean isWanted() {
+            return seeded < maxUrls && !context.isCancelled();
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package space.lasf.sparkjava.handler;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import space.lasf.sparkjava.entity.CrawlBudget;
+import space.lasf.sparkjava.entity.CrawlOptions;
+import space.lasf.sparkjava.entity.CrawlStats;
+import space.lasf.sparkjava.entity.StopReason;
+import space.lasf.sparkjava.helper.FrontierEntry;
+import space.lasf.sparkjava.helper.HashVisitedSet;
+import space.lasf.sparkjava.helper.KeywordMatcher;
+
+/**
+ * A crawl job subscribed to a {@link CrawlContext}: the pages it must see, where its results go and the budget it
+ * stops at. A job that reaches a limit of its budget stops being handed pages, while the crawl goes on for the
+ * other jobs, and so does a cancelled job. This class is thread-safe.
+ */
+final class Subscription {
+
+    private final String id;
+    private final KeywordMatcher matcher;
+    private final CrawlStats stats;
+    private final CrawlOptions options;
+    private final CrawlBudget budget;
+    // The URLs already handed out to this job, by 64-bit hash, so that no page is scanned twice for it.
+    private final HashVisitedSet claimedUrls = new HashVisitedSet();
+    // The pages handed out and not given back, so that no more than maxPages are ever fetched for the job.
+    private final AtomicLong claimedPages = new AtomicLong();
+    private final AtomicBoolean depthLimited = new AtomicBoolean();
+    private final AtomicReference<StopReason> stopReason = new AtomicReference<>();
+    private final CompletableFuture<StopReason> stopped = new CompletableFuture<>();
+    // Completed when maxDuration runs out, or cancelled once the job stops first, which drops its timer.
+    private final CompletableFuture<Void> deadline = new CompletableFuture<>();
+    private final AtomicBoolean finished = new AtomicBoolean();
+
+    Subscription(
+            final String id,
+            final KeywordMatcher matcher,
+            final CrawlStats stats,
+            final CrawlOptions options,
+            final CrawlBudget budget) {
+        this.id = id;
+        this.matcher = matcher;
+        this.stats = stats;
+        this.options = options;
+        this.budget = budget;
+    }
+
+    String getId() {
+        return id;
+    }
+
+    KeywordMatcher getMatcher() {
+        return matcher;
+    }
+
+    CrawlStats getStats() {
+        return stats;
+    }
+
+    CrawlOptions getOptions() {
+        return options;
+    }
+
+    CrawlBudget getBudget() {
+        return budget;
+    }
+
+    /**
+     * Marks a page as handed out to this job, unless the job has stopped or the page is beyond its budget.
+     *
+     * @param page The frontier entry of the page.
+     * @return {@code true} if the job had not been given the page yet and must process it.
+     */
+    boolean claim(final FrontierEntry page) {
+        if (!isActive()) {
+            return false;
+        }
+        if (!budget.allowsDepth(page.getDepth())) {
+            markDepthLimited();
+            return false;
+        }
+        if (!claimedUrls.add(page.getUrl())) {
+            return false;
+        }
+        if (budget.getMaxPages() != CrawlBudget.UNLIMITED && claimedPages.incrementAndGet() > budget.getMaxPages()) {
+            unclaim(page.getUrl());
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Gives a page back, so that it is handed out again when it is retried.
+     *
+     * @param url The page URL.
+     */
+    void unclaim(final String url) {
+        if (claimedUrls.remove(url) && budget.getMaxPages() != CrawlBudget.UNLIMITED) {
+            claimedPages.decrementAndGet();
+        }
+    }
+
+    /**
+     * Records that links were left out of the crawl because they are deeper than {@code maxDepth}.
+     */
+    void markDepthLimited() {
+        depthLimited.set(true);
+    }
+
+    /**
+     * Stops the job if its counters have reached a limit of its budget.
+     *
+     * @return {@code true} if the job is stopped.
+     */
+    boolean checkBudget() {
+        if (isActive()) {
+            budget.exceededBy(stats).ifPresent(this::stop);
+        }
+        return !isActive();
+    }
+
+    /**
+     * Starts the clock of {@code maxDuration}, if the budget sets it: once it runs out, the job is stopped even if
+     * none of its pages completes meanwhile, as when its hosts stall. A resumed job keeps the time it ran before.
+     *
+     * @param onExpired Runs once the job is stopped by the clock, so that its crawl can settle.
+     */
+    void startClock(final Runnable onExpired) {
+        final long maxDuration = budget.getMaxDurationMillis();
+        if (maxDuration == CrawlBudget.UNLIMITED) {
+            return;
+        }
+        deadline.thenRun(() -> {
+            stop(StopReason.MAX_DURATION);
+            onExpired.run();
+        });
+        deadline.completeOnTimeout(null, Math.max(0, maxDuration - stats.getElapsedMillis()), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops the job at once, as it was cancelled.
+     */
+    void cancel() {
+        stop(StopReason.CANCELLED);
+    }
+
+    /**
+     * Returns whether the job is still being handed pages.
+     *
+     * @return {@code false} once a limit of its budget was reached or the job was cancelled.
+     */
+    boolean isActive() {
+        return stopReason.get() == null;
+    }
+
+    /**
+     * Returns a future completed with the limit the job stopped at, once it is reached, or with
+     * {@link StopReason#CANCELLED}.
+     *
+     * @return The stop future; it is never completed if the job runs until the crawl is finished.
+     */
+    CompletableFuture<StopReason> getStopped() {
+        return stopped;
+    }
+
+    /**
+     * Returns why the job finished: the limit it stopped at, or the end of the crawl.
+     *
+     * @return The stop reason.
+     */
+    StopReason getStopReason() {
+        StopReason reason = stopReason.get();
+        if (reason != null) {
+            return reason;
+        }
+        return depthLimited.get() ? StopReason.MAX_DEPTH : StopReason.COMPLETED;
+    }
+
+    /**
+     * Marks the job as finished, so that its final status is recorded only once.
+     *
+     * @return {@code true} for the first caller only.
+     */
+    boolean markFinished() {
+        deadline.cancel(false);
+        return finished.compareAndSet(false, true);
+    }
+
+    private void stop(final StopReason reason) {
+        if (stopReason.compareAndSet(null, reason)) {
+            deadline.cancel(false);
+            stopped.complete(reason);
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package space.lasf.sparkjava.helper;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+/**
+ * A case-insensitive {@link KeywordMatcher} for several keywords at once, based on the Aho-Corasick automaton.
+ * <p>
+ * The keywords are compiled once into a deterministic automaton: the trie of the keywords, with every failure
+ * transition resolved ahead of time into a dense {@code state x symbol} table. Scanning a page then costs one
+ * table lookup per character, whatever the number of keywords, and every keyword occurrence is reported in the
+ * same pass. Characters that appear in no keyword share a single symbol, which keeps the table small.
+ */
+public final class AhoCorasickMatcher implements KeywordMatcher {
+
+    private static final int ASCII = 128;
+
+    private final List<String> keywords;
+    private final char[] alphabet;
+    private final int[] asciiSymbols = new int[ASCII];
+    private final int symbolCount;
+    private final int[][] transitions;
+    private final int[][] outputs;
+
+    /**
+     * Compiles the matcher for a list of keywords.
+     *
+     * @param keywords The non-empty keywords to search for, without duplicates.
+     */
+    public AhoCorasickMatcher(final List<String> keywords) {
+        if (keywords == null || keywords.isEmpty() || keywords.stream().anyMatch(k -> k == null || k.isEmpty())) {
+            throw new IllegalArgumentException("The keywords cannot be empty.");
+        }
+        this.keywords = List.copyOf(keywords);
+        this.alphabet = buildAlphabet(this.keywords);
+        this.symbolCount = alphabet.length + 1;
+        for (int i = 0; i < alphabet.length; i++) {
+            if (alphabet[i] < ASCII) {
+                asciiSymbols[alphabet[i]] = i + 1;
+            }
+        }
+        Trie trie = buildTrie();
+        this.transitions = trie.transitions.toArray(new int[0][]);
+        this.outputs = resolveFailures(trie);
+    }
+
+    @Override
+    public List<String> getKeywords() {
+        return keywords;
+    }
+
+    @Override
+    public Scan newScan() {
+        return new AutomatonScan();
+    }
+
+    private static char[] buildAlphabet(final List<String> keywords) {
+        SortedSet<Character> chars = new TreeSet<>();
+        for (String keyword : keywords) {
+            for (int i = 0; i < keyword.length(); i++) {
+                chars.add(fold(keyword.charAt(i)));
+            }
+        }
+        char[] alphabet = new char[chars.size()];
+        int i = 0;
+        for (char c : chars) {
+            alphabet[i++] = c;
+        }
+        return alphabet;
+    }
+
+    /** Maps a character to its symbol: {@code 0} for characters outside every keyword. */
+    private int symbol(final char raw) {
+        final char c = fold(raw);
+        if (c < ASCII) {
+            return asciiSymbols[c];
+        }
+        return Math.max(0, Arrays.binarySearch(alphabet, c) + 1);
+    }
+
+    private static char fold(final char c) {
+        return Character.toLowerCase(c);
+    }
+
+    /** The goto function of the trie (missing edges are {@code -1}) and the keyword ending at each state. */
+    private static final class Trie {
+        private final List<int[]> transitions = new ArrayList<>();
+        private final List<int[]> outputs = new ArrayList<>();
+    }
+
+    private Trie buildTrie() {
+        Trie trie = new Trie();
+        addState(trie);
+        for (int k = 0; k < keywords.size(); k++) {
+            String keyword = keywords.get(k);
+            int state = 0;
+            for (int i = 0; i < keyword.length(); i++) {
+                int symbol = symbol(keyword.charAt(i));
+                if (trie.transitions.get(state)[symbol] < 0) {
+                    trie.transitions.get(state)[symbol] = addState(trie);
+                }
+                state = trie.transitions.get(state)[symbol];
+            }
+            trie.outputs.set(state, append(trie.outputs.get(state), k));
+        }
+        return trie;
+    }
+
+    private int addState(final Trie trie) {
+        int[] row = new int[symbolCount];
+        Arrays.fill(row, -1);
+        trie.transitions.add(row);
+        trie.outputs.add(new int[0]);
+        return trie.transitions.size() - 1;
+    }
+
+    /**
+     * Turns the trie into a complete automaton in breadth-first order: a missing edge takes the edge of the
+     * failure state, and each state inherits the keywords reported by its failure state.
+     */
+    private int[][] resolveFailures(final Trie trie) {
+        int[] failure = new int[transitions.length];
+        int[][] merged = trie.outputs.toArray(new int[0][]);
+        Queue<Integer> queue = new ArrayDeque<>();
+        for (int s = 0; s < symbolCount; s++) {
+            if (transitions[0][s] < 0) {
+                transitions[0][s] = 0;
+            } else {
+                queue.add(transitions[0][s]);
+            }
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            merged[state] = union(merged[state], merged[failure[state]]);
+            for (int s = 0; s < symbolCount; s++) {
+                int next = transitions[state][s];
+                if (next < 0) {
+                    transitions[state][s] = transitions[failure[state]][s];
+                } else {
+                    failure[next] = transitions[failure[state]][s];
+                    queue.add(next);
+                }
+            }
+        }
+        return merged;
+    }
+
+    private static int[] append(final int[] values, final int value) {
+        int[] copy = Arrays.copyOf(values, values.length + 1);
+        copy[values.length] = value;
+        return copy;
+    }
+
+    private static int[] union(final int[] own, final int[] inherited) {
+        int[] result = own;
+        for (int value : inherited) {
+            if (Arrays.stream(result).noneMatch(v -> v == value)) {
+                result = append(result, value);
+            }
+        }
+        return result;
+    }
+
+    private final class AutomatonScan implements Scan {
+        private final BitSet matches = new BitSet(keywords.size());
+        private int state;
+        private int remaining = keywords.size();
+
+        @Override
+        public void feed(final char[] chars, final int offset, final int length) {
+            final int end = offset + length;
+            for (int i = offset; i < end && remaining > 0; i++) {
+                accept(chars[i]);
+            }
+        }
+
+        @Override
+        public void feed(final CharSequence text) {
+            final int end = text.length();
+            for (int i = 0; i < end && remaining > 0; i++) {
+                accept(text.charAt(i));
+            }
+        }
+
+        @Override
+        public boolean isFound() {
+            return remaining < keywords.size();
+        }
+
+        @Override
+        public BitSet getMatches() {
+            return (BitSet) matches.clone();
+        }
+
+        @Override
+        public boolean isComplete() {
+            return remaining == 0;
+        }
+
+        private void accept(final char c) {
+            state = transitions[state][symbol(c)];
+            for (int keyword : outputs[state]) {
+                if (!matches.get(keyword)) {
+                    matches.set(keyword);
+                    remaining--;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,427 @@
+package space.lasf.sparkjava.helper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.security.Security;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import space.lasf.sparkjava.entity.SkipReason;
+import space.lasf.sparkjava.exception.HttpStatusException;
+
+/**
+ * A non-blocking fetch engine built on {@link HttpClient}.
+ * <p>
+ * A single client instance is meant to be shared by every crawl job: it keeps persistent keep-alive
+ * connections per host, negotiates HTTP/2 (one multiplexed connection per host) when the server supports it,
+ * and returns {@link CompletableFuture}s so that no thread is parked while waiting for the network.
+ * Resolved host addresses are cached by the JVM for {@code DNS_CACHE_TTL_SECONDS}.
+ * <p>
+ * When an {@link HttpResponseCache} is configured ({@code HTTP_CACHE_DIR}), fresh entries are served from disk,
+ * stale ones are revalidated with {@code If-None-Match}/{@code If-Modified-Since}, and successful responses are
+ * written to the cache while they are read. Responses are requested compressed ({@code gzip}, {@code deflate}
+ * or {@code br}) unless {@code FETCH_COMPRESSION=false}.
+ * This class is thread-safe.
+ */
+public class AsyncHtmlFetcher {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AsyncHtmlFetcher.class);
+    private static final String ENV_TIMEOUT_MS = "FETCH_TIMEOUT_MS";
+    private static final String ENV_POOL_SIZE = "FETCH_POOL_SIZE";
+    private static final String ENV_KEEPALIVE_SECONDS = "FETCH_KEEPALIVE_SECONDS";
+    private static final String ENV_DNS_CACHE_TTL = "DNS_CACHE_TTL_SECONDS";
+    private static final String ENV_COMPRESSION = "FETCH_COMPRESSION";
+    private static final String ENV_CACHE_DIR = "HTTP_CACHE_DIR";
+    private static final String ENV_CACHE_MAX_BYTES = "HTTP_CACHE_MAX_BYTES";
+    private static final String ENV_CACHE_MAX_ENTRIES = "HTTP_CACHE_MAX_ENTRIES";
+    private static final String ENV_CACHE_FRESHNESS_SECONDS = "HTTP_CACHE_FRESHNESS_SECONDS";
+    private static final String PROP_POOL_SIZE = "jdk.httpclient.connectionPoolSize";
+    private static final String PROP_KEEPALIVE = "jdk.httpclient.keepalive.timeout";
+    private static final String PROP_DNS_CACHE_TTL = "networkaddress.cache.ttl";
+
+    private static final String USER_AGENT = "BackendCrawler/1.0";
+    private static final int DEFAULT_TIMEOUT_MS = 5000; // 5 seconds
+    private static final int DEFAULT_KEEPALIVE_SECONDS = 120;
+    private static final int DEFAULT_DNS_CACHE_TTL_SECONDS = 300;
+    private static final long DEFAULT_CACHE_MAX_BYTES = 256L * 1024 * 1024; // 256 MB
+    private static final int DEFAULT_CACHE_MAX_ENTRIES = 50_000;
+    private static final int DEFAULT_CACHE_FRESHNESS_SECONDS = 300;
+    private static final int HTTP_STATUS_OK = 200;
+    private static final int HTTP_STATUS_NOT_MODIFIED = 304;
+    private static final int HTTP_STATUS_BAD_REQUEST = 400;
+
+    private final HttpClient client;
+    private final Duration timeout;
+    private final HttpResponseCache cache;
+    private final boolean compression;
+    private final ContentGate contentGate;
+
+    /**
+     * Creates a fetcher configured from the environment.
+     */
+    public AsyncHtmlFetcher() {
+        this(Duration.ofMillis(ConfigUtil.getLong(ENV_TIMEOUT_MS, DEFAULT_TIMEOUT_MS)), createCacheFromEnvironment());
+    }
+
+    /**
+     * Creates a fetcher configured from the environment whose HTTP client runs its asynchronous work on the given
+     * executor, such as the virtual-thread executor of the crawl jobs, instead of a pool of its own.
+     *
+     * @param executor The executor running the client's response handling.
+     */
+    public AsyncHtmlFetcher(final Executor executor) {
+        this(
+                Duration.ofMillis(ConfigUtil.getLong(ENV_TIMEOUT_MS, DEFAULT_TIMEOUT_MS)),
+                createCacheFromEnvironment(),
+                ContentGate.fromEnvironment(),
+                executor);
+    }
+
+    /**
+     * Creates a fetcher with the given connect and response timeout.
+     *
+     * @param timeout The maximum time to wait for a connection and for the response headers.
+     */
+    public AsyncHtmlFetcher(final Duration timeout) {
+        this(timeout, null);
+    }
+
+    /**
+     * Creates a fetcher backed by a persistent response cache.
+     *
+     * @param timeout The maximum time to wait for a connection and for the response headers.
+     * @param cache   The response cache shared by every crawl job, or {@code null} to always use the network.
+     */
+    public AsyncHtmlFetcher(final Duration timeout, final HttpResponseCache cache) {
+        this(timeout, cache, ContentGate.fromEnvironment());
+    }
+
+    /**
+     * Creates a fetcher backed by a persistent response cache that rejects unwanted bodies from their headers.
+     *
+     * @param timeout     The maximum time to wait for a connection and for the response headers.
+     * @param cache       The response cache shared by every crawl job, or {@code null} to always use the network.
+     * @param contentGate The rules deciding which response bodies are downloaded.
+     */
+    public AsyncHtmlFetcher(final Duration timeout, final HttpResponseCache cache, final ContentGate contentGate) {
+        this(timeout, cache, contentGate, null);
+    }
+
+    /**
+     * Creates a fetcher backed by a persistent response cache that rejects unwanted bodies from their headers.
+     *
+     * @param timeout     The maximum time to wait for a connection and for the response headers.
+     * @param cache       The response cache shared by every crawl job, or {@code null} to always use the network.
+     * @param contentGate The rules deciding which response bodies are downloaded.
+     * @param executor    The executor running the client's response handling, or {@code null} for a pool of its own.
+     */
+    public AsyncHtmlFetcher(
+            final Duration timeout,
+            final HttpResponseCache cache,
+            final ContentGate contentGate,
+            final Executor executor) {
+        configureNetworking();
+        this.timeout = timeout;
+        this.cache = cache;
+        this.contentGate = contentGate;
+        this.compression = ConfigUtil.getBoolean(ENV_COMPRESSION, true);
+        HttpClient.Builder builder = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .connectTimeout(timeout);
+        if (executor != null) {
+            builder.executor(executor);
+        }
+        this.client = builder.build();
+    }
+
+    /**
+     * Returns the rules deciding which response bodies are downloaded.
+     *
+     * @return The content gate.
+     */
+    public ContentGate getContentGate() {
+        return contentGate;
+    }
+
+    /**
+     * Returns whether the fetcher is backed by a response cache.
+     *
+     * @return {@code false} if every page is downloaded from the network.
+     */
+    public boolean hasCache() {
+        return cache != null;
+    }
+
+    /**
+     * Fetches the HTML content of a URL without blocking the calling thread.
+     *
+     * @param url The absolute URL to fetch.
+     * @return A future completed with the response body, or completed exceptionally with an
+     *         {@link IOException} if the request fails or the server answers with an error status.
+     */
+    public CompletableFuture<String> fetchHtml(final String url) {
+        return fetchStream(url).thenApply(AsyncHtmlFetcher::readFully);
+    }
+
+    /**
+     * Fetches a URL and hands over the response as soon as the headers arrive, so the caller can process
+     * the page while it is still being received. Compressed bodies are decoded as they are read.
+     * Bodies rejected by the {@link ContentGate} are not downloaded: the transfer is aborted as soon as
+     * the headers are known and the response is returned {@link FetchResponse#isSkipped() skipped}.
+     *
+     * @param url The absolute URL to fetch.
+     * @return A future completed with the unread response (which the caller must close), or completed
+     *         exceptionally with an {@link IOException} if the request fails or returns an error status.
+     *         Cancelling it before the headers arrive aborts the request.
+     */
+    public CompletableFuture<FetchResponse> fetchStream(final String url) {
+        return fetchStream(url, null, null);
+    }
+
+    /**
+     * Fetches a URL like {@link #fetchStream(String)}, but only if it changed since a previous crawl: the request
+     * carries the validators recorded then, unless the response cache holds fresher ones. A server answering
+     * {@code 304 Not Modified} yields a {@link FetchResponse#isNotModified() not modified} response without body.
+     *
+     * @param url          The absolute URL to fetch.
+     * @param etag         The {@code ETag} recorded by the previous crawl, or {@code null}.
+     * @param lastModified The {@code Last-Modified} date recorded by the previous crawl, or {@code null}.
+     * @return A future completed with the unread response, as for {@link #fetchStream(String)}.
+     */
+    public CompletableFuture<FetchResponse> fetchStream(
+            final String url, final String etag, final String lastModified) {
+        final Optional<HttpResponseCache.Entry> cached = cache == null ? Optional.empty() : cache.lookup(url);
+        if (cached.isPresent() && cache.isFresh(cached.get())) {
+            Optional<InputStream> local = openCached(cached.get());
+            if (local.isPresent()) {
+                return CompletableFuture.completedFuture(
+                        FetchResponse.fromCache(url, cached.get().getContentType(), local.get()));
+            }
+        }
+        final HttpRequest request;
+        try {
+            request = cached.isPresent()
+                    ? newRequest(url, cached.get().getEtag(), cached.get().getLastModified())
+                    : newRequest(url, etag, lastModified);
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.failedFuture(new IOException("Invalid URL: " + url, e));
+        }
+        final CompletableFuture<HttpResponse<InputStream>> exchange =
+                client.sendAsync(request, HttpResponse.BodyHandlers.ofInputStream());
+        final CompletableFuture<FetchResponse> fetched =
+                exchange.thenApply(response -> handleResponse(url, response, cached.orElse(null)));
+        // Cancelling the fetch aborts the exchange, which frees its connection or HTTP/2 stream.
+        fetched.whenComplete((ignored, error) -> {
+            if (fetched.isCancelled()) {
+                exchange.cancel(true);
+            }
+        });
+        return fetched;
+    }
+
+    /**
+     * Fetches a resource the crawler reads itself rather than a page, such as {@code robots.txt} or a sitemap.
+     * The body is handed over whatever its media type or announced size, and the response cache is not used.
+     *
+     * @param url The absolute URL to fetch.
+     * @return A future completed with the unread response (which the caller must close), or completed
+     *         exceptionally with an {@link IOException} if the request fails or returns an error status.
+     */
+    public CompletableFuture<FetchResponse> fetchResource(final String url) {
+        final HttpRequest request;
+        try {
+            request = newRequest(url, null, null);
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.failedFuture(new IOException("Invalid URL: " + url, e));
+        }
+        return client.sendAsync(request, HttpResponse.BodyHandlers.ofInputStream())
+                .thenApply(response -> {
+                    if (response.statusCode() >= HTTP_STATUS_BAD_REQUEST) {
+                        closeQuietly(response.body());
+                        throw new CompletionException(statusError(url, response));
+                    }
+                    return FetchResponse.fromNetwork(url, response);
+                });
+    }
+
+    private FetchResponse handleResponse(
+            final String url, final HttpResponse<InputStream> response, final HttpResponseCache.Entry cached) {
+        final int status = response.statusCode();
+        if (status == HTTP_STATUS_NOT_MODIFIED) {
+            closeQuietly(response.body());
+            return notModified(url, cached);
+        }
+        if (status >= HTTP_STATUS_BAD_REQUEST) {
+            closeQuietly(response.body());
+            throw new CompletionException(statusError(url, response));
+        }
+        FetchResponse fetched = FetchResponse.fromNetwork(url, response);
+        Optional<SkipReason> skip = contentGate.check(
+                fetched.getContentType(),
+                response.headers().firstValueAsLong("Content-Length"),
+                fetched.getContentEncoding());
+        if (skip.isPresent()) {
+            // Closing the unread body aborts the transfer (the connection or HTTP/2 stream is reset).
+            closeQuietly(response.body());
+            return FetchResponse.skipped(url, fetched.getContentType(), skip.get());
+        }
+        if (cache != null && status == HTTP_STATUS_OK && isStorable(response)) {
+            storeWhileReading(fetched, response);
+        }
+        return fetched;
+    }
+
+    private FetchResponse notModified(final String url, final HttpResponseCache.Entry cached) {
+        if (cached == null) {
+            // The validators of a previous crawl matched: there is no body to read.
+            return FetchResponse.notModified(url);
+        }
+        cache.markRevalidated(cached);
+        return openCached(cached)
+                .map(local -> FetchResponse.fromCache(url, cached.getContentType(), local))
+                .orElseThrow(() ->
+                        new CompletionException(new IOException("Cached body of " + url + " is no longer available")));
+    }
+
+    private void storeWhileReading(final FetchResponse fetched, final HttpResponse<InputStream> response) {
+        HttpResponseCache.Metadata metadata = new HttpResponseCache.Metadata(
+                response.headers().firstValue("ETag").orElse(null),
+                response.headers().firstValue("Last-Modified").orElse(null),
+                fetched.getContentType());
+        fetched.decorateBody(body -> cache.store(fetched.getUrl(), metadata, body));
+    }
+
+    private static HttpStatusException statusError(final String url, final HttpResponse<InputStream> response) {
+        Duration retryAfter = response.headers()
+                .firstValue("Retry-After")
+                .flatMap(AsyncHtmlFetcher::parseRetryAfter)
+                .orElse(null);
+        return new HttpStatusException(
+                "Server returned HTTP " + response.statusCode() + " for " + url, response.statusCode(), retryAfter);
+    }
+
+    /**
+     * Parses a {@code Retry-After} header, given either in seconds or as an HTTP date.
+     *
+     * @param value The header value.
+     * @return The delay to wait, or empty if the value cannot be parsed.
+     */
+    static Optional<Duration> parseRetryAfter(final String value) {
+        String trimmed = value.trim();
+        try {
+            return Optional.of(Duration.ofSeconds(Math.max(0, Long.parseLong(trimmed))));
+        } catch (NumberFormatException e) {
+            try {
+                ZonedDateTime date = ZonedDateTime.parse(trimmed, DateTimeFormatter.RFC_1123_DATE_TIME);
+                Duration delay = Duration.between(ZonedDateTime.now(date.getZone()), date);
+                return Optional.of(delay.isNegative() ? Duration.ZERO : delay);
+            } catch (DateTimeParseException notADate) {
+                return Optional.empty();
+            }
+        }
+    }
+
+    private static boolean isStorable(final HttpResponse<InputStream> response) {
+        return response.headers().allValues("Cache-Control").stream()
+                .noneMatch(value -> value.toLowerCase().contains("no-store"));
+    }
+
+    private Optional<InputStream> openCached(final HttpResponseCache.Entry entry) {
+        try {
+            return Optional.of(cache.openBody(entry));
+        } catch (IOException e) {
+            LOGGER.debug("Cached body is not readable, falling back to the network: {}", e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    private static String readFully(final FetchResponse response) {
+        try (FetchResponse in = response) {
+            if (in.isSkipped()) {
+                throw new IOException("Skipped " + in.getUrl() + ": " + in.getSkipReason());
+            }
+            return new String(in.getBody().readAllBytes(), in.getCharset());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void closeQuietly(final InputStream stream) {
+        try {
+            stream.close();
+        } catch (IOException e) {
+            // Nothing useful can be done: the connection is discarded anyway.
+        }
+    }
+
+    private HttpRequest newRequest(final String url, final String etag, final String lastModified) {
+        HttpRequest.Builder builder =
+                HttpRequest.newBuilder(URI.create(url)).GET().timeout(timeout).header("User-Agent", USER_AGENT);
+        if (compression) {
+            builder.header("Accept-Encoding", ContentDecoder.ACCEPT_ENCODING);
+        }
+        if (etag != null) {
+            builder.header("If-None-Match", etag);
+        }
+        if (lastModified != null) {
+            builder.header("If-Modified-Since", lastModified);
+        }
+        return builder.build();
+    }
+
+    private static HttpResponseCache createCacheFromEnvironment() {
+        String directory = ConfigUtil.getString(ENV_CACHE_DIR, null);
+        if (directory == null) {
+            return null;
+        }
+        try {
+            return new HttpResponseCache(
+                    Path.of(directory),
+                    ConfigUtil.getLong(ENV_CACHE_MAX_BYTES, DEFAULT_CACHE_MAX_BYTES),
+                    ConfigUtil.getInt(ENV_CACHE_MAX_ENTRIES, DEFAULT_CACHE_MAX_ENTRIES),
+                    TimeUnit.SECONDS.toMillis(
+                            ConfigUtil.getLong(ENV_CACHE_FRESHNESS_SECONDS, DEFAULT_CACHE_FRESHNESS_SECONDS)));
+        } catch (IOException e) {
+            LOGGER.error("Could not open HTTP cache at {}, continuing without it: {}", directory, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Applies the connection pool and DNS cache settings. The JDK reads these properties once,
+     * so explicit JVM options always take precedence over the environment.
+     */
+    private static void configureNetworking() {
+        if (System.getProperty(PROP_KEEPALIVE) == null) {
+            System.setProperty(
+                    PROP_KEEPALIVE,
+                    String.valueOf(ConfigUtil.getInt(ENV_KEEPALIVE_SECONDS, DEFAULT_KEEPALIVE_SECONDS)));
+        }
+        if (System.getProperty(PROP_POOL_SIZE) == null) {
+            int poolSize = ConfigUtil.getInt(ENV_POOL_SIZE, 0);
+            if (poolSize > 0) {
+                System.setProperty(PROP_POOL_SIZE, String.valueOf(poolSize));
+            }
+        }
+        if (Security.getProperty(PROP_DNS_CACHE_TTL) == null) {
+            Security.setProperty(
+                    PROP_DNS_CACHE_TTL,
+                    String.valueOf(ConfigUtil.getInt(ENV_DNS_CACHE_TTL, DEFAULT_DNS_CACHE_TTL_SECONDS)));
+        }
+    }
+}
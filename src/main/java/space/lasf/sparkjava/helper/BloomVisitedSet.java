@@ -0,0 +1,154 @@
+package space.lasf.sparkjava.helper;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A {@link VisitedSet} backed by a scalable Bloom filter (Almeida et al., 2007).
+ * <p>
+ * URLs are added to a Bloom filter sized for a number of URLs; once it is full, a new filter twice as large and
+ * with half the false-positive rate is appended, so memory grows with the crawl while the overall false-positive
+ * rate stays below the configured one. A URL is reported as seen if any filter may contain it. It costs about
+ * 2 to 4 bytes per URL at a 0.1% rate, but a false positive means the page is never crawled.
+ * This class is thread-safe.
+ */
+public final class BloomVisitedSet implements VisitedSet {
+
+    /** The default overall false-positive rate: 0.1%. */
+    public static final double DEFAULT_FALSE_POSITIVE_RATE = 0.001;
+
+    static final byte TAG = 3;
+
+    private static final long INITIAL_CAPACITY = 65_536L;
+    private static final int GROWTH_FACTOR = 2;
+    // Each new filter has this fraction of the previous filter's false-positive rate.
+    private static final double TIGHTENING_RATIO = 0.5;
+    private static final double LN2 = Math.log(2);
+    // log2(Long.SIZE): turns a bit index into a word index.
+    private static final int WORD_SHIFT = 6;
+
+    private final List<Filter> filters = new ArrayList<>();
+    private long size;
+
+    /**
+     * Creates an empty set.
+     *
+     * @param falsePositiveRate The overall probability of reporting a new URL as seen, between 0 and 1.
+     */
+    public BloomVisitedSet(final double falsePositiveRate) {
+        if (!(falsePositiveRate > 0 && falsePositiveRate < 1)) {
+            throw new IllegalArgumentException("The false-positive rate must be between 0 and 1.");
+        }
+        // The rates of the filters form a geometric series adding up to the requested rate.
+        filters.add(new Filter(INITIAL_CAPACITY, falsePositiveRate * (1 - TIGHTENING_RATIO)));
+    }
+
+    /** Creates a set without any filter, to be filled by {@link #read(DataInput)}. */
+    private BloomVisitedSet() {
+        // The filters are read from a checkpoint.
+    }
+
+    @Override
+    public boolean add(final String url) {
+        final long hash1 = UrlHash.of(url);
+        // Odd, so that the probe sequence h1 + i * h2 visits distinct bits.
+        final long hash2 = UrlHash.mix(hash1) | 1;
+        synchronized (this) {
+            for (Filter filter : filters) {
+                if (filter.mightContain(hash1, hash2)) {
+                    return false;
+                }
+            }
+            Filter current = filters.get(filters.size() - 1);
+            if (current.isFull()) {
+                current = new Filter(current.capacity * GROWTH_FACTOR, current.falsePositiveRate * TIGHTENING_RATIO);
+                filters.add(current);
+            }
+            current.put(hash1, hash2);
+            size++;
+            return true;
+        }
+    }
+
+    @Override
+    public synchronized long size() {
+        return size;
+    }
+
+    /** Writes the bit arrays of the filters as they are: about as many bytes per URL as the set takes in memory. */
+    @Override
+    public synchronized void writeTo(final DataOutput out) throws IOException {
+        out.writeByte(TAG);
+        out.writeLong(size);
+        out.writeInt(filters.size());
+        for (Filter filter : filters) {
+            out.writeLong(filter.capacity);
+            out.writeDouble(filter.falsePositiveRate);
+            out.writeLong(filter.count);
+            for (long word : filter.words) {
+                out.writeLong(word);
+            }
+        }
+    }
+
+    static BloomVisitedSet read(final DataInput in) throws IOException {
+        BloomVisitedSet set = new BloomVisitedSet();
+        set.size = in.readLong();
+        for (int i = in.readInt(); i > 0; i--) {
+            Filter filter = new Filter(in.readLong(), in.readDouble());
+            filter.count = in.readLong();
+            for (int word = 0; word < filter.words.length; word++) {
+                filter.words[word] = in.readLong();
+            }
+            set.filters.add(filter);
+        }
+        if (set.filters.isEmpty()) {
+            throw new IOException("A Bloom visited set needs at least one filter.");
+        }
+        return set;
+    }
+
+    /** A classic Bloom filter sized for a number of entries and a false-positive rate. */
+    private static final class Filter {
+        private final long capacity;
+        private final double falsePositiveRate;
+        private final long[] words;
+        private final long bitCount;
+        private final int hashCount;
+        private long count;
+
+        Filter(final long capacity, final double falsePositiveRate) {
+            this.capacity = capacity;
+            this.falsePositiveRate = falsePositiveRate;
+            long bits = (long) Math.ceil(-capacity * Math.log(falsePositiveRate) / (LN2 * LN2));
+            this.words = new long[(int) ((bits + Long.SIZE - 1) / Long.SIZE)];
+            this.bitCount = (long) words.length * Long.SIZE;
+            this.hashCount = Math.max(1, (int) Math.round((double) bitCount / capacity * LN2));
+        }
+
+        boolean isFull() {
+            return count >= capacity;
+        }
+
+        boolean mightContain(final long hash1, final long hash2) {
+            for (int i = 0; i < hashCount; i++) {
+                long bit = Math.floorMod(hash1 + i * hash2, bitCount);
+                if ((words[(int) (bit >>> WORD_SHIFT)] & 1L << bit) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        void put(final long hash1, final long hash2) {
+            for (int i = 0; i < hashCount; i++) {
+                long bit = Math.floorMod(hash1 + i * hash2, bitCount);
+                words[(int) (bit >>> WORD_SHIFT)] |= 1L << bit;
+            }
+            count++;
+        }
+    }
+}
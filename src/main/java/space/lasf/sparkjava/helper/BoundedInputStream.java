@@ -0,0 +1,93 @@
+package space.lasf.sparkjava.helper;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * An {@link InputStream} decorator that counts the bytes read and reports end-of-stream once a limit is reached.
+ * It is used to cap how much of a response body the crawler is willing to download.
+ */
+public class BoundedInputStream extends FilterInputStream {
+
+    private final long limit;
+    private long count;
+    private boolean limitReached;
+
+    /**
+     * Wraps a stream.
+     *
+     * @param in    The stream to read from.
+     * @param limit The maximum number of bytes to return, or a negative value for no limit.
+     */
+    public BoundedInputStream(final InputStream in, final long limit) {
+        super(in);
+        this.limit = limit < 0 ? Long.MAX_VALUE : limit;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (remaining() <= 0) {
+            limitReached = true;
+            return -1;
+        }
+        int value = super.read();
+        if (value >= 0) {
+            count++;
+        }
+        return value;
+    }
+
+    @Override
+    public int read(final byte[] buffer, final int offset, final int length) throws IOException {
+        long remaining = remaining();
+        if (remaining <= 0) {
+            limitReached = length > 0;
+            return -1;
+        }
+        int read = super.read(buffer, offset, (int) Math.min(length, remaining));
+        if (read > 0) {
+            count += read;
+        }
+        return read;
+    }
+
+    @Override
+    public long skip(final long n) throws IOException {
+        long skipped = super.skip(Math.min(n, remaining()));
+        count += skipped;
+        return skipped;
+    }
+
+    @Override
+    public int available() throws IOException {
+        return (int) Math.min(super.available(), remaining());
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    /**
+     * Returns the number of bytes read so far.
+     *
+     * @return The byte count.
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Reports whether reading stopped because the limit was reached (the body was truncated).
+     *
+     * @return {@code true} if the limit cut the stream short.
+     */
+    public boolean isLimitReached() {
+        return limitReached;
+    }
+
+    private long remaining() {
+        return limit - count;
+    }
+}
@@ -0,0 +1,137 @@
+package space.lasf.sparkjava.helper;
+
+import com.google.gson.Gson;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import space.lasf.sparkjava.dto.ClusterStatusDto;
+import space.lasf.sparkjava.entity.Crawler;
+
+/**
+ * Sends the messages of the cluster protocol to the other nodes, as JSON over HTTP on the {@code /cluster/jobs}
+ * routes of their API, each one carrying the secret the nodes share in the {@value #SECRET_HEADER} header. Every
+ * call is non-blocking; its future completes exceptionally if the node cannot be reached, times out, or answers
+ * with an error status. This class is thread-safe.
+ */
+public class ClusterClient {
+
+    /** The header carrying the cluster secret, which the {@code /cluster} routes require. */
+    public static final String SECRET_HEADER = "X-Cluster-Secret";
+
+    private static final Gson GSON = new Gson();
+    private static final String JOBS_PATH = "/cluster/jobs";
+    private static final String JSON = "application/json";
+    private static final int HTTP_STATUS_BAD_REQUEST = 400;
+
+    private final HttpClient client;
+    private final Duration timeout;
+    private final String secret;
+
+    /**
+     * Creates a client.
+     *
+     * @param timeout  The maximum time to wait for a connection and for the whole response.
+     * @param secret   The secret shared by the nodes of the cluster.
+     * @param executor The executor running the response handling, or {@code null} for a pool of its own.
+     */
+    public ClusterClient(final Duration timeout, final String secret, final Executor executor) {
+        this.timeout = timeout;
+        this.secret = secret;
+        HttpClient.Builder builder = HttpClient.newBuilder().connectTimeout(timeout);
+        if (executor != null) {
+            builder.executor(executor);
+        }
+        this.client = builder.build();
+    }
+
+    /**
+     * Asks a node to take part in a job.
+     *
+     * @param node        The base URL of the node.
+     * @param job         The job, as created on its coordinator.
+     * @param baseUrl     The seed URL of the crawl.
+     * @param coordinator The base URL of the coordinator.
+     * @return A future completed once the node runs its part of the job.
+     */
+    public CompletableFuture<Void> openJob(
+            final String node, final Crawler job, final String baseUrl, final String coordinator) {
+        return send(post(node + JOBS_PATH, ClusterMapper.toClusterJobDto(job, baseUrl, coordinator)))
+                .thenApply(body -> null);
+    }
+
+    /**
+     * Sends a node the URLs it owns and the pages crawled for a job it coordinates.
+     *
+     * @param node  The base URL of the node.
+     * @param jobId The ID of the job.
+     * @param urls  The URLs owned by the node, possibly none.
+     * @param pages The pages crawled for the job, possibly none.
+     * @return A future completed once the node has queued the URLs and recorded the pages.
+     */
+    public CompletableFuture<Void> sendBatch(
+            final String node, final String jobId, final List<FrontierEntry> urls, final List<PageReport> pages) {
+        return send(post(jobPath(node, jobId) + "/batch", ClusterMapper.toClusterBatchDto(urls, pages)))
+                .thenApply(body -> null);
+    }
+
+    /**
+     * Asks a node for the state of its part of a job.
+     *
+     * @param node  The base URL of the node.
+     * @param jobId The ID of the job.
+     * @return A future completed with the state of the job on the node.
+     */
+    public CompletableFuture<ClusterStatus> status(final String node, final String jobId) {
+        return send(request(jobPath(node, jobId)).GET())
+                .thenApply(body -> ClusterMapper.toClusterStatus(GSON.fromJson(body, ClusterStatusDto.class)));
+    }
+
+    /**
+     * Tells a node that a job is over. A job that ran out of work is finished: the node lets its part end once
+     * idle. A job stopped early, by its budget or a cancellation, is cancelled on the node too.
+     *
+     * @param node   The base URL of the node.
+     * @param jobId  The ID of the job.
+     * @param cancel Whether the job was stopped early.
+     * @return A future completed once the node has let the job go.
+     */
+    public CompletableFuture<Void> leave(final String node, final String jobId, final boolean cancel) {
+        final HttpRequest.Builder request = cancel
+                ? request(jobPath(node, jobId)).DELETE()
+                : request(jobPath(node, jobId) + "/finish").POST(HttpRequest.BodyPublishers.noBody());
+        return send(request).thenApply(body -> null);
+    }
+
+    private static String jobPath(final String node, final String jobId) {
+        return node + JOBS_PATH + "/" + jobId;
+    }
+
+    private HttpRequest.Builder post(final String url, final Object body) {
+        return request(url).header("Content-Type", JSON).POST(HttpRequest.BodyPublishers.ofString(GSON.toJson(body)));
+    }
+
+    private HttpRequest.Builder request(final String url) {
+        return HttpRequest.newBuilder(URI.create(url))
+                .timeout(timeout)
+                .header("Accept", JSON)
+                .header(SECRET_HEADER, secret);
+    }
+
+    private CompletableFuture<String> send(final HttpRequest.Builder request) {
+        final HttpRequest built = request.build();
+        return client.sendAsync(built, HttpResponse.BodyHandlers.ofString()).thenApply(response -> {
+            if (response.statusCode() >= HTTP_STATUS_BAD_REQUEST) {
+                throw new CompletionException(new IOException(
+                        built.method() + " " + built.uri() + " answered with status " + response.statusCode()));
+            }
+            return response.body();
+        });
+    }
+}
@@ -0,0 +1,206 @@
+package space.lasf.sparkjava.helper;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.stream.Stream;
+import space.lasf.sparkjava.dto.ClusterBatchDto;
+import space.lasf.sparkjava.dto.ClusterJobDto;
+import space.lasf.sparkjava.dto.ClusterPageDto;
+import space.lasf.sparkjava.dto.ClusterStatusDto;
+import space.lasf.sparkjava.dto.ClusterUrlDto;
+import space.lasf.sparkjava.dto.CrawlBudgetDto;
+import space.lasf.sparkjava.entity.CrawlBudget;
+import space.lasf.sparkjava.entity.CrawlOptions;
+import space.lasf.sparkjava.entity.CrawlTarget;
+import space.lasf.sparkjava.entity.Crawler;
+import space.lasf.sparkjava.entity.FrontierLimits;
+import space.lasf.sparkjava.entity.FrontierOrder;
+import space.lasf.sparkjava.entity.Priority;
+
+/**
+ * A utility class for mapping the messages cluster nodes exchange about a job to their data transfer objects and
+ * back. This class cannot be instantiated.
+ */
+public final class ClusterMapper {
+
+    /**
+     * Private constructor to prevent instantiation of this utility class.
+     */
+    private ClusterMapper() {
+        throw new UnsupportedOperationException("This is a utility class and cannot be instantiated");
+    }
+
+    /**
+     * Describes a job to the nodes that take part in it.
+     *
+     * @param crawler     The job, as created on its coordinator.
+     * @param baseUrl     The seed URL of the crawl.
+     * @param coordinator The base URL of the coordinator.
+     * @return A new {@code ClusterJobDto} instance.
+     */
+    public static ClusterJobDto toClusterJobDto(final Crawler crawler, final String baseUrl, final String coordinator) {
+        CrawlOptions options = crawler.getOptions();
+        CrawlBudget budget = crawler.getBudget();
+        CrawlBudgetDto budgetDto = new CrawlBudgetDto();
+        budgetDto.setMaxPages(budget.getMaxPages());
+        budgetDto.setMaxDepth(budget.getMaxDepth());
+        budgetDto.setMaxDurationMs(budget.getMaxDurationMillis());
+        budgetDto.setMaxBytes(budget.getMaxBytes());
+        budgetDto.setStopAfterHits(budget.getStopAfterHits());
+
+        ClusterJobDto dto = new ClusterJobDto();
+        dto.setId(crawler.getId());
+        dto.setBaseUrl(baseUrl);
+        if (crawler.getTarget() != null) {
+            dto.setSeeds(crawler.getTarget().getSeeds());
+            dto.setScope(crawler.getTarget().getScope());
+        }
+        dto.setCoordinator(coordinator);
+        dto.setKeywords(crawler.getKeywords());
+        dto.setPriority(options.getPriority().name().toLowerCase(Locale.ROOT));
+        dto.setWeight(options.getWeight());
+        dto.setMaxConcurrency(options.getMaxConcurrency());
+        dto.setFrontierOrder(
+                options.getFrontierOrder() == null
+                        ? null
+                        : options.getFrontierOrder().name());
+        dto.setBudget(budgetDto);
+        return dto;
+    }
+
+    /**
+     * Rebuilds a job described by its coordinator. Its frontier takes the limits of the local node.
+     *
+     * @param dto The description of the job.
+     * @return A new {@code Crawler} in the ACTIVE state, under the ID the coordinator gave it.
+     * @throws IllegalArgumentException if the description is incomplete or invalid.
+     */
+    public static Crawler toCrawler(final ClusterJobDto dto) {
+        if (dto.getId() == null
+                || dto.getKeywords() == null
+                || dto.getKeywords().isEmpty()) {
+            throw new IllegalArgumentException("A clustered job needs an ID and keywords.");
+        }
+        CrawlOptions options = new CrawlOptions(
+                Priority.valueOf(
+                        Optional.ofNullable(dto.getPriority()).orElse("normal").toUpperCase(Locale.ROOT)),
+                Optional.ofNullable(dto.getWeight()).orElse(CrawlOptions.DEFAULT_WEIGHT),
+                Optional.ofNullable(dto.getMaxConcurrency()).orElse(0),
+                FrontierLimits.defaults(),
+                dto.getFrontierOrder() == null ? null : FrontierOrder.parse(dto.getFrontierOrder()));
+        CrawlTarget target = dto.getSeeds() == null ? null : new CrawlTarget(dto.getSeeds(), dto.getScope());
+        return new Crawler(dto.getId(), dto.getKeywords(), options, toCrawlBudget(dto.getBudget()), target);
+    }
+
+    private static CrawlBudget toCrawlBudget(final CrawlBudgetDto dto) {
+        if (dto == null) {
+            return CrawlBudget.unlimited();
+        }
+        return new CrawlBudget(
+                limit(dto.getMaxPages()),
+                (int) limit(dto.getMaxDepth() == null ? null : dto.getMaxDepth().longValue()),
+                limit(dto.getMaxDurationMs()),
+                limit(dto.getMaxBytes()),
+                limit(dto.getStopAfterHits()));
+    }
+
+    private static long limit(final Long value) {
+        return value == null ? CrawlBudget.UNLIMITED : value;
+    }
+
+    /**
+     * Converts the URLs and page reports a node sends to another one in a single batch.
+     *
+     * @param urls  The URLs the receiving node owns.
+     * @param pages The pages crawled for a job the receiving node coordinates.
+     * @return A new {@code ClusterBatchDto} instance.
+     */
+    public static ClusterBatchDto toClusterBatchDto(final List<FrontierEntry> urls, final List<PageReport> pages) {
+        ClusterBatchDto dto = new ClusterBatchDto();
+        dto.setUrls(urls.stream().map(ClusterMapper::toClusterUrlDto).toList());
+        dto.setPages(pages.stream().map(ClusterMapper::toClusterPageDto).toList());
+        return dto;
+    }
+
+    private static ClusterUrlDto toClusterUrlDto(final FrontierEntry entry) {
+        ClusterUrlDto dto = new ClusterUrlDto();
+        dto.setUrl(entry.getUrl());
+        dto.setDepth(entry.getDepth());
+        dto.setScore(entry.getScore());
+        return dto;
+    }
+
+    private static ClusterPageDto toClusterPageDto(final PageReport page) {
+        ClusterPageDto dto = new ClusterPageDto();
+        dto.setUrl(page.getUrl());
+        dto.setHits(page.getHits());
+        dto.setWireBytes(page.getWireBytes());
+        dto.setDecodedBytes(page.getDecodedBytes());
+        dto.setFromCache(page.isFromCache());
+        return dto;
+    }
+
+    /**
+     * Extracts the URLs of a batch, skipping incomplete entries.
+     *
+     * @param dto The batch.
+     * @return The frontier entries, in batch order.
+     */
+    public static List<FrontierEntry> toFrontierEntries(final ClusterBatchDto dto) {
+        return Stream.ofNullable(dto.getUrls())
+                .flatMap(List::stream)
+                .filter(url -> url != null && url.getUrl() != null)
+                .map(url -> new FrontierEntry(url.getUrl(), url.getDepth(), url.getScore()))
+                .toList();
+    }
+
+    /**
+     * Extracts the page reports of a batch, skipping incomplete entries.
+     *
+     * @param dto The batch.
+     * @return The page reports, in batch order.
+     */
+    public static List<PageReport> toPageReports(final ClusterBatchDto dto) {
+        return Stream.ofNullable(dto.getPages())
+                .flatMap(List::stream)
+                .filter(page -> page != null && page.getUrl() != null)
+                .map(page -> new PageReport(
+                        page.getUrl(),
+                        Optional.ofNullable(page.getHits()).orElse(List.of()),
+                        page.getWireBytes(),
+                        page.getDecodedBytes(),
+                        page.isFromCache()))
+                .toList();
+    }
+
+    /**
+     * Converts the state of a clustered job on a node into a {@link ClusterStatusDto}.
+     *
+     * @param id     The ID of the job.
+     * @param status The state of the job on the node. Can be {@code null}.
+     * @return A new {@code ClusterStatusDto} instance, or {@code null} if the input status is {@code null}.
+     */
+    public static ClusterStatusDto toClusterStatusDto(final String id, final ClusterStatus status) {
+        if (status == null) {
+            return null;
+        }
+
+        ClusterStatusDto dto = new ClusterStatusDto();
+        dto.setId(id);
+        dto.setIdle(status.isIdle());
+        dto.setSent(status.getSent());
+        dto.setReceived(status.getReceived());
+        return dto;
+    }
+
+    /**
+     * Converts a {@link ClusterStatusDto} back into the state of a clustered job on a node.
+     *
+     * @param dto The status reported by the node.
+     * @return A new {@code ClusterStatus} instance.
+     */
+    public static ClusterStatus toClusterStatus(final ClusterStatusDto dto) {
+        return new ClusterStatus(dto.isIdle(), dto.getSent(), dto.getReceived());
+    }
+}
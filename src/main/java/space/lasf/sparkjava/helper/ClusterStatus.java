@@ -0,0 +1,62 @@
+package space.lasf.sparkjava.helper;
+
+import java.util.Objects;
+
+/**
+ * The state of a clustered job on one node, as polled by the coordinator to detect the end of the job: whether the
+ * node has any work left, and how many batches it has sent to and received from the other nodes. This class is
+ * immutable.
+ */
+public final class ClusterStatus {
+
+    private final boolean idle;
+    private final long sent;
+    private final long received;
+
+    /**
+     * Creates a status.
+     *
+     * @param idle     Whether the node has nothing to fetch, nothing in flight and nothing left to send.
+     * @param sent     The batches the node has sent and seen acknowledged.
+     * @param received The batches the node has received.
+     */
+    public ClusterStatus(final boolean idle, final long sent, final long received) {
+        this.idle = idle;
+        this.sent = sent;
+        this.received = received;
+    }
+
+    public boolean isIdle() {
+        return idle;
+    }
+
+    public long getSent() {
+        return sent;
+    }
+
+    public long getReceived() {
+        return received;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ClusterStatus)) {
+            return false;
+        }
+        ClusterStatus other = (ClusterStatus) o;
+        return idle == other.idle && sent == other.sent && received == other.received;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(idle, sent, received);
+    }
+
+    @Override
+    public String toString() {
+        return "[idle=" + idle + ", sent=" + sent + ", received=" + received + "]";
+    }
+}
@@ -0,0 +1,93 @@
+package space.lasf.sparkjava.helper;
+
+import java.util.Optional;
+
+/**
+ * A utility class for reading runtime settings.
+ * Values are looked up in the environment first and then in the JVM system properties.
+ * This class is final and cannot be instantiated.
+ */
+public final class ConfigUtil {
+
+    /**
+     * Private constructor to prevent instantiation of this utility class.
+     */
+    private ConfigUtil() {
+        throw new UnsupportedOperationException("This is a utility class and cannot be instantiated");
+    }
+
+    /**
+     * Reads a setting as a string.
+     *
+     * @param key          The environment variable (or system property) name.
+     * @param defaultValue The value returned when the setting is not defined.
+     * @return The configured value, or the default value.
+     */
+    public static String getString(final String key, final String defaultValue) {
+        return Optional.ofNullable(System.getenv(key))
+                .filter(value -> !value.isBlank())
+                .or(() -> Optional.ofNullable(System.getProperty(key)).filter(value -> !value.isBlank()))
+                .orElse(defaultValue);
+    }
+
+    /**
+     * Reads a setting as an integer, falling back to the default value when it is missing or malformed.
+     *
+     * @param key          The environment variable (or system property) name.
+     * @param defaultValue The value returned when the setting is not defined or invalid.
+     * @return The configured value, or the default value.
+     */
+    public static int getInt(final String key, final int defaultValue) {
+        return (int) getLong(key, defaultValue);
+    }
+
+    /**
+     * Reads a setting as a long, falling back to the default value when it is missing or malformed.
+     *
+     * @param key          The environment variable (or system property) name.
+     * @param defaultValue The value returned when the setting is not defined or invalid.
+     * @return The configured value, or the default value.
+     */
+    public static long getLong(final String key, final long defaultValue) {
+        String value = getString(key, null);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Reads a setting as a double, falling back to the default value when it is missing or malformed.
+     *
+     * @param key          The environment variable (or system property) name.
+     * @param defaultValue The value returned when the setting is not defined or invalid.
+     * @return The configured value, or the default value.
+     */
+    public static double getDouble(final String key, final double defaultValue) {
+        String value = getString(key, null);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Double.parseDouble(value.trim());
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Reads a setting as a boolean ({@code true} or {@code false}, case-insensitive).
+     *
+     * @param key          The environment variable (or system property) name.
+     * @param defaultValue The value returned when the setting is not defined.
+     * @return The configured value, or the default value.
+     */
+    public static boolean getBoolean(final String key, final boolean defaultValue) {
+        String value = getString(key, null);
+        return value == null ? defaultValue : Boolean.parseBoolean(value.trim());
+    }
+}
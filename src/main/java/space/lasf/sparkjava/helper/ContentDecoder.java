@@ -0,0 +1,118 @@
+package space.lasf.sparkjava.helper;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+import org.brotli.dec.BrotliInputStream;
+
+/**
+ * A utility class for decoding compressed HTTP bodies ({@code Content-Encoding}) as streams,
+ * so pages are decompressed incrementally while they are scanned.
+ * This class is final and cannot be instantiated.
+ */
+public final class ContentDecoder {
+
+    /**
+     * The value sent in the {@code Accept-Encoding} request header.
+     */
+    public static final String ACCEPT_ENCODING = "gzip, deflate, br";
+
+    private static final Set<String> SUPPORTED_ENCODINGS = Set.of("", "identity", "gzip", "x-gzip", "deflate", "br");
+    private static final int BUFFER_SIZE = 8192;
+    private static final int ZLIB_HEADER_CHECK = 31;
+    private static final int ZLIB_METHOD_MASK = 0x0F;
+    private static final int ZLIB_METHOD_DEFLATE = 8;
+    private static final int ZLIB_HEADER_LENGTH = 2;
+    private static final int BYTE_MASK = 0xFF;
+    private static final int BITS_PER_BYTE = 8;
+
+    private ContentDecoder() {
+        throw new UnsupportedOperationException("This is a utility class and cannot be instantiated");
+    }
+
+    /**
+     * Wraps a body stream with the decoders listed in a {@code Content-Encoding} header.
+     * Encodings are undone in the reverse order in which they were applied.
+     *
+     * @param body            The raw body stream.
+     * @param contentEncoding The {@code Content-Encoding} header value, or {@code null} for identity.
+     * @return A stream returning the decoded body.
+     * @throws IOException if an encoding is not supported or its header is malformed.
+     */
+    public static InputStream decode(final InputStream body, final String contentEncoding) throws IOException {
+        if (contentEncoding == null || contentEncoding.isBlank()) {
+            return body;
+        }
+        String[] encodings = contentEncoding.split(",");
+        InputStream decoded = body;
+        for (int i = encodings.length - 1; i >= 0; i--) {
+            decoded = decodeOne(decoded, encodings[i].trim().toLowerCase(Locale.ROOT));
+        }
+        return decoded;
+    }
+
+    /**
+     * Checks whether every encoding listed in a {@code Content-Encoding} header can be decoded.
+     *
+     * @param contentEncoding The {@code Content-Encoding} header value, or {@code null} for identity.
+     * @return {@code true} if {@link #decode(InputStream, String)} accepts the header.
+     */
+    public static boolean isSupported(final String contentEncoding) {
+        if (contentEncoding == null || contentEncoding.isBlank()) {
+            return true;
+        }
+        return Arrays.stream(contentEncoding.split(","))
+                .map(encoding -> encoding.trim().toLowerCase(Locale.ROOT))
+                .allMatch(SUPPORTED_ENCODINGS::contains);
+    }
+
+    private static InputStream decodeOne(final InputStream body, final String encoding) throws IOException {
+        switch (encoding) {
+            case "":
+            case "identity":
+                return body;
+            case "gzip":
+            case "x-gzip":
+                return new GZIPInputStream(body, BUFFER_SIZE);
+            case "deflate":
+                return inflate(body);
+            case "br":
+                return new BrotliInputStream(body);
+            default:
+                throw new IOException("Unsupported Content-Encoding: " + encoding);
+        }
+    }
+
+    /**
+     * Decodes {@code deflate} bodies. The standard calls for a zlib wrapper, but some servers send raw deflate
+     * data, so the first two bytes are inspected to pick the right mode.
+     */
+    private static InputStream inflate(final InputStream body) throws IOException {
+        BufferedInputStream buffered = new BufferedInputStream(body, BUFFER_SIZE);
+        buffered.mark(ZLIB_HEADER_LENGTH);
+        int first = buffered.read();
+        int second = buffered.read();
+        buffered.reset();
+        boolean zlibWrapped = first >= 0
+                && second >= 0
+                && (first & ZLIB_METHOD_MASK) == ZLIB_METHOD_DEFLATE
+                && ((first & BYTE_MASK) << BITS_PER_BYTE | second & BYTE_MASK) % ZLIB_HEADER_CHECK == 0;
+        final Inflater inflater = new Inflater(!zlibWrapped);
+        return new InflaterInputStream(buffered, inflater, BUFFER_SIZE) {
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    inflater.end();
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,90 @@
+package space.lasf.sparkjava.helper;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.stream.Collectors;
+import space.lasf.sparkjava.entity.SkipReason;
+
+/**
+ * Decides from the response headers alone whether a body is worth downloading.
+ * <p>
+ * Only the media types listed in {@code FETCH_ALLOWED_CONTENT_TYPES} are accepted (responses without a
+ * {@code Content-Type} are given the benefit of the doubt), bodies announcing a {@code Content-Length} above
+ * {@code FETCH_MAX_BODY_BYTES} are rejected, and so are content encodings the crawler cannot decode.
+ * This class is immutable and thread-safe.
+ */
+public final class ContentGate {
+
+    private static final String ENV_MAX_BODY_BYTES = "FETCH_MAX_BODY_BYTES";
+    private static final String ENV_ALLOWED_TYPES = "FETCH_ALLOWED_CONTENT_TYPES";
+    private static final long DEFAULT_MAX_BODY_BYTES = 5L * 1024 * 1024; // 5 MB
+    private static final String DEFAULT_ALLOWED_TYPES = "text/html,application/xhtml+xml";
+
+    private final long maxBodyBytes;
+    private final Set<String> allowedTypes;
+
+    /**
+     * Creates a gate.
+     *
+     * @param maxBodyBytes The maximum body size, or a negative value for no limit.
+     * @param allowedTypes The accepted media types, without parameters (e.g. {@code text/html}).
+     */
+    public ContentGate(final long maxBodyBytes, final Set<String> allowedTypes) {
+        this.maxBodyBytes = maxBodyBytes;
+        this.allowedTypes = allowedTypes.stream()
+                .map(type -> type.trim().toLowerCase(Locale.ROOT))
+                .collect(Collectors.toSet());
+    }
+
+    /**
+     * Creates a gate configured from the environment.
+     *
+     * @return The configured gate.
+     */
+    public static ContentGate fromEnvironment() {
+        String types = ConfigUtil.getString(ENV_ALLOWED_TYPES, DEFAULT_ALLOWED_TYPES);
+        return new ContentGate(
+                ConfigUtil.getLong(ENV_MAX_BODY_BYTES, DEFAULT_MAX_BODY_BYTES),
+                Arrays.stream(types.split(",")).filter(type -> !type.isBlank()).collect(Collectors.toSet()));
+    }
+
+    /**
+     * Returns the maximum number of body bytes to read, also enforced on bodies without a {@code Content-Length}.
+     *
+     * @return The body size limit, or a negative value for no limit.
+     */
+    public long getMaxBodyBytes() {
+        return maxBodyBytes;
+    }
+
+    /**
+     * Checks the headers of a response.
+     *
+     * @param contentType     The {@code Content-Type} header, or {@code null}.
+     * @param contentLength   The {@code Content-Length} header, if present.
+     * @param contentEncoding The {@code Content-Encoding} header, or {@code null}.
+     * @return The reason to skip the body, or empty if it should be read.
+     */
+    public Optional<SkipReason> check(
+            final String contentType, final OptionalLong contentLength, final String contentEncoding) {
+        if (contentType != null && !allowedTypes.contains(mediaType(contentType))) {
+            return Optional.of(SkipReason.NOT_HTML);
+        }
+        if (maxBodyBytes >= 0 && contentLength.isPresent() && contentLength.getAsLong() > maxBodyBytes) {
+            return Optional.of(SkipReason.TOO_LARGE);
+        }
+        if (!ContentDecoder.isSupported(contentEncoding)) {
+            return Optional.of(SkipReason.UNSUPPORTED_ENCODING);
+        }
+        return Optional.empty();
+    }
+
+    private static String mediaType(final String contentType) {
+        int parameters = contentType.indexOf(';');
+        String type = parameters < 0 ? contentType : contentType.substring(0, parameters);
+        return type.trim().toLowerCase(Locale.ROOT);
+    }
+}
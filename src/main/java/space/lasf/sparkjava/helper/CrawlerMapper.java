@@ -3,9 +3,20 @@ package space.lasf.sparkjava.helper;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
+import space.lasf.sparkjava.dto.CrawlBudgetDto;
+import space.lasf.sparkjava.dto.CrawlStatsDto;
 import space.lasf.sparkjava.dto.CrawlerDto;
+import space.lasf.sparkjava.dto.HitChangesDto;
+import space.lasf.sparkjava.dto.PipelineStageDto;
+import space.lasf.sparkjava.dto.ScheduleDto;
+import space.lasf.sparkjava.entity.CrawlBudget;
+import space.lasf.sparkjava.entity.CrawlSchedule;
+import space.lasf.sparkjava.entity.CrawlStats;
 import space.lasf.sparkjava.entity.Crawler;
+import space.lasf.sparkjava.entity.HitChanges;
 
 /**
  * A utility class for mapping {@link Crawler} domain objects to {@link CrawlerDto}
@@ -34,10 +45,135 @@ public final class CrawlerMapper {
         CrawlerDto dto = new CrawlerDto();
         dto.setId(crawler.getId());
         dto.setStatus(crawler.getStatus().name().toLowerCase());
+        dto.setKeywords(new ArrayList<>(crawler.getKeywords()));
+        if (crawler.getTarget() != null) {
+            dto.setSeeds(new ArrayList<>(crawler.getTarget().getSeeds()));
+            dto.setScope(new ArrayList<>(crawler.getTarget().getScope()));
+        }
         dto.setUrls(new ArrayList<>(crawler.getUrls()));
+        dto.setHits(crawler.getHits().entrySet().stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, entry -> new ArrayList<>(entry.getValue()))));
+        dto.setStats(toCrawlStatsDto(crawler.getStats()));
+        dto.setStopReason(
+                crawler.getStopReason() == null
+                        ? null
+                        : crawler.getStopReason().name().toLowerCase());
+        dto.setBudget(toCrawlBudgetDto(crawler.getBudget(), crawler.getStats()));
+        dto.setScheduleId(crawler.getScheduleId());
+        dto.setChanges(toHitChangesDto(crawler.getChanges()));
+        return dto;
+    }
+
+    /**
+     * Converts the hits a run of a recurring crawl gained and lost since the previous run into a
+     * {@link HitChangesDto}.
+     *
+     * @param changes The {@code HitChanges} to convert. Can be {@code null}.
+     * @return A new {@code HitChangesDto} instance, or {@code null} if the input is {@code null}.
+     */
+    public static HitChangesDto toHitChangesDto(final HitChanges changes) {
+        if (changes == null) {
+            return null;
+        }
+
+        HitChangesDto dto = new HitChangesDto();
+        dto.setPreviousRunId(changes.getPreviousRunId());
+        dto.setAdded(toSortedLists(changes.getAdded()));
+        dto.setRemoved(toSortedLists(changes.getRemoved()));
+        return dto;
+    }
+
+    private static Map<String, List<String>> toSortedLists(final Map<String, Set<String>> urlsByKeyword) {
+        return urlsByKeyword.entrySet().stream()
+                .collect(Collectors.toMap(
+                        Map.Entry::getKey,
+                        entry -> entry.getValue().stream().sorted().collect(Collectors.toList())));
+    }
+
+    /**
+     * Converts a recurring crawl into a {@link ScheduleDto}. The interval and the next run are ISO-8601 strings.
+     *
+     * @param schedule The {@code CrawlSchedule} to convert. Can be {@code null}.
+     * @return A new {@code ScheduleDto} instance, or {@code null} if the input is {@code null}.
+     */
+    public static ScheduleDto toScheduleDto(final CrawlSchedule schedule) {
+        if (schedule == null) {
+            return null;
+        }
+
+        ScheduleDto dto = new ScheduleDto();
+        dto.setId(schedule.getId());
+        dto.setKeywords(new ArrayList<>(schedule.getKeywords()));
+        dto.setEvery(
+                schedule.getInterval() == null ? null : schedule.getInterval().toString());
+        dto.setCron(schedule.getCron());
+        dto.setActive(schedule.isActive());
+        dto.setRuns(schedule.getRunIds());
+        dto.setNextRun(
+                schedule.getNextRun() == null ? null : schedule.getNextRun().toString());
+        return dto;
+    }
+
+    /**
+     * Converts the live counters of a crawl into a {@link CrawlStatsDto} snapshot.
+     *
+     * @param stats The {@code CrawlStats} to convert. Can be {@code null}.
+     * @return A new {@code CrawlStatsDto} instance, or {@code null} if the input is {@code null}.
+     */
+    public static CrawlStatsDto toCrawlStatsDto(final CrawlStats stats) {
+        if (stats == null) {
+            return null;
+        }
+
+        CrawlStatsDto dto = new CrawlStatsDto();
+        dto.setPagesFetched(stats.getPagesFetched());
+        dto.setPagesFromCache(stats.getPagesFromCache());
+        dto.setCompressedBytes(stats.getWireBytes());
+        dto.setDecompressedBytes(stats.getDecodedBytes());
+        dto.setRetries(stats.getRetries());
+        dto.setFailures(stats.getFailures());
+        dto.setFrontierDropped(stats.getFrontierDropped());
+        dto.setPagesUnchanged(stats.getPagesUnchanged());
+        long timeToFirstHit = stats.getTimeToFirstHitMillis();
+        dto.setTimeToFirstHitMs(timeToFirstHit < 0 ? null : timeToFirstHit);
+        dto.setSkipped(stats.getSkippedByReason().entrySet().stream()
+                .collect(Collectors.toMap(entry -> entry.getKey().name(), Map.Entry::getValue)));
+        dto.setSkippedUrls(stats.getSkippedUrls().entrySet().stream()
+                .collect(Collectors.toMap(
+                        Map.Entry::getKey, entry -> entry.getValue().name())));
         return dto;
     }
 
+    /**
+     * Converts the limits of a crawl into a {@link CrawlBudgetDto}, with how much of each one is left.
+     * Limits that are not set are {@code null}.
+     *
+     * @param budget The {@code CrawlBudget} to convert. Can be {@code null}.
+     * @param stats  The live counters of the crawl.
+     * @return A new {@code CrawlBudgetDto} instance, or {@code null} if the crawl has no limit.
+     */
+    public static CrawlBudgetDto toCrawlBudgetDto(final CrawlBudget budget, final CrawlStats stats) {
+        if (budget == null || budget.isUnlimited()) {
+            return null;
+        }
+
+        CrawlBudgetDto dto = new CrawlBudgetDto();
+        dto.setMaxPages(limit(budget.getMaxPages()));
+        dto.setMaxDepth(budget.getMaxDepth() == CrawlBudget.UNLIMITED ? null : budget.getMaxDepth());
+        dto.setMaxDurationMs(limit(budget.getMaxDurationMillis()));
+        dto.setMaxBytes(limit(budget.getMaxBytes()));
+        dto.setStopAfterHits(limit(budget.getStopAfterHits()));
+        dto.setRemainingPages(CrawlBudget.remaining(budget.getMaxPages(), stats.getUrlsProcessed()));
+        dto.setRemainingDurationMs(CrawlBudget.remaining(budget.getMaxDurationMillis(), stats.getElapsedMillis()));
+        dto.setRemainingBytes(CrawlBudget.remaining(budget.getMaxBytes(), stats.getWireBytes()));
+        dto.setRemainingHits(CrawlBudget.remaining(budget.getStopAfterHits(), stats.getPagesWithHits()));
+        return dto;
+    }
+
+    private static Long limit(final long value) {
+        return value == CrawlBudget.UNLIMITED ? null : value;
+    }
+
     /**
      * Converts a list of {@link Crawler} domain objects into a list of {@link CrawlerDto}s.
      *
@@ -50,4 +186,24 @@ public final class CrawlerMapper {
         }
         return crawlerList.stream().map(CrawlerMapper::toCrawlerDto).collect(Collectors.toList());
     }
+
+    /**
+     * Converts the statistics of the crawl pipeline stages into {@link PipelineStageDto}s, keeping their order.
+     *
+     * @param stages The statistics of the stages.
+     * @return A new list of {@code PipelineStageDto}s.
+     */
+    public static List<PipelineStageDto> toPipelineStageDtoList(final List<StageStats> stages) {
+        return stages.stream()
+                .map(stage -> {
+                    PipelineStageDto dto = new PipelineStageDto();
+                    dto.setName(stage.getName());
+                    dto.setWorkers(stage.getWorkers());
+                    dto.setActive(stage.getActive());
+                    dto.setQueued(stage.getQueued());
+                    dto.setCapacity(stage.getCapacity());
+                    return dto;
+                })
+                .collect(Collectors.toList());
+    }
 }
@@ -0,0 +1,162 @@
+package space.lasf.sparkjava.helper;
+
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.BitSet;
+
+/**
+ * A standard five-field cron expression: minute, hour, day of month, month and day of week.
+ * <p>
+ * Each field is {@code *}, a number, a range ({@code 1-5}), a step ({@code *}{@code /15}, {@code 0-30/10}) or a
+ * comma-separated list of those. Days of week run from 0 (Sunday) to 6, 7 being Sunday too. As in cron, when both
+ * the day of month and the day of week are restricted, a day matching either one fires. This class is immutable.
+ */
+public final class CronExpression {
+
+    private static final int FIELDS = 5;
+    private static final int DAY_FIELD = 2;
+    private static final int MONTH_FIELD = 3;
+    private static final int WEEKDAY_FIELD = 4;
+    // The parts of a range ("1-5") or of a step ("*/15").
+    private static final int PAIR = 2;
+    private static final int MAX_MINUTE = 59;
+    private static final int MAX_HOUR = 23;
+    private static final int MAX_DAY = 31;
+    private static final int MAX_MONTH = 12;
+    private static final int MAX_WEEKDAY = 7;
+    private static final int DAYS_PER_WEEK = 7;
+    // Any valid expression fires within this many years; February 29th takes the longest.
+    private static final int MAX_YEARS_AHEAD = 5;
+    private static final ZonedDateTime PROBE = ZonedDateTime.of(2000, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+
+    private final String spec;
+    private final BitSet minutes;
+    private final BitSet hours;
+    private final BitSet days;
+    private final BitSet months;
+    private final BitSet weekdays;
+    private final boolean anyDay;
+    private final boolean anyWeekday;
+
+    private CronExpression(final String spec, final String[] fields) {
+        this.spec = spec;
+        this.minutes = parseField(fields[0], 0, MAX_MINUTE);
+        this.hours = parseField(fields[1], 0, MAX_HOUR);
+        this.days = parseField(fields[DAY_FIELD], 1, MAX_DAY);
+        this.months = parseField(fields[MONTH_FIELD], 1, MAX_MONTH);
+        this.weekdays = parseField(fields[WEEKDAY_FIELD], 0, MAX_WEEKDAY);
+        if (weekdays.get(DAYS_PER_WEEK)) {
+            weekdays.set(0);
+        }
+        this.anyDay = fields[DAY_FIELD].startsWith("*");
+        this.anyWeekday = fields[WEEKDAY_FIELD].startsWith("*");
+    }
+
+    /**
+     * Parses a cron expression.
+     *
+     * @param spec The five fields, separated by whitespace.
+     * @return The expression.
+     * @throws IllegalArgumentException if the expression is malformed or can never fire.
+     */
+    public static CronExpression parse(final String spec) {
+        String[] fields = spec == null ? new String[0] : spec.trim().split("\\s+");
+        if (fields.length != FIELDS) {
+            throw new IllegalArgumentException("A cron expression has five fields: minute hour day month weekday");
+        }
+        CronExpression expression = new CronExpression(String.join(" ", fields), fields);
+        expression.next(PROBE);
+        return expression;
+    }
+
+    /**
+     * Returns the first time the expression fires strictly after a given time, to the minute.
+     *
+     * @param after The time to start from; its zone is the zone the fields are read in.
+     * @return The next firing time.
+     * @throws IllegalArgumentException if the expression never fires, such as on February 30th.
+     */
+    public ZonedDateTime next(final ZonedDateTime after) {
+        ZonedDateTime time = after.truncatedTo(ChronoUnit.MINUTES).plusMinutes(1);
+        final ZonedDateTime limit = time.plusYears(MAX_YEARS_AHEAD);
+        while (time.isBefore(limit)) {
+            if (!months.get(time.getMonthValue())) {
+                time = time.withDayOfMonth(1).truncatedTo(ChronoUnit.DAYS).plusMonths(1);
+            } else if (!matchesDay(time)) {
+                time = time.truncatedTo(ChronoUnit.DAYS).plusDays(1);
+            } else if (!hours.get(time.getHour())) {
+                time = time.truncatedTo(ChronoUnit.HOURS).plusHours(1);
+            } else if (!minutes.get(time.getMinute())) {
+                time = time.plusMinutes(1);
+            } else {
+                return time;
+            }
+        }
+        throw new IllegalArgumentException("The cron expression '" + spec + "' never fires");
+    }
+
+    private boolean matchesDay(final ZonedDateTime time) {
+        boolean day = days.get(time.getDayOfMonth());
+        boolean weekday = weekdays.get(time.getDayOfWeek().getValue() % DAYS_PER_WEEK);
+        if (anyDay || anyWeekday) {
+            return day && weekday;
+        }
+        return day || weekday;
+    }
+
+    private static BitSet parseField(final String field, final int min, final int max) {
+        BitSet values = new BitSet(max + 1);
+        for (String part : field.split(",", -1)) {
+            String[] stepped = part.split("/", -1);
+            if (stepped.length > PAIR) {
+                throw invalid(field);
+            }
+            int step = stepped.length == PAIR ? parseNumber(stepped[1], 1, max, field) : 1;
+            int[] range = parseRange(stepped[0], min, max, field);
+            // A single value with a step runs up to the maximum, as in "5/15".
+            int last = stepped.length == PAIR && range[0] == range[1] && !"*".equals(stepped[0]) ? max : range[1];
+            for (int value = range[0]; value <= last; value += step) {
+                values.set(value);
+            }
+        }
+        return values;
+    }
+
+    private static int[] parseRange(final String range, final int min, final int max, final String field) {
+        if ("*".equals(range)) {
+            return new int[] {min, max};
+        }
+        String[] bounds = range.split("-", -1);
+        if (bounds.length > PAIR) {
+            throw invalid(field);
+        }
+        int from = parseNumber(bounds[0], min, max, field);
+        int to = bounds.length == PAIR ? parseNumber(bounds[1], min, max, field) : from;
+        if (to < from) {
+            throw invalid(field);
+        }
+        return new int[] {from, to};
+    }
+
+    private static int parseNumber(final String value, final int min, final int max, final String field) {
+        try {
+            int number = Integer.parseInt(value);
+            if (number < min || number > max) {
+                throw invalid(field);
+            }
+            return number;
+        } catch (NumberFormatException e) {
+            throw invalid(field);
+        }
+    }
+
+    private static IllegalArgumentException invalid(final String field) {
+        return new IllegalArgumentException("Invalid cron field '" + field + "'");
+    }
+
+    @Override
+    public String toString() {
+        return spec;
+    }
+}
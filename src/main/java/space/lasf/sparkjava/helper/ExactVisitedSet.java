@@ -0,0 +1,47 @@
+package space.lasf.sparkjava.helper;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A {@link VisitedSet} holding the URL strings themselves. It never confuses two URLs, but costs the size of
+ * each URL plus a hash table node, typically well over 100 bytes per URL.
+ * This class is thread-safe.
+ */
+public final class ExactVisitedSet implements VisitedSet {
+
+    static final byte TAG = 1;
+
+    private final Set<String> urls = ConcurrentHashMap.newKeySet();
+
+    @Override
+    public boolean add(final String url) {
+        return urls.add(url);
+    }
+
+    @Override
+    public long size() {
+        return urls.size();
+    }
+
+    @Override
+    public void writeTo(final DataOutput out) throws IOException {
+        String[] snapshot = urls.toArray(new String[0]);
+        out.writeByte(TAG);
+        out.writeInt(snapshot.length);
+        for (String url : snapshot) {
+            out.writeUTF(url);
+        }
+    }
+
+    static ExactVisitedSet read(final DataInput in) throws IOException {
+        ExactVisitedSet set = new ExactVisitedSet();
+        for (int i = in.readInt(); i > 0; i--) {
+            set.add(in.readUTF());
+        }
+        return set;
+    }
+}
@@ -0,0 +1,77 @@
+package space.lasf.sparkjava.helper;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Creates the executor that starts the crawl jobs and handles the HTTP client's responses; the pages themselves
+ * are parsed and stored on the stages of the crawl pipeline.
+ * <p>
+ * By default it is a cached pool of platform threads. With {@code CRAWLER_VIRTUAL_THREADS=true} on Java 21 or
+ * later, every task runs on its own virtual thread instead, so thousands of fetches can be in flight without a
+ * platform thread (and its stack) each; concurrency is then bounded only by {@code CRAWLER_MAX_CONCURRENCY},
+ * {@code CRAWLER_JOB_MAX_CONCURRENCY} and the per-host limits. The Java 21 API
+ * is looked up reflectively, so the same build also runs on Java 17, where platform threads are used.
+ * This class is final and cannot be instantiated.
+ */
+public final class ExecutorFactory {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ExecutorFactory.class);
+    private static final String ENV_VIRTUAL_THREADS = "CRAWLER_VIRTUAL_THREADS";
+
+    /**
+     * Private constructor to prevent instantiation of this utility class.
+     */
+    private ExecutorFactory() {
+        throw new UnsupportedOperationException("This is a utility class and cannot be instantiated");
+    }
+
+    /**
+     * Creates the crawl executor configured by {@code CRAWLER_VIRTUAL_THREADS}.
+     *
+     * @return A new executor service, to be shut down by the caller.
+     */
+    public static ExecutorService newCrawlExecutor() {
+        return newCrawlExecutor(ConfigUtil.getBoolean(ENV_VIRTUAL_THREADS, false));
+    }
+
+    /**
+     * Creates a crawl executor.
+     *
+     * @param virtualThreads Whether to run every task on a new virtual thread, if the runtime supports it.
+     * @return A new executor service, to be shut down by the caller.
+     */
+    public static ExecutorService newCrawlExecutor(final boolean virtualThreads) {
+        if (virtualThreads) {
+            try {
+                ExecutorService executor = (ExecutorService) Executors.class
+                        .getMethod("newVirtualThreadPerTaskExecutor")
+                        .invoke(null);
+                LOGGER.info("Crawl jobs and page tasks run on virtual threads");
+                return executor;
+            } catch (ReflectiveOperationException e) {
+                LOGGER.warn(
+                        "{}=true requires Java 21 or later (running {}); using platform threads",
+                        ENV_VIRTUAL_THREADS,
+                        Runtime.version());
+            }
+        }
+        return Executors.newCachedThreadPool();
+    }
+
+    /**
+     * Returns whether the running JVM supports virtual threads.
+     *
+     * @return {@code true} on Java 21 or later.
+     */
+    public static boolean isVirtualThreadsSupported() {
+        try {
+            Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+}
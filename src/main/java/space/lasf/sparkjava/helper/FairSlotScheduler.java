@@ -0,0 +1,333 @@
+package space.lasf.sparkjava.helper;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import space.lasf.sparkjava.entity.CrawlOptions;
+import space.lasf.sparkjava.entity.Priority;
+
+/**
+ * Shares a fixed number of fetch slots between the active crawls.
+ * <p>
+ * Every crawl {@link #register(String, CrawlOptions) registers} a {@link Flow} and takes a slot before each
+ * request, either waiting for it or, without holding a thread, by asking to be called back once it is granted.
+ * When a slot is free, it goes to a waiting flow of the highest priority class; flows of the same class
+ * are served by deficit round-robin, so each gets slots in proportion to its weight however many URLs it has
+ * queued. A flow never has more requests in flight than its cap. A small job submitted while a bulk crawl holds
+ * every slot therefore gets the next slot that is released, instead of waiting behind the bulk crawl's backlog.
+ * Waiting is done on a {@link ReentrantLock} condition, which does not pin the carrier of a virtual thread;
+ * callbacks run outside the lock, on the thread that requested or released the slot. This class is thread-safe.
+ */
+public final class FairSlotScheduler {
+
+    private final int defaultMaxInFlight;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition slotGranted = lock.newCondition();
+    private final Map<Priority, Deque<Flow>> rings;
+    // Callbacks whose slot was granted, run once the lock is released.
+    private final Deque<Runnable> grants = new ArrayDeque<>();
+    private final int capacity;
+    private int available;
+
+    /**
+     * Creates a scheduler.
+     *
+     * @param capacity           The number of slots shared by all flows.
+     * @param defaultMaxInFlight The cap of flows that do not set one, or 0 to let them use every slot.
+     */
+    public FairSlotScheduler(final int capacity, final int defaultMaxInFlight) {
+        if (capacity < 1 || defaultMaxInFlight < 0) {
+            throw new IllegalArgumentException("The capacity must be positive.");
+        }
+        this.capacity = capacity;
+        this.available = capacity;
+        this.defaultMaxInFlight = defaultMaxInFlight == 0 ? capacity : defaultMaxInFlight;
+        // Guarded by the lock.
+        this.rings = new EnumMap<>(Priority.class);
+        for (Priority priority : Priority.values()) {
+            rings.put(priority, new ArrayDeque<>());
+        }
+    }
+
+    /**
+     * Registers a flow competing for the slots.
+     *
+     * @param name    The name of the flow, for logging.
+     * @param options The priority, weight and cap of the flow.
+     * @return The flow, which must be {@link Flow#close() closed} once it stops taking slots.
+     */
+    public Flow register(final String name, final CrawlOptions options) {
+        lock.lock();
+        try {
+            Flow flow = new Flow(name, options);
+            rings.get(options.getPriority()).addLast(flow);
+            return flow;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of slots not held by any flow.
+     *
+     * @return The free slot count.
+     */
+    public int getAvailable() {
+        lock.lock();
+        try {
+            return available;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of slots.
+     *
+     * @return The capacity.
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns the number of slot requests not granted yet, over all flows.
+     *
+     * @return The waiting request count.
+     */
+    public int getWaiting() {
+        lock.lock();
+        try {
+            int waiting = 0;
+            for (Deque<Flow> ring : rings.values()) {
+                for (Flow flow : ring) {
+                    waiting += flow.waiting;
+                }
+            }
+            return waiting;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Hands free slots to waiting flows, in priority then deficit round-robin order. */
+    private void dispatch() {
+        boolean granted = false;
+        while (available > 0) {
+            Flow next = pick();
+            if (next == null) {
+                break;
+            }
+            available--;
+            next.waiting--;
+            next.inFlight++;
+            Runnable callback = next.callbacks.pollFirst();
+            if (callback == null) {
+                next.granted++;
+                granted = true;
+            } else {
+                grants.addLast(callback);
+            }
+        }
+        if (granted) {
+            slotGranted.signalAll();
+        }
+    }
+
+    /** Runs the callbacks of the granted slots; must be called without holding the lock. */
+    private void runGrants() {
+        while (true) {
+            Runnable callback;
+            lock.lock();
+            try {
+                callback = grants.pollFirst();
+            } finally {
+                lock.unlock();
+            }
+            if (callback == null) {
+                return;
+            }
+            callback.run();
+        }
+    }
+
+    private Flow pick() {
+        for (Deque<Flow> ring : rings.values()) {
+            Flow flow = pickFrom(ring);
+            if (flow != null) {
+                return flow;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Serves the flow at the head of the ring. A flow starting its turn is credited its weight, and keeps the
+     * head until the credit is spent; a flow with nothing waiting loses its credit.
+     */
+    private static Flow pickFrom(final Deque<Flow> ring) {
+        for (int i = ring.size(); i > 0; i--) {
+            Flow flow = ring.peekFirst();
+            if (flow.isEligible()) {
+                if (flow.deficit == 0) {
+                    flow.deficit = flow.options.getWeight();
+                }
+                flow.deficit--;
+                if (flow.deficit == 0) {
+                    ring.addLast(ring.pollFirst());
+                }
+                return flow;
+            }
+            if (flow.waiting == 0) {
+                flow.deficit = 0;
+            }
+            ring.addLast(ring.pollFirst());
+        }
+        return null;
+    }
+
+    /**
+     * A crawl competing for the slots. Every slot taken with {@link #acquire()} or granted to an
+     * {@link #acquire(Runnable)} callback must be {@link #release() released} once the request completes.
+     */
+    public final class Flow {
+        private final String name;
+        private final Deque<Runnable> callbacks = new ArrayDeque<>();
+        private CrawlOptions options;
+        private int waiting;
+        private int granted;
+        private int inFlight;
+        private int deficit;
+
+        private Flow(final String name, final CrawlOptions options) {
+            this.name = name;
+            this.options = options;
+        }
+
+        /**
+         * Waits for a slot.
+         *
+         * @throws InterruptedException if the thread is interrupted while waiting; no slot is held then.
+         */
+        public void acquire() throws InterruptedException {
+            lock.lock();
+            try {
+                waiting++;
+                dispatch();
+                while (granted == 0) {
+                    slotGranted.await();
+                }
+                granted--;
+            } catch (InterruptedException e) {
+                giveUp();
+                throw e;
+            } finally {
+                lock.unlock();
+                runGrants();
+            }
+        }
+
+        /**
+         * Asks for a slot without waiting: the callback runs once the slot is granted, right away if one is free.
+         * It runs on the thread that calls this method or that releases the slot, so it must not block.
+         *
+         * @param onGranted Called with the slot held.
+         */
+        public void acquire(final Runnable onGranted) {
+            lock.lock();
+            try {
+                waiting++;
+                callbacks.addLast(onGranted);
+                dispatch();
+            } finally {
+                lock.unlock();
+            }
+            runGrants();
+        }
+
+        private void giveUp() {
+            if (granted > 0) {
+                granted--;
+                inFlight--;
+                available++;
+            } else {
+                waiting--;
+            }
+            dispatch();
+        }
+
+        /** Gives back a slot taken with {@link #acquire()}. */
+        public void release() {
+            lock.lock();
+            try {
+                inFlight--;
+                available++;
+                dispatch();
+            } finally {
+                lock.unlock();
+            }
+            runGrants();
+        }
+
+        /**
+         * Replaces the options of the flow, for instance when another job joins the crawl.
+         *
+         * @param newOptions The new priority, weight and cap.
+         */
+        public void update(final CrawlOptions newOptions) {
+            lock.lock();
+            try {
+                if (rings.get(options.getPriority()).remove(this)) {
+                    rings.get(newOptions.getPriority()).addLast(this);
+                }
+                options = newOptions;
+                dispatch();
+            } finally {
+                lock.unlock();
+            }
+            runGrants();
+        }
+
+        /**
+         * Withdraws the flow from the scheduler; slots still held must be released as usual, and callbacks still
+         * waiting for a slot are dropped.
+         */
+        public void close() {
+            lock.lock();
+            try {
+                waiting -= callbacks.size();
+                callbacks.clear();
+                rings.get(options.getPriority()).remove(this);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Returns the options the flow is scheduled with.
+         *
+         * @return The current options.
+         */
+        public CrawlOptions getOptions() {
+            lock.lock();
+            try {
+                return options;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private boolean isEligible() {
+            int cap = options.getMaxConcurrency() == 0 ? defaultMaxInFlight : options.getMaxConcurrency();
+            return waiting > 0 && inFlight < cap;
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package space.lasf.sparkjava.helper;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Runs the keyword matchers of several crawl jobs over the same page.
+ * <p>
+ * The page is tokenized once and its visible text is fed to the scan of every matcher. The keywords of the
+ * combined matcher are those of each matcher in turn, so the result of one job is recovered with
+ * {@link #getMatchedKeywords(PageScan, int)}.
+ */
+public final class FanOutMatcher implements KeywordMatcher {
+
+    private final List<KeywordMatcher> matchers;
+    private final int[] offsets;
+    private final List<String> keywords;
+
+    /**
+     * Combines the matchers of several jobs.
+     *
+     * @param matchers The matchers to run, at least one.
+     */
+    public FanOutMatcher(final List<KeywordMatcher> matchers) {
+        if (matchers == null || matchers.isEmpty()) {
+            throw new IllegalArgumentException("At least one matcher is required.");
+        }
+        this.matchers = List.copyOf(matchers);
+        this.offsets = new int[this.matchers.size() + 1];
+        List<String> all = new ArrayList<>();
+        for (int i = 0; i < this.matchers.size(); i++) {
+            all.addAll(this.matchers.get(i).getKeywords());
+            offsets[i + 1] = all.size();
+        }
+        this.keywords = List.copyOf(all);
+    }
+
+    @Override
+    public List<String> getKeywords() {
+        return keywords;
+    }
+
+    @Override
+    public Scan newScan() {
+        Scan[] scans = new Scan[matchers.size()];
+        for (int i = 0; i < scans.length; i++) {
+            scans[i] = matchers.get(i).newScan();
+        }
+        return new FanOutScan(scans);
+    }
+
+    /**
+     * Returns the keywords of one of the combined matchers found by a scan.
+     *
+     * @param scan  The result of a scan made with this matcher.
+     * @param index The index of the matcher, in constructor order.
+     * @return The keywords of that matcher found in the page, in matcher order.
+     */
+    public List<String> getMatchedKeywords(final PageScan scan, final int index) {
+        List<String> own = matchers.get(index).getKeywords();
+        return scan.getMatches().get(offsets[index], offsets[index + 1]).stream()
+                .mapToObj(own::get)
+                .toList();
+    }
+
+    private final class FanOutScan implements Scan {
+        private final Scan[] scans;
+
+        private FanOutScan(final Scan[] scans) {
+            this.scans = scans;
+        }
+
+        @Override
+        public void feed(final char[] chars, final int offset, final int length) {
+            for (Scan scan : scans) {
+                if (!scan.isComplete()) {
+                    scan.feed(chars, offset, length);
+                }
+            }
+        }
+
+        @Override
+        public void feed(final CharSequence text) {
+            for (Scan scan : scans) {
+                if (!scan.isComplete()) {
+                    scan.feed(text);
+                }
+            }
+        }
+
+        @Override
+        public boolean isFound() {
+            for (Scan scan : scans) {
+                if (scan.isFound()) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public BitSet getMatches() {
+            BitSet matches = new BitSet(keywords.size());
+            for (int i = 0; i < scans.length; i++) {
+                BitSet own = scans[i].getMatches();
+                for (int bit = own.nextSetBit(0); bit >= 0; bit = own.nextSetBit(bit + 1)) {
+                    matches.set(offsets[i] + bit);
+                }
+            }
+            return matches;
+        }
+
+        @Override
+        public boolean isComplete() {
+            for (Scan scan : scans) {
+                if (!scan.isComplete()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
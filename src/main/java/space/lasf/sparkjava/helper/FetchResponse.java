@@ -0,0 +1,254 @@
+package space.lasf.sparkjava.helper;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.http.HttpResponse;
+import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.StandardCharsets;
+import java.nio.charset.UnsupportedCharsetException;
+import java.util.Locale;
+import java.util.function.UnaryOperator;
+import space.lasf.sparkjava.entity.SkipReason;
+
+/**
+ * A fetched page whose body has not been consumed yet.
+ * <p>
+ * The body is decoded lazily (see {@link ContentDecoder}) on the thread that reads it, and both the bytes
+ * received over the wire and the decoded bytes are counted, so callers can report the transfer savings of
+ * compression and caching. A response rejected from its headers alone is returned already closed, with
+ * a {@link SkipReason}, and a page the server reports as {@link #isNotModified() not modified} since a previous
+ * crawl has no body. Instances must be closed once the body is no longer needed.
+ */
+public final class FetchResponse implements Closeable {
+
+    private static final String CHARSET_PARAMETER = "charset=";
+
+    private final String url;
+    private final InputStream raw;
+    private final String contentType;
+    private final String contentEncoding;
+    private final boolean fromCache;
+    private SkipReason skipReason;
+    private boolean notModified;
+    private String etag;
+    private String lastModified;
+    private UnaryOperator<InputStream> bodyDecorator = UnaryOperator.identity();
+    private BoundedInputStream wireCounter;
+    private BoundedInputStream decodedCounter;
+    private InputStream body;
+
+    private FetchResponse(
+            final String url,
+            final InputStream raw,
+            final String contentType,
+            final String contentEncoding,
+            final boolean fromCache) {
+        this.url = url;
+        this.raw = raw;
+        this.contentType = contentType;
+        this.contentEncoding = contentEncoding;
+        this.fromCache = fromCache;
+    }
+
+    /**
+     * Creates a response received from the network.
+     *
+     * @param url      The requested URL.
+     * @param response The HTTP response, with its body not yet read.
+     * @return The fetched page.
+     */
+    public static FetchResponse fromNetwork(final String url, final HttpResponse<InputStream> response) {
+        FetchResponse fetched = new FetchResponse(
+                url,
+                response.body(),
+                response.headers().firstValue("Content-Type").orElse(null),
+                response.headers().firstValue("Content-Encoding").orElse(null),
+                false);
+        fetched.etag = response.headers().firstValue("ETag").orElse(null);
+        fetched.lastModified = response.headers().firstValue("Last-Modified").orElse(null);
+        return fetched;
+    }
+
+    /**
+     * Creates a response served from the local cache. Cached bodies are stored decoded.
+     *
+     * @param url         The requested URL.
+     * @param contentType The cached {@code Content-Type} header, or {@code null}.
+     * @param body        The cached body.
+     * @return The fetched page.
+     */
+    public static FetchResponse fromCache(final String url, final String contentType, final InputStream body) {
+        return new FetchResponse(url, body, contentType, null, true);
+    }
+
+    /**
+     * Creates a response that was rejected from its headers; its body was never read.
+     *
+     * @param url         The requested URL.
+     * @param contentType The {@code Content-Type} header, or {@code null}.
+     * @param reason      Why the response was rejected.
+     * @return The skipped page.
+     */
+    public static FetchResponse skipped(final String url, final String contentType, final SkipReason reason) {
+        FetchResponse response = new FetchResponse(url, InputStream.nullInputStream(), contentType, null, false);
+        response.skipReason = reason;
+        return response;
+    }
+
+    /**
+     * Creates the response to a conditional request the server answered with {@code 304 Not Modified}: the page is
+     * unchanged since the validators were recorded, and has no body.
+     *
+     * @param url The requested URL.
+     * @return The unchanged page.
+     */
+    public static FetchResponse notModified(final String url) {
+        FetchResponse response = new FetchResponse(url, InputStream.nullInputStream(), null, null, false);
+        response.notModified = true;
+        return response;
+    }
+
+    /**
+     * Installs a decorator applied to the decoded body before it is handed out (e.g. to write it to the cache).
+     *
+     * @param decorator The body decorator.
+     * @return This response.
+     */
+    public synchronized FetchResponse decorateBody(final UnaryOperator<InputStream> decorator) {
+        this.bodyDecorator = decorator;
+        return this;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getContentEncoding() {
+        return contentEncoding;
+    }
+
+    public boolean isFromCache() {
+        return fromCache;
+    }
+
+    /**
+     * Reports whether the response was rejected before its body was read.
+     *
+     * @return {@code true} if the page must not be processed.
+     */
+    public boolean isSkipped() {
+        return skipReason != null;
+    }
+
+    public SkipReason getSkipReason() {
+        return skipReason;
+    }
+
+    /**
+     * Reports whether the server answered a conditional request with {@code 304 Not Modified}.
+     *
+     * @return {@code true} if the page is unchanged and has no body.
+     */
+    public boolean isNotModified() {
+        return notModified;
+    }
+
+    /**
+     * Returns the {@code ETag} validator of the page.
+     *
+     * @return The validator, or {@code null} if the server sent none or the page has no body from the network.
+     */
+    public String getEtag() {
+        return etag;
+    }
+
+    /**
+     * Returns the {@code Last-Modified} validator of the page.
+     *
+     * @return The validator, or {@code null} if the server sent none or the page has no body from the network.
+     */
+    public String getLastModified() {
+        return lastModified;
+    }
+
+    /**
+     * Returns the charset declared in the {@code Content-Type} header.
+     *
+     * @return The declared charset, or UTF-8 if none (or an unknown one) is declared.
+     */
+    public Charset getCharset() {
+        if (contentType == null) {
+            return StandardCharsets.UTF_8;
+        }
+        int index = contentType.toLowerCase(Locale.ROOT).indexOf(CHARSET_PARAMETER);
+        if (index < 0) {
+            return StandardCharsets.UTF_8;
+        }
+        String name = contentType.substring(index + CHARSET_PARAMETER.length()).split(";")[0];
+        try {
+            return Charset.forName(name.replace("\"", "").trim());
+        } catch (IllegalCharsetNameException | UnsupportedCharsetException e) {
+            return StandardCharsets.UTF_8;
+        }
+    }
+
+    /**
+     * Returns the decoded body, creating the decoding chain on first use.
+     *
+     * @return The decoded body stream.
+     * @throws IOException if the content encoding is not supported or malformed.
+     */
+    public synchronized InputStream getBody() throws IOException {
+        if (body == null) {
+            wireCounter = new BoundedInputStream(raw, -1);
+            decodedCounter = new BoundedInputStream(ContentDecoder.decode(wireCounter, contentEncoding), -1);
+            body = bodyDecorator.apply(decodedCounter);
+        }
+        return body;
+    }
+
+    /**
+     * Returns the number of bytes transferred over the network so far (compressed size).
+     *
+     * @return The wire byte count; zero for responses served from the cache.
+     */
+    public synchronized long getWireBytes() {
+        return fromCache || wireCounter == null ? 0 : wireCounter.getCount();
+    }
+
+    /**
+     * Returns the number of decoded body bytes read so far.
+     *
+     * @return The decoded byte count.
+     */
+    public synchronized long getDecodedBytes() {
+        return decodedCounter == null ? 0 : decodedCounter.getCount();
+    }
+
+    /**
+     * Aborts the transfer from any thread, even while another one reads the body: the network stream is closed,
+     * so that the next read of the body fails instead of waiting for the rest of it.
+     */
+    public void abort() {
+        try {
+            raw.close();
+        } catch (IOException e) {
+            // The transfer is over either way.
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (body != null) {
+            body.close();
+        } else {
+            raw.close();
+        }
+    }
+}
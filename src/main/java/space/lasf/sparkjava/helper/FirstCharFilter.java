@@ -0,0 +1,19 @@
+package space.lasf.sparkjava.helper;
+
+/**
+ * Locates the positions of a text where a keyword may start, by looking for its first character.
+ * Used by {@link HorspoolMatcher} to hand candidate positions to a SIMD implementation.
+ */
+interface FirstCharFilter {
+
+    /**
+     * Returns the first index holding one of the given characters.
+     *
+     * @param text    The text to search.
+     * @param from    The first index to look at.
+     * @param to      The index after the last one to look at.
+     * @param targets The characters to look for.
+     * @return The index found, or {@code -1} if none of the characters occurs in the range.
+     */
+    int indexOfAny(char[] text, int from, int to, char[] targets);
+}
@@ -0,0 +1,55 @@
+package space.lasf.sparkjava.helper;
+
+import java.util.function.Consumer;
+
+/**
+ * A queue of URLs waiting to be fetched. Entries leave it in insertion order, or by score for a best-first
+ * frontier.
+ * <p>
+ * Implementations are not thread-safe: {@link HostScheduler} keeps one frontier per host and guards them all
+ * with its lock.
+ */
+public interface Frontier extends AutoCloseable {
+
+    /**
+     * Adds a URL to the queue.
+     *
+     * @param entry The URL to fetch.
+     * @return {@code false} if the frontier is full and a URL was dropped.
+     */
+    boolean add(FrontierEntry entry);
+
+    /**
+     * Removes the next URL to fetch from the queue.
+     *
+     * @return The entry, or {@code null} if the queue is empty.
+     */
+    FrontierEntry poll();
+
+    /**
+     * Returns the number of queued URLs.
+     *
+     * @return The queue length.
+     */
+    long size();
+
+    /**
+     * Returns whether the queue is empty.
+     *
+     * @return {@code true} if no URL is queued.
+     */
+    default boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Passes every queued URL to an action, without removing it. Spilled URLs are read back from disk.
+     *
+     * @param action Receives the entries, roughly in the order they would be polled.
+     */
+    void forEach(Consumer<FrontierEntry> action);
+
+    /** Discards the queued URLs and releases the resources held by the frontier. */
+    @Override
+    void close();
+}
@@ -0,0 +1,52 @@
+package space.lasf.sparkjava.helper;
+
+/**
+ * A URL waiting in a {@link Frontier}, with its link depth from the seed and the score a best-first frontier
+ * orders it by. This class is immutable.
+ */
+public final class FrontierEntry {
+
+    private final String url;
+    private final int depth;
+    private final double score;
+
+    /**
+     * Creates an entry.
+     *
+     * @param url   The URL to fetch.
+     * @param depth The number of links followed from the seed to reach the URL.
+     * @param score The priority of the URL; higher scores are fetched first by a best-first frontier.
+     */
+    public FrontierEntry(final String url, final int depth, final double score) {
+        this.url = url;
+        this.depth = depth;
+        this.score = score;
+    }
+
+    /**
+     * Creates the entry of a seed URL: depth 0 and a neutral score.
+     *
+     * @param url The URL to fetch.
+     * @return The entry.
+     */
+    public static FrontierEntry of(final String url) {
+        return new FrontierEntry(url, 0, 0);
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public double getScore() {
+        return score;
+    }
+
+    @Override
+    public String toString() {
+        return "FrontierEntry{url=" + url + ", depth=" + depth + ", score=" + score + '}';
+    }
+}
@@ -0,0 +1,55 @@
+package space.lasf.sparkjava.helper;
+
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * A consistent-hash ring that assigns keys to a fixed set of nodes. Every node is placed on the ring at many
+ * points (virtual nodes), so that the keys are spread evenly and adding or removing a node only moves the keys
+ * of its own arcs. Nodes that build the ring from the same list agree on the owner of every key without talking
+ * to each other. This class is immutable and thread-safe.
+ */
+public final class HashRing {
+
+    /** The points each node takes on the ring by default. */
+    public static final int DEFAULT_VIRTUAL_NODES = 160;
+
+    private final List<String> nodes;
+    private final NavigableMap<Long, String> ring = new TreeMap<>();
+
+    /**
+     * Creates a ring.
+     *
+     * @param nodes        The nodes, at least one; their order does not matter.
+     * @param virtualNodes The points each node takes on the ring.
+     * @throws IllegalArgumentException if there is no node or no point per node.
+     */
+    public HashRing(final List<String> nodes, final int virtualNodes) {
+        if (nodes.isEmpty() || virtualNodes < 1) {
+            throw new IllegalArgumentException("A hash ring needs at least one node and one point per node");
+        }
+        this.nodes = List.copyOf(nodes);
+        for (String node : this.nodes) {
+            for (int i = 0; i < virtualNodes; i++) {
+                ring.putIfAbsent(UrlHash.mix(UrlHash.of(node + '#' + i)), node);
+            }
+        }
+    }
+
+    /**
+     * Returns the node that owns a key: the first point at or after the hash of the key, going round the ring.
+     *
+     * @param key The key, for instance the host or the path of a URL.
+     * @return The owner, one of the nodes of the ring.
+     */
+    public String ownerOf(final String key) {
+        final Map.Entry<Long, String> point = ring.ceilingEntry(UrlHash.of(key));
+        return (point == null ? ring.firstEntry() : point).getValue();
+    }
+
+    public List<String> getNodes() {
+        return nodes;
+    }
+}
@@ -0,0 +1,175 @@
+package space.lasf.sparkjava.helper;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A {@link VisitedSet} keeping a 64-bit hash of each URL instead of the URL itself.
+ * <p>
+ * The hashes are stored in open-addressing tables of primitive longs, split into lock-striped segments so
+ * that concurrent page tasks rarely contend. An entry costs 8 bytes per slot, 11 to 21 bytes per URL depending
+ * on how full the tables are. Two distinct URLs are confused only if their hashes collide; in a crawl of
+ * 10 million URLs the chance of any collision is about 3 in a million. Unlike the other visited sets, URLs can
+ * also be {@link #remove(String) removed}, so that the set can track the pages claimed by a job.
+ * This class is thread-safe.
+ */
+public final class HashVisitedSet implements VisitedSet {
+
+    static final byte TAG = 2;
+
+    private static final int SEGMENT_BITS = 6;
+    private static final int INITIAL_SEGMENT_CAPACITY = 64;
+    // A segment grows once it is more than LOAD_NUMERATOR / LOAD_DENOMINATOR full.
+    private static final int LOAD_NUMERATOR = 3;
+    private static final int LOAD_DENOMINATOR = 4;
+    private static final long EMPTY = 0L;
+    // The hash stored in place of 0, which marks empty slots.
+    private static final long ZERO_SUBSTITUTE = 1L;
+
+    private final Segment[] segments = new Segment[1 << SEGMENT_BITS];
+    private final LongAdder size = new LongAdder();
+
+    /**
+     * Creates an empty set.
+     */
+    public HashVisitedSet() {
+        for (int i = 0; i < segments.length; i++) {
+            segments[i] = new Segment();
+        }
+    }
+
+    @Override
+    public boolean add(final String url) {
+        long hash = UrlHash.of(url);
+        return addHash(hash == EMPTY ? ZERO_SUBSTITUTE : hash);
+    }
+
+    /**
+     * Removes a URL from the set.
+     *
+     * @param url The canonical URL.
+     * @return {@code true} if the URL was in the set.
+     */
+    public boolean remove(final String url) {
+        long hash = UrlHash.of(url);
+        long stored = hash == EMPTY ? ZERO_SUBSTITUTE : hash;
+        boolean removed = segments[(int) (stored >>> (Long.SIZE - SEGMENT_BITS))].remove(stored);
+        if (removed) {
+            size.decrement();
+        }
+        return removed;
+    }
+
+    private boolean addHash(final long hash) {
+        // The top bits pick the segment, the low bits the slot within it.
+        boolean added = segments[(int) (hash >>> (Long.SIZE - SEGMENT_BITS))].add(hash);
+        if (added) {
+            size.increment();
+        }
+        return added;
+    }
+
+    @Override
+    public long size() {
+        return size.sum();
+    }
+
+    /** Writes the stored hashes, one segment at a time: 8 bytes per URL. */
+    @Override
+    public void writeTo(final DataOutput out) throws IOException {
+        out.writeByte(TAG);
+        for (Segment segment : segments) {
+            long[] hashes = segment.snapshot();
+            out.writeInt(hashes.length);
+            for (long hash : hashes) {
+                out.writeLong(hash);
+            }
+        }
+    }
+
+    static HashVisitedSet read(final DataInput in) throws IOException {
+        HashVisitedSet set = new HashVisitedSet();
+        for (int i = 0; i < set.segments.length; i++) {
+            for (int count = in.readInt(); count > 0; count--) {
+                set.addHash(in.readLong());
+            }
+        }
+        return set;
+    }
+
+    /** One lock stripe: an open-addressing table with linear probing. */
+    private static final class Segment {
+        private long[] table = new long[INITIAL_SEGMENT_CAPACITY];
+        private int count;
+
+        synchronized boolean add(final long hash) {
+            if (!insert(table, hash)) {
+                return false;
+            }
+            count++;
+            if (count * LOAD_DENOMINATOR > table.length * LOAD_NUMERATOR) {
+                grow();
+            }
+            return true;
+        }
+
+        synchronized boolean remove(final long hash) {
+            int mask = table.length - 1;
+            int slot = (int) hash & mask;
+            while (table[slot] != hash) {
+                if (table[slot] == EMPTY) {
+                    return false;
+                }
+                slot = (slot + 1) & mask;
+            }
+            // Moves the later entries of the run back into the hole when their probe sequence passes through it.
+            int hole = slot;
+            for (int i = (hole + 1) & mask; table[i] != EMPTY; i = (i + 1) & mask) {
+                int home = (int) table[i] & mask;
+                if (((i - home) & mask) >= ((i - hole) & mask)) {
+                    table[hole] = table[i];
+                    hole = i;
+                }
+            }
+            table[hole] = EMPTY;
+            count--;
+            return true;
+        }
+
+        synchronized long[] snapshot() {
+            long[] hashes = new long[count];
+            int next = 0;
+            for (long hash : table) {
+                if (hash != EMPTY) {
+                    hashes[next++] = hash;
+                }
+            }
+            return hashes;
+        }
+
+        private void grow() {
+            long[] larger = new long[table.length + table.length];
+            for (long hash : table) {
+                if (hash != EMPTY) {
+                    insert(larger, hash);
+                }
+            }
+            table = larger;
+        }
+
+        private static boolean insert(final long[] slots, final long hash) {
+            int mask = slots.length - 1;
+            for (int i = (int) hash & mask; ; i = (i + 1) & mask) {
+                if (slots[i] == hash) {
+                    return false;
+                }
+                if (slots[i] == EMPTY) {
+                    slots[i] = hash;
+                    return true;
+                }
+            }
+        }
+    }
+}
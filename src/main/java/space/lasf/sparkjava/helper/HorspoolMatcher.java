@@ -0,0 +1,267 @@
+package space.lasf.sparkjava.helper;
+
+import java.util.Arrays;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A case-insensitive {@link KeywordMatcher} for a single keyword, based on the Boyer-Moore-Horspool algorithm.
+ * <p>
+ * The keyword is compiled once into a skip table: the text is compared from the end of the keyword backwards,
+ * and on a mismatch the window jumps ahead by up to the keyword length, so most characters of a page are never
+ * looked at. Case folding is done per character while comparing, with a lookup table for ASCII, so the page is
+ * never copied to lower case. Occurrences spanning chunk boundaries are found by re-checking the last
+ * {@code length - 1} characters of the previous chunk.
+ * <p>
+ * With {@code KEYWORD_SIMD=true}, candidate positions are located instead with a vectorized search for the first
+ * keyword character (see {@link FirstCharFilter}); it requires a build with the {@code simd} Maven profile and the
+ * {@code jdk.incubator.vector} module ({@code --add-modules jdk.incubator.vector}), and falls back to the skip
+ * table when either is missing.
+ */
+public final class HorspoolMatcher implements KeywordMatcher {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(HorspoolMatcher.class);
+    private static final String ENV_SIMD = "KEYWORD_SIMD";
+    private static final String VECTOR_FILTER = "space.lasf.sparkjava.helper.VectorFirstCharFilter";
+    private static final int ASCII = 128;
+    private static final char[] ASCII_FOLD = new char[ASCII];
+    private static final FirstCharFilter DEFAULT_FILTER = loadFilter(ConfigUtil.getBoolean(ENV_SIMD, false));
+
+    static {
+        for (char c = 0; c < ASCII; c++) {
+            ASCII_FOLD[c] = Character.toLowerCase(c);
+        }
+    }
+
+    private final List<String> keywords;
+    private final char[] pattern;
+    private final int[] asciiShift = new int[ASCII];
+    private final int otherShift;
+    private final char[] firstCharForms;
+    private final FirstCharFilter filter;
+
+    /**
+     * Compiles the matcher for a keyword, using the vectorized filter if it is enabled.
+     *
+     * @param keyword The non-empty keyword to search for.
+     */
+    public HorspoolMatcher(final String keyword) {
+        this(keyword, DEFAULT_FILTER);
+    }
+
+    /**
+     * Compiles the matcher for a keyword.
+     *
+     * @param keyword The non-empty keyword to search for.
+     * @param filter  The first-character filter locating candidates, or {@code null} to use the skip table.
+     */
+    HorspoolMatcher(final String keyword, final FirstCharFilter filter) {
+        if (keyword == null || keyword.isEmpty()) {
+            throw new IllegalArgumentException("The keyword cannot be empty.");
+        }
+        this.keywords = List.of(keyword);
+        this.pattern = new char[keyword.length()];
+        for (int i = 0; i < pattern.length; i++) {
+            pattern[i] = fold(keyword.charAt(i));
+        }
+        Arrays.fill(asciiShift, pattern.length);
+        int nonAscii = pattern.length;
+        for (int i = 0; i < pattern.length - 1; i++) {
+            int shift = pattern.length - 1 - i;
+            if (pattern[i] < ASCII) {
+                // Indexed by the unfolded text character, so that the hot loop does not fold.
+                asciiShift[pattern[i]] = shift;
+                asciiShift[Character.toUpperCase(pattern[i])] = shift;
+            } else {
+                nonAscii = Math.min(nonAscii, shift);
+            }
+        }
+        // Non-ASCII text characters share one shift: the smallest one any non-ASCII keyword character needs.
+        this.otherShift = nonAscii;
+        this.firstCharForms = filter == null ? null : formsOf(pattern[0]);
+        this.filter = filter;
+    }
+
+    @Override
+    public List<String> getKeywords() {
+        return keywords;
+    }
+
+    @Override
+    public HorspoolScan newScan() {
+        return new HorspoolScan();
+    }
+
+    /**
+     * Returns whether candidate positions are located with a vectorized filter.
+     *
+     * @return {@code true} if the SIMD filter is in use.
+     */
+    public boolean isVectorized() {
+        return filter != null;
+    }
+
+    private static char fold(final char c) {
+        return c < ASCII ? ASCII_FOLD[c] : Character.toLowerCase(c);
+    }
+
+    /** Every character that folds to the given one, so that a filter can look for them without folding. */
+    private static char[] formsOf(final char folded) {
+        StringBuilder forms = new StringBuilder();
+        for (int c = Character.MIN_VALUE; c <= Character.MAX_VALUE; c++) {
+            if (fold((char) c) == folded) {
+                forms.append((char) c);
+            }
+        }
+        return forms.toString().toCharArray();
+    }
+
+    /**
+     * Loads the vectorized first-character filter, if it is enabled and available.
+     *
+     * @param enabled Whether the filter is wanted.
+     * @return The filter, or {@code null} to use the skip table.
+     */
+    static FirstCharFilter loadFilter(final boolean enabled) {
+        if (!enabled) {
+            return null;
+        }
+        try {
+            FirstCharFilter filter = (FirstCharFilter)
+                    Class.forName(VECTOR_FILTER).getDeclaredConstructor().newInstance();
+            LOGGER.info("Keyword search uses the vectorized first-character filter");
+            return filter;
+        } catch (ReflectiveOperationException | LinkageError e) {
+            LOGGER.warn(
+                    "{}=true but the Vector API is not available (build with -P simd and start the JVM with "
+                            + "--add-modules jdk.incubator.vector); using the scalar search: {}",
+                    ENV_SIMD,
+                    e.toString());
+            return null;
+        }
+    }
+
+    private int shiftFor(final char c) {
+        if (c < ASCII) {
+            return asciiShift[c];
+        }
+        // A few non-ASCII characters fold to ASCII ones (e.g. the Kelvin sign to 'k').
+        char folded = fold(c);
+        return folded < ASCII ? asciiShift[folded] : otherShift;
+    }
+
+    private boolean matchesAt(final char[] text, final int start) {
+        for (int j = pattern.length - 1; j >= 0; j--) {
+            if (fold(text[start + j]) != pattern[j]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The incremental state of a search over one document. Besides whether the keyword was found, it counts
+     * the occurrences (overlapping ones included) in the text fed so far and remembers where the first one is.
+     */
+    public final class HorspoolScan implements Scan {
+        // The last pattern.length - 1 characters fed, followed by room for as many characters of the next chunk.
+        private final char[] boundary = new char[(pattern.length - 1) + (pattern.length - 1)];
+        private int tailLength;
+        private long position;
+        private long matchCount;
+        private long firstOffset = -1;
+
+        @Override
+        public void feed(final char[] chars, final int offset, final int length) {
+            if (tailLength > 0 && length > 0) {
+                int head = Math.min(length, pattern.length - 1);
+                System.arraycopy(chars, offset, boundary, tailLength, head);
+                // Only occurrences starting in the previous chunk; the others are found in the chunk itself.
+                search(boundary, 0, tailLength + head, tailLength - 1, position - tailLength);
+            }
+            int lastStart = offset + length - pattern.length;
+            if (filter == null) {
+                search(chars, offset, offset + length, lastStart, position - offset);
+            } else {
+                searchCandidates(chars, offset, lastStart, position - offset);
+            }
+            keepTail(chars, offset, length);
+            position += length;
+        }
+
+        @Override
+        public void feed(final CharSequence text) {
+            char[] chars = text.toString().toCharArray();
+            feed(chars, 0, chars.length);
+        }
+
+        @Override
+        public boolean isFound() {
+            return matchCount > 0;
+        }
+
+        /**
+         * Returns the number of occurrences of the keyword in the text fed so far.
+         *
+         * @return The occurrence count.
+         */
+        public long getMatchCount() {
+            return matchCount;
+        }
+
+        /**
+         * Returns the position of the first occurrence, counted in characters from the start of the document.
+         *
+         * @return The offset of the first occurrence, or {@code -1} if the keyword was not found.
+         */
+        public long getFirstOffset() {
+            return firstOffset;
+        }
+
+        /** Horspool search for occurrences starting at indexes {@code from..lastStart} of {@code text}. */
+        private void search(
+                final char[] text, final int from, final int end, final int lastStart, final long documentOffset) {
+            final int last = pattern.length - 1;
+            int start = from;
+            while (start <= lastStart && start + last < end) {
+                if (matchesAt(text, start)) {
+                    record(documentOffset + start);
+                }
+                start += shiftFor(text[start + last]);
+            }
+        }
+
+        /** Verifies only the positions holding the first keyword character, as located by the filter. */
+        private void searchCandidates(
+                final char[] text, final int from, final int lastStart, final long documentOffset) {
+            int start = filter.indexOfAny(text, from, lastStart + 1, firstCharForms);
+            while (start >= 0) {
+                if (matchesAt(text, start)) {
+                    record(documentOffset + start);
+                }
+                start = filter.indexOfAny(text, start + 1, lastStart + 1, firstCharForms);
+            }
+        }
+
+        private void record(final long documentOffset) {
+            if (matchCount == 0) {
+                firstOffset = documentOffset;
+            }
+            matchCount++;
+        }
+
+        private void keepTail(final char[] chars, final int offset, final int length) {
+            final int keep = pattern.length - 1;
+            if (length >= keep) {
+                System.arraycopy(chars, offset + length - keep, boundary, 0, keep);
+                tailLength = keep;
+            } else {
+                int fromTail = Math.min(tailLength, keep - length);
+                System.arraycopy(boundary, tailLength - fromTail, boundary, 0, fromTail);
+                System.arraycopy(chars, offset, boundary, fromTail, length);
+                tailLength = fromTail + length;
+            }
+        }
+    }
+}
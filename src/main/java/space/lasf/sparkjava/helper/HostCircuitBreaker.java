@@ -0,0 +1,177 @@
+package space.lasf.sparkjava.helper;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+
+/**
+ * A circuit breaker per host, shared by every crawl job.
+ * <p>
+ * After {@code HOST_BREAKER_FAILURES} consecutive transient failures the host's circuit opens: its URLs stay
+ * parked in the frontier for {@code HOST_BREAKER_COOLDOWN_MS} instead of each holding a request slot until it
+ * times out. When the cool-down ends a single probe request is let through, claimed with a compare-and-set on the
+ * state of the circuit; its success closes the circuit and its failure opens it again. This class is thread-safe.
+ */
+public final class HostCircuitBreaker {
+
+    private static final String ENV_FAILURES = "HOST_BREAKER_FAILURES";
+    private static final String ENV_COOLDOWN_MS = "HOST_BREAKER_COOLDOWN_MS";
+    private static final int DEFAULT_FAILURES = 5;
+    private static final long DEFAULT_COOLDOWN_MS = 30_000;
+
+    private final int failureThreshold;
+    private final long cooldownNanos;
+    private final LongSupplier clock;
+    private final Map<String, Circuit> circuits = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a circuit breaker.
+     *
+     * @param failureThreshold The consecutive failures that open a circuit, or {@code 0} to never open it.
+     * @param cooldown         How long an open circuit parks its host before a probe is allowed.
+     */
+    public HostCircuitBreaker(final int failureThreshold, final Duration cooldown) {
+        this(failureThreshold, cooldown.toNanos(), System::nanoTime);
+    }
+
+    HostCircuitBreaker(final int failureThreshold, final long cooldownNanos, final LongSupplier clock) {
+        this.failureThreshold = failureThreshold;
+        this.cooldownNanos = cooldownNanos;
+        this.clock = clock;
+    }
+
+    /**
+     * Creates a circuit breaker configured from the environment.
+     *
+     * @return The configured circuit breaker.
+     */
+    public static HostCircuitBreaker fromEnvironment() {
+        return new HostCircuitBreaker(
+                ConfigUtil.getInt(ENV_FAILURES, DEFAULT_FAILURES),
+                Duration.ofMillis(ConfigUtil.getLong(ENV_COOLDOWN_MS, DEFAULT_COOLDOWN_MS)));
+    }
+
+    /**
+     * Creates a circuit breaker that never opens.
+     *
+     * @return The disabled circuit breaker.
+     */
+    public static HostCircuitBreaker disabled() {
+        return new HostCircuitBreaker(0, Duration.ZERO);
+    }
+
+    /**
+     * Returns how long a host stays parked, without changing its state.
+     *
+     * @param host The host key (see {@link HostPoliteness#hostOf(String)}).
+     * @return {@code 0} if a request may be sent, otherwise the nanoseconds until the circuit may let a probe
+     *         through, or {@link HostPoliteness#UNTIL_RELEASE} while a probe is in flight.
+     */
+    public long readyIn(final String host) {
+        Circuit circuit = circuits.get(host);
+        return circuit == null ? 0 : circuit.readyIn(clock.getAsLong());
+    }
+
+    /**
+     * Claims the right to send a request to a host. Once the cool-down of an open circuit has ended, exactly one
+     * caller is granted the probe; the others keep waiting for its outcome. A probe whose outcome is never
+     * recorded (see {@link #recordSuccess}) is given up after another cool-down, and the next caller probes again.
+     *
+     * @param host The host key.
+     * @return {@code 0} if the request may be sent, otherwise the value {@link #readyIn(String)} would return.
+     */
+    public long tryAcquire(final String host) {
+        Circuit circuit = circuits.get(host);
+        return circuit == null ? 0 : circuit.tryAcquire(clock.getAsLong());
+    }
+
+    /**
+     * Records that a request got an answer from its host ({@code 2xx} or {@code 3xx}), closing its circuit.
+     * Requests that were cancelled, served from a cache or failed for a reason that is not transient say nothing
+     * about the health of the host and must not be recorded.
+     *
+     * @param host The host key.
+     */
+    public void recordSuccess(final String host) {
+        circuits.remove(host);
+    }
+
+    /**
+     * Records a transient failure of a host.
+     *
+     * @param host The host key.
+     */
+    public void recordFailure(final String host) {
+        if (failureThreshold > 0) {
+            circuits.computeIfAbsent(host, key -> new Circuit()).recordFailure(clock.getAsLong());
+        }
+    }
+
+    /**
+     * Checks whether the circuit of a host is open (or half-open, waiting for a probe).
+     *
+     * @param host The host key.
+     * @return {@code true} if requests to the host are currently held back.
+     */
+    public boolean isOpen(final String host) {
+        return readyIn(host) != 0;
+    }
+
+    /** Where a circuit stands; an open or probing circuit holds its host back until a deadline. */
+    private enum Phase {
+        CLOSED,
+        OPEN,
+        PROBING
+    }
+
+    /**
+     * An immutable state of a circuit, swapped atomically.
+     *
+     * @param phase    Whether the circuit is closed, open or waiting for its probe.
+     * @param failures The consecutive transient failures.
+     * @param until    When an open circuit lets a probe through, or when a probe in flight is given up.
+     */
+    private record State(Phase phase, int failures, long until) {
+        long readyIn(final long now) {
+            if (phase == Phase.CLOSED || now - until >= 0) {
+                return 0;
+            }
+            return phase == Phase.PROBING ? HostPoliteness.UNTIL_RELEASE : until - now;
+        }
+    }
+
+    /** The failure count and phase of the circuit of a single host. */
+    private final class Circuit {
+        private final AtomicReference<State> state = new AtomicReference<>(new State(Phase.CLOSED, 0, 0));
+
+        long readyIn(final long now) {
+            return state.get().readyIn(now);
+        }
+
+        long tryAcquire(final long now) {
+            while (true) {
+                State current = state.get();
+                long wait = current.readyIn(now);
+                if (wait != 0 || current.phase() == Phase.CLOSED) {
+                    return wait;
+                }
+                // Only the caller whose swap succeeds becomes the probe.
+                if (state.compareAndSet(current, new State(Phase.PROBING, current.failures(), now + cooldownNanos))) {
+                    return 0;
+                }
+            }
+        }
+
+        void recordFailure(final long now) {
+            state.updateAndGet(current -> {
+                int failures = current.failures() + 1;
+                if (current.phase() == Phase.PROBING || failures >= failureThreshold) {
+                    return new State(Phase.OPEN, failures, now + cooldownNanos);
+                }
+                return new State(current.phase(), failures, current.until());
+            });
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package space.lasf.sparkjava.helper;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Per-host rate limits shared by every crawl job, so that concurrent jobs cannot together overload an origin.
+ * <p>
+ * Each host has a token bucket refilled at {@code HOST_REQUESTS_PER_SECOND} (holding at most {@code HOST_BURST}
+ * tokens), a limit of {@code HOST_MAX_IN_FLIGHT} concurrent requests and a minimum delay of
+ * {@code HOST_MIN_DELAY_MS} between two request starts. Acquiring never blocks: it either grants a request
+ * or tells the caller how long the host will stay busy, so the caller can serve another host meanwhile.
+ * Hosts whose {@link HostCircuitBreaker circuit} is open are treated as busy until their cool-down ends.
+ */
+public final class HostPoliteness {
+
+    /** Returned by {@link #tryAcquire(String)} when the host only becomes ready after a {@link #release}. */
+    public static final long UNTIL_RELEASE = Long.MAX_VALUE;
+
+    private static final String ENV_REQUESTS_PER_SECOND = "HOST_REQUESTS_PER_SECOND";
+    private static final String ENV_BURST = "HOST_BURST";
+    private static final String ENV_MAX_IN_FLIGHT = "HOST_MAX_IN_FLIGHT";
+    private static final String ENV_MIN_DELAY_MS = "HOST_MIN_DELAY_MS";
+    private static final double DEFAULT_REQUESTS_PER_SECOND = 10.0;
+    private static final int DEFAULT_BURST = 5;
+    private static final int DEFAULT_MAX_IN_FLIGHT = 2;
+    private static final long DEFAULT_MIN_DELAY_MS = 50;
+
+    private final double tokensPerNano;
+    private final double burst;
+    private final int maxInFlight;
+    private final long minDelayNanos;
+    private final HostCircuitBreaker breaker;
+    private final LongSupplier clock;
+    private final Map<String, HostState> hosts = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a politeness gate.
+     *
+     * @param requestsPerSecond The sustained request rate allowed per host.
+     * @param burst             The number of requests a rested host may receive back to back.
+     * @param maxInFlight       The maximum number of concurrent requests per host.
+     * @param minDelay          The minimum delay between two request starts on the same host.
+     */
+    public HostPoliteness(
+            final double requestsPerSecond, final int burst, final int maxInFlight, final Duration minDelay) {
+        this(requestsPerSecond, burst, maxInFlight, minDelay, HostCircuitBreaker.disabled());
+    }
+
+    /**
+     * Creates a politeness gate that also parks hosts whose circuit is open.
+     *
+     * @param requestsPerSecond The sustained request rate allowed per host.
+     * @param burst             The number of requests a rested host may receive back to back.
+     * @param maxInFlight       The maximum number of concurrent requests per host.
+     * @param minDelay          The minimum delay between two request starts on the same host.
+     * @param breaker           The per-host circuit breaker.
+     */
+    public HostPoliteness(
+            final double requestsPerSecond,
+            final int burst,
+            final int maxInFlight,
+            final Duration minDelay,
+            final HostCircuitBreaker breaker) {
+        this(new Limits(requestsPerSecond, burst, maxInFlight, minDelay.toNanos()), breaker, System::nanoTime);
+    }
+
+    HostPoliteness(
+            final double requestsPerSecond,
+            final int burst,
+            final int maxInFlight,
+            final long minDelayNanos,
+            final LongSupplier clock) {
+        this(new Limits(requestsPerSecond, burst, maxInFlight, minDelayNanos), HostCircuitBreaker.disabled(), clock);
+    }
+
+    private HostPoliteness(final Limits limits, final HostCircuitBreaker breaker, final LongSupplier clock) {
+        this.tokensPerNano = limits.requestsPerSecond() / TimeUnit.SECONDS.toNanos(1);
+        this.burst = limits.burst();
+        this.maxInFlight = limits.maxInFlight();
+        this.minDelayNanos = limits.minDelayNanos();
+        this.breaker = breaker;
+        this.clock = clock;
+    }
+
+    private record Limits(double requestsPerSecond, int burst, int maxInFlight, long minDelayNanos) {
+        Limits {
+            if (requestsPerSecond <= 0 || burst < 1 || maxInFlight < 1 || minDelayNanos < 0) {
+                throw new IllegalArgumentException("Invalid host politeness settings");
+            }
+        }
+    }
+
+    /**
+     * Creates a politeness gate configured from the environment.
+     *
+     * @return The configured gate.
+     */
+    public static HostPoliteness fromEnvironment() {
+        return new HostPoliteness(
+                ConfigUtil.getDouble(ENV_REQUESTS_PER_SECOND, DEFAULT_REQUESTS_PER_SECOND),
+                ConfigUtil.getInt(ENV_BURST, DEFAULT_BURST),
+                ConfigUtil.getInt(ENV_MAX_IN_FLIGHT, DEFAULT_MAX_IN_FLIGHT),
+                Duration.ofMillis(ConfigUtil.getLong(ENV_MIN_DELAY_MS, DEFAULT_MIN_DELAY_MS)),
+                HostCircuitBreaker.fromEnvironment());
+    }
+
+    /**
+     * Returns the key requests are grouped by: the lower-case host and the port of a URL.
+     *
+     * @param url The absolute URL.
+     * @return The host key, or an empty string if the URL has no host.
+     */
+    public static String hostOf(final String url) {
+        try {
+            URI uri = URI.create(url);
+            if (uri.getHost() == null) {
+                return "";
+            }
+            String host = uri.getHost().toLowerCase(Locale.ROOT);
+            return uri.getPort() < 0 ? host : host + ":" + uri.getPort();
+        } catch (IllegalArgumentException e) {
+            return "";
+        }
+    }
+
+    /**
+     * Tries to start a request on a host without blocking.
+     *
+     * @param host The host key (see {@link #hostOf(String)}).
+     * @return {@code 0} if the request may start now (it must later be {@link #release released}),
+     *         otherwise the nanoseconds until the host may be ready, or {@link #UNTIL_RELEASE}
+     *         if it has reached its in-flight limit or its circuit is waiting for a probe.
+     */
+    public long tryAcquire(final String host) {
+        long parked = breaker.readyIn(host);
+        if (parked != 0) {
+            return parked;
+        }
+        HostState state = hosts.computeIfAbsent(host, key -> new HostState(burst));
+        long wait = state.tryAcquire(clock.getAsLong());
+        if (wait == 0) {
+            // Another caller may have claimed the probe of a half-open circuit meanwhile.
+            wait = breaker.tryAcquire(host);
+            if (wait != 0) {
+                state.release();
+            }
+        }
+        return wait;
+    }
+
+    /**
+     * Records the outcome of a request that got an answer from its host, feeding the host's circuit breaker. Only
+     * transient failures and {@code 2xx}/{@code 3xx} answers are recorded (see
+     * {@link HostCircuitBreaker#recordSuccess(String)}).
+     *
+     * @param host   The host key.
+     * @param failed {@code true} if the request failed with a transient error (see {@link RetryPolicy}).
+     */
+    public void recordOutcome(final String host, final boolean failed) {
+        if (failed) {
+            breaker.recordFailure(host);
+        } else {
+            breaker.recordSuccess(host);
+        }
+    }
+
+    /**
+     * Marks a request previously granted by {@link #tryAcquire(String)} as finished.
+     *
+     * @param host The host key.
+     */
+    public void release(final String host) {
+        HostState state = hosts.get(host);
+        if (state != null) {
+            state.release();
+        }
+    }
+
+    /**
+     * Returns the number of requests currently in flight on a host.
+     *
+     * @param host The host key.
+     * @return The in-flight count.
+     */
+    public int inFlight(final String host) {
+        HostState state = hosts.get(host);
+        return state == null ? 0 : state.inFlight();
+    }
+
+    /** Token bucket and in-flight counter of a single host. */
+    private final class HostState {
+        private double tokens;
+        private long refilledAt;
+        private long nextStartAt;
+        private int inFlight;
+
+        HostState(final double initialTokens) {
+            this.tokens = initialTokens;
+            this.refilledAt = clock.getAsLong();
+            this.nextStartAt = refilledAt;
+        }
+
+        synchronized long tryAcquire(final long now) {
+            if (inFlight >= maxInFlight) {
+                return UNTIL_RELEASE;
+            }
+            tokens = Math.min(burst, tokens + (now - refilledAt) * tokensPerNano);
+            refilledAt = now;
+            long wait = Math.max(nextStartAt - now, tokens >= 1 ? 0 : (long) Math.ceil((1 - tokens) / tokensPerNano));
+            if (wait > 0) {
+                return wait;
+            }
+            tokens -= 1;
+            inFlight++;
+            nextStartAt = now + minDelayNanos;
+            return 0;
+        }
+
+        synchronized void release() {
+            if (inFlight > 0) {
+                inFlight--;
+            }
+        }
+
+        synchronized int inFlight() {
+            return inFlight;
+        }
+    }
+}
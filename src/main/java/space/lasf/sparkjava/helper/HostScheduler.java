@@ -0,0 +1,236 @@
+package space.lasf.sparkjava.helper;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * The frontier of a single crawl job, grouped by host.
+ * <p>
+ * URLs wait in one queue per host, and hosts are visited in round-robin order. {@link #poll()} hands out a URL
+ * from the first host the {@link HostPoliteness} gate lets through, so a slow or busy host never holds up the
+ * others. Every URL handed out must be {@link #release(String) released} once its request completes.
+ * The queue of each host is a {@link Frontier}, so it may spill to disk (see {@link SpillingFrontier}).
+ * It never blocks: when no host is ready, {@link #getReadyInNanos()} tells when to poll again.
+ * This class is thread-safe.
+ */
+public final class HostScheduler {
+
+    private static final long MAX_IDLE_WAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final HostPoliteness politeness;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Supplier<Frontier> queues;
+    private final Map<String, Frontier> pendingByHost;
+    private final Deque<String> rotation = new ArrayDeque<>();
+    private long size;
+    private long readyInNanos;
+    private boolean closed;
+
+    /**
+     * Creates an empty scheduler whose host queues are held on the heap.
+     *
+     * @param politeness The per-host limits shared with the other crawl jobs.
+     */
+    public HostScheduler(final HostPoliteness politeness) {
+        this(politeness, MemoryFrontier::new);
+    }
+
+    /**
+     * Creates an empty scheduler.
+     *
+     * @param politeness The per-host limits shared with the other crawl jobs.
+     * @param queues     Creates the queue of a host when its first URL is added.
+     */
+    public HostScheduler(final HostPoliteness politeness, final Supplier<Frontier> queues) {
+        this.politeness = politeness;
+        this.queues = queues;
+        // Guarded by the lock, like the rotation.
+        this.pendingByHost = new HashMap<>();
+    }
+
+    /**
+     * Adds a seed URL (depth 0, neutral score) to the queue of its host.
+     *
+     * @param url The absolute URL to fetch.
+     * @return {@code false} if the URL was dropped because the queue of its host is full or the scheduler is
+     *     closed.
+     */
+    public boolean add(final String url) {
+        return add(FrontierEntry.of(url));
+    }
+
+    /**
+     * Adds a URL to the queue of its host.
+     *
+     * @param entry The absolute URL to fetch, with its depth and score.
+     * @return {@code false} if a URL was dropped because the queue of its host is full, or if the scheduler is
+     *     closed.
+     */
+    public boolean add(final FrontierEntry entry) {
+        lock.lock();
+        try {
+            if (closed) {
+                return false;
+            }
+            String host = HostPoliteness.hostOf(entry.getUrl());
+            Frontier pending = pendingByHost.get(host);
+            if (pending == null) {
+                pending = queues.get();
+                pendingByHost.put(host, pending);
+                rotation.addLast(host);
+            }
+            if (!pending.add(entry)) {
+                dropIfEmpty(host, pending);
+                return false;
+            }
+            size++;
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void dropIfEmpty(final String host, final Frontier pending) {
+        if (pending.isEmpty()) {
+            pendingByHost.remove(host);
+            rotation.remove(host);
+            pending.close();
+        }
+    }
+
+    /**
+     * Returns a URL from the next host that is ready, without blocking.
+     *
+     * @return The URL to fetch now, or {@code null} if every host with pending URLs is busy or if none is left.
+     */
+    public String poll() {
+        FrontierEntry entry = pollEntry();
+        return entry == null ? null : entry.getUrl();
+    }
+
+    /**
+     * Returns the next entry of the next host that is ready, without blocking.
+     *
+     * @return The entry to fetch now, or {@code null} if every host with pending URLs is busy or if none is left.
+     */
+    public FrontierEntry pollEntry() {
+        lock.lock();
+        try {
+            long nearest = HostPoliteness.UNTIL_RELEASE;
+            for (int i = rotation.size(); i > 0; i--) {
+                String host = rotation.pollFirst();
+                long wait = politeness.tryAcquire(host);
+                if (wait == 0) {
+                    return take(host);
+                }
+                rotation.addLast(host);
+                nearest = Math.min(nearest, wait);
+            }
+            readyInNanos = nearest;
+            return null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private FrontierEntry take(final String host) {
+        Frontier pending = pendingByHost.get(host);
+        FrontierEntry entry = pending.poll();
+        size--;
+        if (pending.isEmpty()) {
+            pendingByHost.remove(host);
+            pending.close();
+        } else {
+            rotation.addLast(host);
+        }
+        return entry;
+    }
+
+    /**
+     * Returns how long to wait before polling again, after a {@link #poll()} found no host ready: until the earliest
+     * host delay it saw expires, or until a request may have been released.
+     *
+     * @return The delay, in nanoseconds.
+     */
+    public long getReadyInNanos() {
+        lock.lock();
+        try {
+            // Requests of other jobs also release hosts without notifying us, so never wait for long.
+            return Math.min(readyInNanos, MAX_IDLE_WAIT_NANOS);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Marks the request for a URL handed out by {@link #poll()} as finished.
+     *
+     * @param url The URL whose request completed.
+     */
+    public void release(final String url) {
+        politeness.release(HostPoliteness.hostOf(url));
+    }
+
+    /**
+     * Returns whether URLs are still waiting to be fetched.
+     *
+     * @return {@code true} if no URL is pending.
+     */
+    public boolean isEmpty() {
+        lock.lock();
+        try {
+            return size == 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of pending URLs.
+     *
+     * @return The pending URL count.
+     */
+    public long size() {
+        lock.lock();
+        try {
+            return size;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Passes every pending URL to an action, host by host, without removing it. URLs are neither added nor handed
+     * out meanwhile.
+     *
+     * @param action Receives the pending entries.
+     */
+    public void forEachPending(final Consumer<FrontierEntry> action) {
+        lock.lock();
+        try {
+            pendingByHost.values().forEach(pending -> pending.forEach(action));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Discards the pending URLs, releasing the disk space of the host queues; later URLs are dropped. */
+    public void close() {
+        lock.lock();
+        try {
+            closed = true;
+            pendingByHost.values().forEach(Frontier::close);
+            pendingByHost.clear();
+            rotation.clear();
+            size = 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -1,90 +1,70 @@
 package space.lasf.sparkjava.helper;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.net.HttpURLConnection;
-import java.net.URI;
-import java.net.URISyntaxException;
-import java.net.URL;
-import java.nio.charset.StandardCharsets;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletionException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * A utility for fetching HTML content and extracting links without external libraries.
+ * A utility for fetching HTML content and resolving links without external libraries. Links are extracted by
+ * the {@link HtmlTokenizer}.
  */
 public final class HtmlFetcher {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(HtmlFetcher.class);
-    // A simple regex to find href attributes in <a> tags.
-    // This is fragile and a proper HTML parser is always recommended.
-    private static final Pattern LINK_PATTERN = Pattern.compile("(?i)<a\\s+(?:[^>]*?\\s+)?href=\"([^\"]*)\"");
-    private static final String USER_AGENT = "BackendCrawler/1.0";
-    private static final int TIMEOUT_MS = 5000; // 5 seconds
 
     private HtmlFetcher() {
         throw new UnsupportedOperationException("This is a utility class and cannot be instantiated");
     }
 
     /**
-     * Fetches the HTML content from a given URL string.
+     * Lazily creates the fetcher shared by the blocking helpers, so its pooled connections are reused.
      */
-    public static String getHtmlContent(final String urlString) throws IOException {
-        URL url = new URL(urlString);
-        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-        connection.setRequestMethod("GET");
-        connection.setRequestProperty("User-Agent", USER_AGENT);
-        connection.setConnectTimeout(TIMEOUT_MS);
-        connection.setReadTimeout(TIMEOUT_MS);
-
-        try (BufferedReader reader =
-                new BufferedReader(new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8))) {
-            return reader.lines().collect(Collectors.joining(System.lineSeparator()));
-        } finally {
-            connection.disconnect();
-        }
+    private static final class SharedFetcher {
+        private static final AsyncHtmlFetcher INSTANCE = new AsyncHtmlFetcher();
     }
 
     /**
-     * Extracts all link URLs from an HTML string using regex.
+     * Fetches the HTML content from a given URL string, blocking until the body is available.
+     * Prefer {@link AsyncHtmlFetcher#fetchHtml(String)} on hot paths.
      */
-    public static List<String> getlinks(final String html) {
-        List<String> links = new ArrayList<>();
-        Matcher matcher = LINK_PATTERN.matcher(html);
-        while (matcher.find()) {
-            String link = matcher.group(1).replace("../", "");
-            if (!link.startsWith("mailto:") && !link.startsWith("javascript:") && !link.contains("#")) {
-                links.add(link);
+    public static String getHtmlContent(final String urlString) throws IOException {
+        try {
+            return SharedFetcher.INSTANCE.fetchHtml(urlString).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
             }
+            throw new IOException("Could not fetch " + urlString, e.getCause());
         }
-        return links;
     }
 
     /**
-     * Resolves a potentially relative link against a base URL.
+     * Checks whether a link target can lead to another page: empty targets, same-page fragments,
+     * {@code mailto:} and {@code javascript:} links are not followed.
+     *
+     * @param link The raw link target.
+     * @return {@code true} if the link is worth resolving and crawling.
+     */
+    public static boolean isFollowable(final String link) {
+        return !link.isEmpty()
+                && link.charAt(0) != '#'
+                && !link.regionMatches(true, 0, "mailto:", 0, "mailto:".length())
+                && !link.regionMatches(true, 0, "javascript:", 0, "javascript:".length());
+    }
+
+    /**
+     * Resolves a potentially relative link against a base URL and returns its canonical form.
+     * Crawls resolve many links against the same base; they should parse it once and use
+     * {@link UrlCanonicalizer#resolve(UrlCanonicalizer.Base, String)} directly.
      */
     public static String resolve(final String baseUrl, final String link) {
-        try {
-            URI baseUri = new URI(baseUrl);
-            URI resolvedUri = baseUri.resolve(link);
-            // Clean up fragment (#) from the URL
-            return new URI(
-                            resolvedUri.getScheme(),
-                            resolvedUri.getAuthority(),
-                            resolvedUri.getPath(),
-                            resolvedUri.getQuery(),
-                            null)
-                    .toString();
-        } catch (URISyntaxException e) {
-            LOGGER.warn("Could not resolve link '{}' against base '{}'. Reason: {}", link, baseUrl, e.getMessage());
-            // Could not parse the URI, return an invalid string to be filtered out later
+        String resolved = UrlCanonicalizer.resolve(UrlCanonicalizer.parseBase(baseUrl), link);
+        if (resolved == null) {
+            LOGGER.debug("Could not resolve link '{}' against base '{}'", link, baseUrl);
+            // Return an invalid string to be filtered out later
             return "";
         }
+        return resolved;
     }
 }
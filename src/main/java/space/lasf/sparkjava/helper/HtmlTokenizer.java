@@ -0,0 +1,458 @@
+package space.lasf.sparkjava.helper;
+
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * A single-pass, push-based HTML tokenizer that extracts what the crawler needs and nothing else.
+ * <p>
+ * The document is fed in chunks of any size (a chunk may end in the middle of a tag, an attribute or a comment)
+ * and is read exactly once. While reading, the tokenizer
+ * <ul>
+ *   <li>emits the {@code href} value of every {@code <a>} and {@code <area>} tag, whether it is double-quoted,
+ *       single-quoted or unquoted, optionally together with the visible text of the link, and</li>
+ *   <li>forwards runs of visible text straight from the caller's buffer to a {@link KeywordMatcher.Scan},
+ *       skipping tags, attributes, comments, declarations and the contents of {@code <script>} and
+ *       {@code <style>} elements. The start and end tags of block elements (and {@code <br>}) are forwarded as a
+ *       space, so that the texts of adjacent blocks never run together; inline tags are not.</li>
+ * </ul>
+ * Nothing is allocated per character: text is never copied and only {@code href} values become Strings.
+ * Character references (e.g. {@code &amp;}) are not decoded. An instance holds the parsing state of one
+ * document and is not thread-safe.
+ */
+public final class HtmlTokenizer {
+
+    private static final int MAX_NAME_LENGTH = 10;
+    private static final int MAX_HREF_LENGTH = 2048;
+    private static final int MAX_ANCHOR_LENGTH = 256;
+    private static final int STRING_CHUNK = 1024;
+    private static final int COMMENT_END_DASHES = 2;
+    private static final char[] LESS_THAN = {'<'};
+    private static final char[] BOUNDARY = {' '};
+    // The elements that break the flow of text, rendered as separate lines or cells.
+    private static final String[] BLOCK_ELEMENTS = ("address article aside blockquote br caption dd details div dl dt"
+                    + " fieldset figcaption figure footer form h1 h2 h3 h4 h5 h6 header hr li main nav ol option p"
+                    + " pre section summary table td th title tr ul")
+            .split(" ");
+    private static final char[] SCRIPT_END = "</script".toCharArray();
+    private static final char[] STYLE_END = "</style".toCharArray();
+
+    private enum State {
+        TEXT,
+        TAG_OPEN,
+        MARKUP_DECLARATION,
+        COMMENT,
+        SKIP_TAG,
+        RAW_TEXT,
+        END_TAG_NAME,
+        TAG_NAME,
+        BEFORE_ATTRIBUTE,
+        ATTRIBUTE_NAME,
+        AFTER_ATTRIBUTE_NAME,
+        BEFORE_VALUE,
+        DOUBLE_QUOTED_VALUE,
+        SINGLE_QUOTED_VALUE,
+        UNQUOTED_VALUE
+    }
+
+    private final KeywordMatcher.Scan text;
+    private final BiConsumer<String, String> links;
+    private final boolean anchorTexts;
+    private final StringBuilder anchorText = new StringBuilder();
+    private String pendingHref;
+    private final char[] name = new char[MAX_NAME_LENGTH];
+    private final StringBuilder value = new StringBuilder();
+    private char[] stringChunk;
+    private State state = State.TEXT;
+    private int nameLength;
+    private int dashes;
+    private boolean linkTag;
+    private boolean anchorTag;
+    private boolean capturing;
+    private char[] rawTextEnd;
+    private int rawTextMatched;
+
+    /**
+     * Creates a tokenizer for one document.
+     *
+     * @param text  The scan receiving the visible text.
+     * @param hrefs The consumer receiving the link targets, in document order.
+     */
+    public HtmlTokenizer(final KeywordMatcher.Scan text, final Consumer<String> hrefs) {
+        this(text, (href, ignored) -> hrefs.accept(href), false);
+    }
+
+    private HtmlTokenizer(
+            final KeywordMatcher.Scan text, final BiConsumer<String, String> links, final boolean anchorTexts) {
+        this.text = text;
+        this.links = links;
+        this.anchorTexts = anchorTexts;
+    }
+
+    /**
+     * Creates a tokenizer for one document that reports the visible text of every link with its target.
+     * <p>
+     * A link of an {@code <a>} tag is emitted when the element ends, with its text (at most 256 characters,
+     * nested markup excluded); {@link #finish()} emits a link left open at the end of the document. Links of
+     * {@code <area>} tags have no text.
+     *
+     * @param text  The scan receiving the visible text.
+     * @param links The consumer receiving the link targets and their texts, in document order.
+     * @return The tokenizer.
+     */
+    public static HtmlTokenizer withAnchorTexts(
+            final KeywordMatcher.Scan text, final BiConsumer<String, String> links) {
+        return new HtmlTokenizer(text, links, true);
+    }
+
+    /**
+     * Tokenizes the next chunk of the document.
+     *
+     * @param buffer The characters of the chunk.
+     * @param offset The index of the first character.
+     * @param length The number of characters.
+     */
+    public void feed(final char[] buffer, final int offset, final int length) {
+        final int end = offset + length;
+        int i = offset;
+        while (i < end) {
+            if (state == State.TEXT) {
+                i = scanText(buffer, i, end);
+            } else if (state == State.RAW_TEXT && rawTextMatched == 0) {
+                i = skipRawText(buffer, i, end);
+            } else {
+                step(buffer[i]);
+                i++;
+            }
+        }
+    }
+
+    /**
+     * Tokenizes the next chunk of the document.
+     *
+     * @param chunk The characters of the chunk.
+     */
+    public void feed(final String chunk) {
+        if (stringChunk == null) {
+            stringChunk = new char[STRING_CHUNK];
+        }
+        for (int start = 0; start < chunk.length(); start += STRING_CHUNK) {
+            int end = Math.min(chunk.length(), start + STRING_CHUNK);
+            chunk.getChars(start, end, stringChunk, 0);
+            feed(stringChunk, 0, end - start);
+        }
+    }
+
+    /** Emits the link of an {@code <a>} element left open at the end of the document, if any. */
+    public void finish() {
+        flushAnchor();
+    }
+
+    /** Forwards the text up to the next tag in one call and returns the index after the {@code '<'}. */
+    private int scanText(final char[] buffer, final int start, final int end) {
+        int i = start;
+        while (i < end && buffer[i] != '<') {
+            i++;
+        }
+        if (i > start) {
+            text.feed(buffer, start, i - start);
+            appendAnchorText(buffer, start, i);
+        }
+        if (i < end) {
+            state = State.TAG_OPEN;
+            i++;
+        }
+        return i;
+    }
+
+    /** Skips script or style content up to the next {@code '<'}, which may start the closing tag. */
+    private int skipRawText(final char[] buffer, final int start, final int end) {
+        int i = start;
+        while (i < end && buffer[i] != '<') {
+            i++;
+        }
+        if (i < end) {
+            rawTextMatched = 1;
+            i++;
+        }
+        return i;
+    }
+
+    private void step(final char c) {
+        if (state.ordinal() < State.TAG_NAME.ordinal()) {
+            stepMarkup(c);
+        } else {
+            stepTag(c);
+        }
+    }
+
+    private void stepMarkup(final char c) {
+        switch (state) {
+            case TAG_OPEN -> tagOpen(c);
+            case MARKUP_DECLARATION -> markupDeclaration(c);
+            case COMMENT -> comment(c);
+            case SKIP_TAG -> state = c == '>' ? State.TEXT : State.SKIP_TAG;
+            case RAW_TEXT -> rawText(c);
+            case END_TAG_NAME -> endTagName(c);
+            default -> throw new IllegalStateException(state.name());
+        }
+    }
+
+    private void stepTag(final char c) {
+        switch (state) {
+            case TAG_NAME -> tagName(c);
+            case BEFORE_ATTRIBUTE -> beforeAttribute(c);
+            case ATTRIBUTE_NAME -> attributeName(c);
+            case AFTER_ATTRIBUTE_NAME -> afterAttributeName(c);
+            case BEFORE_VALUE -> beforeValue(c);
+            case DOUBLE_QUOTED_VALUE -> quotedValue(c, '"');
+            case SINGLE_QUOTED_VALUE -> quotedValue(c, '\'');
+            default -> unquotedValue(c);
+        }
+    }
+
+    private void tagOpen(final char c) {
+        if (Character.isLetter(c)) {
+            nameLength = 0;
+            appendName(c);
+            state = State.TAG_NAME;
+        } else if (c == '!') {
+            dashes = 0;
+            state = State.MARKUP_DECLARATION;
+        } else if (c == '/') {
+            nameLength = 0;
+            state = State.END_TAG_NAME;
+        } else if (c == '?') {
+            state = State.SKIP_TAG;
+        } else {
+            // Not a tag after all (e.g. "a < b"): the '<' is text.
+            text.feed(LESS_THAN, 0, 1);
+            state = State.TEXT;
+            if (c == '<') {
+                state = State.TAG_OPEN;
+            } else {
+                text.feed(new char[] {c}, 0, 1);
+            }
+        }
+    }
+
+    private void markupDeclaration(final char c) {
+        if (c == '-' && dashes == 0) {
+            dashes = 1;
+        } else if (c == '-') {
+            dashes = 0;
+            state = State.COMMENT;
+        } else {
+            state = c == '>' ? State.TEXT : State.SKIP_TAG;
+        }
+    }
+
+    private void comment(final char c) {
+        if (c == '-') {
+            dashes++;
+        } else if (c == '>' && dashes >= COMMENT_END_DASHES) {
+            state = State.TEXT;
+        } else {
+            dashes = 0;
+        }
+    }
+
+    private void rawText(final char c) {
+        if (Character.toLowerCase(c) == rawTextEnd[rawTextMatched]) {
+            rawTextMatched++;
+            if (rawTextMatched == rawTextEnd.length) {
+                rawTextMatched = 0;
+                state = State.SKIP_TAG;
+            }
+        } else {
+            rawTextMatched = c == '<' ? 1 : 0;
+        }
+    }
+
+    private void endTagName(final char c) {
+        if (c == '>' || Character.isWhitespace(c)) {
+            if (nameIs("a")) {
+                flushAnchor();
+            }
+            emitBoundary();
+            state = c == '>' ? State.TEXT : State.SKIP_TAG;
+        } else {
+            appendName(c);
+        }
+    }
+
+    private void tagName(final char c) {
+        if (c == '>') {
+            startTag();
+            endTag();
+        } else if (Character.isWhitespace(c) || c == '/') {
+            startTag();
+            state = State.BEFORE_ATTRIBUTE;
+        } else {
+            appendName(c);
+        }
+    }
+
+    private void beforeAttribute(final char c) {
+        if (c == '>') {
+            endTag();
+        } else if (!Character.isWhitespace(c) && c != '/') {
+            nameLength = 0;
+            appendName(c);
+            state = State.ATTRIBUTE_NAME;
+        }
+    }
+
+    private void attributeName(final char c) {
+        if (c == '=') {
+            startValue();
+        } else if (c == '>') {
+            endTag();
+        } else if (Character.isWhitespace(c)) {
+            state = State.AFTER_ATTRIBUTE_NAME;
+        } else if (c == '/') {
+            state = State.BEFORE_ATTRIBUTE;
+        } else {
+            appendName(c);
+        }
+    }
+
+    private void afterAttributeName(final char c) {
+        if (c == '=') {
+            startValue();
+        } else if (c == '>') {
+            endTag();
+        } else if (!Character.isWhitespace(c)) {
+            nameLength = 0;
+            appendName(c);
+            state = State.ATTRIBUTE_NAME;
+        }
+    }
+
+    private void beforeValue(final char c) {
+        if (c == '"') {
+            state = State.DOUBLE_QUOTED_VALUE;
+        } else if (c == '\'') {
+            state = State.SINGLE_QUOTED_VALUE;
+        } else if (c == '>') {
+            endTag();
+        } else if (!Character.isWhitespace(c)) {
+            state = State.UNQUOTED_VALUE;
+            appendValue(c);
+        }
+    }
+
+    private void quotedValue(final char c, final char quote) {
+        if (c == quote) {
+            endValue();
+            state = State.BEFORE_ATTRIBUTE;
+        } else {
+            appendValue(c);
+        }
+    }
+
+    private void unquotedValue(final char c) {
+        if (c == '>') {
+            endValue();
+            endTag();
+        } else if (Character.isWhitespace(c)) {
+            endValue();
+            state = State.BEFORE_ATTRIBUTE;
+        } else {
+            appendValue(c);
+        }
+    }
+
+    private void startTag() {
+        anchorTag = nameIs("a");
+        linkTag = anchorTag || nameIs("area");
+        if (anchorTag) {
+            // An <a> is never nested: a new one ends the previous element.
+            flushAnchor();
+        }
+        emitBoundary();
+        rawTextEnd = null;
+        if (nameIs("script")) {
+            rawTextEnd = SCRIPT_END;
+        } else if (nameIs("style")) {
+            rawTextEnd = STYLE_END;
+        }
+    }
+
+    private void endTag() {
+        state = rawTextEnd == null ? State.TEXT : State.RAW_TEXT;
+        rawTextMatched = 0;
+    }
+
+    private void startValue() {
+        capturing = linkTag && nameIs("href");
+        value.setLength(0);
+        state = State.BEFORE_VALUE;
+    }
+
+    private void appendValue(final char c) {
+        if (capturing) {
+            if (value.length() < MAX_HREF_LENGTH) {
+                value.append(c);
+            } else {
+                capturing = false;
+            }
+        }
+    }
+
+    private void endValue() {
+        if (capturing) {
+            String href = value.toString().trim();
+            capturing = false;
+            if (anchorTexts && anchorTag) {
+                pendingHref = href;
+                anchorText.setLength(0);
+            } else {
+                links.accept(href, "");
+            }
+        }
+    }
+
+    /** Separates the text before a block tag from the text after it. */
+    private void emitBoundary() {
+        for (String element : BLOCK_ELEMENTS) {
+            if (nameIs(element)) {
+                text.feed(BOUNDARY, 0, 1);
+                appendAnchorText(BOUNDARY, 0, 1);
+                return;
+            }
+        }
+    }
+
+    private void appendAnchorText(final char[] buffer, final int start, final int end) {
+        if (pendingHref != null) {
+            anchorText.append(buffer, start, Math.min(end - start, MAX_ANCHOR_LENGTH - anchorText.length()));
+        }
+    }
+
+    private void flushAnchor() {
+        if (pendingHref != null) {
+            links.accept(pendingHref, anchorText.toString().trim());
+            pendingHref = null;
+        }
+    }
+
+    private void appendName(final char c) {
+        if (nameLength < MAX_NAME_LENGTH) {
+            name[nameLength] = Character.toLowerCase(c);
+        }
+        nameLength++;
+    }
+
+    private boolean nameIs(final String expected) {
+        if (nameLength != expected.length()) {
+            return false;
+        }
+        for (int i = 0; i < nameLength; i++) {
+            if (name[i] != expected.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,432 @@
+package space.lasf.sparkjava.helper;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A persistent HTTP response cache shared by every crawl job.
+ * <p>
+ * Each entry is keyed by the canonical form of the URL and stores the response validators
+ * ({@code ETag}, {@code Last-Modified}) next to the body on local disk. Entries younger than the freshness
+ * window are served without touching the network; older ones are revalidated with a conditional GET and served
+ * from disk on {@code 304 Not Modified}. The least recently used entries are evicted once the entry or byte
+ * limits are exceeded. This class is thread-safe.
+ */
+public class HttpResponseCache {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(HttpResponseCache.class);
+    private static final String META_SUFFIX = ".meta";
+    private static final String BODY_SUFFIX = ".body";
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final int FORMAT_VERSION = 2;
+    private static final int HTTP_DEFAULT_PORT = 80;
+    private static final int HTTPS_DEFAULT_PORT = 443;
+    private static final int INITIAL_CAPACITY = 256;
+    private static final float LOAD_FACTOR = 0.75f;
+    private static final int SKIP_BUFFER_SIZE = 8192;
+
+    private final Path directory;
+    private final long maxBytes;
+    private final int maxEntries;
+    private final long freshnessMillis;
+    // Access-ordered map: iteration starts at the least recently used entry.
+    private final Map<String, Entry> index = new LinkedHashMap<>(INITIAL_CAPACITY, LOAD_FACTOR, true);
+    private long totalBytes;
+
+    /**
+     * Opens (or creates) a cache directory and loads the entries stored by previous runs.
+     *
+     * @param directory       The directory holding the cached responses.
+     * @param maxBytes        The maximum total size of the cached bodies.
+     * @param maxEntries      The maximum number of cached responses.
+     * @param freshnessMillis How long an entry is served without revalidation.
+     * @throws IOException if the directory cannot be created or read.
+     */
+    public HttpResponseCache(
+            final Path directory, final long maxBytes, final int maxEntries, final long freshnessMillis)
+            throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.maxBytes = maxBytes;
+        this.maxEntries = maxEntries;
+        this.freshnessMillis = freshnessMillis;
+        loadIndex();
+    }
+
+    /**
+     * Returns the canonical cache key of a URL: lower-case scheme and host, default port and fragment removed,
+     * dot segments resolved.
+     *
+     * @param url The URL to canonicalize.
+     * @return The cache key.
+     */
+    public static String cacheKey(final String url) {
+        try {
+            URI uri = URI.create(url).normalize();
+            String scheme = uri.getScheme() == null ? "" : uri.getScheme().toLowerCase(Locale.ROOT);
+            String host = uri.getHost() == null ? "" : uri.getHost().toLowerCase(Locale.ROOT);
+            String port = isDefaultPort(scheme, uri.getPort()) ? "" : ":" + uri.getPort();
+            String path = uri.getRawPath() == null || uri.getRawPath().isEmpty() ? "/" : uri.getRawPath();
+            String query = uri.getRawQuery() == null ? "" : "?" + uri.getRawQuery();
+            return scheme + "://" + host + port + path + query;
+        } catch (IllegalArgumentException e) {
+            return url;
+        }
+    }
+
+    private static boolean isDefaultPort(final String scheme, final int port) {
+        return port == -1
+                || "http".equals(scheme) && port == HTTP_DEFAULT_PORT
+                || "https".equals(scheme) && port == HTTPS_DEFAULT_PORT;
+    }
+
+    /**
+     * Looks up the cached response of a URL.
+     *
+     * @param url The requested URL.
+     * @return The cache entry, if any.
+     */
+    public synchronized Optional<Entry> lookup(final String url) {
+        return Optional.ofNullable(index.get(cacheKey(url)));
+    }
+
+    /**
+     * Checks whether an entry can be served without revalidation.
+     *
+     * @param entry The cache entry.
+     * @return {@code true} if the entry is within the freshness window.
+     */
+    public boolean isFresh(final Entry entry) {
+        return System.currentTimeMillis() - entry.validatedAt < freshnessMillis;
+    }
+
+    /**
+     * Opens the cached body of an entry.
+     *
+     * @param entry The cache entry.
+     * @return A stream over the cached body, which the caller must close.
+     * @throws IOException if the body file cannot be opened (e.g. it was evicted meanwhile).
+     */
+    public InputStream openBody(final Entry entry) throws IOException {
+        return new BufferedInputStream(Files.newInputStream(bodyFile(entry.fileName)));
+    }
+
+    /**
+     * Records that the server confirmed the entry is still valid ({@code 304 Not Modified}),
+     * restarting its freshness window.
+     *
+     * @param entry The revalidated entry.
+     */
+    public synchronized void markRevalidated(final Entry entry) {
+        Entry current = index.get(entry.key);
+        if (current == null || !current.fileName.equals(entry.fileName)) {
+            return;
+        }
+        Entry refreshed = new Entry(entry.key, entry.metadata, System.currentTimeMillis(), entry.size);
+        index.put(entry.key, refreshed);
+        writeMetaQuietly(refreshed);
+    }
+
+    /**
+     * Wraps a response body so that it is written to the cache while the caller reads it. The entry is only
+     * committed when the body has been read to the end; a body that is closed early is discarded.
+     *
+     * @param url      The requested URL.
+     * @param metadata The response headers kept with the body.
+     * @param body     The decoded response body.
+     * @return A stream returning the same bytes as {@code body}.
+     */
+    public InputStream store(final String url, final Metadata metadata, final InputStream body) {
+        Entry pending = new Entry(cacheKey(url), metadata, System.currentTimeMillis(), 0);
+        try {
+            Path temp = Files.createTempFile(directory, pending.fileName, TEMP_SUFFIX);
+            return new CachingInputStream(body, temp, pending);
+        } catch (IOException e) {
+            LOGGER.warn("Could not create cache file for {}: {}", url, e.getMessage());
+            return body;
+        }
+    }
+
+    /**
+     * Returns the number of cached responses.
+     *
+     * @return The entry count.
+     */
+    public synchronized int size() {
+        return index.size();
+    }
+
+    private synchronized void commit(final Entry entry, final Path temp) throws IOException {
+        Files.move(temp, bodyFile(entry.fileName), StandardCopyOption.REPLACE_EXISTING);
+        Entry previous = index.put(entry.key, entry);
+        if (previous != null) {
+            totalBytes -= previous.size;
+        }
+        totalBytes += entry.size;
+        writeMetaQuietly(entry);
+        evictIfNeeded();
+    }
+
+    private void evictIfNeeded() {
+        Iterator<Entry> eldest = index.values().iterator();
+        while (eldest.hasNext() && (totalBytes > maxBytes || index.size() > maxEntries)) {
+            Entry entry = eldest.next();
+            eldest.remove();
+            totalBytes -= entry.size;
+            deleteQuietly(metaFile(entry.fileName));
+            deleteQuietly(bodyFile(entry.fileName));
+        }
+    }
+
+    private void loadIndex() throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.forEach(file -> {
+                String name = file.getFileName().toString();
+                if (name.endsWith(META_SUFFIX)) {
+                    readMeta(file).ifPresent(entries::add);
+                } else if (name.endsWith(TEMP_SUFFIX)) {
+                    deleteQuietly(file);
+                }
+            });
+        }
+        entries.sort(Comparator.comparingLong(entry -> entry.validatedAt));
+        synchronized (this) {
+            entries.forEach(entry -> {
+                index.put(entry.key, entry);
+                totalBytes += entry.size;
+            });
+            evictIfNeeded();
+        }
+        LOGGER.info("HTTP cache at {} loaded with {} entries ({} bytes)", directory, entries.size(), totalBytes);
+    }
+
+    private Optional<Entry> readMeta(final Path file) {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != FORMAT_VERSION) {
+                return Optional.empty();
+            }
+            String key = in.readUTF();
+            Metadata metadata = new Metadata(readNullable(in), readNullable(in), readNullable(in));
+            Entry entry = new Entry(key, metadata, in.readLong(), in.readLong());
+            return Files.exists(bodyFile(entry.fileName)) ? Optional.of(entry) : Optional.empty();
+        } catch (IOException e) {
+            LOGGER.warn("Ignoring unreadable cache entry {}: {}", file, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    private void writeMetaQuietly(final Entry entry) {
+        Path meta = metaFile(entry.fileName);
+        try {
+            Path temp = Files.createTempFile(directory, entry.fileName, TEMP_SUFFIX);
+            try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(temp))) {
+                out.writeInt(FORMAT_VERSION);
+                out.writeUTF(entry.key);
+                writeNullable(out, entry.metadata.etag);
+                writeNullable(out, entry.metadata.lastModified);
+                writeNullable(out, entry.metadata.contentType);
+                out.writeLong(entry.validatedAt);
+                out.writeLong(entry.size);
+            }
+            Files.move(temp, meta, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            LOGGER.warn("Could not write cache metadata {}: {}", meta, e.getMessage());
+        }
+    }
+
+    private static String readNullable(final DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static void writeNullable(final DataOutputStream out, final String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private Path metaFile(final String fileName) {
+        return directory.resolve(fileName + META_SUFFIX);
+    }
+
+    private Path bodyFile(final String fileName) {
+        return directory.resolve(fileName + BODY_SUFFIX);
+    }
+
+    private static void deleteQuietly(final Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            LOGGER.warn("Could not delete cache file {}: {}", file, e.getMessage());
+        }
+    }
+
+    private static String sha256(final String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * The response headers stored next to a cached body.
+     */
+    public static final class Metadata {
+        private final String etag;
+        private final String lastModified;
+        private final String contentType;
+
+        /**
+         * Creates the metadata of a response.
+         *
+         * @param etag         The {@code ETag} header, or {@code null}.
+         * @param lastModified The {@code Last-Modified} header, or {@code null}.
+         * @param contentType  The {@code Content-Type} header, or {@code null}.
+         */
+        public Metadata(final String etag, final String lastModified, final String contentType) {
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.contentType = contentType;
+        }
+    }
+
+    /**
+     * An immutable description of one cached response.
+     */
+    public static final class Entry {
+        private final String key;
+        private final String fileName;
+        private final Metadata metadata;
+        private final long validatedAt;
+        private final long size;
+
+        private Entry(final String key, final Metadata metadata, final long validatedAt, final long size) {
+            this.key = key;
+            this.fileName = sha256(key);
+            this.metadata = metadata;
+            this.validatedAt = validatedAt;
+            this.size = size;
+        }
+
+        public String getEtag() {
+            return metadata.etag;
+        }
+
+        public String getLastModified() {
+            return metadata.lastModified;
+        }
+
+        public String getContentType() {
+            return metadata.contentType;
+        }
+
+        public long getSize() {
+            return size;
+        }
+    }
+
+    /**
+     * Copies every byte read from the wrapped body into a temporary file and commits it on end-of-stream.
+     */
+    private final class CachingInputStream extends FilterInputStream {
+        private final Path temp;
+        private final Entry pending;
+        private final OutputStream out;
+        private long written;
+        private boolean complete;
+
+        private CachingInputStream(final InputStream in, final Path temp, final Entry pending) throws IOException {
+            super(in);
+            this.temp = temp;
+            this.pending = pending;
+            this.out = Files.newOutputStream(temp);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int value = super.read();
+            if (value < 0) {
+                complete = true;
+            } else {
+                out.write(value);
+                written++;
+            }
+            return value;
+        }
+
+        @Override
+        public int read(final byte[] buffer, final int offset, final int length) throws IOException {
+            int read = super.read(buffer, offset, length);
+            if (read < 0) {
+                complete = true;
+            } else {
+                out.write(buffer, offset, read);
+                written += read;
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(final long n) throws IOException {
+            // Skipped bytes would leave a hole in the cached copy, so they are read instead.
+            byte[] sink = new byte[(int) Math.min(n, SKIP_BUFFER_SIZE)];
+            int read = read(sink, 0, sink.length);
+            return Math.max(read, 0);
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                out.close();
+                finish();
+            }
+        }
+
+        private void finish() {
+            if (!complete || written > maxBytes) {
+                deleteQuietly(temp);
+                return;
+            }
+            Entry entry = new Entry(pending.key, pending.metadata, pending.validatedAt, written);
+            try {
+                commit(entry, temp);
+            } catch (IOException e) {
+                LOGGER.warn("Could not commit cache entry {}: {}", pending.key, e.getMessage());
+                deleteQuietly(temp);
+            }
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package space.lasf.sparkjava.helper;
+
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Defines the contract for a keyword search compiled once per crawl job and applied to every page.
+ * A matcher may search for several keywords at once; they are identified by their index in {@link #getKeywords()}.
+ * Implementations must be immutable and thread-safe; per-page state lives in a {@link Scan}.
+ */
+public interface KeywordMatcher {
+
+    /**
+     * Compiles the best matcher for a list of keywords: Boyer-Moore-Horspool for a single keyword,
+     * Aho-Corasick for several.
+     *
+     * @param keywords The non-empty keywords to search for, without duplicates.
+     * @return The compiled matcher.
+     */
+    static KeywordMatcher compile(final List<String> keywords) {
+        if (keywords != null && keywords.size() == 1) {
+            return new HorspoolMatcher(keywords.get(0));
+        }
+        return new AhoCorasickMatcher(keywords);
+    }
+
+    /**
+     * Returns the keywords searched for, in the order used by {@link Scan#getMatches()}.
+     *
+     * @return An immutable list of the keywords.
+     */
+    List<String> getKeywords();
+
+    /**
+     * Starts an incremental search over a new document.
+     *
+     * @return A fresh scan state, to be used by a single thread.
+     */
+    Scan newScan();
+
+    /**
+     * Checks whether the keyword occurs anywhere in the given text.
+     *
+     * @param text The text to search.
+     * @return {@code true} if the keyword was found, {@code false} otherwise.
+     */
+    default boolean containedIn(final CharSequence text) {
+        Scan scan = newScan();
+        scan.feed(text);
+        return scan.isFound();
+    }
+
+    /**
+     * The incremental state of a search over one document, fed chunk by chunk in document order.
+     * Matches spanning chunk boundaries are detected.
+     */
+    interface Scan {
+
+        /**
+         * Feeds the next chunk of the document.
+         *
+         * @param chars  The buffer holding the chunk.
+         * @param offset The index of the first character of the chunk.
+         * @param length The number of characters in the chunk.
+         */
+        void feed(char[] chars, int offset, int length);
+
+        /**
+         * Feeds the next chunk of the document.
+         *
+         * @param text The chunk to search.
+         */
+        void feed(CharSequence text);
+
+        /**
+         * Reports whether any keyword has been seen in the chunks fed so far.
+         *
+         * @return {@code true} once a keyword was found.
+         */
+        boolean isFound();
+
+        /**
+         * Returns the keywords seen in the chunks fed so far.
+         * The default suits single-keyword scans: keyword {@code 0} is set once {@link #isFound()}.
+         *
+         * @return The indexes (in {@link KeywordMatcher#getKeywords()}) of the keywords found.
+         */
+        default BitSet getMatches() {
+            BitSet matches = new BitSet(1);
+            matches.set(0, isFound());
+            return matches;
+        }
+
+        /**
+         * Reports whether every keyword has been seen, so feeding more text cannot change the result.
+         *
+         * @return {@code true} once all keywords were found.
+         */
+        default boolean isComplete() {
+            return isFound();
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package space.lasf.sparkjava.helper;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Scores discovered links for a best-first frontier by how likely they are to lead to the keywords.
+ * <p>
+ * A link earns points for every keyword in its anchor text and for every keyword whose words all appear in its
+ * URL (e.g. {@code spark java} in {@code /docs/spark-java.html}), plus a share of the keywords found on the page
+ * that links to it, and loses points with its depth, so that the search stays close to the seed when nothing
+ * else tells the links apart. Keywords are compared case-insensitively. This class is immutable.
+ */
+public final class LinkScorer {
+
+    static final double ANCHOR_WEIGHT = 4.0;
+    static final double URL_WEIGHT = 2.0;
+    static final double PARENT_WEIGHT = 3.0;
+    static final double DEPTH_PENALTY = 0.5;
+
+    private final String[] keywords;
+    private final String[][] keywordWords;
+
+    /**
+     * Creates a scorer for the keywords of the jobs sharing a crawl.
+     *
+     * @param keywords The keywords searched for.
+     */
+    public LinkScorer(final List<String> keywords) {
+        this.keywords = new String[keywords.size()];
+        this.keywordWords = new String[keywords.size()][];
+        for (int i = 0; i < this.keywords.length; i++) {
+            this.keywords[i] = keywords.get(i).toLowerCase(Locale.ROOT);
+            this.keywordWords[i] = Arrays.stream(this.keywords[i].split("[^\\p{L}\\p{N}]+"))
+                    .filter(word -> !word.isEmpty())
+                    .toArray(String[]::new);
+        }
+    }
+
+    /**
+     * Scores a link.
+     *
+     * @param url           The canonical URL of the link.
+     * @param anchorText    The visible text of the link, possibly empty.
+     * @param depth         The depth of the link: the depth of the page linking to it plus one.
+     * @param parentHitRate The share of the keywords found on the page linking to it, from 0 to 1.
+     * @return The score; higher is fetched sooner.
+     */
+    public double score(final String url, final String anchorText, final int depth, final double parentHitRate) {
+        String lowerUrl = url.toLowerCase(Locale.ROOT);
+        String lowerText = anchorText.toLowerCase(Locale.ROOT);
+        double score = PARENT_WEIGHT * parentHitRate - DEPTH_PENALTY * depth;
+        for (int i = 0; i < keywords.length; i++) {
+            if (!lowerText.isEmpty() && lowerText.contains(keywords[i])) {
+                score += ANCHOR_WEIGHT;
+            }
+            if (containsAll(lowerUrl, keywordWords[i])) {
+                score += URL_WEIGHT;
+            }
+        }
+        return score;
+    }
+
+    private static boolean containsAll(final String text, final String[] words) {
+        if (words.length == 0) {
+            return false;
+        }
+        for (String word : words) {
+            if (!text.contains(word)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,58 @@
+package space.lasf.sparkjava.helper;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Unmaps memory-mapped files before the garbage collector would.
+ * <p>
+ * A mapping keeps its file open until the buffer is collected: the disk space of a deleted file is not freed
+ * meanwhile, and Windows refuses to delete it at all. The JDK only releases a mapping early through
+ * {@code sun.misc.Unsafe.invokeCleaner}, which is looked up reflectively; where it is missing, mappings are left
+ * to the garbage collector.
+ */
+final class MappedBuffers {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MappedBuffers.class);
+    private static final MethodHandle INVOKE_CLEANER = findCleaner();
+
+    private MappedBuffers() {
+        throw new UnsupportedOperationException("This is a utility class and cannot be instantiated");
+    }
+
+    /**
+     * Unmaps a buffer. The buffer must not be used afterwards: any access would crash the JVM.
+     *
+     * @param buffer The mapped buffer to release.
+     */
+    static void unmap(final MappedByteBuffer buffer) {
+        if (INVOKE_CLEANER == null) {
+            return;
+        }
+        try {
+            INVOKE_CLEANER.invokeExact((ByteBuffer) buffer);
+        } catch (Throwable e) {
+            LOGGER.warn("Could not unmap a buffer: {}", e.toString());
+        }
+    }
+
+    private static MethodHandle findCleaner() {
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            return MethodHandles.lookup()
+                    .findVirtual(unsafeClass, "invokeCleaner", MethodType.methodType(void.class, ByteBuffer.class))
+                    .bindTo(theUnsafe.get(null));
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            LOGGER.debug("Mapped buffers are left to the garbage collector: {}", e.toString());
+            return null;
+        }
+    }
+}
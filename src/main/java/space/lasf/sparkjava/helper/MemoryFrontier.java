@@ -0,0 +1,38 @@
+package space.lasf.sparkjava.helper;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.function.Consumer;
+
+/**
+ * A {@link Frontier} held entirely on the heap, without any limit.
+ */
+public final class MemoryFrontier implements Frontier {
+
+    private final Queue<FrontierEntry> urls = new ArrayDeque<>();
+
+    @Override
+    public boolean add(final FrontierEntry entry) {
+        return urls.add(entry);
+    }
+
+    @Override
+    public FrontierEntry poll() {
+        return urls.poll();
+    }
+
+    @Override
+    public long size() {
+        return urls.size();
+    }
+
+    @Override
+    public void forEach(final Consumer<FrontierEntry> action) {
+        urls.forEach(action);
+    }
+
+    @Override
+    public void close() {
+        urls.clear();
+    }
+}
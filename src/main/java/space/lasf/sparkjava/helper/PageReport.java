@@ -0,0 +1,62 @@
+package space.lasf.sparkjava.helper;
+
+import java.util.List;
+
+/**
+ * What a cluster node tells the coordinator of a job about a page it crawled for the job. This class is immutable.
+ */
+public final class PageReport {
+
+    private final String url;
+    private final List<String> hits;
+    private final long wireBytes;
+    private final long decodedBytes;
+    private final boolean fromCache;
+
+    /**
+     * Creates a report.
+     *
+     * @param url          The page URL.
+     * @param hits         The keywords found on the page, possibly none.
+     * @param wireBytes    The bytes of the page as received.
+     * @param decodedBytes The bytes of the page once decompressed.
+     * @param fromCache    Whether the page was served by the response cache.
+     */
+    public PageReport(
+            final String url,
+            final List<String> hits,
+            final long wireBytes,
+            final long decodedBytes,
+            final boolean fromCache) {
+        this.url = url;
+        this.hits = List.copyOf(hits);
+        this.wireBytes = wireBytes;
+        this.decodedBytes = decodedBytes;
+        this.fromCache = fromCache;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public List<String> getHits() {
+        return hits;
+    }
+
+    public long getWireBytes() {
+        return wireBytes;
+    }
+
+    public long getDecodedBytes() {
+        return decodedBytes;
+    }
+
+    public boolean isFromCache() {
+        return fromCache;
+    }
+
+    @Override
+    public String toString() {
+        return url + "[hits=" + hits + "]";
+    }
+}
@@ -0,0 +1,99 @@
+package space.lasf.sparkjava.helper;
+
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The outcome of scanning one page: which keywords were found, the links it contains (with their text)
+ * and how much of the body was read.
+ */
+public final class PageScan {
+
+    private final BitSet matches;
+    private final List<String> links;
+    private final List<String> anchorTexts;
+    private final long bytesRead;
+    private final boolean truncated;
+
+    /**
+     * Creates a scan result.
+     *
+     * @param matches   The indexes of the keywords found in the page (see {@link KeywordMatcher#getKeywords()}).
+     * @param links     The links extracted from the page.
+     * @param bytesRead The number of body bytes consumed.
+     * @param truncated Whether reading stopped at the body size limit.
+     */
+    public PageScan(final BitSet matches, final List<String> links, final long bytesRead, final boolean truncated) {
+        this(matches, links, Collections.nCopies(links.size(), ""), bytesRead, truncated);
+    }
+
+    /**
+     * Creates a scan result that knows the visible text of each link.
+     *
+     * @param matches     The indexes of the keywords found in the page (see {@link KeywordMatcher#getKeywords()}).
+     * @param links       The links extracted from the page.
+     * @param anchorTexts The text of each link, at the same index, or an empty string.
+     * @param bytesRead   The number of body bytes consumed.
+     * @param truncated   Whether reading stopped at the body size limit.
+     */
+    public PageScan(
+            final BitSet matches,
+            final List<String> links,
+            final List<String> anchorTexts,
+            final long bytesRead,
+            final boolean truncated) {
+        if (anchorTexts.size() != links.size()) {
+            throw new IllegalArgumentException("Every link needs an anchor text.");
+        }
+        this.matches = (BitSet) matches.clone();
+        this.links = List.copyOf(links);
+        this.anchorTexts = List.copyOf(anchorTexts);
+        this.bytesRead = bytesRead;
+        this.truncated = truncated;
+    }
+
+    public boolean isKeywordFound() {
+        return !matches.isEmpty();
+    }
+
+    /**
+     * Returns the indexes of the keywords found in the page.
+     *
+     * @return A copy of the match set.
+     */
+    public BitSet getMatches() {
+        return (BitSet) matches.clone();
+    }
+
+    /**
+     * Returns the keywords found in the page.
+     *
+     * @param keywords The keywords of the matcher used for the scan.
+     * @return The found keywords, in matcher order.
+     */
+    public List<String> getMatchedKeywords(final List<String> keywords) {
+        return matches.stream().mapToObj(keywords::get).toList();
+    }
+
+    public List<String> getLinks() {
+        return links;
+    }
+
+    /**
+     * Returns the visible text of each link, in the order of {@link #getLinks()}.
+     *
+     * @return The anchor texts; empty strings for links without text.
+     */
+    public List<String> getAnchorTexts() {
+        return anchorTexts;
+    }
+
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    public boolean isTruncated() {
+        return truncated;
+    }
+}
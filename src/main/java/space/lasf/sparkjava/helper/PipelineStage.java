@@ -0,0 +1,81 @@
+package space.lasf.sparkjava.helper;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * One stage of the crawl pipeline: a fixed pool of worker threads fed by a bounded queue.
+ * <p>
+ * When the queue is full, the task runs on the thread that submits it, which slows the previous stage down
+ * instead of letting the queue grow. Idle workers stop after a while, and the workers are daemon threads, so an
+ * unused stage costs nothing. This class is thread-safe.
+ */
+public final class PipelineStage implements Executor {
+
+    private static final long KEEP_ALIVE_SECONDS = 60;
+
+    private final String name;
+    private final int capacity;
+    private final ThreadPoolExecutor workers;
+
+    /**
+     * Creates a stage.
+     *
+     * @param name     The name of the stage, used for its threads and statistics.
+     * @param threads  The number of worker threads.
+     * @param capacity The number of tasks that may wait for a worker.
+     */
+    public PipelineStage(final String name, final int threads, final int capacity) {
+        if (threads < 1 || capacity < 1) {
+            throw new IllegalArgumentException("A stage needs at least one worker and one queue slot.");
+        }
+        this.name = name;
+        this.capacity = capacity;
+        final AtomicInteger count = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(
+                threads,
+                threads,
+                KEEP_ALIVE_SECONDS,
+                TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(capacity),
+                task -> {
+                    Thread thread = new Thread(task, "crawl-" + name + "-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        workers.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Queues a task for the workers of the stage, or runs it right away if the queue is full.
+     *
+     * @param task The task.
+     */
+    @Override
+    public void execute(final Runnable task) {
+        workers.execute(task);
+    }
+
+    /**
+     * Returns the current load of the stage.
+     *
+     * @return The statistics of the stage.
+     */
+    public StageStats getStats() {
+        return new StageStats(
+                name,
+                workers.getMaximumPoolSize(),
+                workers.getActiveCount(),
+                workers.getQueue().size(),
+                capacity);
+    }
+
+    /** Stops the workers once the queued tasks are done. */
+    public void shutdown() {
+        workers.shutdown();
+    }
+}
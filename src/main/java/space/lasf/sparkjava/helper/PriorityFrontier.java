@@ -0,0 +1,98 @@
+package space.lasf.sparkjava.helper;
+
+import java.util.Comparator;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+
+/**
+ * A best-first {@link Frontier}: the entry with the highest score is polled first, and entries with equal
+ * scores leave in insertion order.
+ * <p>
+ * Entries are kept sorted on the heap while the memory quota allows, a quota the frontiers of one job may share.
+ * Beyond it, the lowest-scored entry is moved to an overflow frontier (normally a {@link SpillingFrontier}), and
+ * every poll tops the heap up again from the oldest overflow entries, or takes the oldest one directly while the
+ * quota is taken by the other frontiers. Ordering is therefore exact while the frontier fits in memory, and
+ * approximate beyond.
+ */
+public final class PriorityFrontier implements Frontier {
+
+    private static final Comparator<Node> BEST_FIRST =
+            Comparator.comparingDouble((Node node) -> -node.entry.getScore()).thenComparingLong(node -> node.sequence);
+
+    private final SpillingFrontier.Quota memory;
+    private final Frontier overflow;
+    private final NavigableSet<Node> heap = new TreeSet<>(BEST_FIRST);
+    private long nextSequence;
+
+    /**
+     * Creates an empty frontier.
+     *
+     * @param maxInMemory The maximum number of entries kept sorted on the heap, at least 1.
+     * @param overflow    The frontier receiving the lowest-scored entries once the heap is full.
+     */
+    public PriorityFrontier(final int maxInMemory, final Frontier overflow) {
+        this(new SpillingFrontier.Quota(maxInMemory), overflow);
+        if (maxInMemory < 1) {
+            throw new IllegalArgumentException("The frontier must keep at least one entry in memory.");
+        }
+    }
+
+    PriorityFrontier(final SpillingFrontier.Quota memory, final Frontier overflow) {
+        this.memory = memory;
+        this.overflow = overflow;
+    }
+
+    @Override
+    public boolean add(final FrontierEntry entry) {
+        if (memory.reserve(1)) {
+            return heap.add(new Node(entry, nextSequence++));
+        }
+        if (!heap.isEmpty() && entry.getScore() > heap.last().entry.getScore()) {
+            heap.add(new Node(entry, nextSequence++));
+            return overflow.add(heap.pollLast().entry);
+        }
+        return overflow.add(entry);
+    }
+
+    @Override
+    public FrontierEntry poll() {
+        for (int i = 0; i < SpillingFrontier.REFILL_URLS && !overflow.isEmpty() && memory.reserve(1); i++) {
+            heap.add(new Node(overflow.poll(), nextSequence++));
+        }
+        Node best = heap.pollFirst();
+        if (best == null) {
+            return overflow.poll();
+        }
+        memory.release(1);
+        return best.entry;
+    }
+
+    @Override
+    public long size() {
+        return heap.size() + overflow.size();
+    }
+
+    @Override
+    public void forEach(final Consumer<FrontierEntry> action) {
+        heap.forEach(node -> action.accept(node.entry));
+        overflow.forEach(action);
+    }
+
+    @Override
+    public void close() {
+        memory.release(heap.size());
+        heap.clear();
+        overflow.close();
+    }
+
+    private static final class Node {
+        private final FrontierEntry entry;
+        private final long sequence;
+
+        private Node(final FrontierEntry entry, final long sequence) {
+            this.entry = entry;
+            this.sequence = sequence;
+        }
+    }
+}
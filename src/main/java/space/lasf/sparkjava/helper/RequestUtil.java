@@ -2,8 +2,13 @@ package space.lasf.sparkjava.helper;
 
 import com.google.gson.Gson;
 import com.google.gson.JsonSyntaxException;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+import space.lasf.sparkjava.dto.CrawlRequestDto;
 import space.lasf.sparkjava.exception.InvalidRequestException;
 import spark.Request;
 
@@ -57,4 +62,62 @@ public final class RequestUtil {
             throw new InvalidRequestException("Invalid JSON format in request body.", e);
         }
     }
+
+    /**
+     * Parses the JSON body of a crawl request.
+     * Accepts a single keyword, a list of keywords, or both: {"keyword": "a", "keywords": ["b", "c"]}.
+     * The keywords of the returned request are the non-blank values of both fields, in order, without duplicates;
+     * {@code keyword} is cleared.
+     *
+     * @param req  The Spark request object.
+     * @param gson The JSON parser.
+     * @return The parsed crawl request.
+     * @throws InvalidRequestException if the request body is not valid JSON or contains no keyword.
+     */
+    public static CrawlRequestDto getBodyCrawlRequest(final Request req, final Gson gson) {
+        CrawlRequestDto request;
+        try {
+            request = gson.fromJson(req.body(), CrawlRequestDto.class);
+        } catch (JsonSyntaxException e) {
+            throw new InvalidRequestException("Invalid JSON format in request body.", e);
+        }
+        if (request == null) {
+            throw new InvalidRequestException("Request body must contain a non-empty 'keyword' or 'keywords' field.");
+        }
+        Set<String> keywords = new LinkedHashSet<>();
+        Stream.concat(
+                        Stream.ofNullable(request.getKeyword()),
+                        Stream.ofNullable(request.getKeywords()).flatMap(List::stream))
+                .filter(keyword -> keyword != null && !keyword.isBlank())
+                .forEach(keywords::add);
+        if (keywords.isEmpty()) {
+            throw new InvalidRequestException("Request body must contain a non-empty 'keyword' or 'keywords' field.");
+        }
+        request.setKeyword(null);
+        request.setKeywords(List.copyOf(keywords));
+        return request;
+    }
+
+    /**
+     * Parses a JSON request body into an object.
+     *
+     * @param req  The Spark request object.
+     * @param gson The JSON parser.
+     * @param type The class of the object.
+     * @param <T>  The type of the object.
+     * @return The parsed object.
+     * @throws InvalidRequestException if the request body is empty or not valid JSON.
+     */
+    public static <T> T getBody(final Request req, final Gson gson, final Class<T> type) {
+        T body;
+        try {
+            body = gson.fromJson(req.body(), type);
+        } catch (JsonSyntaxException e) {
+            throw new InvalidRequestException("Invalid JSON format in request body.", e);
+        }
+        if (body == null) {
+            throw new InvalidRequestException("Request body cannot be empty.");
+        }
+        return body;
+    }
 }
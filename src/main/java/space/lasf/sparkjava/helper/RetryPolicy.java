@@ -0,0 +1,110 @@
+package space.lasf.sparkjava.helper;
+
+import java.net.ConnectException;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadLocalRandom;
+import space.lasf.sparkjava.exception.HttpStatusException;
+
+/**
+ * Decides which fetch failures are transient and how long to wait before retrying them.
+ * <p>
+ * Timeouts, refused connections, {@code 5xx} and {@code 429} responses are transient. Retries are delayed with
+ * "full jitter" exponential backoff: a random delay between zero and {@code base * 2^attempt}, capped at the
+ * maximum delay, so that many failed requests do not hit a recovering host at the same instant. A
+ * {@code Retry-After} header sent by the server raises the delay to the requested value (within the same cap).
+ * This class is immutable and thread-safe.
+ */
+public final class RetryPolicy {
+
+    private static final String ENV_MAX_RETRIES = "FETCH_MAX_RETRIES";
+    private static final String ENV_BASE_DELAY_MS = "FETCH_RETRY_BASE_MS";
+    private static final String ENV_MAX_DELAY_MS = "FETCH_RETRY_MAX_MS";
+    private static final int DEFAULT_MAX_RETRIES = 3;
+    private static final long DEFAULT_BASE_DELAY_MS = 500;
+    private static final long DEFAULT_MAX_DELAY_MS = 30_000;
+    private static final int HTTP_TOO_MANY_REQUESTS = 429;
+    private static final int HTTP_SERVER_ERROR = 500;
+    private static final int MAX_SHIFT = 30;
+
+    private final int maxRetries;
+    private final long baseDelayMillis;
+    private final long maxDelayMillis;
+
+    /**
+     * Creates a retry policy.
+     *
+     * @param maxRetries The number of retries after the first attempt ({@code 0} disables retries).
+     * @param baseDelay  The backoff ceiling of the first retry.
+     * @param maxDelay   The upper bound of every retry delay.
+     */
+    public RetryPolicy(final int maxRetries, final Duration baseDelay, final Duration maxDelay) {
+        this.maxRetries = maxRetries;
+        this.baseDelayMillis = baseDelay.toMillis();
+        this.maxDelayMillis = maxDelay.toMillis();
+    }
+
+    /**
+     * Creates a retry policy configured from the environment.
+     *
+     * @return The configured policy.
+     */
+    public static RetryPolicy fromEnvironment() {
+        return new RetryPolicy(
+                ConfigUtil.getInt(ENV_MAX_RETRIES, DEFAULT_MAX_RETRIES),
+                Duration.ofMillis(ConfigUtil.getLong(ENV_BASE_DELAY_MS, DEFAULT_BASE_DELAY_MS)),
+                Duration.ofMillis(ConfigUtil.getLong(ENV_MAX_DELAY_MS, DEFAULT_MAX_DELAY_MS)));
+    }
+
+    /**
+     * Checks whether a failure is likely to go away on its own.
+     *
+     * @param error The failure, possibly wrapped in a {@link CompletionException}.
+     * @return {@code true} for timeouts, refused connections, {@code 5xx} and {@code 429} responses.
+     */
+    public static boolean isTransient(final Throwable error) {
+        Throwable cause = unwrap(error);
+        if (cause instanceof HttpStatusException) {
+            int status = ((HttpStatusException) cause).getStatusCode();
+            return status == HTTP_TOO_MANY_REQUESTS || status >= HTTP_SERVER_ERROR;
+        }
+        return cause instanceof HttpTimeoutException || cause instanceof ConnectException;
+    }
+
+    /**
+     * Checks whether a failed attempt should be retried.
+     *
+     * @param error    The failure of the attempt.
+     * @param attempts The number of attempts made so far, including the failed one.
+     * @return {@code true} if the failure is transient and the retry budget is not exhausted.
+     */
+    public boolean shouldRetry(final Throwable error, final int attempts) {
+        return attempts <= maxRetries && isTransient(error);
+    }
+
+    /**
+     * Returns how long to wait before the next attempt.
+     *
+     * @param error    The failure of the last attempt.
+     * @param attempts The number of attempts made so far (at least one).
+     * @return The jittered delay.
+     */
+    public Duration backoff(final Throwable error, final int attempts) {
+        long ceiling = Math.min(maxDelayMillis, baseDelayMillis << Math.min(MAX_SHIFT, attempts - 1));
+        long delay = ThreadLocalRandom.current().nextLong(Math.max(1, ceiling) + 1);
+        Throwable cause = unwrap(error);
+        if (cause instanceof HttpStatusException) {
+            long requested = ((HttpStatusException) cause)
+                    .getRetryAfter()
+                    .map(Duration::toMillis)
+                    .orElse(0L);
+            delay = Math.max(delay, Math.min(requested, maxDelayMillis));
+        }
+        return Duration.ofMillis(delay);
+    }
+
+    private static Throwable unwrap(final Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+}
@@ -0,0 +1,168 @@
+package space.lasf.sparkjava.helper;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Predicate;
+import java.util.zip.GZIPInputStream;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Reads the URLs listed by a site for crawlers: the {@code Sitemap:} lines of its {@code robots.txt}, and the
+ * {@code <loc>} entries of its sitemaps and sitemap indexes. Only the {@code <loc>} of a {@code <url>} or
+ * {@code <sitemap>} entry counts, in the sitemap namespace (or in none, as some sites omit it): the locations of
+ * extensions, such as {@code <image:loc>} and {@code <video:loc>}, are not pages.
+ * <p>
+ * Sitemaps are read with a streaming (StAX) parser, so a file listing tens of thousands of URLs is never held in
+ * memory, and gzipped files are recognized by their magic number whatever their name or media type. Document
+ * type declarations are not processed, which rules out external entities. As the sitemap protocol allows, at
+ * most 50 MB of uncompressed XML are read from a file. This class cannot be instantiated.
+ */
+public final class SitemapReader {
+
+    /** The largest uncompressed sitemap the protocol allows. */
+    public static final long MAX_SITEMAP_BYTES = 50L * 1024 * 1024;
+
+    // The first two bytes of a gzip stream, read little-endian.
+    private static final int GZIP_MAGIC = 0x8b1f;
+    private static final int GZIP_MAGIC_BYTES = 2;
+    private static final int BYTE_BITS = 8;
+    private static final String ROBOTS_SITEMAP = "sitemap:";
+    private static final String SITEMAP_NAMESPACE = "http://www.sitemaps.org/schemas/sitemap/0.9";
+    private static final XMLInputFactory FACTORY = newFactory();
+
+    private SitemapReader() {
+        throw new UnsupportedOperationException("This is a utility class and cannot be instantiated");
+    }
+
+    /**
+     * Returns the sitemaps a {@code robots.txt} file points to.
+     *
+     * @param robots The content of the file.
+     * @return The sitemap URLs, in file order.
+     */
+    public static List<String> sitemapsInRobots(final String robots) {
+        return robots.lines()
+                .map(String::trim)
+                .filter(line -> line.toLowerCase(Locale.ROOT).startsWith(ROBOTS_SITEMAP))
+                .map(line -> line.substring(ROBOTS_SITEMAP.length()).trim())
+                .filter(url -> !url.isEmpty())
+                .toList();
+    }
+
+    /**
+     * Reads a sitemap ({@code <urlset>}) or a sitemap index ({@code <sitemapindex>}), handing over each location
+     * as soon as it is parsed. Reading stops early once a consumer returns {@code false}.
+     *
+     * @param body     The file, plain or gzipped. It is read but not closed.
+     * @param pages    Receives the page URLs of a sitemap; returns whether to go on.
+     * @param sitemaps Receives the sitemap URLs of a sitemap index; returns whether to go on.
+     * @throws IOException if the file cannot be read or is not well-formed XML.
+     */
+    public static void read(final InputStream body, final Predicate<String> pages, final Predicate<String> sitemaps)
+            throws IOException {
+        final InputStream xml = new BoundedInputStream(decompress(body), MAX_SITEMAP_BYTES);
+        XMLStreamReader reader = null;
+        try {
+            reader = FACTORY.createXMLStreamReader(xml);
+            final Entries entries = new Entries(pages, sitemaps);
+            boolean goOn = true;
+            while (goOn && reader.hasNext()) {
+                final int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    goOn = entries.start(reader);
+                } else if (event == XMLStreamConstants.END_ELEMENT) {
+                    entries.end();
+                }
+            }
+        } catch (XMLStreamException e) {
+            throw new IOException("Malformed sitemap: " + e.getMessage(), e);
+        } finally {
+            close(reader);
+        }
+    }
+
+    private static InputStream decompress(final InputStream body) throws IOException {
+        final InputStream buffered = new BufferedInputStream(body);
+        buffered.mark(GZIP_MAGIC_BYTES);
+        final int magic = buffered.read() | buffered.read() << BYTE_BITS;
+        buffered.reset();
+        return magic == GZIP_MAGIC ? new GZIPInputStream(buffered) : buffered;
+    }
+
+    private static void close(final XMLStreamReader reader) {
+        if (reader == null) {
+            return;
+        }
+        try {
+            reader.close();
+        } catch (XMLStreamException e) {
+            // The underlying stream is owned by the caller; there is nothing left to release.
+        }
+    }
+
+    /** Tracks the {@code <url>} or {@code <sitemap>} entry being read, and hands over its location. */
+    private static final class Entries {
+        private final Predicate<String> pages;
+        private final Predicate<String> sitemaps;
+        private int depth;
+        // The depth of the entry being read, and the consumer of its location; null outside an entry.
+        private int entryDepth;
+        private Predicate<String> target;
+
+        private Entries(final Predicate<String> pages, final Predicate<String> sitemaps) {
+            this.pages = pages;
+            this.sitemaps = sitemaps;
+        }
+
+        /** Handles a start tag; returns whether to go on. */
+        private boolean start(final XMLStreamReader reader) throws XMLStreamException {
+            depth++;
+            final String namespace = reader.getNamespaceURI();
+            if (namespace != null && !namespace.isEmpty() && !SITEMAP_NAMESPACE.equals(namespace)) {
+                // Extensions (image, video, news, alternate links) are not used.
+                return true;
+            }
+            switch (reader.getLocalName()) {
+                case "url" -> enter(pages);
+                case "sitemap" -> enter(sitemaps);
+                case "loc" -> {
+                    if (target != null && depth == entryDepth + 1) {
+                        // Reading the text consumes the end tag.
+                        depth--;
+                        return target.test(reader.getElementText().trim());
+                    }
+                }
+                default -> {
+                    // Other elements (lastmod, changefreq, priority) are not used.
+                }
+            }
+            return true;
+        }
+
+        private void enter(final Predicate<String> consumer) {
+            target = consumer;
+            entryDepth = depth;
+        }
+
+        private void end() {
+            if (target != null && depth == entryDepth) {
+                target = null;
+            }
+            depth--;
+        }
+    }
+
+    private static XMLInputFactory newFactory() {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, true);
+        return factory;
+    }
+}
@@ -0,0 +1,395 @@
+package space.lasf.sparkjava.helper;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import space.lasf.sparkjava.entity.FrontierLimits;
+
+/**
+ * A {@link Frontier} that keeps a bounded head on the heap and spills the rest to local disk.
+ * <p>
+ * URLs are queued on the heap while the memory quota allows. Beyond it, later URLs are appended to memory-mapped
+ * segment files in a private directory, and they are read back in order when the head runs empty, straight from
+ * disk if the quota is still taken; a segment is unmapped and deleted as soon as it has been read. The frontiers
+ * created by one {@link #factory} share both quotas, and the logs it creates share the disk one, so the limits
+ * hold for the whole job however many hosts it queues: once the spilled URLs reach the disk quota,
+ * {@link #add(FrontierEntry)} drops new URLs and returns {@code false}. The disk quota counts the bytes of the
+ * spilled records; segment files are sparse until written.
+ * <p>
+ * A best-first factory wraps each spilling frontier in a {@link PriorityFrontier}.
+ * <p>
+ * The defaults come from {@code CRAWLER_FRONTIER_MEMORY_URLS}, {@code CRAWLER_FRONTIER_DISK_BYTES} and
+ * {@code CRAWLER_FRONTIER_DIR} (a {@code crawler-frontier} directory under {@code java.io.tmpdir}).
+ */
+public final class SpillingFrontier implements Frontier {
+
+    /** The number of URLs kept on the heap by default. */
+    public static final int DEFAULT_MAX_IN_MEMORY = 100_000;
+    /** The disk quota of a job by default. */
+    public static final long DEFAULT_MAX_DISK_BYTES = 1_073_741_824L;
+
+    static final int DEFAULT_SEGMENT_BYTES = 8_388_608;
+    // The most URLs moved back onto the heap at once, so that one host does not take the whole memory quota.
+    static final int REFILL_URLS = 1024;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SpillingFrontier.class);
+    private static final String ENV_MAX_IN_MEMORY = "CRAWLER_FRONTIER_MEMORY_URLS";
+    private static final String ENV_MAX_DISK_BYTES = "CRAWLER_FRONTIER_DISK_BYTES";
+    private static final String ENV_DIR = "CRAWLER_FRONTIER_DIR";
+
+    private final Path parent;
+    private final Quota memory;
+    private final Quota quota;
+    private final int segmentBytes;
+    private final Queue<FrontierEntry> head = new ArrayDeque<>();
+    // Oldest first; only the last one is appended to.
+    private final Deque<Segment> segments = new ArrayDeque<>();
+    private Path directory;
+    private int nextSegment;
+    private long spilledUrls;
+    private long spilledBytes;
+
+    /**
+     * Creates a frontier with its own quotas.
+     *
+     * @param parent       The directory under which the spill directory is created.
+     * @param maxInMemory  The maximum number of URLs kept on the heap, at least 1.
+     * @param maxDiskBytes The maximum number of bytes spilled to disk.
+     */
+    public SpillingFrontier(final Path parent, final int maxInMemory, final long maxDiskBytes) {
+        this(parent, maxInMemory, new Quota(maxDiskBytes), DEFAULT_SEGMENT_BYTES);
+    }
+
+    SpillingFrontier(final Path parent, final int maxInMemory, final Quota quota, final int segmentBytes) {
+        this(parent, new Quota(maxInMemory), quota, segmentBytes);
+        if (maxInMemory < 1) {
+            throw new IllegalArgumentException("The frontier limits must be positive.");
+        }
+    }
+
+    SpillingFrontier(final Path parent, final Quota memory, final Quota quota, final int segmentBytes) {
+        if (segmentBytes < 1) {
+            throw new IllegalArgumentException("The frontier limits must be positive.");
+        }
+        this.parent = parent;
+        this.memory = memory;
+        this.quota = quota;
+        this.segmentBytes = segmentBytes;
+    }
+
+    /**
+     * Returns a factory for the frontiers of one job, sharing a single memory quota and a single disk quota.
+     * Limits left at 0 are taken from the environment.
+     *
+     * @param limits    The frontier limits of the job.
+     * @param bestFirst Whether the frontiers poll the highest-scored URL first instead of the oldest.
+     * @return A supplier of new, empty frontiers.
+     */
+    public static Factory factory(final FrontierLimits limits, final boolean bestFirst) {
+        int maxInMemory = limits.getMaxInMemory() > 0
+                ? limits.getMaxInMemory()
+                : Math.max(1, ConfigUtil.getInt(ENV_MAX_IN_MEMORY, DEFAULT_MAX_IN_MEMORY));
+        long maxDiskBytes = limits.getMaxDiskBytes() > 0 ? limits.getMaxDiskBytes() : defaultMaxDiskBytes();
+        return new Factory(directory(), new Quota(maxInMemory), new Quota(maxDiskBytes), bestFirst);
+    }
+
+    private static long defaultMaxDiskBytes() {
+        return ConfigUtil.getLong(ENV_MAX_DISK_BYTES, DEFAULT_MAX_DISK_BYTES);
+    }
+
+    private static Path directory() {
+        return Paths.get(ConfigUtil.getString(
+                ENV_DIR,
+                Paths.get(System.getProperty("java.io.tmpdir"), "crawler-frontier")
+                        .toString()));
+    }
+
+    @Override
+    public boolean add(final FrontierEntry entry) {
+        if (segments.isEmpty() && memory.reserve(1)) {
+            return head.add(entry);
+        }
+        return spill(entry);
+    }
+
+    @Override
+    public FrontierEntry poll() {
+        if (head.isEmpty()) {
+            refill();
+        }
+        FrontierEntry entry = head.poll();
+        if (entry == null) {
+            // The memory quota is taken by the other frontiers of the job.
+            return nextSpilled();
+        }
+        memory.release(1);
+        return entry;
+    }
+
+    @Override
+    public long size() {
+        return head.size() + spilledUrls;
+    }
+
+    /**
+     * Returns the number of URLs currently spilled to disk.
+     *
+     * @return The spilled URL count.
+     */
+    public long getSpilledUrls() {
+        return spilledUrls;
+    }
+
+    @Override
+    public void forEach(final Consumer<FrontierEntry> action) {
+        head.forEach(action);
+        segments.forEach(segment -> segment.forEachRemaining(action));
+    }
+
+    @Override
+    public void close() {
+        memory.release(head.size());
+        head.clear();
+        segments.forEach(Segment::delete);
+        segments.clear();
+        quota.release(spilledBytes);
+        spilledUrls = 0;
+        spilledBytes = 0;
+        if (directory != null) {
+            deleteQuietly(directory);
+            directory = null;
+        }
+    }
+
+    private boolean spill(final FrontierEntry entry) {
+        byte[] bytes = entry.getUrl().getBytes(StandardCharsets.UTF_8);
+        int record = Segment.recordLength(bytes);
+        if (!quota.reserve(record)) {
+            return false;
+        }
+        try {
+            Segment tail = segments.peekLast();
+            if (tail == null || !tail.fits(record)) {
+                tail = newSegment(record);
+                segments.addLast(tail);
+            }
+            tail.append(bytes, entry);
+            spilledUrls++;
+            spilledBytes += record;
+            return true;
+        } catch (IOException e) {
+            quota.release(record);
+            LOGGER.warn("Could not spill a URL of the frontier to {}: {}", parent, e.toString());
+            return false;
+        }
+    }
+
+    private Segment newSegment(final int record) throws IOException {
+        if (directory == null) {
+            Files.createDirectories(parent);
+            directory = Files.createTempDirectory(parent, "frontier-");
+        }
+        Path file = directory.resolve(String.format("%010d.seg", nextSegment++));
+        return new Segment(file, Math.max(segmentBytes, record));
+    }
+
+    /** Moves the oldest spilled URLs back onto the heap, as far as the memory quota allows. */
+    private void refill() {
+        for (int i = 0; i < REFILL_URLS && !segments.isEmpty() && memory.reserve(1); i++) {
+            head.add(nextSpilled());
+        }
+    }
+
+    /**
+     * Reads the oldest spilled URL, deleting its segment once it is read through; the segments left are never
+     * empty, and once the last one is gone new URLs go to the heap again.
+     */
+    private FrontierEntry nextSpilled() {
+        Segment oldest = segments.peekFirst();
+        if (oldest == null) {
+            return null;
+        }
+        int record = oldest.nextLength();
+        FrontierEntry entry = oldest.next();
+        spilledUrls--;
+        spilledBytes -= record;
+        quota.release(record);
+        if (!oldest.hasNext()) {
+            segments.pollFirst().delete();
+        }
+        return entry;
+    }
+
+    private static void deleteQuietly(final Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            LOGGER.warn("Could not delete {}: {}", path, e.toString());
+        }
+    }
+
+    /**
+     * Creates the frontiers of one job, which share its memory and disk quotas. This class is thread-safe.
+     */
+    public static final class Factory implements Supplier<Frontier> {
+        private final Path parent;
+        private final Quota memory;
+        private final Quota quota;
+        private final boolean bestFirst;
+        // The heap quota of the frontiers that spill everything they are given.
+        private final Quota none = new Quota(0);
+
+        private Factory(final Path parent, final Quota memory, final Quota quota, final boolean bestFirst) {
+            this.parent = parent;
+            this.memory = memory;
+            this.quota = quota;
+            this.bestFirst = bestFirst;
+        }
+
+        @Override
+        public Frontier get() {
+            if (bestFirst) {
+                // The priority frontiers hold the sorted heads; their overflow goes straight to disk.
+                return new PriorityFrontier(memory, new SpillingFrontier(parent, none, quota, DEFAULT_SEGMENT_BYTES));
+            }
+            return new SpillingFrontier(parent, memory, quota, DEFAULT_SEGMENT_BYTES);
+        }
+
+        /**
+         * Creates a frontier that keeps no URL on the heap and spills them all, within the disk quota of the job:
+         * a log of entries that are rarely read back.
+         *
+         * @return A new, empty frontier, which drops new entries once the disk quota is reached.
+         */
+        public Frontier newLog() {
+            return new SpillingFrontier(parent, none, quota, DEFAULT_SEGMENT_BYTES);
+        }
+
+        /**
+         * Returns whether the frontiers poll the highest-scored URL first.
+         *
+         * @return {@code false} if they poll the oldest first.
+         */
+        public boolean isBestFirst() {
+            return bestFirst;
+        }
+    }
+
+    /**
+     * A quota shared by the frontiers of one job: the bytes they spill to disk, or the URLs they keep on the heap.
+     * This class is thread-safe.
+     */
+    static final class Quota {
+        private final long limit;
+        private final AtomicLong used = new AtomicLong();
+
+        Quota(final long limit) {
+            this.limit = limit;
+        }
+
+        boolean reserve(final long bytes) {
+            long current;
+            do {
+                current = used.get();
+                if (current + bytes > limit) {
+                    return false;
+                }
+            } while (!used.compareAndSet(current, current + bytes));
+            return true;
+        }
+
+        void release(final long bytes) {
+            used.addAndGet(-bytes);
+        }
+
+        long getUsed() {
+            return used.get();
+        }
+    }
+
+    /**
+     * An append-only file of entries, mapped into memory: the URL length, the depth, the score and the UTF-8 URL.
+     * The mapping outlives the channel; it is unmapped before the file is deleted, as soon as it has been read.
+     */
+    private static final class Segment {
+        private static final int HEADER_BYTES = Integer.BYTES + Integer.BYTES + Double.BYTES;
+
+        private final Path file;
+        private final MappedByteBuffer buffer;
+        private int writePosition;
+        private int readPosition;
+
+        Segment(final Path file, final int capacity) throws IOException {
+            this.file = file;
+            try (FileChannel channel = FileChannel.open(
+                    file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+            }
+        }
+
+        static int recordLength(final byte[] bytes) {
+            return HEADER_BYTES + bytes.length;
+        }
+
+        boolean fits(final int record) {
+            return buffer.capacity() - writePosition >= record;
+        }
+
+        void append(final byte[] bytes, final FrontierEntry entry) {
+            buffer.putInt(writePosition, bytes.length);
+            buffer.putInt(writePosition + Integer.BYTES, entry.getDepth());
+            buffer.putDouble(writePosition + Integer.BYTES + Integer.BYTES, entry.getScore());
+            buffer.put(writePosition + HEADER_BYTES, bytes);
+            writePosition += recordLength(bytes);
+        }
+
+        boolean hasNext() {
+            return readPosition < writePosition;
+        }
+
+        int nextLength() {
+            return HEADER_BYTES + buffer.getInt(readPosition);
+        }
+
+        FrontierEntry next() {
+            FrontierEntry entry = entryAt(readPosition);
+            readPosition += nextLength();
+            return entry;
+        }
+
+        /** Reads the entries not polled yet, leaving them in place. */
+        void forEachRemaining(final Consumer<FrontierEntry> action) {
+            int position = readPosition;
+            while (position < writePosition) {
+                action.accept(entryAt(position));
+                position += HEADER_BYTES + buffer.getInt(position);
+            }
+        }
+
+        private FrontierEntry entryAt(final int position) {
+            byte[] bytes = new byte[buffer.getInt(position)];
+            int depth = buffer.getInt(position + Integer.BYTES);
+            double score = buffer.getDouble(position + Integer.BYTES + Integer.BYTES);
+            buffer.get(position + HEADER_BYTES, bytes);
+            return new FrontierEntry(new String(bytes, StandardCharsets.UTF_8), depth, score);
+        }
+
+        void delete() {
+            MappedBuffers.unmap(buffer);
+            deleteQuietly(file);
+        }
+    }
+}
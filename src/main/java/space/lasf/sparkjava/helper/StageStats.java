@@ -0,0 +1,55 @@
+package space.lasf.sparkjava.helper;
+
+/**
+ * A snapshot of the load of one stage of the crawl pipeline. This class is immutable.
+ */
+public final class StageStats {
+
+    private final String name;
+    private final int workers;
+    private final int active;
+    private final int queued;
+    private final int capacity;
+
+    /**
+     * Creates a snapshot.
+     *
+     * @param name     The name of the stage.
+     * @param workers  The number of worker threads, or 0 for a stage that runs without threads of its own.
+     * @param active   The number of tasks being run.
+     * @param queued   The number of tasks waiting to be run.
+     * @param capacity The number of tasks that may wait (or, for the fetch stage, be in flight).
+     */
+    public StageStats(final String name, final int workers, final int active, final int queued, final int capacity) {
+        this.name = name;
+        this.workers = workers;
+        this.active = active;
+        this.queued = queued;
+        this.capacity = capacity;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getWorkers() {
+        return workers;
+    }
+
+    public int getActive() {
+        return active;
+    }
+
+    public int getQueued() {
+        return queued;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    @Override
+    public String toString() {
+        return name + "[active=" + active + ", queued=" + queued + "/" + capacity + "]";
+    }
+}
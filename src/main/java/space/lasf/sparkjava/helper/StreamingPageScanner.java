@@ -0,0 +1,93 @@
+package space.lasf.sparkjava.helper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+/**
+ * Scans a response body as it is decoded, without ever materializing the page as a String.
+ * <p>
+ * The body is read through a fixed-size char buffer and every chunk is handed to an {@link HtmlTokenizer},
+ * which finds the links (with their anchor text) and feeds the visible text to the keyword matcher in the same
+ * pass. The tokenizer keeps its state between chunks, so tags split across reads are handled without copying.
+ * Reading stops at the body size limit, or as soon as every keyword is found when the caller does not need the
+ * page links.
+ * This class is final and cannot be instantiated.
+ */
+public final class StreamingPageScanner {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private StreamingPageScanner() {
+        throw new UnsupportedOperationException("This is a utility class and cannot be instantiated");
+    }
+
+    /**
+     * Scans a page body.
+     *
+     * @param body         The raw response body. It is read but not closed.
+     * @param charset      The charset used to decode the body.
+     * @param matcher      The keyword matcher compiled for the crawl job.
+     * @param maxBodyBytes The maximum number of body bytes to read, or a negative value for no limit.
+     * @param extractLinks Whether links must be collected; when {@code false} reading stops once every keyword
+     *                     has been found.
+     * @return The result of the scan.
+     * @throws IOException if reading the body fails.
+     */
+    public static PageScan scan(
+            final InputStream body,
+            final Charset charset,
+            final KeywordMatcher matcher,
+            final long maxBodyBytes,
+            final boolean extractLinks)
+            throws IOException {
+        BoundedInputStream bounded = new BoundedInputStream(body, maxBodyBytes);
+        Reader reader = new InputStreamReader(bounded, charset);
+        KeywordMatcher.Scan scan = matcher.newScan();
+        List<String> links = new ArrayList<>();
+        List<String> anchorTexts = new ArrayList<>();
+        HtmlTokenizer tokenizer = HtmlTokenizer.withAnchorTexts(scan, linkCollector(links, anchorTexts, extractLinks));
+        char[] buffer = new char[BUFFER_SIZE];
+        int read;
+        while ((read = reader.read(buffer)) >= 0) {
+            tokenizer.feed(buffer, 0, read);
+            if (!extractLinks && scan.isComplete()) {
+                break;
+            }
+        }
+        tokenizer.finish();
+        return new PageScan(scan.getMatches(), links, anchorTexts, bounded.getCount(), bounded.isLimitReached());
+    }
+
+    /**
+     * Scans a page that has already been read into memory.
+     *
+     * @param html    The page content.
+     * @param matcher The keyword matcher compiled for the crawl job.
+     * @return The result of the scan.
+     */
+    public static PageScan scan(final String html, final KeywordMatcher matcher) {
+        KeywordMatcher.Scan scan = matcher.newScan();
+        List<String> links = new ArrayList<>();
+        List<String> anchorTexts = new ArrayList<>();
+        HtmlTokenizer tokenizer = HtmlTokenizer.withAnchorTexts(scan, linkCollector(links, anchorTexts, true));
+        tokenizer.feed(html);
+        tokenizer.finish();
+        return new PageScan(scan.getMatches(), links, anchorTexts, html.length(), false);
+    }
+
+    private static BiConsumer<String, String> linkCollector(
+            final List<String> links, final List<String> anchorTexts, final boolean extractLinks) {
+        return (link, text) -> {
+            if (extractLinks && HtmlFetcher.isFollowable(link)) {
+                links.add(link);
+                anchorTexts.add(text);
+            }
+        };
+    }
+}
@@ -0,0 +1,457 @@
+package space.lasf.sparkjava.helper;
+
+import java.net.IDN;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Resolves links against a base URL (RFC 3986, section 5.2) and puts the result in canonical form, so that
+ * different spellings of the same web page collapse to a single string.
+ * <p>
+ * Canonical form: lower-case scheme and host, no default port, no {@code .}/{@code ..} segments, an empty path
+ * written as {@code /}, upper-case percent-encoding with unreserved characters decoded, characters that are not
+ * allowed in a URL percent-encoded as UTF-8, no fragment and no empty query. Trailing slashes are kept, since
+ * {@code /a} and {@code /a/} may be different resources.
+ * <p>
+ * The base is parsed once per page (see {@link Base}); each link is then resolved in a single pass into one
+ * {@link StringBuilder}, without building {@link java.net.URI} objects. Only {@code http} and {@code https}
+ * URLs are produced: malformed links and other schemes yield {@code null} rather than an exception.
+ * This class is final and cannot be instantiated.
+ */
+public final class UrlCanonicalizer {
+
+    private static final String HTTP = "http";
+    private static final String HTTPS = "https";
+    private static final int HTTP_PORT = 80;
+    private static final int HTTPS_PORT = 443;
+    private static final int MAX_PORT = 65_535;
+    private static final int MAX_PORT_DIGITS = 5;
+    private static final int DECIMAL_RADIX = 10;
+    private static final int HEX_RADIX = 16;
+    private static final char ASCII_LIMIT = 0x80;
+    private static final int NIBBLE_BITS = 4;
+    private static final int NIBBLE_MASK = 0x0F;
+    private static final int BYTE_MASK = 0xFF;
+    private static final int PERCENT_ESCAPE_LENGTH = 3;
+    private static final int DOUBLE_DOT_SEGMENT = 2;
+    private static final String NETWORK_PATH_PREFIX = "//";
+    private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+    // Characters kept as-is besides the unreserved ones: sub-delims, plus ':' and '@' (and '/', '?' in queries).
+    private static final String USERINFO_CHARS = "!$&'()*+,;=:";
+    private static final String PATH_CHARS = USERINFO_CHARS + "@";
+    private static final String QUERY_CHARS = PATH_CHARS + "/?";
+
+    private UrlCanonicalizer() {
+        throw new UnsupportedOperationException("This is a utility class and cannot be instantiated");
+    }
+
+    /**
+     * A canonical absolute URL, pre-parsed to serve as the base of many resolutions.
+     */
+    public static final class Base {
+        private final String url;
+        private final String scheme;
+        private final int pathStart;
+        private final int directoryEnd;
+        private final int pathEnd;
+
+        private Base(final String url, final String scheme) {
+            this.url = url;
+            this.scheme = scheme;
+            this.pathStart = url.indexOf('/', scheme.length() + "://".length());
+            int query = url.indexOf('?', pathStart);
+            this.pathEnd = query < 0 ? url.length() : query;
+            this.directoryEnd = url.lastIndexOf('/', pathEnd - 1) + 1;
+        }
+
+        /**
+         * Returns the canonical form of the base URL.
+         *
+         * @return The canonical URL.
+         */
+        public String getUrl() {
+            return url;
+        }
+
+        @Override
+        public String toString() {
+            return url;
+        }
+    }
+
+    /**
+     * Parses and canonicalizes an absolute URL to serve as a base.
+     *
+     * @param url An absolute {@code http} or {@code https} URL.
+     * @return The parsed base, or {@code null} if the URL is not a valid absolute web URL.
+     */
+    public static Base parseBase(final String url) {
+        String canonical = resolve(null, url);
+        if (canonical == null) {
+            return null;
+        }
+        return new Base(canonical, canonical.startsWith(HTTPS) ? HTTPS : HTTP);
+    }
+
+    /**
+     * Puts an absolute URL in canonical form.
+     *
+     * @param url An absolute {@code http} or {@code https} URL.
+     * @return The canonical URL, or {@code null} if the URL is not a valid absolute web URL.
+     */
+    public static String canonicalize(final String url) {
+        return resolve(null, url);
+    }
+
+    /**
+     * Resolves a link against a base URL and returns the canonical form of the result.
+     *
+     * @param base The base URL, or {@code null} to accept absolute links only.
+     * @param link The link as written in the page, possibly relative and surrounded by whitespace.
+     * @return The canonical absolute URL, or {@code null} if the link is malformed or not an {@code http(s)} URL.
+     */
+    public static String resolve(final Base base, final String link) {
+        if (link == null) {
+            return null;
+        }
+        Reference ref = new Reference(link);
+        StringBuilder out = new StringBuilder(link.length() + (base == null ? 0 : base.url.length()));
+        boolean valid;
+        if (ref.schemeEnd >= 0) {
+            valid = appendAbsolute(out, ref);
+        } else {
+            valid = base != null && appendRelative(out, base, ref);
+        }
+        return valid ? out.toString() : null;
+    }
+
+    /**
+     * Resolves the links found on a page against the URL of the page, which is parsed once for all of them.
+     *
+     * @param pageUrl The URL of the page.
+     * @param links   The links as written in the page.
+     * @return The canonical absolute URLs, in the order of the links, with {@code null} for each link that is
+     *         malformed or not an {@code http(s)} URL.
+     */
+    public static List<String> resolveAll(final String pageUrl, final List<String> links) {
+        final Base base = parseBase(pageUrl);
+        final List<String> urls = new ArrayList<>(links.size());
+        for (String link : links) {
+            urls.add(resolve(base, link));
+        }
+        return urls;
+    }
+
+    /** The component boundaries of a URI reference, found without copying it. The fragment is ignored. */
+    private static final class Reference {
+        private final String text;
+        private final int begin;
+        private final int end;
+        private int schemeEnd = -1;
+        private int authorityStart = -1;
+        private int authorityEnd = -1;
+        private int pathStart;
+        private int pathEnd;
+        private int queryStart = -1;
+
+        private Reference(final String text) {
+            this.text = text;
+            int first = 0;
+            int last = text.length();
+            while (first < last && text.charAt(first) <= ' ') {
+                first++;
+            }
+            while (last > first && text.charAt(last - 1) <= ' ') {
+                last--;
+            }
+            int hash = text.indexOf('#', first);
+            this.begin = first;
+            this.end = hash >= 0 && hash < last ? hash : last;
+            parse();
+        }
+
+        private void parse() {
+            int position = parseScheme();
+            if (position + 1 < end && text.startsWith(NETWORK_PATH_PREFIX, position)) {
+                authorityStart = position + NETWORK_PATH_PREFIX.length();
+                authorityEnd = indexOfAny(authorityStart, "/?");
+                position = authorityEnd;
+            }
+            pathStart = position;
+            pathEnd = indexOfAny(position, "?");
+            if (pathEnd < end) {
+                queryStart = pathEnd + 1;
+            }
+        }
+
+        private int parseScheme() {
+            for (int i = begin; i < end; i++) {
+                char c = text.charAt(i);
+                if (c == ':' && i > begin) {
+                    schemeEnd = i;
+                    return i + 1;
+                }
+                if (!isAlpha(c) && (i == begin || !isDigit(c) && c != '+' && c != '-' && c != '.')) {
+                    return begin;
+                }
+            }
+            return begin;
+        }
+
+        private int indexOfAny(final int from, final String chars) {
+            for (int i = from; i < end; i++) {
+                if (chars.indexOf(text.charAt(i)) >= 0) {
+                    return i;
+                }
+            }
+            return end;
+        }
+
+        private String webScheme() {
+            int length = schemeEnd - begin;
+            if (length == HTTP.length() && text.regionMatches(true, begin, HTTP, 0, length)) {
+                return HTTP;
+            }
+            if (length == HTTPS.length() && text.regionMatches(true, begin, HTTPS, 0, length)) {
+                return HTTPS;
+            }
+            return null;
+        }
+    }
+
+    private static boolean appendAbsolute(final StringBuilder out, final Reference ref) {
+        String scheme = ref.webScheme();
+        if (scheme == null || ref.authorityStart < 0) {
+            return false;
+        }
+        return appendNetworkPath(out, scheme, ref);
+    }
+
+    /** Resolves a reference that carries its own authority: only the scheme comes from the base. */
+    private static boolean appendNetworkPath(final StringBuilder out, final String scheme, final Reference ref) {
+        out.append(scheme).append("://");
+        if (!appendAuthority(out, ref, HTTPS.equals(scheme) ? HTTPS_PORT : HTTP_PORT)) {
+            return false;
+        }
+        out.append('/');
+        int from = ref.pathStart < ref.pathEnd ? ref.pathStart + 1 : ref.pathStart;
+        appendSegments(out, ref.text, from, ref.pathEnd, out.length());
+        appendQuery(out, ref);
+        return true;
+    }
+
+    private static boolean appendRelative(final StringBuilder out, final Base base, final Reference ref) {
+        if (ref.authorityStart >= 0) {
+            return appendNetworkPath(out, base.scheme, ref);
+        }
+        final int floor = base.pathStart + 1;
+        if (ref.pathStart == ref.pathEnd) {
+            // Same document: keep the base path, and its query unless the link has one.
+            out.append(base.url, 0, base.pathEnd);
+            if (ref.queryStart >= 0) {
+                appendQuery(out, ref);
+            } else {
+                out.append(base.url, base.pathEnd, base.url.length());
+            }
+        } else if (ref.text.charAt(ref.pathStart) == '/') {
+            out.append(base.url, 0, floor);
+            appendSegments(out, ref.text, ref.pathStart + 1, ref.pathEnd, floor);
+            appendQuery(out, ref);
+        } else {
+            out.append(base.url, 0, base.directoryEnd);
+            appendSegments(out, ref.text, ref.pathStart, ref.pathEnd, floor);
+            appendQuery(out, ref);
+        }
+        return true;
+    }
+
+    private static boolean appendAuthority(final StringBuilder out, final Reference ref, final int defaultPort) {
+        final String text = ref.text;
+        int hostStart = ref.authorityStart;
+        int at = text.lastIndexOf('@', ref.authorityEnd - 1);
+        if (at >= hostStart) {
+            appendEncoded(out, text, hostStart, at, USERINFO_CHARS);
+            out.append('@');
+            hostStart = at + 1;
+        }
+        int hostEnd = hostEnd(text, hostStart, ref.authorityEnd);
+        return hostEnd > hostStart
+                && appendHost(out, text, hostStart, hostEnd)
+                && appendPort(out, text, hostEnd, ref.authorityEnd, defaultPort);
+    }
+
+    private static int hostEnd(final String text, final int start, final int end) {
+        if (start < end && text.charAt(start) == '[') {
+            int close = text.indexOf(']', start);
+            return close >= 0 && close < end ? close + 1 : -1;
+        }
+        int colon = text.indexOf(':', start);
+        return colon >= 0 && colon < end ? colon : end;
+    }
+
+    private static boolean appendHost(final StringBuilder out, final String text, final int start, final int end) {
+        final int mark = out.length();
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c >= 'A' && c <= 'Z') {
+                out.append(Character.toLowerCase(c));
+            } else if (isAlpha(c) || isDigit(c) || "-._[]:".indexOf(c) >= 0) {
+                out.append(c);
+            } else if (c > '~') {
+                out.setLength(mark);
+                return appendInternationalHost(out, text.substring(start, end));
+            } else {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean appendInternationalHost(final StringBuilder out, final String host) {
+        try {
+            out.append(IDN.toASCII(host, IDN.ALLOW_UNASSIGNED).toLowerCase(Locale.ROOT));
+            return true;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private static boolean appendPort(
+            final StringBuilder out, final String text, final int start, final int end, final int defaultPort) {
+        if (start == end) {
+            return true;
+        }
+        if (text.charAt(start) != ':' || end - start - 1 > MAX_PORT_DIGITS) {
+            return false;
+        }
+        int port = 0;
+        for (int i = start + 1; i < end; i++) {
+            char c = text.charAt(i);
+            if (!isDigit(c)) {
+                return false;
+            }
+            port = port * DECIMAL_RADIX + (c - '0');
+        }
+        if (port > MAX_PORT) {
+            return false;
+        }
+        // An empty port is dropped like the default one.
+        if (start + 1 < end && port != defaultPort) {
+            out.append(':').append(port);
+        }
+        return true;
+    }
+
+    /**
+     * Appends the {@code /}-separated segments of a path, removing dot segments as it goes. The output must end
+     * with {@code /}; {@code ..} never removes anything before {@code floor}.
+     */
+    private static void appendSegments(
+            final StringBuilder out, final String text, final int from, final int to, final int floor) {
+        int segmentStart = from;
+        while (segmentStart <= to) {
+            int slash = text.indexOf('/', segmentStart);
+            int segmentEnd = slash >= 0 && slash < to ? slash : to;
+            int dots = dotCount(text, segmentStart, segmentEnd);
+            if (dots == DOUBLE_DOT_SEGMENT && out.length() > floor) {
+                int trailingSlash = out.length() - 1;
+                out.setLength(Math.max(floor, out.lastIndexOf("/", trailingSlash - 1) + 1));
+            } else if (dots == 0) {
+                appendEncoded(out, text, segmentStart, segmentEnd, PATH_CHARS);
+                if (segmentEnd < to) {
+                    out.append('/');
+                }
+            }
+            segmentStart = segmentEnd + 1;
+        }
+    }
+
+    /** Counts the dots of a {@code .} or {@code ..} segment (possibly percent-encoded); 0 for any other segment. */
+    private static int dotCount(final String text, final int start, final int end) {
+        int count = 0;
+        int i = start;
+        while (i < end) {
+            if (text.charAt(i) == '.') {
+                i++;
+            } else if (i + PERCENT_ESCAPE_LENGTH <= end
+                    && text.regionMatches(true, i, "%2e", 0, PERCENT_ESCAPE_LENGTH)) {
+                i += PERCENT_ESCAPE_LENGTH;
+            } else {
+                return 0;
+            }
+            count++;
+        }
+        return count <= DOUBLE_DOT_SEGMENT ? count : 0;
+    }
+
+    private static void appendQuery(final StringBuilder out, final Reference ref) {
+        if (ref.queryStart >= 0 && ref.queryStart < ref.end) {
+            out.append('?');
+            appendEncoded(out, ref.text, ref.queryStart, ref.end, QUERY_CHARS);
+        }
+    }
+
+    private static void appendEncoded(
+            final StringBuilder out, final String text, final int start, final int end, final String allowed) {
+        int i = start;
+        while (i < end) {
+            char c = text.charAt(i);
+            if (c == '%') {
+                i = appendPercent(out, text, i, end);
+            } else if (isUnreserved(c) || allowed.indexOf(c) >= 0) {
+                out.append(c);
+                i++;
+            } else {
+                i = appendUtf8(out, text, i);
+            }
+        }
+    }
+
+    /** Normalizes one percent-escape; a stray {@code %} is itself encoded. Returns the next index to read. */
+    private static int appendPercent(final StringBuilder out, final String text, final int i, final int end) {
+        int high = i + 1 < end ? Character.digit(text.charAt(i + 1), HEX_RADIX) : -1;
+        int lowIndex = i + PERCENT_ESCAPE_LENGTH - 1;
+        int low = lowIndex < end ? Character.digit(text.charAt(lowIndex), HEX_RADIX) : -1;
+        if (high < 0 || low < 0) {
+            appendEscape(out, '%');
+            return i + 1;
+        }
+        char decoded = (char) (high << NIBBLE_BITS | low);
+        if (isUnreserved(decoded)) {
+            out.append(decoded);
+        } else {
+            appendEscape(out, decoded);
+        }
+        return i + PERCENT_ESCAPE_LENGTH;
+    }
+
+    private static int appendUtf8(final StringBuilder out, final String text, final int i) {
+        int next = i + Character.charCount(text.codePointAt(i));
+        if (text.charAt(i) < ASCII_LIMIT) {
+            appendEscape(out, text.charAt(i));
+        } else {
+            for (byte b : text.substring(i, next).getBytes(StandardCharsets.UTF_8)) {
+                appendEscape(out, b & BYTE_MASK);
+            }
+        }
+        return next;
+    }
+
+    private static void appendEscape(final StringBuilder out, final int value) {
+        out.append('%').append(HEX_DIGITS[value >> NIBBLE_BITS & NIBBLE_MASK]).append(HEX_DIGITS[value & NIBBLE_MASK]);
+    }
+
+    private static boolean isUnreserved(final char c) {
+        return isAlpha(c) || isDigit(c) || c == '-' || c == '.' || c == '_' || c == '~';
+    }
+
+    private static boolean isAlpha(final char c) {
+        return c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z';
+    }
+
+    private static boolean isDigit(final char c) {
+        return c >= '0' && c <= '9';
+    }
+}
@@ -0,0 +1,74 @@
+package space.lasf.sparkjava.helper;
+
+/**
+ * A fast 64-bit hash of a URL, mixing four characters per round in the style of MurmurHash3.
+ * This class is final and cannot be instantiated.
+ */
+final class UrlHash {
+
+    private static final int CHARS_PER_ROUND = 4;
+    private static final int CHAR_BITS = Character.SIZE;
+    private static final long C1 = 0x87c37b91114253d5L;
+    private static final long C2 = 0x4cf5ad432745937fL;
+    private static final long ROUND_ADD = 0x52dce729L;
+    private static final int ROUND_MULTIPLIER = 5;
+    private static final int K_ROTATION = 31;
+    private static final int H_ROTATION = 27;
+    private static final long FINAL_MULTIPLIER_1 = 0xff51afd7ed558ccdL;
+    private static final long FINAL_MULTIPLIER_2 = 0xc4ceb9fe1a85ec53L;
+    private static final int FINAL_SHIFT = 33;
+
+    /**
+     * Private constructor to prevent instantiation of this utility class.
+     */
+    private UrlHash() {
+        throw new UnsupportedOperationException("This is a utility class and cannot be instantiated");
+    }
+
+    /**
+     * Hashes the characters of a URL.
+     *
+     * @param text The URL.
+     * @return Its 64-bit hash.
+     */
+    static long of(final CharSequence text) {
+        final int length = text.length();
+        final int blocksEnd = length - length % CHARS_PER_ROUND;
+        long hash = length * C2;
+        int i = 0;
+        for (; i < blocksEnd; i += CHARS_PER_ROUND) {
+            long block = 0;
+            for (int j = CHARS_PER_ROUND - 1; j >= 0; j--) {
+                block = block << CHAR_BITS | text.charAt(i + j);
+            }
+            hash ^= mixBlock(block);
+            hash = Long.rotateLeft(hash, H_ROTATION) * ROUND_MULTIPLIER + ROUND_ADD;
+        }
+        long tail = 0;
+        for (int shift = 0; i < length; i++, shift += CHAR_BITS) {
+            tail |= (long) text.charAt(i) << shift;
+        }
+        return mix(hash ^ mixBlock(tail));
+    }
+
+    /**
+     * Scrambles the bits of a 64-bit value (the MurmurHash3 finalizer), for instance to derive a second,
+     * independent hash from a first one.
+     *
+     * @param value The value to scramble.
+     * @return The scrambled value.
+     */
+    static long mix(final long value) {
+        long h = value;
+        h ^= h >>> FINAL_SHIFT;
+        h *= FINAL_MULTIPLIER_1;
+        h ^= h >>> FINAL_SHIFT;
+        h *= FINAL_MULTIPLIER_2;
+        h ^= h >>> FINAL_SHIFT;
+        return h;
+    }
+
+    private static long mixBlock(final long block) {
+        return Long.rotateLeft(block * C1, K_ROTATION) * C2;
+    }
+}
@@ -0,0 +1,41 @@
+package space.lasf.sparkjava.helper;
+
+import jdk.incubator.vector.ShortVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * A {@link FirstCharFilter} comparing as many characters per instruction as the CPU vector width allows,
+ * using the incubating Vector API. It is only loaded, reflectively, when {@code KEYWORD_SIMD=true}, since the
+ * {@code jdk.incubator.vector} module must then be added to the JVM.
+ */
+final class VectorFirstCharFilter implements FirstCharFilter {
+
+    private static final VectorSpecies<Short> SPECIES = ShortVector.SPECIES_PREFERRED;
+
+    @Override
+    public int indexOfAny(final char[] text, final int from, final int to, final char[] targets) {
+        int i = from;
+        if (to - from >= SPECIES.length()) {
+            final int bound = from + SPECIES.loopBound(to - from);
+            for (; i < bound; i += SPECIES.length()) {
+                ShortVector chars = ShortVector.fromCharArray(SPECIES, text, i);
+                VectorMask<Short> hits = chars.eq((short) targets[0]);
+                for (int t = 1; t < targets.length; t++) {
+                    hits = hits.or(chars.eq((short) targets[t]));
+                }
+                if (hits.anyTrue()) {
+                    return i + hits.firstTrue();
+                }
+            }
+        }
+        for (; i < to; i++) {
+            for (char target : targets) {
+                if (text[i] == target) {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+}
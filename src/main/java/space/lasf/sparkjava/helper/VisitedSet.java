@@ -0,0 +1,92 @@
+package space.lasf.sparkjava.helper;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Locale;
+
+/**
+ * The URLs a crawl has already seen, so that every URL is enqueued once.
+ * <p>
+ * {@code CRAWLER_VISITED_SET} selects the implementation: {@code exact} keeps the URL strings
+ * ({@link ExactVisitedSet}), {@code hash} keeps a 64-bit hash per URL ({@link HashVisitedSet}) and
+ * {@code bloom} uses a scalable Bloom filter ({@link BloomVisitedSet}) whose false-positive rate is
+ * {@code CRAWLER_VISITED_FPP}. A set can be written to a checkpoint and read back with {@link #readFrom(DataInput)}.
+ * Implementations are thread-safe.
+ */
+public interface VisitedSet {
+
+    /**
+     * Marks a URL as seen.
+     *
+     * @param url The canonical URL.
+     * @return {@code true} if the URL had not been seen yet.
+     */
+    boolean add(String url);
+
+    /**
+     * Returns the number of URLs added.
+     *
+     * @return The number of {@link #add(String)} calls that returned {@code true}.
+     */
+    long size();
+
+    /**
+     * Writes the set in a compact binary form, starting with a tag naming the implementation.
+     *
+     * @param out The destination.
+     * @throws IOException if writing fails.
+     */
+    void writeTo(DataOutput out) throws IOException;
+
+    /**
+     * Reads a set written by {@link #writeTo(DataOutput)}, whatever its implementation.
+     *
+     * @param in The source.
+     * @return The restored set.
+     * @throws IOException if reading fails or the data is not a visited set.
+     */
+    static VisitedSet readFrom(final DataInput in) throws IOException {
+        byte tag = in.readByte();
+        switch (tag) {
+            case ExactVisitedSet.TAG:
+                return ExactVisitedSet.read(in);
+            case HashVisitedSet.TAG:
+                return HashVisitedSet.read(in);
+            case BloomVisitedSet.TAG:
+                return BloomVisitedSet.read(in);
+            default:
+                throw new IOException("Unknown visited set type " + tag);
+        }
+    }
+
+    /**
+     * Creates the visited set configured by {@code CRAWLER_VISITED_SET} and {@code CRAWLER_VISITED_FPP}.
+     *
+     * @return A new, empty visited set.
+     */
+    static VisitedSet fromEnvironment() {
+        return create(
+                ConfigUtil.getString("CRAWLER_VISITED_SET", "exact"),
+                ConfigUtil.getDouble("CRAWLER_VISITED_FPP", BloomVisitedSet.DEFAULT_FALSE_POSITIVE_RATE));
+    }
+
+    /**
+     * Creates a visited set.
+     *
+     * @param mode              {@code exact}, {@code hash} or {@code bloom}; other values select
+     *                          {@code exact}.
+     * @param falsePositiveRate The false-positive rate of the {@code bloom} mode.
+     * @return A new, empty visited set.
+     */
+    static VisitedSet create(final String mode, final double falsePositiveRate) {
+        switch (mode.trim().toLowerCase(Locale.ROOT)) {
+            case "hash":
+                return new HashVisitedSet();
+            case "bloom":
+                return new BloomVisitedSet(falsePositiveRate);
+            default:
+                return new ExactVisitedSet();
+        }
+    }
+}
@@ -1,26 +1,28 @@
 package space.lasf.sparkjava.route;
 
-import static space.lasf.sparkjava.helper.RequestUtil.getBodyKeyword;
+import static space.lasf.sparkjava.helper.RequestUtil.getBody;
+import static space.lasf.sparkjava.helper.RequestUtil.getBodyCrawlRequest;
 import static space.lasf.sparkjava.helper.RequestUtil.getParamId;
-import static spark.Spark.after;
-import static spark.Spark.before;
-import static spark.Spark.exception;
-import static spark.Spark.get;
-import static spark.Spark.internalServerError;
-import static spark.Spark.notFound;
-import static spark.Spark.post;
 
 import com.google.gson.Gson;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.ExecutorService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import space.lasf.sparkjava.controller.ControllerInterface;
+import space.lasf.sparkjava.dto.ClusterBatchDto;
+import space.lasf.sparkjava.dto.ClusterJobDto;
+import space.lasf.sparkjava.dto.CrawlRequestDto;
 import space.lasf.sparkjava.dto.CrawlerDto;
 import space.lasf.sparkjava.exception.InvalidRequestException;
 import space.lasf.sparkjava.exception.ResourceNotFoundException;
 import space.lasf.sparkjava.exception.ServerConfigurationException;
+import space.lasf.sparkjava.helper.ClusterClient;
+import space.lasf.sparkjava.helper.ConfigUtil;
+import spark.Service;
 
 /**
  * A utility class for defining all the API routes for the application.
@@ -29,9 +31,11 @@ public final class ApiRoutes {
 
     private static final Logger LOG = LoggerFactory.getLogger(ApiRoutes.class);
     private static final String ENV_BASE_URL = "BASE_URL";
+    private static final String ENV_CLUSTER_SECRET = "CLUSTER_SECRET";
     private static final Gson GSON = new Gson();
     private static final int HTTP_STATUS_NOT_FOUND = 404;
     private static final int HTTP_STATUS_BAD_REQUEST = 400;
+    private static final int HTTP_STATUS_UNAUTHORIZED = 401;
     private static final int HTTP_STATUS_INTERNAL_SERVER_ERROR = 500;
 
     private ApiRoutes() {
@@ -41,56 +45,94 @@ public final class ApiRoutes {
     /**
      * Defines all the Spark routes and exception mappings for the web crawler service.
      *
+     * @param http            The Spark server instance the routes are defined on.
      * @param controller      The controller that will handle the requests.
      * @param executorService The service for running background tasks.
      */
     public static void defineRoutes(
-            final ControllerInterface<CrawlerDto> controller, final ExecutorService executorService) {
-        setupFilters();
-        setupCrawlerEndpoints(controller, executorService);
-        setupExceptionHandlers();
+            final Service http,
+            final ControllerInterface<CrawlerDto> controller,
+            final ExecutorService executorService) {
+        setupFilters(http);
+        setupCrawlerEndpoints(http, controller, executorService);
+        setupExceptionHandlers(http);
     }
 
     /**
      * Sets up the before and after filters for all routes.
      */
-    private static void setupFilters() {
-        before("/*", (q, a) -> LOG.info("Received api call"));
-        after((request, response) -> LOG.info("Responded to api call [{} {}]", request.requestMethod(), request.uri()));
+    private static void setupFilters(final Service http) {
+        http.before("/*", (q, a) -> LOG.info("Received api call"));
+        http.after((request, response) ->
+                LOG.info("Responded to api call [{} {}]", request.requestMethod(), request.uri()));
     }
 
     /**
-     * Sets up the main API endpoints (GET, POST).
+     * Sets up the main API endpoints (GET, POST, DELETE).
      */
     private static void setupCrawlerEndpoints(
-            final ControllerInterface<CrawlerDto> controller, final ExecutorService executorService) {
-        registerPostCrawl(controller, executorService);
-        registerGetCrawlById(controller);
-        registerGetCrawls(controller);
+            final Service http,
+            final ControllerInterface<CrawlerDto> controller,
+            final ExecutorService executorService) {
+        registerPostCrawl(http, controller, executorService);
+        registerGetCrawlById(http, controller);
+        registerGetCrawls(http, controller);
+        registerDeleteCrawl(http, controller);
+        registerGetPipeline(http, controller);
+        registerGetSchedule(http, controller);
+        registerDeleteSchedule(http, controller);
+        setupClusterEndpoints(http, controller);
+    }
+
+    /**
+     * Sets up the endpoints the nodes of a cluster call on each other, under {@code /cluster/jobs}. Only callers
+     * sending the {@code CLUSTER_SECRET} of this instance are served; without one, the endpoints serve nobody.
+     */
+    private static void setupClusterEndpoints(final Service http, final ControllerInterface<CrawlerDto> controller) {
+        final byte[] secret = ConfigUtil.getString(ENV_CLUSTER_SECRET, "").getBytes(StandardCharsets.UTF_8);
+        http.before("/cluster/*", (req, res) -> {
+            final String sent = req.headers(ClusterClient.SECRET_HEADER);
+            if (secret.length == 0
+                    || sent == null
+                    || !MessageDigest.isEqual(secret, sent.getBytes(StandardCharsets.UTF_8))) {
+                LOG.warn("Rejected unauthenticated cluster call [{} {}]", req.requestMethod(), req.uri());
+                http.halt(HTTP_STATUS_UNAUTHORIZED, GSON.toJson(Map.of("error", "Missing or invalid cluster secret.")));
+            }
+        });
+        registerPostClusterJob(http, controller);
+        registerPostClusterBatch(http, controller);
+        registerGetClusterJob(http, controller);
+        registerPostClusterJobFinish(http, controller);
+        registerDeleteClusterJob(http, controller);
     }
 
     private static void registerPostCrawl(
-            final ControllerInterface<CrawlerDto> controller, final ExecutorService executorService) {
-        post(
+            final Service http,
+            final ControllerInterface<CrawlerDto> controller,
+            final ExecutorService executorService) {
+        http.post(
                 "/crawl",
                 (req, res) -> {
+                    CrawlRequestDto request = getBodyCrawlRequest(req, GSON);
+                    // A request naming its own seeds does not need the server-wide seed URL.
                     String baseUrl = resolveBaseUrl();
-                    if (baseUrl == null || baseUrl.isBlank()) {
+                    boolean seeded =
+                            request.getSeeds() != null && !request.getSeeds().isEmpty();
+                    if (!seeded && (baseUrl == null || baseUrl.isBlank())) {
                         throw new ServerConfigurationException(
                                 "Server configuration error: BASE_URL environment variable not set.");
                     }
 
                     res.type("application/json");
-                    String keyword = getBodyKeyword(req, GSON);
-                    CrawlerDto crawler = controller.create(keyword);
+                    CrawlerDto crawler = controller.createFromRequest(request);
                     executorService.submit(() -> controller.process(baseUrl, crawler.getId()));
                     return Map.of("id", crawler.getId());
                 },
                 GSON::toJson);
     }
 
-    private static void registerGetCrawlById(final ControllerInterface<CrawlerDto> controller) {
-        get(
+    private static void registerGetCrawlById(final Service http, final ControllerInterface<CrawlerDto> controller) {
+        http.get(
                 "/crawl/:id",
                 (req, res) -> {
                     res.type("application/json");
@@ -99,8 +141,8 @@ public final class ApiRoutes {
                 GSON::toJson);
     }
 
-    private static void registerGetCrawls(final ControllerInterface<CrawlerDto> controller) {
-        get(
+    private static void registerGetCrawls(final Service http, final ControllerInterface<CrawlerDto> controller) {
+        http.get(
                 "/crawl",
                 (req, res) -> {
                     res.type("application/json");
@@ -109,6 +151,97 @@ public final class ApiRoutes {
                 GSON::toJson);
     }
 
+    private static void registerDeleteCrawl(final Service http, final ControllerInterface<CrawlerDto> controller) {
+        http.delete(
+                "/crawl/:id",
+                (req, res) -> {
+                    res.type("application/json");
+                    return controller.cancel(getParamId(req));
+                },
+                GSON::toJson);
+    }
+
+    private static void registerGetPipeline(final Service http, final ControllerInterface<CrawlerDto> controller) {
+        http.get(
+                "/pipeline",
+                (req, res) -> {
+                    res.type("application/json");
+                    return controller.findPipelineStages();
+                },
+                GSON::toJson);
+    }
+
+    private static void registerGetSchedule(final Service http, final ControllerInterface<CrawlerDto> controller) {
+        http.get(
+                "/schedule/:id",
+                (req, res) -> {
+                    res.type("application/json");
+                    return controller.findSchedule(getParamId(req));
+                },
+                GSON::toJson);
+    }
+
+    private static void registerDeleteSchedule(final Service http, final ControllerInterface<CrawlerDto> controller) {
+        http.delete(
+                "/schedule/:id",
+                (req, res) -> {
+                    res.type("application/json");
+                    return controller.cancelSchedule(getParamId(req));
+                },
+                GSON::toJson);
+    }
+
+    private static void registerPostClusterJob(final Service http, final ControllerInterface<CrawlerDto> controller) {
+        http.post(
+                "/cluster/jobs",
+                (req, res) -> {
+                    res.type("application/json");
+                    return controller.joinClusterJob(getBody(req, GSON, ClusterJobDto.class));
+                },
+                GSON::toJson);
+    }
+
+    private static void registerPostClusterBatch(final Service http, final ControllerInterface<CrawlerDto> controller) {
+        http.post(
+                "/cluster/jobs/:id/batch",
+                (req, res) -> {
+                    res.type("application/json");
+                    return controller.acceptClusterBatch(getParamId(req), getBody(req, GSON, ClusterBatchDto.class));
+                },
+                GSON::toJson);
+    }
+
+    private static void registerGetClusterJob(final Service http, final ControllerInterface<CrawlerDto> controller) {
+        http.get(
+                "/cluster/jobs/:id",
+                (req, res) -> {
+                    res.type("application/json");
+                    return controller.findClusterStatus(getParamId(req));
+                },
+                GSON::toJson);
+    }
+
+    private static void registerPostClusterJobFinish(
+            final Service http, final ControllerInterface<CrawlerDto> controller) {
+        http.post(
+                "/cluster/jobs/:id/finish",
+                (req, res) -> {
+                    res.type("application/json");
+                    return controller.finishClusterJob(getParamId(req));
+                },
+                GSON::toJson);
+    }
+
+    private static void registerDeleteClusterJob(final Service http, final ControllerInterface<CrawlerDto> controller) {
+        http.delete(
+                "/cluster/jobs/:id",
+                (req, res) -> {
+                    res.type("application/json");
+                    return controller.cancelClusterJob(getParamId(req));
+                },
+                GSON::toJson);
+    }
+
     private static String resolveBaseUrl() {
         return Optional.ofNullable(System.getenv(ENV_BASE_URL))
                 .filter(value -> !value.isBlank())
@@ -118,20 +251,20 @@ public final class ApiRoutes {
     /**
      * Sets up the exception handlers for the application.
      */
-    private static void setupExceptionHandlers() {
-        notFound((req, res) -> GSON.toJson(Map.of("message", "Custom 404 - Not Found")));
-        internalServerError((req, res) -> GSON.toJson(Map.of("message", "Custom 500 - Internal Server Error")));
+    private static void setupExceptionHandlers(final Service http) {
+        http.notFound((req, res) -> GSON.toJson(Map.of("message", "Custom 404 - Not Found")));
+        http.internalServerError((req, res) -> GSON.toJson(Map.of("message", "Custom 500 - Internal Server Error")));
 
-        exception(ResourceNotFoundException.class, (e, req, res) -> {
+        http.exception(ResourceNotFoundException.class, (e, req, res) -> {
             res.status(HTTP_STATUS_NOT_FOUND);
             res.body(GSON.toJson(Map.of("error", e.getMessage())));
         });
-        exception(InvalidRequestException.class, (e, req, res) -> {
+        http.exception(InvalidRequestException.class, (e, req, res) -> {
             LOG.warn("Invalid request for [{} {}]: {}", req.requestMethod(), req.uri(), e.getMessage());
             res.status(HTTP_STATUS_BAD_REQUEST);
             res.body(GSON.toJson(Map.of("error", e.getMessage())));
         });
-        exception(ServerConfigurationException.class, (e, req, res) -> {
+        http.exception(ServerConfigurationException.class, (e, req, res) -> {
             LOG.error(
                     "Server configuration error on request [{} {}]: {}",
                     req.requestMethod(),
@@ -140,7 +273,7 @@ public final class ApiRoutes {
             res.status(HTTP_STATUS_INTERNAL_SERVER_ERROR);
             res.body(GSON.toJson(Map.of("error", e.getMessage())));
         });
-        exception(Exception.class, (e, req, res) -> {
+        http.exception(Exception.class, (e, req, res) -> {
             LOG.error("Unexpected error processing request [{} {}]", req.requestMethod(), req.uri(), e);
             res.status(HTTP_STATUS_INTERNAL_SERVER_ERROR);
             res.body(GSON.toJson(Map.of("error", "An unexpected server error occurred.")));
@@ -1,25 +1,49 @@
 package space.lasf.sparkjava.controller;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyString;
-import static org.mockito.Mockito.doNothing;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.time.Duration;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import space.lasf.sparkjava.dao.DaoInterface;
+import space.lasf.sparkjava.dto.ClusterBatchDto;
+import space.lasf.sparkjava.dto.ClusterJobDto;
+import space.lasf.sparkjava.dto.ClusterStatusDto;
+import space.lasf.sparkjava.dto.CrawlRequestDto;
 import space.lasf.sparkjava.dto.CrawlerDto;
+import space.lasf.sparkjava.dto.PipelineStageDto;
+import space.lasf.sparkjava.dto.ScheduleDto;
+import space.lasf.sparkjava.entity.CrawlBudget;
+import space.lasf.sparkjava.entity.CrawlOptions;
+import space.lasf.sparkjava.entity.CrawlSchedule;
+import space.lasf.sparkjava.entity.CrawlTarget;
 import space.lasf.sparkjava.entity.Crawler;
+import space.lasf.sparkjava.entity.FrontierLimits;
+import space.lasf.sparkjava.entity.FrontierOrder;
+import space.lasf.sparkjava.entity.Priority;
 import space.lasf.sparkjava.exception.InvalidRequestException;
 import space.lasf.sparkjava.exception.ResourceNotFoundException;
 import space.lasf.sparkjava.handler.CrawlerHandler;
+import space.lasf.sparkjava.helper.ClusterMapper;
+import space.lasf.sparkjava.helper.ClusterStatus;
+import space.lasf.sparkjava.helper.CronExpression;
+import space.lasf.sparkjava.helper.StageStats;
 
 class CrawlerControllerImplTest {
 
@@ -61,12 +85,308 @@ class CrawlerControllerImplTest {
     }
 
     @Test
-    void processShouldDelegateToCrawlerHandler() {
-        doNothing().when(crawlerHandler).crawlResource("https://base", "ABCD1234");
+    void createFromRequestShouldValidateEveryKeyword() {
+        CrawlRequestDto request = new CrawlRequestDto();
+        request.setKeywords(List.of("spring", "abc"));
+
+        assertThrows(InvalidRequestException.class, () -> controller.createFromRequest(request));
+        assertThrows(InvalidRequestException.class, () -> controller.createFromRequest(new CrawlRequestDto()));
+        verify(dao, never()).create(anyList());
+    }
+
+    @Test
+    void createFromRequestShouldCreateOneCrawlForAllKeywords() {
+        CrawlRequestDto request = new CrawlRequestDto();
+        request.setKeywords(List.of("spring", "java"));
+        when(dao.create(List.of("spring", "java"), CrawlOptions.defaults(), CrawlBudget.unlimited()))
+                .thenReturn(new Crawler("ABCD1234", List.of("spring", "java")));
+
+        CrawlerDto dto = controller.createFromRequest(request);
+
+        assertEquals("ABCD1234", dto.getId());
+        assertEquals(List.of("spring", "java"), dto.getKeywords());
+        assertEquals(List.of(), dto.getHits().get("java"));
+    }
+
+    @Test
+    void createFromRequestShouldPassTheSchedulingOptions() {
+        CrawlRequestDto request = new CrawlRequestDto();
+        request.setKeywords(List.of("spring"));
+        request.setPriority("Interactive");
+        request.setWeight(4);
+        request.setMaxConcurrency(2);
+        CrawlOptions options = new CrawlOptions(Priority.INTERACTIVE, 4, 2);
+        when(dao.create(List.of("spring"), options, CrawlBudget.unlimited()))
+                .thenReturn(new Crawler("ABCD1234", List.of("spring"), options));
+
+        assertEquals("ABCD1234", controller.createFromRequest(request).getId());
+    }
+
+    @Test
+    void createFromRequestShouldRejectInvalidSchedulingOptions() {
+        CrawlRequestDto badPriority = new CrawlRequestDto();
+        badPriority.setKeywords(List.of("spring"));
+        badPriority.setPriority("urgent");
+        CrawlRequestDto badWeight = new CrawlRequestDto();
+        badWeight.setKeywords(List.of("spring"));
+        badWeight.setWeight(0);
+        CrawlRequestDto badCap = new CrawlRequestDto();
+        badCap.setKeywords(List.of("spring"));
+        badCap.setMaxConcurrency(0);
+
+        assertThrows(InvalidRequestException.class, () -> controller.createFromRequest(badPriority));
+        assertThrows(InvalidRequestException.class, () -> controller.createFromRequest(badWeight));
+        assertThrows(InvalidRequestException.class, () -> controller.createFromRequest(badCap));
+        verify(dao, never()).create(anyList(), any(), any());
+    }
+
+    @Test
+    void createFromRequestShouldPassTheFrontierLimits() {
+        CrawlRequestDto request = new CrawlRequestDto();
+        request.setKeywords(List.of("spring"));
+        request.setFrontierMemoryUrls(5000);
+        request.setFrontierDiskMb(64);
+        CrawlOptions options = new CrawlOptions(Priority.NORMAL, 1, 0, new FrontierLimits(5000, 64L * 1024 * 1024));
+        when(dao.create(List.of("spring"), options, CrawlBudget.unlimited()))
+                .thenReturn(new Crawler("ABCD1234", List.of("spring"), options));
+        CrawlRequestDto badDisk = new CrawlRequestDto();
+        badDisk.setKeywords(List.of("spring"));
+        badDisk.setFrontierDiskMb(0);
+
+        assertEquals("ABCD1234", controller.createFromRequest(request).getId());
+        assertThrows(InvalidRequestException.class, () -> controller.createFromRequest(badDisk));
+    }
+
+    @Test
+    void createFromRequestShouldPassTheBudget() {
+        CrawlRequestDto request = new CrawlRequestDto();
+        request.setKeywords(List.of("spring"));
+        request.setMaxPages(50L);
+        request.setMaxDepth(2);
+        request.setMaxDuration("PT1M");
+        request.setStopAfterHits(3L);
+        CrawlBudget budget = new CrawlBudget(50, 2, 60_000, CrawlBudget.UNLIMITED, 3);
+        when(dao.create(List.of("spring"), CrawlOptions.defaults(), budget))
+                .thenReturn(new Crawler("ABCD1234", List.of("spring"), CrawlOptions.defaults(), budget));
+        CrawlRequestDto inSeconds = new CrawlRequestDto();
+        inSeconds.setKeywords(List.of("spring"));
+        inSeconds.setMaxDuration("90");
+        inSeconds.setMaxBytes(1024L);
+        CrawlBudget secondsBudget = new CrawlBudget(
+                CrawlBudget.UNLIMITED, (int) CrawlBudget.UNLIMITED, 90_000, 1024, CrawlBudget.UNLIMITED);
+        when(dao.create(List.of("spring"), CrawlOptions.defaults(), secondsBudget))
+                .thenReturn(new Crawler("EFGH5678", List.of("spring"), CrawlOptions.defaults(), secondsBudget));
+
+        CrawlerDto dto = controller.createFromRequest(request);
+
+        assertEquals(50L, dto.getBudget().getMaxPages());
+        assertEquals(50L, dto.getBudget().getRemainingPages());
+        assertEquals(2, dto.getBudget().getMaxDepth());
+        assertNull(dto.getBudget().getMaxBytes());
+        assertNull(dto.getStopReason());
+        assertEquals("EFGH5678", controller.createFromRequest(inSeconds).getId());
+    }
+
+    @Test
+    void createFromRequestShouldRejectInvalidBudgets() {
+        CrawlRequestDto badPages = new CrawlRequestDto();
+        badPages.setKeywords(List.of("spring"));
+        badPages.setMaxPages(0L);
+        CrawlRequestDto badDepth = new CrawlRequestDto();
+        badDepth.setKeywords(List.of("spring"));
+        badDepth.setMaxDepth(-1);
+        CrawlRequestDto badDuration = new CrawlRequestDto();
+        badDuration.setKeywords(List.of("spring"));
+        badDuration.setMaxDuration("ten minutes");
+        CrawlRequestDto zeroDuration = new CrawlRequestDto();
+        zeroDuration.setKeywords(List.of("spring"));
+        zeroDuration.setMaxDuration("PT0S");
+
+        assertThrows(InvalidRequestException.class, () -> controller.createFromRequest(badPages));
+        assertThrows(InvalidRequestException.class, () -> controller.createFromRequest(badDepth));
+        assertThrows(InvalidRequestException.class, () -> controller.createFromRequest(badDuration));
+        assertThrows(InvalidRequestException.class, () -> controller.createFromRequest(zeroDuration));
+        verify(dao, never()).create(anyList(), any(), any());
+    }
+
+    @Test
+    void createFromRequestShouldPassTheSeedsAndScopeInCanonicalForm() {
+        CrawlRequestDto request = new CrawlRequestDto();
+        request.setKeywords(List.of("spring"));
+        request.setSeeds(List.of(" HTTP://Site.Test ", "https://other.test/docs/", "http://site.test/"));
+        CrawlTarget target = new CrawlTarget(
+                List.of("http://site.test/", "https://other.test/docs/"),
+                List.of("http://site.test/", "https://other.test/docs/"));
+        when(dao.create(List.of("spring"), CrawlOptions.defaults(), CrawlBudget.unlimited(), target))
+                .thenReturn(new Crawler(
+                        "ABCD1234", List.of("spring"), CrawlOptions.defaults(), CrawlBudget.unlimited(), target));
+        CrawlRequestDto scoped = new CrawlRequestDto();
+        scoped.setKeywords(List.of("spring"));
+        scoped.setSeeds(List.of("https://other.test/docs/start"));
+        scoped.setScope(List.of("https://other.test/docs/", "https://other.test/blog/"));
+        CrawlTarget scopedTarget = new CrawlTarget(List.of("https://other.test/docs/start"), scoped.getScope());
+        when(dao.create(List.of("spring"), CrawlOptions.defaults(), CrawlBudget.unlimited(), scopedTarget))
+                .thenReturn(new Crawler(
+                        "EFGH5678", List.of("spring"), CrawlOptions.defaults(), CrawlBudget.unlimited(), scopedTarget));
+
+        CrawlerDto dto = controller.createFromRequest(request);
+
+        assertEquals(target.getSeeds(), dto.getSeeds());
+        assertEquals(target.getScope(), dto.getScope());
+        assertEquals("EFGH5678", controller.createFromRequest(scoped).getId());
+    }
+
+    @Test
+    void createFromRequestShouldRejectInvalidSeedsAndScopes() {
+        CrawlRequestDto badSeed = new CrawlRequestDto();
+        badSeed.setKeywords(List.of("spring"));
+        badSeed.setSeeds(List.of("ftp://site.test/"));
+        CrawlRequestDto scopeOnly = new CrawlRequestDto();
+        scopeOnly.setKeywords(List.of("spring"));
+        scopeOnly.setScope(List.of("https://site.test/"));
+        CrawlRequestDto outOfScope = new CrawlRequestDto();
+        outOfScope.setKeywords(List.of("spring"));
+        outOfScope.setSeeds(List.of("https://site.test/blog/"));
+        outOfScope.setScope(List.of("https://site.test/docs/"));
+
+        assertThrows(InvalidRequestException.class, () -> controller.createFromRequest(badSeed));
+        assertThrows(InvalidRequestException.class, () -> controller.createFromRequest(scopeOnly));
+        assertThrows(InvalidRequestException.class, () -> controller.createFromRequest(outOfScope));
+        verify(dao, never()).create(anyList(), any(), any(), any());
+    }
+
+    @Test
+    void createFromRequestShouldScheduleARecurringCrawl() {
+        Crawler crawler = new Crawler("ABCD1234", List.of("spring"), CrawlOptions.defaults(), CrawlBudget.unlimited());
+        when(dao.create(anyList(), any(), any())).thenReturn(crawler);
+        when(crawlerHandler.schedule(eq(crawler), any(), any())).thenAnswer(invocation -> {
+            crawler.linkToSchedule(crawler.getId());
+            return new CrawlSchedule(crawler, invocation.getArgument(1), null);
+        });
+        CrawlRequestDto hourly = new CrawlRequestDto();
+        hourly.setKeywords(List.of("spring"));
+        hourly.setEvery("PT1H");
+        CrawlRequestDto once = new CrawlRequestDto();
+        once.setKeywords(List.of("spring"));
+
+        CrawlerDto dto = controller.createFromRequest(hourly);
+        controller.createFromRequest(once);
+
+        verify(crawlerHandler).schedule(crawler, Duration.ofHours(1), null);
+        assertEquals("ABCD1234", dto.getScheduleId());
+    }
+
+    @Test
+    void createFromRequestShouldRejectInvalidSchedules() {
+        CrawlRequestDto tooOften = new CrawlRequestDto();
+        tooOften.setKeywords(List.of("spring"));
+        tooOften.setEvery("30");
+        CrawlRequestDto badCron = new CrawlRequestDto();
+        badCron.setKeywords(List.of("spring"));
+        badCron.setCron("0 25 * * *");
+        CrawlRequestDto both = new CrawlRequestDto();
+        both.setKeywords(List.of("spring"));
+        both.setEvery("3600");
+        both.setCron("0 3 * * *");
+
+        assertThrows(InvalidRequestException.class, () -> controller.createFromRequest(tooOften));
+        assertThrows(InvalidRequestException.class, () -> controller.createFromRequest(badCron));
+        assertThrows(InvalidRequestException.class, () -> controller.createFromRequest(both));
+        verify(dao, never()).create(anyList(), any(), any());
+        verify(crawlerHandler, never()).schedule(any(), any(), any());
+    }
+
+    @Test
+    void findScheduleShouldMapTheRecurringCrawl() {
+        Crawler crawler = new Crawler("ABCD1234", List.of("spring"), CrawlOptions.defaults(), CrawlBudget.unlimited());
+        CrawlSchedule schedule = new CrawlSchedule(
+                crawler, null, CronExpression.parse("0 3 * * 1-5").toString());
+        schedule.addRun("EFGH5678");
+        when(crawlerHandler.findSchedule("ABCD1234")).thenReturn(schedule);
+        when(crawlerHandler.cancelSchedule("ABCD1234")).thenAnswer(invocation -> {
+            schedule.cancel();
+            return schedule;
+        });
+
+        ScheduleDto found = controller.findSchedule("ABCD1234");
+        ScheduleDto cancelled = controller.cancelSchedule("ABCD1234");
+
+        assertEquals("0 3 * * 1-5", found.getCron());
+        assertNull(found.getEvery());
+        assertEquals(List.of("ABCD1234", "EFGH5678"), found.getRuns());
+        assertEquals(List.of("spring"), found.getKeywords());
+        assertFalse(cancelled.isActive());
+        assertThrows(ResourceNotFoundException.class, () -> controller.findSchedule("ZZZZ9999"));
+        assertThrows(ResourceNotFoundException.class, () -> controller.cancelSchedule("ZZZZ9999"));
+        assertThrows(InvalidRequestException.class, () -> controller.findSchedule("short"));
+    }
+
+    @Test
+    void joinClusterJobShouldRebuildTheJobDescribedByItsCoordinator() {
+        CrawlOptions options =
+                new CrawlOptions(Priority.BULK, 3, 4, FrontierLimits.defaults(), FrontierOrder.BEST_FIRST);
+        Crawler original =
+                new Crawler("ABCD1234", List.of("spring", "java"), options, new CrawlBudget(100, 2, 60_000, -1, 5));
+        ClusterJobDto job = ClusterMapper.toClusterJobDto(original, "http://site.test/", "http://node-a:8081");
+        ArgumentCaptor<Crawler> joined = ArgumentCaptor.forClass(Crawler.class);
+        when(crawlerHandler.joinCluster(joined.capture(), eq("http://site.test/"), eq("http://node-a:8081")))
+                .thenReturn(new ClusterStatus(false, 0, 0));
+
+        ClusterStatusDto status = controller.joinClusterJob(job);
+
+        assertEquals("ABCD1234", status.getId());
+        assertFalse(status.isIdle());
+        assertEquals("ABCD1234", joined.getValue().getId());
+        assertEquals(original.getKeywords(), joined.getValue().getKeywords());
+        assertEquals(options, joined.getValue().getOptions());
+        assertEquals(original.getBudget(), joined.getValue().getBudget());
+    }
+
+    @Test
+    void clusterEndpointsShouldRejectStandaloneNodesAndUnknownJobs() {
+        Crawler crawler = new Crawler("ABCD1234", List.of("spring"));
+        ClusterJobDto job = ClusterMapper.toClusterJobDto(crawler, "http://site.test/", "http://node-a:8081");
+        ClusterJobDto incomplete = ClusterMapper.toClusterJobDto(crawler, "http://site.test/", null);
+        ClusterJobDto foreign = ClusterMapper.toClusterJobDto(crawler, "http://site.test/", "http://attacker.test");
+        when(crawlerHandler.leaveCluster("ABCD1234", true)).thenReturn(new ClusterStatus(true, 3, 2));
+        when(crawlerHandler.joinCluster(any(Crawler.class), eq("http://site.test/"), eq("http://attacker.test")))
+                .thenThrow(new IllegalArgumentException("not a node of this cluster"));
+
+        assertThrows(InvalidRequestException.class, () -> controller.joinClusterJob(job));
+        assertThrows(InvalidRequestException.class, () -> controller.joinClusterJob(incomplete));
+        assertThrows(InvalidRequestException.class, () -> controller.joinClusterJob(foreign));
+        assertThrows(ResourceNotFoundException.class, () -> controller.findClusterStatus("ZZZZ9999"));
+        assertThrows(ResourceNotFoundException.class, () -> controller.finishClusterJob("ZZZZ9999"));
+        assertThrows(
+                ResourceNotFoundException.class,
+                () -> controller.acceptClusterBatch("ZZZZ9999", new ClusterBatchDto()));
+        assertEquals(3, controller.cancelClusterJob("ABCD1234").getSent());
+    }
+
+    @Test
+    void processShouldStartTheCrawlWithoutWaitingForIt() {
+        when(crawlerHandler.startCrawl("https://base", "ABCD1234")).thenReturn(new CompletableFuture<>());
 
         controller.process("https://base", "ABCD1234");
 
-        verify(crawlerHandler).crawlResource("https://base", "ABCD1234");
+        verify(crawlerHandler).startCrawl("https://base", "ABCD1234");
+        verify(crawlerHandler, never()).crawlResource(anyString(), anyString());
+    }
+
+    @Test
+    void findPipelineStagesShouldMapTheStageStatistics() {
+        when(crawlerHandler.getPipelineStats())
+                .thenReturn(List.of(new StageStats("fetch", 0, 3, 5, 16), new StageStats("parse", 4, 2, 1, 16)));
+
+        List<PipelineStageDto> stages = controller.findPipelineStages();
+
+        assertEquals(2, stages.size());
+        assertEquals("fetch", stages.get(0).getName());
+        assertEquals(3, stages.get(0).getActive());
+        assertEquals(5, stages.get(0).getQueued());
+        assertEquals("parse", stages.get(1).getName());
+        assertEquals(4, stages.get(1).getWorkers());
+        assertEquals(16, stages.get(1).getCapacity());
     }
 
     @Test
@@ -97,6 +417,28 @@ class CrawlerControllerImplTest {
         assertEquals("done", dto.getStatus());
     }
 
+    @Test
+    void cancelShouldCancelTheJobAndReturnItsState() {
+        Crawler crawler = new Crawler("ABCD1234", "keyword");
+        when(dao.findById("ABCD1234")).thenReturn(crawler);
+        when(crawlerHandler.cancel("ABCD1234")).thenAnswer(invocation -> crawler.cancel());
+
+        CrawlerDto dto = controller.cancel("ABCD1234");
+
+        verify(crawlerHandler).cancel("ABCD1234");
+        assertEquals("cancelled", dto.getStatus());
+        assertEquals("cancelled", dto.getStopReason());
+    }
+
+    @Test
+    void cancelShouldThrowWhenResourceNotFound() {
+        when(dao.findById("ABCD1234")).thenReturn(null);
+
+        assertThrows(ResourceNotFoundException.class, () -> controller.cancel("ABCD1234"));
+        assertThrows(InvalidRequestException.class, () -> controller.cancel("short"));
+        verify(crawlerHandler, never()).cancel(anyString());
+    }
+
     @Test
     void findAllShouldReturnMappedList() {
         Crawler one = new Crawler("AAAA1111", "one");
@@ -7,6 +7,7 @@ import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.util.List;
+import java.util.Set;
 import org.junit.jupiter.api.Test;
 import space.lasf.sparkjava.entity.Crawler;
 import space.lasf.sparkjava.entity.Status;
@@ -51,6 +52,23 @@ class CrawlerDaoTest {
         assertFalse(dao.findById(crawler.getId()).getUrls().contains("https://ignored.com"));
     }
 
+    @Test
+    void appendHitsShouldRecordPagesPerKeyword() {
+        CrawlerDao dao = new CrawlerDao();
+        Crawler crawler = dao.create(List.of("spring", "java"));
+
+        dao.appendHits(crawler.getId(), "https://example.com/a", List.of("java"));
+        dao.appendHits(crawler.getId(), "https://example.com/b", List.of("spring", "java"));
+
+        Crawler stored = dao.findById(crawler.getId());
+        assertEquals(List.of("spring", "java"), stored.getKeywords());
+        assertEquals(Set.of("https://example.com/b"), stored.getHits().get("spring"));
+        assertEquals(
+                Set.of("https://example.com/a", "https://example.com/b"),
+                stored.getHits().get("java"));
+        assertEquals(2, stored.getUrls().size());
+    }
+
     @Test
     void changeStatusShouldHandleDoneAndError() {
         CrawlerDao dao = new CrawlerDao();
@@ -0,0 +1,151 @@
+package space.lasf.sparkjava.handler;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import space.lasf.sparkjava.entity.CrawlBudget;
+import space.lasf.sparkjava.entity.CrawlOptions;
+import space.lasf.sparkjava.entity.CrawlTarget;
+import space.lasf.sparkjava.entity.Crawler;
+import space.lasf.sparkjava.entity.FrontierOrder;
+import space.lasf.sparkjava.entity.Status;
+import space.lasf.sparkjava.helper.FairSlotScheduler;
+import space.lasf.sparkjava.helper.FrontierEntry;
+import space.lasf.sparkjava.helper.HostPoliteness;
+
+class CheckpointStoreTest {
+
+    private static final String BASE_URL = "http://example.test/";
+    private static final Duration NEVER = Duration.ofHours(1);
+
+    @TempDir
+    Path dir;
+
+    private final HostPoliteness politeness = HostPoliteness.fromEnvironment();
+    private final FairSlotScheduler slots = new FairSlotScheduler(4, 0);
+
+    @Test
+    void closeShouldKeepACheckpointFromWhichTheJobAndItsCrawlAreResumed() {
+        Crawler crawler = new Crawler(
+                "job00001",
+                List.of("alpha", "beta"),
+                CrawlOptions.defaults(),
+                new CrawlBudget(100, 3, CrawlBudget.UNLIMITED, CrawlBudget.UNLIMITED, CrawlBudget.UNLIMITED));
+        crawler.getStats().recordPage(1_000, 2_000, false);
+        crawler.addHits(BASE_URL, List.of("alpha"));
+        crawler.addLinks(List.of(BASE_URL));
+        CrawlContext context = newContext();
+        context.getVisitedUrls().add(BASE_URL + "a");
+        context.getFrontier().add(new FrontierEntry(BASE_URL + "a", 1, 0));
+        FrontierEntry inFlight = context.getFrontier().pollEntry();
+        context.startPage(inFlight);
+
+        CheckpointStore store = new CheckpointStore(dir, NEVER);
+        store.register(crawler, context);
+        store.close();
+        store.unregister(crawler.getId());
+
+        CheckpointStore next = new CheckpointStore(dir, NEVER);
+        Map<String, Crawler> resumed = new HashMap<>();
+        assertEquals(1, next.resume(checkpoint -> resumed.put(checkpoint.getBaseUrl(), checkpoint.getCrawler())));
+
+        Crawler job = resumed.get(BASE_URL);
+        assertNotNull(job);
+        assertEquals(crawler.getId(), job.getId());
+        assertEquals(Status.ACTIVE, job.getStatus());
+        assertEquals(crawler.getKeywords(), job.getKeywords());
+        assertEquals(crawler.getBudget(), job.getBudget());
+        assertEquals(1, job.getStats().getPagesFetched());
+        assertEquals(1_000, job.getStats().getWireBytes());
+        assertEquals(Set.of(BASE_URL), job.getHits().get("alpha"));
+        assertEquals(Set.of(BASE_URL), job.getUrls());
+
+        CrawlContext restored =
+                next.restoreCrawl(job.getId(), politeness, slots.register(BASE_URL, CrawlOptions.defaults()), flow -> {
+                    throw new AssertionError("The crawl should be restored from its checkpoint");
+                });
+        assertFalse(restored.getVisitedUrls().add(BASE_URL));
+        assertFalse(restored.getVisitedUrls().add(BASE_URL + "a"));
+        assertEquals(2, restored.getFrontier().size(), "the seed and the page in flight are pending again");
+    }
+
+    @Test
+    void unregisterShouldDeleteTheCheckpointOfAFinishedJob() throws IOException {
+        Crawler crawler = new Crawler("job00002", List.of("alpha"));
+        CheckpointStore store = new CheckpointStore(dir, NEVER);
+        store.register(crawler, newContext());
+
+        store.checkpointAll();
+        assertEquals(1, checkpointCount());
+        store.unregister(crawler.getId());
+
+        assertEquals(0, checkpointCount());
+        assertTrue(store.load().isEmpty());
+    }
+
+    @Test
+    void restoreCrawlShouldCreateANewCrawlForAJobWithoutCheckpoint() {
+        CheckpointStore store = new CheckpointStore(null, NEVER);
+        CrawlContext fresh = newContext();
+
+        assertEquals(0, store.resume(checkpoint -> {
+            throw new AssertionError("Nothing to resume");
+        }));
+        assertSame(
+                fresh,
+                store.restoreCrawl(
+                        "job00003", politeness, slots.register(BASE_URL, CrawlOptions.defaults()), flow -> fresh));
+    }
+
+    @Test
+    void resumeShouldKeepTheCoordinatorOfAClusteredJob() {
+        Crawler peerJob = new Crawler("job00004", List.of("alpha"));
+        Crawler ownJob = new Crawler("job00005", List.of("alpha"));
+        ClusterNode node =
+                new ClusterNode("http://node-b", List.of("http://node-a", "http://node-b"), null, null, null);
+        CrawlContext peerCrawl = newContext();
+        CrawlContext ownCrawl = newContext();
+        node.join(peerCrawl, peerJob, BASE_URL, "http://node-a");
+        ownCrawl.joinCluster(new ClusterJob(node, ownJob.getId(), "http://node-b", ownCrawl, List.of()));
+
+        CheckpointStore store = new CheckpointStore(dir, NEVER);
+        store.register(peerJob, peerCrawl);
+        store.register(ownJob, ownCrawl);
+        store.close();
+
+        Map<String, String> coordinators = new HashMap<>();
+        new CheckpointStore(dir, NEVER)
+                .resume(checkpoint ->
+                        coordinators.put(checkpoint.getCrawler().getId(), String.valueOf(checkpoint.getCoordinator())));
+        assertEquals(Map.of("job00004", "http://node-a", "job00005", "null"), coordinators);
+    }
+
+    private CrawlContext newContext() {
+        return CrawlContext.create(
+                CrawlTarget.of(BASE_URL),
+                CrawlOptions.defaults(),
+                FrontierOrder.FIFO,
+                politeness,
+                slots.register(BASE_URL, CrawlOptions.defaults()));
+    }
+
+    private long checkpointCount() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.count();
+        }
+    }
+}
@@ -1,6 +1,12 @@
 package space.lasf.sparkjava.handler;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.mock;
@@ -9,25 +15,63 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.sun.net.httpserver.HttpServer;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.URI;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.zip.GZIPOutputStream;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.ArgumentCaptor;
+import space.lasf.sparkjava.controller.CrawlerControllerImpl;
+import space.lasf.sparkjava.dao.CrawlerDao;
 import space.lasf.sparkjava.dao.DaoInterface;
+import space.lasf.sparkjava.entity.CrawlBudget;
+import space.lasf.sparkjava.entity.CrawlOptions;
+import space.lasf.sparkjava.entity.CrawlSchedule;
+import space.lasf.sparkjava.entity.CrawlStats;
+import space.lasf.sparkjava.entity.CrawlTarget;
 import space.lasf.sparkjava.entity.Crawler;
+import space.lasf.sparkjava.entity.FrontierLimits;
+import space.lasf.sparkjava.entity.FrontierOrder;
+import space.lasf.sparkjava.entity.HitChanges;
+import space.lasf.sparkjava.entity.Priority;
+import space.lasf.sparkjava.entity.SkipReason;
 import space.lasf.sparkjava.entity.Status;
+import space.lasf.sparkjava.entity.StopReason;
+import space.lasf.sparkjava.helper.AsyncHtmlFetcher;
+import space.lasf.sparkjava.helper.ClusterClient;
+import space.lasf.sparkjava.helper.HostCircuitBreaker;
+import space.lasf.sparkjava.helper.HostPoliteness;
+import space.lasf.sparkjava.helper.HttpResponseCache;
+import space.lasf.sparkjava.helper.RetryPolicy;
+import space.lasf.sparkjava.route.ApiRoutes;
+import spark.Service;
 
 class CrawlerHandlerTest {
 
     private static final String REQUEST_ID = "ABCD1234";
+    private static final int CLUSTER_PAGES = 20;
 
     private HttpServer server;
     private ExecutorService executor;
@@ -101,4 +145,843 @@ class CrawlerHandlerTest {
 
         verify(dao).changeStatus(REQUEST_ID, Status.DONE);
     }
+
+    @Test
+    void crawlResourceShouldDecodeGzipBodiesAndReportTransferSizes() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(0), 0);
+        server.createContext("/", exchange -> {
+            String html = "<html>" + "filler text ".repeat(500) + "java</html>";
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+            try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+                gzip.write(html.getBytes(StandardCharsets.UTF_8));
+            }
+            String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+            assertTrue(acceptEncoding != null && acceptEncoding.contains("gzip"));
+            exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+            exchange.sendResponseHeaders(200, compressed.size());
+            try (OutputStream os = exchange.getResponseBody()) {
+                compressed.writeTo(os);
+            }
+        });
+        server.start();
+
+        String baseUrl = "http://localhost:" + server.getAddress().getPort() + "/";
+        Crawler crawler = new Crawler(REQUEST_ID, "java");
+        when(dao.findById(REQUEST_ID)).thenReturn(crawler);
+
+        new CrawlerHandler(dao, executor).crawlResource(baseUrl, REQUEST_ID);
+
+        verify(dao).appendAll(REQUEST_ID, List.of(baseUrl));
+        CrawlStats stats = crawler.getStats();
+        assertEquals(1, stats.getPagesFetched());
+        assertTrue(stats.getWireBytes() > 0);
+        assertTrue(stats.getWireBytes() * 5 < stats.getDecodedBytes());
+    }
+
+    @Test
+    void crawlResourceShouldSkipNonHtmlResponsesAndRecordWhy() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(0), 0);
+        server.createContext("/", exchange -> {
+            byte[] bytes = "<html><a href=\"/report\">report</a></html>".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "text/html; charset=UTF-8");
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(bytes);
+            }
+        });
+        server.createContext("/report", exchange -> {
+            byte[] bytes = "%PDF-1.7 java".getBytes(StandardCharsets.US_ASCII);
+            exchange.getResponseHeaders().add("Content-Type", "application/pdf");
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(bytes);
+            }
+        });
+        server.start();
+
+        String baseUrl = "http://localhost:" + server.getAddress().getPort() + "/";
+        Crawler crawler = new Crawler(REQUEST_ID, "java");
+        when(dao.findById(REQUEST_ID)).thenReturn(crawler);
+
+        new CrawlerHandler(dao, executor).crawlResource(baseUrl, REQUEST_ID);
+
+        verify(dao, never()).appendAll(eq(REQUEST_ID), any());
+        CrawlStats stats = crawler.getStats();
+        assertEquals(1, stats.getPagesFetched());
+        assertEquals(1L, stats.getSkippedByReason().get(SkipReason.NOT_HTML));
+        assertEquals(Map.of(baseUrl + "report", SkipReason.NOT_HTML), stats.getSkippedUrls());
+    }
+
+    @Test
+    void crawlResourceShouldRetryTransientFailuresAndReportThem() throws IOException {
+        AtomicInteger requests = new AtomicInteger();
+        server = HttpServer.create(new InetSocketAddress(0), 0);
+        server.createContext("/", exchange -> {
+            if (requests.incrementAndGet() == 1) {
+                exchange.getResponseHeaders().add("Retry-After", "0");
+                exchange.sendResponseHeaders(503, -1);
+                exchange.close();
+                return;
+            }
+            byte[] bytes = "<html>java</html>".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(bytes);
+            }
+        });
+        server.start();
+
+        String baseUrl = "http://localhost:" + server.getAddress().getPort() + "/";
+        Crawler crawler = new Crawler(REQUEST_ID, "java");
+        when(dao.findById(REQUEST_ID)).thenReturn(crawler);
+        RetryPolicy retryPolicy = new RetryPolicy(2, Duration.ofMillis(10), Duration.ofMillis(50));
+        HostPoliteness politeness = new HostPoliteness(100, 10, 2, Duration.ZERO, HostCircuitBreaker.disabled());
+
+        new CrawlerHandler(dao, executor, new AsyncHtmlFetcher(), politeness, retryPolicy)
+                .crawlResource(baseUrl, REQUEST_ID);
+
+        verify(dao).appendAll(REQUEST_ID, List.of(baseUrl));
+        assertEquals(2, requests.get());
+        assertEquals(1, crawler.getStats().getRetries());
+        assertEquals(0, crawler.getStats().getFailures());
+    }
+
+    @Test
+    void bestFirstCrawlShouldFetchTheMostPromisingLinkFirst() throws IOException {
+        List<String> fetched = new CopyOnWriteArrayList<>();
+        server = HttpServer.create(new InetSocketAddress(0), 0);
+        server.createContext("/", exchange -> {
+            String path = exchange.getRequestURI().getPath();
+            fetched.add(path);
+            String html = path.equals("/")
+                    ? "<a href=\"/a\">About</a><a href=\"/b\">Blog</a><a href=\"/c\">Contact</a>"
+                            + "<a href=\"/d\">Spark guide</a>"
+                    : path.equals("/d") ? "<p>spark</p>" : "<p>nothing here</p>";
+            byte[] bytes = html.getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(bytes);
+            }
+        });
+        server.start();
+
+        String baseUrl = "http://localhost:" + server.getAddress().getPort() + "/";
+        CrawlOptions options =
+                new CrawlOptions(Priority.NORMAL, 1, 0, FrontierLimits.defaults(), FrontierOrder.BEST_FIRST);
+        Crawler crawler = new Crawler(REQUEST_ID, List.of("spark"), options);
+        when(dao.findById(REQUEST_ID)).thenReturn(crawler);
+        HostPoliteness politeness = new HostPoliteness(1000, 100, 1, Duration.ZERO, HostCircuitBreaker.disabled());
+
+        new CrawlerHandler(dao, executor, new AsyncHtmlFetcher(), politeness, RetryPolicy.fromEnvironment())
+                .crawlResource(baseUrl, REQUEST_ID);
+
+        assertEquals(List.of("/", "/d"), fetched.subList(0, 2));
+        assertEquals(5, fetched.size());
+        verify(dao).appendAll(REQUEST_ID, List.of(baseUrl + "d"));
+        assertTrue(crawler.getStats().getTimeToFirstHitMillis() >= 0);
+    }
+
+    @Test
+    void crawlResourceShouldStopOnceMaxPagesAreFetched() throws IOException {
+        List<String> fetched = new CopyOnWriteArrayList<>();
+        server = HttpServer.create(new InetSocketAddress(0), 0);
+        server.createContext("/", exchange -> {
+            fetched.add(exchange.getRequestURI().getPath());
+            StringBuilder html = new StringBuilder("<html>java");
+            for (int i = 0; i < 10; i++) {
+                html.append("<a href=\"/page").append(i).append("\">page</a>");
+            }
+            byte[] bytes = html.append("</html>").toString().getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(bytes);
+            }
+        });
+        server.start();
+
+        String baseUrl = "http://localhost:" + server.getAddress().getPort() + "/";
+        CrawlBudget budget = new CrawlBudget(3, (int) CrawlBudget.UNLIMITED, CrawlBudget.UNLIMITED, 1_000_000, 100);
+        Crawler crawler = new Crawler(REQUEST_ID, List.of("java"), CrawlOptions.defaults(), budget);
+        when(dao.findById(REQUEST_ID)).thenReturn(crawler);
+
+        new CrawlerHandler(dao, executor).crawlResource(baseUrl, REQUEST_ID);
+
+        assertEquals(3, fetched.size());
+        assertEquals(3, crawler.getStats().getPagesFetched());
+        assertEquals(StopReason.MAX_PAGES, crawler.getStopReason());
+        verify(dao).changeStatus(REQUEST_ID, Status.DONE);
+    }
+
+    @Test
+    void crawlResourceShouldStopAtMaxDurationWhileAFetchIsStalled() throws Exception {
+        CountDownLatch hang = new CountDownLatch(1);
+        server = HttpServer.create(new InetSocketAddress(0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/", exchange -> {
+            try {
+                hang.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        });
+        server.start();
+
+        String baseUrl = "http://localhost:" + server.getAddress().getPort() + "/";
+        CrawlBudget budget = new CrawlBudget(
+                CrawlBudget.UNLIMITED, (int) CrawlBudget.UNLIMITED, 300, CrawlBudget.UNLIMITED, CrawlBudget.UNLIMITED);
+        Crawler crawler = new Crawler(REQUEST_ID, List.of("java"), CrawlOptions.defaults(), budget);
+        when(dao.findById(REQUEST_ID)).thenReturn(crawler);
+
+        long started = System.nanoTime();
+        new CrawlerHandler(dao, executor).crawlResource(baseUrl, REQUEST_ID);
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+        hang.countDown();
+
+        assertTrue(elapsedMillis < 3_000, "stopped after " + elapsedMillis + " ms");
+        assertEquals(StopReason.MAX_DURATION, crawler.getStopReason());
+        assertEquals(0, crawler.getStats().getPagesFetched());
+        verify(dao).changeStatus(REQUEST_ID, Status.DONE);
+    }
+
+    @Test
+    void crawlResourceShouldNotFollowLinksBeyondMaxDepth() throws IOException {
+        List<String> fetched = new CopyOnWriteArrayList<>();
+        server = HttpServer.create(new InetSocketAddress(0), 0);
+        server.createContext("/", exchange -> {
+            String path = exchange.getRequestURI().getPath();
+            fetched.add(path);
+            String html = "/".equals(path)
+                    ? "<a href=\"/one\">one</a>"
+                    : "/one".equals(path) ? "<a href=\"/one/two\">two</a>" : "<a href=\"/one/two/three\">3</a>";
+            byte[] bytes = html.getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(bytes);
+            }
+        });
+        server.start();
+
+        String baseUrl = "http://localhost:" + server.getAddress().getPort() + "/";
+        CrawlBudget budget = new CrawlBudget(CrawlBudget.UNLIMITED, 1, 60_000, CrawlBudget.UNLIMITED, 1);
+        Crawler crawler = new Crawler(REQUEST_ID, List.of("java"), CrawlOptions.defaults(), budget);
+        when(dao.findById(REQUEST_ID)).thenReturn(crawler);
+
+        new CrawlerHandler(dao, executor).crawlResource(baseUrl, REQUEST_ID);
+
+        assertEquals(List.of("/", "/one"), fetched);
+        assertEquals(StopReason.MAX_DEPTH, crawler.getStopReason());
+    }
+
+    @Test
+    void crawlResourceShouldResolveRelativeLinksAgainstThePageTheyAreOn() throws IOException {
+        List<String> fetched = new CopyOnWriteArrayList<>();
+        server = HttpServer.create(new InetSocketAddress(0), 0);
+        server.createContext("/", exchange -> {
+            String path = exchange.getRequestURI().getPath();
+            fetched.add(path);
+            String html = "/".equals(path)
+                    ? "<a href=\"docs/x/page.html\">page</a>"
+                    : "/docs/x/page.html".equals(path) ? "<a href=\"b.html\">b</a> <a href=\"../y/\">y</a>" : "java";
+            byte[] bytes = html.getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(bytes);
+            }
+        });
+        server.start();
+
+        String baseUrl = "http://localhost:" + server.getAddress().getPort() + "/";
+        Crawler crawler = new Crawler(REQUEST_ID, List.of("java"));
+        when(dao.findById(REQUEST_ID)).thenReturn(crawler);
+
+        new CrawlerHandler(dao, executor).crawlResource(baseUrl, REQUEST_ID);
+
+        assertEquals(Set.of("/", "/docs/x/page.html", "/docs/x/b.html", "/docs/y/"), Set.copyOf(fetched));
+        assertEquals(4, fetched.size());
+    }
+
+    @Test
+    void crawlResourceShouldStopAfterTheRequestedHits() throws IOException {
+        AtomicInteger requests = new AtomicInteger();
+        server = HttpServer.create(new InetSocketAddress(0), 0);
+        server.createContext("/", exchange -> {
+            requests.incrementAndGet();
+            StringBuilder html = new StringBuilder("<html>java");
+            for (int i = 0; i < 50; i++) {
+                html.append("<a href=\"/page").append(i).append("\">page</a>");
+            }
+            byte[] bytes = html.append("</html>").toString().getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(bytes);
+            }
+        });
+        server.start();
+
+        String baseUrl = "http://localhost:" + server.getAddress().getPort() + "/";
+        CrawlBudget budget = new CrawlBudget(
+                CrawlBudget.UNLIMITED, (int) CrawlBudget.UNLIMITED, CrawlBudget.UNLIMITED, CrawlBudget.UNLIMITED, 2);
+        Crawler crawler = new Crawler(REQUEST_ID, List.of("java"), CrawlOptions.defaults(), budget);
+        when(dao.findById(REQUEST_ID)).thenReturn(crawler);
+
+        new CrawlerHandler(dao, executor).crawlResource(baseUrl, REQUEST_ID);
+
+        assertEquals(StopReason.STOP_AFTER_HITS, crawler.getStopReason());
+        assertTrue(requests.get() < 51, "the crawl should stop well before the frontier is empty");
+        verify(dao).changeStatus(REQUEST_ID, Status.DONE);
+    }
+
+    @Test
+    void crawlResourceShouldGiveUpAfterTheRetryBudget() throws IOException {
+        AtomicInteger requests = new AtomicInteger();
+        server = HttpServer.create(new InetSocketAddress(0), 0);
+        server.createContext("/", exchange -> {
+            requests.incrementAndGet();
+            exchange.sendResponseHeaders(500, -1);
+            exchange.close();
+        });
+        server.start();
+
+        String baseUrl = "http://localhost:" + server.getAddress().getPort() + "/";
+        Crawler crawler = new Crawler(REQUEST_ID, "java");
+        when(dao.findById(REQUEST_ID)).thenReturn(crawler);
+        RetryPolicy retryPolicy = new RetryPolicy(2, Duration.ofMillis(10), Duration.ofMillis(50));
+        HostPoliteness politeness = new HostPoliteness(100, 10, 2, Duration.ZERO, HostCircuitBreaker.disabled());
+
+        new CrawlerHandler(dao, executor, new AsyncHtmlFetcher(), politeness, retryPolicy)
+                .crawlResource(baseUrl, REQUEST_ID);
+
+        assertEquals(3, requests.get());
+        assertEquals(2, crawler.getStats().getRetries());
+        assertEquals(1, crawler.getStats().getFailures());
+        verify(dao).changeStatus(REQUEST_ID, Status.DONE);
+    }
+
+    @Test
+    void concurrentJobsOnTheSameSeedShouldShareFetches() throws Exception {
+        Map<String, AtomicInteger> requests = new ConcurrentHashMap<>();
+        CountDownLatch release = new CountDownLatch(1);
+        server = HttpServer.create(new InetSocketAddress(0), 0);
+        server.createContext("/", exchange -> {
+            String path = exchange.getRequestURI().getPath();
+            requests.computeIfAbsent(path, key -> new AtomicInteger()).incrementAndGet();
+            String html =
+                    "/".equals(path) ? "<html>java <a href=\"/page\">page</a></html>" : "<html>spring java</html>";
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            byte[] bytes = html.getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(bytes);
+            }
+        });
+        server.start();
+
+        String baseUrl = "http://localhost:" + server.getAddress().getPort() + "/";
+        when(dao.findById("JOBJAVA1")).thenReturn(new Crawler("JOBJAVA1", "java"));
+        when(dao.findById("JOBSPRNG")).thenReturn(new Crawler("JOBSPRNG", "spring"));
+        CrawlerHandler handler = new CrawlerHandler(dao, executor);
+
+        Thread first = new Thread(() -> handler.crawlResource(baseUrl, "JOBJAVA1"));
+        first.start();
+        awaitCondition(() -> requests.containsKey("/"));
+        Thread second = new Thread(() -> handler.crawlResource(baseUrl, "JOBSPRNG"));
+        second.start();
+        // The second job parks until the shared crawl it subscribed to finishes.
+        awaitCondition(() -> second.getState() == Thread.State.WAITING);
+        release.countDown();
+        first.join(10_000);
+        second.join(10_000);
+
+        // Without a response cache, the second job is not handed the page dispatched before it joined.
+        assertEquals(1, requests.get("/page").get());
+        assertEquals(1, requests.get("/").get());
+        verify(dao).appendAll("JOBJAVA1", List.of(baseUrl));
+        verify(dao).appendAll("JOBJAVA1", List.of(baseUrl + "page"));
+        verify(dao).appendHits("JOBSPRNG", baseUrl + "page", List.of("spring"));
+        verify(dao, never()).appendAll("JOBSPRNG", List.of(baseUrl));
+        verify(dao).changeStatus("JOBJAVA1", Status.DONE);
+        verify(dao).changeStatus("JOBSPRNG", Status.DONE);
+    }
+
+    @Test
+    void jobsJoiningARunningCrawlShouldReplayEarlierPagesFromTheResponseCache(@TempDir final Path cacheDir)
+            throws Exception {
+        Map<String, AtomicInteger> requests = new ConcurrentHashMap<>();
+        CountDownLatch release = new CountDownLatch(1);
+        server = HttpServer.create(new InetSocketAddress(0), 0);
+        server.createContext("/", exchange -> {
+            String path = exchange.getRequestURI().getPath();
+            requests.computeIfAbsent(path, key -> new AtomicInteger()).incrementAndGet();
+            String html =
+                    "/".equals(path) ? "<html>java spring <a href=\"/page\">page</a></html>" : "<html>java</html>";
+            try {
+                // The seed page is done, and cached, before the second job joins.
+                if (!"/".equals(path)) {
+                    release.await(5, TimeUnit.SECONDS);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            byte[] bytes = html.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "text/html");
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(bytes);
+            }
+        });
+        server.start();
+
+        String baseUrl = "http://localhost:" + server.getAddress().getPort() + "/";
+        when(dao.findById("JOBJAVA1")).thenReturn(new Crawler("JOBJAVA1", "java"));
+        when(dao.findById("JOBSPRNG")).thenReturn(new Crawler("JOBSPRNG", "spring"));
+        HttpResponseCache cache = new HttpResponseCache(cacheDir, 1024 * 1024, 100, 60_000);
+        CrawlerHandler handler = new CrawlerHandler(dao, executor, new AsyncHtmlFetcher(Duration.ofSeconds(5), cache));
+
+        Thread first = new Thread(() -> handler.crawlResource(baseUrl, "JOBJAVA1"));
+        first.start();
+        awaitCondition(() -> requests.containsKey("/page"));
+        Thread second = new Thread(() -> handler.crawlResource(baseUrl, "JOBSPRNG"));
+        second.start();
+        awaitCondition(() -> second.getState() == Thread.State.WAITING);
+        release.countDown();
+        first.join(10_000);
+        second.join(10_000);
+
+        assertEquals(1, requests.get("/").get());
+        verify(dao).appendHits("JOBSPRNG", baseUrl, List.of("spring"));
+        verify(dao).changeStatus("JOBSPRNG", Status.DONE);
+    }
+
+    @Test
+    void cancelShouldAbortInFlightFetchesAndKeepPartialResults() throws Exception {
+        CountDownLatch hang = new CountDownLatch(1);
+        List<String> fetched = new CopyOnWriteArrayList<>();
+        server = HttpServer.create(new InetSocketAddress(0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/", exchange -> {
+            String path = exchange.getRequestURI().getPath();
+            fetched.add(path);
+            if (!"/".equals(path)) {
+                try {
+                    hang.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            StringBuilder html = new StringBuilder("<html>java");
+            for (int i = 0; i < 50; i++) {
+                html.append("<a href=\"/page").append(i).append("\">page</a>");
+            }
+            byte[] bytes = html.append("</html>").toString().getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(bytes);
+            }
+        });
+        server.start();
+
+        String baseUrl = "http://localhost:" + server.getAddress().getPort() + "/";
+        Crawler crawler = new Crawler(REQUEST_ID, "java");
+        when(dao.findById(REQUEST_ID)).thenReturn(crawler);
+        CrawlerHandler handler = new CrawlerHandler(dao, executor);
+
+        Thread crawl = new Thread(() -> handler.crawlResource(baseUrl, REQUEST_ID));
+        crawl.start();
+        awaitCondition(() -> fetched.size() > 1);
+        assertTrue(handler.cancel(REQUEST_ID));
+        crawl.join(5_000);
+        hang.countDown();
+
+        assertEquals(Thread.State.TERMINATED, crawl.getState());
+        assertEquals(Status.CANCELLED, crawler.getStatus());
+        assertEquals(StopReason.CANCELLED, crawler.getStopReason());
+        assertEquals(1, crawler.getStats().getPagesFetched());
+        assertEquals(0, crawler.getStats().getFailures());
+        verify(dao).appendHits(REQUEST_ID, baseUrl, List.of("java"));
+        assertFalse(handler.cancel(REQUEST_ID));
+    }
+
+    @Test
+    void cancelShouldCloseABodyThatIsStillStreaming() throws Exception {
+        CountDownLatch streaming = new CountDownLatch(1);
+        CountDownLatch closed = new CountDownLatch(1);
+        server = HttpServer.create(new InetSocketAddress(0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/", exchange -> {
+            exchange.getResponseHeaders().add("Content-Type", "text/html");
+            exchange.sendResponseHeaders(200, 0);
+            byte[] chunk = "<p>filler text</p>".repeat(64).getBytes(StandardCharsets.UTF_8);
+            try (OutputStream os = exchange.getResponseBody()) {
+                // About 4 MB at 10 ms per chunk: several minutes, unless the reader goes away.
+                for (int i = 0; i < 4_000; i++) {
+                    os.write(chunk);
+                    os.flush();
+                    streaming.countDown();
+                    Thread.sleep(10);
+                }
+            } catch (IOException e) {
+                closed.countDown();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        server.start();
+
+        String baseUrl = "http://localhost:" + server.getAddress().getPort() + "/";
+        Crawler crawler = new Crawler(REQUEST_ID, "java");
+        when(dao.findById(REQUEST_ID)).thenReturn(crawler);
+        CrawlerHandler handler = new CrawlerHandler(dao, executor);
+
+        Thread crawl = new Thread(() -> handler.crawlResource(baseUrl, REQUEST_ID));
+        crawl.start();
+        assertTrue(streaming.await(5, TimeUnit.SECONDS));
+        Thread.sleep(100);
+        assertTrue(handler.cancel(REQUEST_ID));
+
+        assertTrue(closed.await(3, TimeUnit.SECONDS), "the body was still being read");
+        crawl.join(5_000);
+        assertEquals(Thread.State.TERMINATED, crawl.getState());
+        assertEquals(StopReason.CANCELLED, crawler.getStopReason());
+        assertEquals(0, crawler.getStats().getFailures());
+    }
+
+    @Test
+    void crawlResourceShouldNotStartACancelledJob() {
+        Crawler crawler = new Crawler(REQUEST_ID, "java");
+        crawler.cancel();
+        when(dao.findById(REQUEST_ID)).thenReturn(crawler);
+
+        new CrawlerHandler(dao, executor).crawlResource("http://localhost:1/", REQUEST_ID);
+
+        assertEquals(Status.CANCELLED, crawler.getStatus());
+        verify(dao, never()).changeStatus(eq(REQUEST_ID), any());
+    }
+
+    @Test
+    void recurringRunsShouldOnlyParseChangedPagesAndReportHitChanges() throws Exception {
+        Map<String, AtomicInteger> requests = new ConcurrentHashMap<>();
+        server = HttpServer.create(new InetSocketAddress(0), 0);
+        server.createContext("/", exchange -> {
+            String path = exchange.getRequestURI().getPath();
+            int count =
+                    requests.computeIfAbsent(path, key -> new AtomicInteger()).incrementAndGet();
+            if ("/".equals(path) && "\"v1\"".equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                exchange.sendResponseHeaders(304, -1);
+                exchange.close();
+                return;
+            }
+            String html =
+                    switch (path) {
+                        case "/" -> "<html>java <a href=\"/stable\">s</a> <a href=\"/moving\">m</a></html>";
+                        case "/stable" -> "<html>java, always</html>";
+                        default -> count == 1 ? "<html>java, for now</html>" : "<html>spring only</html>";
+                    };
+            byte[] bytes = html.getBytes(StandardCharsets.UTF_8);
+            if ("/".equals(path)) {
+                exchange.getResponseHeaders().add("ETag", "\"v1\"");
+            }
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(bytes);
+            }
+        });
+        server.start();
+
+        String baseUrl = "http://localhost:" + server.getAddress().getPort() + "/";
+        CrawlerDao crawlerDao = new CrawlerDao();
+        Crawler first = crawlerDao.create(List.of("java"), CrawlOptions.defaults(), CrawlBudget.unlimited());
+        CrawlerHandler handler = new CrawlerHandler(crawlerDao, executor);
+        CrawlSchedule schedule = handler.schedule(first, Duration.ofSeconds(1), null);
+        handler.crawlResource(baseUrl, first.getId());
+        awaitCondition(() -> schedule.getRunIds().size() > 1
+                && crawlerDao.findById(schedule.getRunIds().get(1)).getChanges() != null);
+        handler.cancelSchedule(schedule.getId());
+
+        // The body of an unchanged page is only hashed; scanning a changed one takes a second request.
+        assertEquals(2, requests.get("/stable").get());
+        assertEquals(3, requests.get("/moving").get());
+
+        Crawler second = crawlerDao.findById(schedule.getRunIds().get(1));
+        HitChanges changes = second.getChanges();
+        assertNotNull(changes);
+        assertEquals(first.getId(), changes.getPreviousRunId());
+        assertEquals(Map.of("java", Set.of(baseUrl + "moving")), changes.getRemoved());
+        assertTrue(changes.getAdded().isEmpty());
+        assertEquals(2, second.getStats().getPagesUnchanged());
+        assertEquals(schedule.getId(), second.getScheduleId());
+        assertEquals(Set.of(baseUrl, baseUrl + "stable"), second.getHits().get("java"));
+        assertFalse(schedule.isActive());
+    }
+
+    @Test
+    void sitemapSeedingShouldQueueTheUrlsListedBeforeCrawling() throws IOException {
+        List<String> fetched = new CopyOnWriteArrayList<>();
+        server = HttpServer.create(new InetSocketAddress(0), 0);
+        server.createContext("/", exchange -> {
+            String path = exchange.getRequestURI().getPath();
+            fetched.add(path);
+            String base = "http://localhost:" + server.getAddress().getPort();
+            byte[] bytes =
+                    switch (path) {
+                        case "/robots.txt" -> ("User-agent: *\nSitemap: " + base + "/sitemap_index.xml\n")
+                                .getBytes(StandardCharsets.UTF_8);
+                        case "/sitemap_index.xml" -> ("<sitemapindex><sitemap><loc>" + base
+                                        + "/pages.xml.gz</loc></sitemap></sitemapindex>")
+                                .getBytes(StandardCharsets.UTF_8);
+                        case "/pages.xml.gz" -> gzip("<urlset><url><loc>" + base + "/orphan</loc></url>"
+                                + "<url><loc>https://other.site/page</loc></url><url><loc>" + base
+                                + "/file.pdf</loc></url>"
+                                + "</urlset>");
+                        case "/orphan" -> "<html>java, linked from nowhere</html>".getBytes(StandardCharsets.UTF_8);
+                        default -> "<html>no links here</html>".getBytes(StandardCharsets.UTF_8);
+                    };
+            exchange.getResponseHeaders().add("Content-Type", path.endsWith(".gz") ? "application/gzip" : "text/html");
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(bytes);
+            }
+        });
+        server.start();
+
+        String baseUrl = "http://localhost:" + server.getAddress().getPort() + "/";
+        Crawler crawler = new Crawler(REQUEST_ID, "java");
+        when(dao.findById(REQUEST_ID)).thenReturn(crawler);
+        System.setProperty("CRAWLER_SITEMAP_SEEDING", "true");
+        try {
+            new CrawlerHandler(dao, executor).crawlResource(baseUrl, REQUEST_ID);
+        } finally {
+            System.clearProperty("CRAWLER_SITEMAP_SEEDING");
+        }
+
+        verify(dao).appendHits(REQUEST_ID, baseUrl + "orphan", List.of("java"));
+        assertEquals(List.of("/robots.txt", "/sitemap_index.xml", "/pages.xml.gz"), fetched.subList(0, 3));
+        assertFalse(fetched.contains("/file.pdf"));
+        assertEquals(2, crawler.getStats().getPagesFetched());
+        verify(dao).changeStatus(REQUEST_ID, Status.DONE);
+    }
+
+    @Test
+    void multiSeedJobShouldCrawlEverySiteWithinItsScope() throws IOException {
+        List<String> fetched = new CopyOnWriteArrayList<>();
+        server = HttpServer.create(new InetSocketAddress(0), 0);
+        server.createContext("/", exchange -> {
+            String path = exchange.getRequestURI().getPath();
+            fetched.add("docs" + path);
+            String html = "/docs/".equals(path)
+                    ? "<html>java <a href=\"intro\">intro</a> <a href=\"/private/notes\">notes</a></html>"
+                    : "<html>java</html>";
+            byte[] bytes = html.getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(bytes);
+            }
+        });
+        server.start();
+        HttpServer blog = HttpServer.create(new InetSocketAddress(0), 0);
+        blog.createContext("/", exchange -> {
+            String path = exchange.getRequestURI().getPath();
+            fetched.add("blog" + path);
+            String html = "/".equals(path) ? "<html>java <a href=\"post\">post</a></html>" : "<html>java</html>";
+            byte[] bytes = html.getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(bytes);
+            }
+        });
+        blog.start();
+
+        String docsUrl = "http://localhost:" + server.getAddress().getPort() + "/docs/";
+        String blogUrl = "http://127.0.0.1:" + blog.getAddress().getPort() + "/";
+        CrawlTarget target = new CrawlTarget(List.of(docsUrl, blogUrl), List.of(docsUrl, blogUrl));
+        Crawler crawler =
+                new Crawler(REQUEST_ID, List.of("java"), CrawlOptions.defaults(), CrawlBudget.unlimited(), target);
+        when(dao.findById(REQUEST_ID)).thenReturn(crawler);
+        try {
+            // The seed URL the job is started with is ignored, since the job names its own.
+            new CrawlerHandler(dao, executor).crawlResource("http://localhost:1/", REQUEST_ID);
+        } finally {
+            blog.stop(0);
+        }
+
+        assertEquals(Set.of("docs/docs/", "blog/"), Set.copyOf(fetched.subList(0, 2)));
+        assertEquals(Set.of("docs/docs/", "docs/docs/intro", "blog/", "blog/post"), Set.copyOf(fetched));
+        verify(dao).appendHits(REQUEST_ID, docsUrl + "intro", List.of("java"));
+        verify(dao).appendHits(REQUEST_ID, blogUrl + "post", List.of("java"));
+        verify(dao).changeStatus(REQUEST_ID, Status.DONE);
+    }
+
+    @Test
+    void clusteredCrawlShouldSplitThePagesBetweenNodesAndGatherTheHits() throws Exception {
+        Map<String, AtomicInteger> requests = new ConcurrentHashMap<>();
+        server = HttpServer.create(new InetSocketAddress(0), 0);
+        server.createContext("/", exchange -> {
+            String path = exchange.getRequestURI().getPath();
+            requests.computeIfAbsent(path, key -> new AtomicInteger()).incrementAndGet();
+            StringBuilder html = new StringBuilder("<html>java");
+            if ("/".equals(path)) {
+                for (int i = 0; i < CLUSTER_PAGES; i++) {
+                    html.append(" <a href=\"/page-").append(i).append("\">page</a>");
+                }
+            } else {
+                html.append(" <a href=\"/\">home</a>");
+            }
+            byte[] bytes = html.append("</html>").toString().getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(bytes);
+            }
+        });
+        server.start();
+
+        ExecutorService peerExecutor = Executors.newFixedThreadPool(4);
+        String coordinatorUrl = freeNodeUrl();
+        String peerUrl = freeNodeUrl();
+        List<Service> nodes = new ArrayList<>();
+        CrawlerDao coordinatorDao = new CrawlerDao();
+        CrawlerDao peerDao = new CrawlerDao();
+        Crawler crawler = coordinatorDao.create("java");
+        String baseUrl = "http://localhost:" + server.getAddress().getPort() + "/";
+        try {
+            // A single host, split between the nodes by path.
+            System.setProperty("CLUSTER_PARTITION", "path");
+            System.setProperty("CLUSTER_SECRET", "s3cret");
+            System.setProperty("CLUSTER_NODES", coordinatorUrl + "," + peerUrl);
+            System.setProperty("CLUSTER_SELF", coordinatorUrl);
+            CrawlerHandler coordinator = new CrawlerHandler(coordinatorDao, executor);
+            System.setProperty("CLUSTER_SELF", peerUrl);
+            CrawlerHandler peer = new CrawlerHandler(peerDao, peerExecutor);
+            nodes.add(serveNode(coordinatorUrl, coordinatorDao, coordinator));
+            nodes.add(serveNode(peerUrl, peerDao, peer));
+            Crawler stray = new Crawler("ZZZZ9999", List.of("java"));
+            ClusterClient intruder = new ClusterClient(Duration.ofSeconds(5), "guess", null);
+            ClusterClient member = new ClusterClient(Duration.ofSeconds(5), "s3cret", null);
+            CompletionException forged = assertThrows(
+                    CompletionException.class, () -> intruder.openJob(peerUrl, stray, baseUrl, coordinatorUrl)
+                            .join());
+            CompletionException foreign = assertThrows(
+                    CompletionException.class, () -> member.openJob(peerUrl, stray, baseUrl, "http://attacker.test")
+                            .join());
+            assertTrue(forged.getMessage().contains("status 401"), forged.getMessage());
+            assertTrue(foreign.getMessage().contains("status 400"), foreign.getMessage());
+            assertNull(peerDao.findById(stray.getId()));
+
+            coordinator.crawlResource(baseUrl, crawler.getId());
+        } finally {
+            System.clearProperty("CLUSTER_PARTITION");
+            System.clearProperty("CLUSTER_SECRET");
+            System.clearProperty("CLUSTER_NODES");
+            System.clearProperty("CLUSTER_SELF");
+            nodes.forEach(CrawlerHandlerTest::stopNode);
+            peerExecutor.shutdownNow();
+        }
+
+        assertEquals(Status.DONE, crawler.getStatus());
+        assertEquals(CLUSTER_PAGES + 1, crawler.getUrls().size());
+        assertTrue(crawler.getUrls().contains(baseUrl + "page-0"));
+        requests.values().forEach(count -> assertEquals(1, count.get()));
+        assertEquals(CLUSTER_PAGES + 1, requests.size());
+        long peerPages = peerDao.findById(crawler.getId()).getStats().getPagesFetched();
+        assertTrue(peerPages > 0 && peerPages < CLUSTER_PAGES, "peer fetched " + peerPages);
+    }
+
+    @Test
+    void clusteredCrawlShouldKeepAHostWithinItsRateAcrossTheNodes() throws Exception {
+        List<Long> starts = new CopyOnWriteArrayList<>();
+        server = HttpServer.create(new InetSocketAddress(0), 0);
+        server.createContext("/", exchange -> {
+            starts.add(System.nanoTime());
+            StringBuilder html = new StringBuilder("<html>java");
+            for (int i = 0; "/".equals(exchange.getRequestURI().getPath()) && i < CLUSTER_PAGES; i++) {
+                html.append(" <a href=\"/page-").append(i).append("\">page</a>");
+            }
+            byte[] bytes = html.append("</html>").toString().getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(bytes);
+            }
+        });
+        server.start();
+
+        ExecutorService peerExecutor = Executors.newFixedThreadPool(4);
+        String coordinatorUrl = freeNodeUrl();
+        String peerUrl = freeNodeUrl();
+        List<Service> nodes = new ArrayList<>();
+        CrawlerDao coordinatorDao = new CrawlerDao();
+        Crawler crawler = coordinatorDao.create("java");
+        RetryPolicy retryPolicy = new RetryPolicy(0, Duration.ofMillis(10), Duration.ofMillis(50));
+        try {
+            System.setProperty("CLUSTER_SECRET", "s3cret");
+            System.setProperty("CLUSTER_NODES", coordinatorUrl + "," + peerUrl);
+            System.setProperty("CLUSTER_SELF", coordinatorUrl);
+            CrawlerHandler coordinator = new CrawlerHandler(
+                    coordinatorDao, executor, new AsyncHtmlFetcher(), clusterPoliteness(), retryPolicy);
+            System.setProperty("CLUSTER_SELF", peerUrl);
+            CrawlerDao peerDao = new CrawlerDao();
+            CrawlerHandler peer =
+                    new CrawlerHandler(peerDao, peerExecutor, new AsyncHtmlFetcher(), clusterPoliteness(), retryPolicy);
+            nodes.add(serveNode(coordinatorUrl, coordinatorDao, coordinator));
+            nodes.add(serveNode(peerUrl, peerDao, peer));
+
+            coordinator.crawlResource("http://localhost:" + server.getAddress().getPort() + "/", crawler.getId());
+        } finally {
+            System.clearProperty("CLUSTER_SECRET");
+            System.clearProperty("CLUSTER_NODES");
+            System.clearProperty("CLUSTER_SELF");
+            nodes.forEach(CrawlerHandlerTest::stopNode);
+            peerExecutor.shutdownNow();
+        }
+
+        // 20 requests per second at most, whichever node sends them: one every 50 ms, give or take the network.
+        assertEquals(Status.DONE, crawler.getStatus());
+        assertEquals(CLUSTER_PAGES + 1, starts.size());
+        for (int i = 1; i < starts.size(); i++) {
+            long gap = TimeUnit.NANOSECONDS.toMillis(starts.get(i) - starts.get(i - 1));
+            assertTrue(gap >= 25, "requests " + gap + " ms apart");
+        }
+    }
+
+    private static HostPoliteness clusterPoliteness() {
+        return new HostPoliteness(20, 1, 1, Duration.ZERO, HostCircuitBreaker.disabled());
+    }
+
+    /** Serves the API of a node on a Spark instance of its own, as the application does. */
+    private Service serveNode(final String url, final CrawlerDao nodeDao, final CrawlerHandler handler) {
+        Service http = Service.ignite().port(URI.create(url).getPort());
+        ApiRoutes.defineRoutes(http, new CrawlerControllerImpl(nodeDao, handler), executor);
+        http.awaitInitialization();
+        return http;
+    }
+
+    private static void stopNode(final Service http) {
+        http.stop();
+        http.awaitStop();
+    }
+
+    private static String freeNodeUrl() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return "http://localhost:" + socket.getLocalPort();
+        }
+    }
+
+    private static byte[] gzip(final String text) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(bytes)) {
+            out.write(text.getBytes(StandardCharsets.UTF_8));
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void awaitCondition(final BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "condition not met in time");
+            Thread.sleep(10);
+        }
+    }
 }
@@ -0,0 +1,55 @@
+package space.lasf.sparkjava.helper;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.BitSet;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class AhoCorasickMatcherTest {
+
+    @Test
+    void scanShouldReportEveryKeywordFoundIgnoringCase() {
+        KeywordMatcher matcher = new AhoCorasickMatcher(List.of("java", "spark", "kotlin"));
+
+        KeywordMatcher.Scan scan = matcher.newScan();
+        scan.feed("Built with SPARK and Java.".toCharArray(), 0, 26);
+
+        assertTrue(scan.isFound());
+        assertFalse(scan.isComplete());
+        assertEquals(BitSet.valueOf(new long[] {0b011}), scan.getMatches());
+    }
+
+    @Test
+    void scanShouldFindOverlappingAndNestedKeywords() {
+        KeywordMatcher matcher = new AhoCorasickMatcher(List.of("he", "she", "hers", "his"));
+
+        KeywordMatcher.Scan scan = matcher.newScan();
+        char[] text = "ushers".toCharArray();
+        scan.feed(text, 0, text.length);
+
+        assertEquals(BitSet.valueOf(new long[] {0b0111}), scan.getMatches());
+    }
+
+    @Test
+    void scanShouldFindKeywordsSplitAcrossChunksAndCompleteWhenAllAreFound() {
+        KeywordMatcher matcher = new AhoCorasickMatcher(List.of("sparkjava", "café"));
+        char[] text = "...spArKjA | vA sparkJAVA CAFÉ".toCharArray();
+
+        KeywordMatcher.Scan scan = matcher.newScan();
+        scan.feed(text, 0, 20);
+        assertFalse(scan.isFound());
+        scan.feed(text, 20, text.length - 20);
+
+        assertTrue(scan.isComplete());
+    }
+
+    @Test
+    void constructorShouldRejectMissingKeywords() {
+        assertThrows(IllegalArgumentException.class, () -> new AhoCorasickMatcher(List.of()));
+        assertThrows(IllegalArgumentException.class, () -> new AhoCorasickMatcher(List.of("java", "")));
+    }
+}
@@ -0,0 +1,207 @@
+package space.lasf.sparkjava.helper;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import space.lasf.sparkjava.entity.SkipReason;
+
+class AsyncHtmlFetcherTest {
+
+    private static final int DOCUMENT_SIZE = 4 * 1024 * 1024;
+
+    private HttpServer server;
+    private final Set<Integer> remotePorts = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger fullResponses = new AtomicInteger();
+    private final AtomicInteger notModifiedResponses = new AtomicInteger();
+
+    @TempDir
+    Path cacheDirectory;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(0), 0);
+        server.createContext("/page", exchange -> {
+            remotePorts.add(exchange.getRemoteAddress().getPort());
+            byte[] bytes =
+                    ("<html>" + exchange.getRequestURI().getQuery() + "</html>").getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(bytes);
+            }
+        });
+        server.createContext("/cached", exchange -> {
+            if ("\"v1\"".equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                notModifiedResponses.incrementAndGet();
+                exchange.sendResponseHeaders(304, -1);
+                exchange.close();
+                return;
+            }
+            fullResponses.incrementAndGet();
+            byte[] bytes = "<html>cached</html>".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("ETag", "\"v1\"");
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(bytes);
+            }
+        });
+        server.createContext("/document", exchange -> {
+            byte[] bytes = new byte[DOCUMENT_SIZE];
+            exchange.getResponseHeaders()
+                    .add("Content-Type", exchange.getRequestURI().getQuery());
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(bytes);
+            }
+        });
+        server.createContext("/latin1", exchange -> {
+            byte[] bytes = "<html>caf\u00e9</html>".getBytes(StandardCharsets.ISO_8859_1);
+            exchange.getResponseHeaders().add("Content-Type", "text/html; charset=\"ISO-8859-1\"");
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(bytes);
+            }
+        });
+        server.createContext("/missing", exchange -> {
+            exchange.sendResponseHeaders(404, -1);
+            exchange.close();
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void fetchHtmlShouldCompleteWithBody() {
+        AsyncHtmlFetcher fetcher = new AsyncHtmlFetcher(Duration.ofSeconds(2));
+
+        String html = fetcher.fetchHtml(url("/page?q=hello")).join();
+
+        assertEquals("<html>q=hello</html>", html);
+    }
+
+    @Test
+    void fetchHtmlShouldReuseConnectionsAcrossSequentialRequests() {
+        AsyncHtmlFetcher fetcher = new AsyncHtmlFetcher(Duration.ofSeconds(2));
+
+        for (int i = 0; i < 5; i++) {
+            fetcher.fetchHtml(url("/page?q=" + i)).join();
+        }
+
+        assertEquals(1, remotePorts.size());
+    }
+
+    @Test
+    void fetchHtmlShouldCompleteExceptionallyOnErrorStatus() {
+        AsyncHtmlFetcher fetcher = new AsyncHtmlFetcher(Duration.ofSeconds(2));
+
+        CompletionException ex = assertThrows(CompletionException.class, () -> fetcher.fetchHtml(url("/missing"))
+                .join());
+
+        assertInstanceOf(IOException.class, ex.getCause());
+    }
+
+    @Test
+    void fetchHtmlShouldFailFastOnInvalidUrl() {
+        AsyncHtmlFetcher fetcher = new AsyncHtmlFetcher(Duration.ofSeconds(2));
+
+        CompletableFuture<String> future = fetcher.fetchHtml("not a url");
+
+        CompletionException ex = assertThrows(CompletionException.class, future::join);
+        assertInstanceOf(IOException.class, ex.getCause());
+    }
+
+    @Test
+    void fetchHtmlShouldRunConcurrentRequests() {
+        AsyncHtmlFetcher fetcher = new AsyncHtmlFetcher(Duration.ofSeconds(2));
+
+        List<CompletableFuture<String>> futures =
+                List.of(fetcher.fetchHtml(url("/page?q=a")), fetcher.fetchHtml(url("/page?q=b")));
+
+        assertEquals("<html>q=a</html>", futures.get(0).join());
+        assertEquals("<html>q=b</html>", futures.get(1).join());
+    }
+
+    @Test
+    void fetchHtmlShouldRevalidateStaleCacheEntriesWithConditionalGet() throws IOException {
+        HttpResponseCache cache = new HttpResponseCache(cacheDirectory, 1024 * 1024, 100, 0);
+        AsyncHtmlFetcher fetcher = new AsyncHtmlFetcher(Duration.ofSeconds(2), cache);
+
+        String first = fetcher.fetchHtml(url("/cached")).join();
+        String second = fetcher.fetchHtml(url("/cached")).join();
+
+        assertEquals("<html>cached</html>", first);
+        assertEquals("<html>cached</html>", second);
+        assertEquals(1, fullResponses.get());
+        assertEquals(1, notModifiedResponses.get());
+    }
+
+    @Test
+    void fetchHtmlShouldServeFreshCacheEntriesWithoutNetwork() throws IOException {
+        HttpResponseCache cache = new HttpResponseCache(cacheDirectory, 1024 * 1024, 100, 60_000);
+        AsyncHtmlFetcher fetcher = new AsyncHtmlFetcher(Duration.ofSeconds(2), cache);
+
+        fetcher.fetchHtml(url("/cached")).join();
+        String second = fetcher.fetchHtml(url("/cached")).join();
+
+        assertEquals("<html>cached</html>", second);
+        assertEquals(1, fullResponses.get());
+        assertEquals(0, notModifiedResponses.get());
+    }
+
+    @Test
+    void fetchStreamShouldSkipNonHtmlBodiesWithoutDownloadingThem() throws IOException {
+        AsyncHtmlFetcher fetcher = new AsyncHtmlFetcher(Duration.ofSeconds(2));
+
+        try (FetchResponse response =
+                fetcher.fetchStream(url("/document?application/pdf")).join()) {
+            assertTrue(response.isSkipped());
+            assertEquals(SkipReason.NOT_HTML, response.getSkipReason());
+            assertEquals(0, response.getWireBytes());
+        }
+    }
+
+    @Test
+    void fetchStreamShouldSkipBodiesAnnouncedLargerThanTheLimit() throws IOException {
+        ContentGate gate = new ContentGate(1024, Set.of("text/html"));
+        AsyncHtmlFetcher fetcher = new AsyncHtmlFetcher(Duration.ofSeconds(2), null, gate);
+
+        try (FetchResponse response =
+                fetcher.fetchStream(url("/document?text/html")).join()) {
+            assertTrue(response.isSkipped());
+            assertEquals(SkipReason.TOO_LARGE, response.getSkipReason());
+        }
+    }
+
+    @Test
+    void fetchHtmlShouldDecodeBodiesWithTheDeclaredCharset() {
+        AsyncHtmlFetcher fetcher = new AsyncHtmlFetcher(Duration.ofSeconds(2));
+
+        assertEquals("<html>caf\u00e9</html>", fetcher.fetchHtml(url("/latin1")).join());
+    }
+
+    private String url(final String path) {
+        return "http://localhost:" + server.getAddress().getPort() + path;
+    }
+}
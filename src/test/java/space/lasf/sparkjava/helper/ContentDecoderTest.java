@@ -0,0 +1,80 @@
+package space.lasf.sparkjava.helper;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+import org.junit.jupiter.api.Test;
+
+class ContentDecoderTest {
+
+    private static final String HTML = "<html><a href=\"/next\">compressed keyword</a></html>";
+
+    @Test
+    void decodeShouldInflateGzip() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(HTML.getBytes(StandardCharsets.UTF_8));
+        }
+
+        assertEquals(HTML, decode(out.toByteArray(), "gzip"));
+    }
+
+    @Test
+    void decodeShouldInflateZlibAndRawDeflate() throws IOException {
+        assertEquals(HTML, decode(deflate(false), "deflate"));
+        assertEquals(HTML, decode(deflate(true), "Deflate"));
+    }
+
+    @Test
+    void decodeShouldDecodeBrotli() throws IOException {
+        assertEquals(HTML, decode(brotliStored(HTML.getBytes(StandardCharsets.UTF_8)), "br"));
+    }
+
+    @Test
+    void decodeShouldReturnIdentityBodyUntouched() throws IOException {
+        assertEquals(HTML, decode(HTML.getBytes(StandardCharsets.UTF_8), null));
+        assertEquals(HTML, decode(HTML.getBytes(StandardCharsets.UTF_8), "identity"));
+    }
+
+    @Test
+    void decodeShouldRejectUnknownEncoding() {
+        assertThrows(IOException.class, () -> decode(new byte[0], "compress"));
+    }
+
+    /**
+     * Builds a Brotli stream made of a single uncompressed meta-block (RFC 7932, section 9.2).
+     */
+    static byte[] brotliStored(final byte[] data) {
+        int header = (data.length - 1) << 4 | 1 << 20;
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(header & 0xFF);
+        out.write(header >>> 8 & 0xFF);
+        out.write(header >>> 16 & 0xFF);
+        out.writeBytes(data);
+        out.write(0x03);
+        return out.toByteArray();
+    }
+
+    private static byte[] deflate(final boolean raw) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (DeflaterOutputStream deflater =
+                new DeflaterOutputStream(out, new Deflater(Deflater.DEFAULT_COMPRESSION, raw))) {
+            deflater.write(HTML.getBytes(StandardCharsets.UTF_8));
+        }
+        return out.toByteArray();
+    }
+
+    private static String decode(final byte[] body, final String encoding) throws IOException {
+        try (InputStream in = ContentDecoder.decode(new ByteArrayInputStream(body), encoding)) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package space.lasf.sparkjava.helper;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import org.junit.jupiter.api.Test;
+
+class CronExpressionTest {
+
+    // A Friday.
+    private static final ZonedDateTime FRIDAY = ZonedDateTime.of(2024, 1, 5, 10, 7, 30, 0, ZoneOffset.UTC);
+
+    @Test
+    void nextShouldFindTheFollowingMinuteOfAStep() {
+        CronExpression quarterly = CronExpression.parse("*/15 * * * *");
+
+        assertEquals(FRIDAY.withMinute(15).withSecond(0), quarterly.next(FRIDAY));
+        assertEquals(FRIDAY.withHour(11).withMinute(0).withSecond(0), quarterly.next(FRIDAY.withMinute(45)));
+        assertEquals("*/15 * * * *", quarterly.toString());
+    }
+
+    @Test
+    void nextShouldSkipToTheNextMatchingWeekday() {
+        CronExpression weekdays = CronExpression.parse("0 3 * * 1-5");
+        CronExpression sundays = CronExpression.parse("0 12 * * 7");
+
+        assertEquals(at(2024, 1, 8, 3), weekdays.next(FRIDAY));
+        assertEquals(at(2024, 1, 7, 12), sundays.next(FRIDAY));
+    }
+
+    @Test
+    void nextShouldFireOnEitherRestrictedDayAsCronDoes() {
+        CronExpression thirteenthOrFriday = CronExpression.parse("0 0 13 * 5");
+
+        assertEquals(at(2024, 1, 12, 0), thirteenthOrFriday.next(FRIDAY));
+        assertEquals(at(2024, 1, 13, 0), thirteenthOrFriday.next(at(2024, 1, 12, 0)));
+        assertEquals(at(2028, 2, 29, 0), CronExpression.parse("0 0 29 2 *").next(at(2024, 3, 1, 0)));
+    }
+
+    @Test
+    void parseShouldRejectMalformedOrImpossibleExpressions() {
+        assertThrows(IllegalArgumentException.class, () -> CronExpression.parse(null));
+        assertThrows(IllegalArgumentException.class, () -> CronExpression.parse("* * *"));
+        assertThrows(IllegalArgumentException.class, () -> CronExpression.parse("0 25 * * *"));
+        assertThrows(IllegalArgumentException.class, () -> CronExpression.parse("a * * * *"));
+        assertThrows(IllegalArgumentException.class, () -> CronExpression.parse("5-1 * * * *"));
+        assertThrows(IllegalArgumentException.class, () -> CronExpression.parse("0 0 30 2 *"));
+    }
+
+    private static ZonedDateTime at(final int year, final int month, final int day, final int hour) {
+        return ZonedDateTime.of(year, month, day, hour, 0, 0, 0, ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,43 @@
+package space.lasf.sparkjava.helper;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import org.junit.jupiter.api.Test;
+
+class ExecutorFactoryTest {
+
+    @Test
+    void newCrawlExecutorShouldUsePlatformThreadsByDefault() throws Exception {
+        ExecutorService executor = ExecutorFactory.newCrawlExecutor(false);
+        try {
+            assertFalse(executor.submit(ExecutorFactoryTest::isVirtual).get());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void newCrawlExecutorShouldUseVirtualThreadsWhenSupported() throws Exception {
+        ExecutorService executor = ExecutorFactory.newCrawlExecutor(true);
+        try {
+            assertEquals(
+                    ExecutorFactory.isVirtualThreadsSupported(),
+                    executor.submit(ExecutorFactoryTest::isVirtual).get());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static boolean isVirtual() throws ExecutionException {
+        try {
+            return (Boolean) Thread.class.getMethod("isVirtual").invoke(Thread.currentThread());
+        } catch (NoSuchMethodException e) {
+            return false;
+        } catch (ReflectiveOperationException e) {
+            throw new ExecutionException(e);
+        }
+    }
+}
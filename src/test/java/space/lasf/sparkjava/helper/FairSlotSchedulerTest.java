@@ -0,0 +1,138 @@
+package space.lasf.sparkjava.helper;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import org.junit.jupiter.api.Test;
+import space.lasf.sparkjava.entity.CrawlOptions;
+import space.lasf.sparkjava.entity.Priority;
+
+class FairSlotSchedulerTest {
+
+    @Test
+    void slotsShouldBeSharedInProportionToTheWeights() throws InterruptedException {
+        FairSlotScheduler scheduler = new FairSlotScheduler(1, 0);
+        FairSlotScheduler.Flow holder = scheduler.register("holder", CrawlOptions.defaults());
+        FairSlotScheduler.Flow light = scheduler.register("A", new CrawlOptions(Priority.NORMAL, 1, 0));
+        FairSlotScheduler.Flow heavy = scheduler.register("B", new CrawlOptions(Priority.NORMAL, 3, 0));
+        holder.acquire();
+
+        List<String> order = serveWaiters(holder, List.of(light, light, light, light, heavy, heavy, heavy, heavy));
+
+        assertEquals(List.of("A", "B", "B", "B", "A", "B", "A", "A"), order);
+    }
+
+    @Test
+    void higherPriorityClassesShouldBeServedFirst() throws InterruptedException {
+        FairSlotScheduler scheduler = new FairSlotScheduler(1, 0);
+        FairSlotScheduler.Flow bulk = scheduler.register("bulk", new CrawlOptions(Priority.BULK, 10, 0));
+        FairSlotScheduler.Flow interactive =
+                scheduler.register("interactive", new CrawlOptions(Priority.INTERACTIVE, 1, 0));
+        bulk.acquire();
+
+        List<String> order = serveWaiters(bulk, List.of(bulk, bulk, interactive, interactive));
+
+        assertEquals(List.of("interactive", "interactive", "bulk", "bulk"), order);
+    }
+
+    @Test
+    void aFlowShouldNotExceedItsCap() throws InterruptedException {
+        FairSlotScheduler scheduler = new FairSlotScheduler(2, 0);
+        FairSlotScheduler.Flow capped = scheduler.register("capped", new CrawlOptions(Priority.NORMAL, 1, 1));
+        FairSlotScheduler.Flow other = scheduler.register("other", CrawlOptions.defaults());
+        capped.acquire();
+        Thread second = startAcquire(capped, new ArrayList<>());
+        awaitCondition(() -> second.getState() == Thread.State.WAITING);
+
+        other.acquire();
+        assertEquals(0, scheduler.getAvailable());
+        other.release();
+        assertEquals(1, scheduler.getAvailable());
+
+        capped.release();
+        second.join(5_000);
+        assertEquals(2, scheduler.getAvailable());
+    }
+
+    @Test
+    void updateShouldRescheduleAFlowWithItsNewOptions() throws InterruptedException {
+        FairSlotScheduler scheduler = new FairSlotScheduler(1, 0);
+        FairSlotScheduler.Flow first = scheduler.register("first", CrawlOptions.defaults());
+        FairSlotScheduler.Flow second = scheduler.register("second", CrawlOptions.defaults());
+        first.acquire();
+        second.update(new CrawlOptions(Priority.INTERACTIVE, 1, 0));
+
+        List<String> order = serveWaiters(first, List.of(first, second));
+
+        assertEquals(List.of("second", "first"), order);
+        assertEquals(Priority.INTERACTIVE, second.getOptions().getPriority());
+    }
+
+    @Test
+    void acquireWithACallbackShouldQueueWithoutBlockingAndRunOnRelease() throws InterruptedException {
+        FairSlotScheduler scheduler = new FairSlotScheduler(1, 0);
+        FairSlotScheduler.Flow holder = scheduler.register("holder", CrawlOptions.defaults());
+        FairSlotScheduler.Flow waiter = scheduler.register("waiter", new CrawlOptions(Priority.INTERACTIVE, 1, 0));
+        List<String> granted = Collections.synchronizedList(new ArrayList<>());
+        holder.acquire(() -> granted.add("holder"));
+
+        waiter.acquire(() -> granted.add("waiter"));
+        holder.acquire(() -> granted.add("holder again"));
+
+        assertEquals(List.of("holder"), granted);
+        assertEquals(2, scheduler.getWaiting());
+        holder.release();
+        assertEquals(List.of("holder", "waiter"), granted);
+        waiter.release();
+        assertEquals(List.of("holder", "waiter", "holder again"), granted);
+        assertEquals(0, scheduler.getWaiting());
+        assertEquals(0, scheduler.getAvailable());
+    }
+
+    /**
+     * Starts one thread per waiter, waits until all of them are blocked, then releases the held slot and
+     * returns the order in which the waiters got a slot (each gives it back right away).
+     */
+    private static List<String> serveWaiters(
+            final FairSlotScheduler.Flow held, final List<FairSlotScheduler.Flow> waiters) throws InterruptedException {
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+        List<Thread> threads = new ArrayList<>();
+        for (FairSlotScheduler.Flow waiter : waiters) {
+            Thread thread = startAcquire(waiter, order);
+            threads.add(thread);
+            awaitCondition(() -> thread.getState() == Thread.State.WAITING);
+        }
+        held.release();
+        for (Thread thread : threads) {
+            thread.join(5_000);
+        }
+        return order;
+    }
+
+    private static Thread startAcquire(final FairSlotScheduler.Flow flow, final List<String> order) {
+        Thread thread = new Thread(() -> {
+            try {
+                flow.acquire();
+                order.add(flow.toString());
+                flow.release();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        thread.start();
+        return thread;
+    }
+
+    private static void awaitCondition(final BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "condition not met in time");
+            Thread.sleep(10);
+        }
+    }
+}
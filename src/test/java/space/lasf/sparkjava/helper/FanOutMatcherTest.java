@@ -0,0 +1,30 @@
+package space.lasf.sparkjava.helper;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class FanOutMatcherTest {
+
+    @Test
+    void scanShouldReportTheKeywordsOfEachMatcherSeparately() {
+        FanOutMatcher matcher = new FanOutMatcher(List.of(
+                new AhoCorasickMatcher(List.of("java", "spark")),
+                new HorspoolMatcher("jetty"),
+                new AhoCorasickMatcher(List.of("kotlin", "java"))));
+
+        PageScan scan = StreamingPageScanner.scan("<p>Spark runs Java on <b>Jetty</b></p>", matcher);
+
+        assertEquals(List.of("java", "spark", "jetty", "kotlin", "java"), matcher.getKeywords());
+        assertEquals(List.of("java", "spark"), matcher.getMatchedKeywords(scan, 0));
+        assertEquals(List.of("jetty"), matcher.getMatchedKeywords(scan, 1));
+        assertEquals(List.of("java"), matcher.getMatchedKeywords(scan, 2));
+    }
+
+    @Test
+    void constructorShouldRejectEmptyMatcherList() {
+        assertThrows(IllegalArgumentException.class, () -> new FanOutMatcher(List.of()));
+    }
+}
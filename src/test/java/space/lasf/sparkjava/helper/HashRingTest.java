@@ -0,0 +1,70 @@
+package space.lasf.sparkjava.helper;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class HashRingTest {
+
+    private static final List<String> NODES = List.of("http://a:8081", "http://b:8082", "http://c:8083");
+    private static final int KEYS = 30_000;
+
+    @Test
+    void ownerOfShouldNotDependOnTheOrderOfTheNodes() {
+        HashRing ring = new HashRing(NODES, HashRing.DEFAULT_VIRTUAL_NODES);
+        HashRing reversed =
+                new HashRing(List.of(NODES.get(2), NODES.get(0), NODES.get(1)), HashRing.DEFAULT_VIRTUAL_NODES);
+
+        for (int i = 0; i < KEYS; i++) {
+            assertEquals(ring.ownerOf(key(i)), reversed.ownerOf(key(i)));
+        }
+    }
+
+    @Test
+    void ownerOfShouldSpreadTheKeysEvenly() {
+        HashRing ring = new HashRing(NODES, HashRing.DEFAULT_VIRTUAL_NODES);
+        Map<String, Integer> owned = new HashMap<>();
+
+        for (int i = 0; i < KEYS; i++) {
+            owned.merge(ring.ownerOf(key(i)), 1, Integer::sum);
+        }
+
+        assertEquals(NODES.size(), owned.size());
+        owned.values().forEach(count -> assertTrue(count > KEYS / 4 && count < KEYS * 5 / 12, owned.toString()));
+    }
+
+    @Test
+    void addingANodeShouldOnlyMoveKeysToIt() {
+        HashRing ring = new HashRing(NODES, HashRing.DEFAULT_VIRTUAL_NODES);
+        String added = "http://d:8084";
+        HashRing grown =
+                new HashRing(List.of(NODES.get(0), NODES.get(1), NODES.get(2), added), HashRing.DEFAULT_VIRTUAL_NODES);
+        int moved = 0;
+
+        for (int i = 0; i < KEYS; i++) {
+            String before = ring.ownerOf(key(i));
+            String after = grown.ownerOf(key(i));
+            if (!before.equals(after)) {
+                assertEquals(added, after);
+                moved++;
+            }
+        }
+
+        assertTrue(moved > KEYS / 6 && moved < KEYS / 3, "moved " + moved);
+    }
+
+    @Test
+    void constructorShouldRejectAnEmptyRing() {
+        assertThrows(IllegalArgumentException.class, () -> new HashRing(List.of(), HashRing.DEFAULT_VIRTUAL_NODES));
+        assertThrows(IllegalArgumentException.class, () -> new HashRing(NODES, 0));
+    }
+
+    private static String key(final int i) {
+        return "https://site.test/section-" + i % 97 + "/page-" + i;
+    }
+}
@@ -0,0 +1,97 @@
+package space.lasf.sparkjava.helper;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Locale;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class HorspoolMatcherTest {
+
+    @Test
+    void scanShouldCountOccurrencesAndReportTheFirstOffset() {
+        HorspoolMatcher.HorspoolScan scan = new HorspoolMatcher("Java", null).newScan();
+
+        scan.feed("I like JAVA, java and jAvA; not jav a.");
+
+        assertTrue(scan.isFound());
+        assertEquals(3, scan.getMatchCount());
+        assertEquals(7, scan.getFirstOffset());
+    }
+
+    @Test
+    void scanShouldFindOccurrencesSplitAcrossSmallChunks() {
+        HorspoolMatcher.HorspoolScan scan = new HorspoolMatcher("sparkjava", null).newScan();
+        char[] text = "..spArK|jAvA..sparkjavasparkJAVA".replace("|", "").toCharArray();
+
+        for (int i = 0; i < text.length; i++) {
+            scan.feed(text, i, 1);
+        }
+
+        assertEquals(3, scan.getMatchCount());
+        assertEquals(2, scan.getFirstOffset());
+    }
+
+    @Test
+    void scanShouldFoldNonAsciiCharactersLikeTheOtherMatchers() {
+        KeywordMatcher matcher = new HorspoolMatcher("café", null);
+
+        assertTrue(matcher.containedIn("LE CAFÉ"));
+        // U+212A KELVIN SIGN folds to 'k'
+        assertTrue(new HorspoolMatcher("kotlin", null).containedIn("\u212Aotlin"));
+        assertFalse(matcher.containedIn("cafe"));
+    }
+
+    @Test
+    void scanShouldAgreeWithANaiveSearchWithAndWithoutTheVectorFilter() {
+        Random random = new Random(42);
+        // Without the simd profile the vectorized filter is not built, and both searches use the skip table.
+        FirstCharFilter vector = HorspoolMatcher.loadFilter(true);
+        for (int round = 0; round < 200; round++) {
+            String keyword = randomText(random, 1 + random.nextInt(6));
+            String text = randomText(random, random.nextInt(400));
+            long expected = naiveCount(text, keyword);
+
+            assertEquals(expected, count(new HorspoolMatcher(keyword, null), text, random), keyword + " in " + text);
+            assertEquals(expected, count(new HorspoolMatcher(keyword, vector), text, random), keyword + " in " + text);
+        }
+    }
+
+    @Test
+    void constructorShouldRejectEmptyKeyword() {
+        assertThrows(IllegalArgumentException.class, () -> new HorspoolMatcher(""));
+    }
+
+    private static long count(final HorspoolMatcher matcher, final String text, final Random random) {
+        HorspoolMatcher.HorspoolScan scan = matcher.newScan();
+        char[] chars = text.toCharArray();
+        int offset = 0;
+        while (offset < chars.length) {
+            int length = Math.min(chars.length - offset, 1 + random.nextInt(40));
+            scan.feed(chars, offset, length);
+            offset += length;
+        }
+        return scan.getMatchCount();
+    }
+
+    private static long naiveCount(final String text, final String keyword) {
+        String haystack = text.toLowerCase(Locale.ROOT);
+        String needle = keyword.toLowerCase(Locale.ROOT);
+        long count = 0;
+        for (int i = haystack.indexOf(needle); i >= 0; i = haystack.indexOf(needle, i + 1)) {
+            count++;
+        }
+        return count;
+    }
+
+    private static String randomText(final Random random, final int length) {
+        StringBuilder text = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            text.append("abAB- ".charAt(random.nextInt(6)));
+        }
+        return text.toString();
+    }
+}
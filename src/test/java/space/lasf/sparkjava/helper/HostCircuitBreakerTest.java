@@ -0,0 +1,119 @@
+package space.lasf.sparkjava.helper;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+class HostCircuitBreakerTest {
+
+    private static final long COOLDOWN = 1_000;
+
+    private final AtomicLong now = new AtomicLong();
+    private final HostCircuitBreaker breaker = new HostCircuitBreaker(2, COOLDOWN, now::get);
+
+    @Test
+    void circuitShouldOpenAfterConsecutiveFailures() {
+        breaker.recordFailure("a.test");
+        assertFalse(breaker.isOpen("a.test"));
+
+        breaker.recordFailure("a.test");
+
+        assertTrue(breaker.isOpen("a.test"));
+        assertEquals(COOLDOWN, breaker.readyIn("a.test"));
+        assertFalse(breaker.isOpen("b.test"));
+    }
+
+    @Test
+    void successShouldResetTheFailureCount() {
+        breaker.recordFailure("a.test");
+        breaker.recordSuccess("a.test");
+        breaker.recordFailure("a.test");
+
+        assertFalse(breaker.isOpen("a.test"));
+    }
+
+    @Test
+    void circuitShouldLetASingleProbeThroughAfterTheCooldown() {
+        breaker.recordFailure("a.test");
+        breaker.recordFailure("a.test");
+        now.addAndGet(COOLDOWN);
+
+        assertEquals(0, breaker.readyIn("a.test"));
+        assertEquals(0, breaker.tryAcquire("a.test"));
+        assertEquals(HostPoliteness.UNTIL_RELEASE, breaker.readyIn("a.test"));
+        assertEquals(HostPoliteness.UNTIL_RELEASE, breaker.tryAcquire("a.test"));
+
+        breaker.recordFailure("a.test");
+        assertEquals(COOLDOWN, breaker.readyIn("a.test"));
+
+        now.addAndGet(COOLDOWN);
+        assertEquals(0, breaker.tryAcquire("a.test"));
+        breaker.recordSuccess("a.test");
+        assertFalse(breaker.isOpen("a.test"));
+    }
+
+    @Test
+    void concurrentCallersShouldClaimASingleProbe() throws InterruptedException {
+        breaker.recordFailure("a.test");
+        breaker.recordFailure("a.test");
+        now.addAndGet(COOLDOWN);
+        int callers = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger granted = new AtomicInteger();
+        for (int i = 0; i < callers; i++) {
+            executor.execute(() -> {
+                try {
+                    start.await();
+                    if (breaker.tryAcquire("a.test") == 0) {
+                        granted.incrementAndGet();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+
+        assertEquals(1, granted.get());
+    }
+
+    @Test
+    void unansweredProbeShouldBeGivenUpAfterTheCooldown() {
+        breaker.recordFailure("a.test");
+        breaker.recordFailure("a.test");
+        now.addAndGet(COOLDOWN);
+        assertEquals(0, breaker.tryAcquire("a.test"));
+
+        now.addAndGet(COOLDOWN - 1);
+        assertEquals(HostPoliteness.UNTIL_RELEASE, breaker.tryAcquire("a.test"));
+        now.incrementAndGet();
+        assertEquals(0, breaker.tryAcquire("a.test"));
+        assertTrue(breaker.isOpen("a.test"));
+    }
+
+    @Test
+    void politenessShouldParkHostsWithAnOpenCircuit() {
+        HostCircuitBreaker tripped = new HostCircuitBreaker(1, Duration.ofMinutes(1));
+        HostPoliteness politeness = new HostPoliteness(100, 10, 10, Duration.ZERO, tripped);
+
+        assertEquals(0, politeness.tryAcquire("a.test"));
+        politeness.release("a.test");
+        politeness.recordOutcome("a.test", true);
+
+        assertTrue(politeness.tryAcquire("a.test") > 0);
+        assertEquals(0, politeness.tryAcquire("b.test"));
+    }
+}
@@ -0,0 +1,62 @@
+package space.lasf.sparkjava.helper;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+class HostPolitenessTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final AtomicLong now = new AtomicLong(1_000 * SECOND);
+
+    @Test
+    void tryAcquireShouldLimitRequestsInFlightPerHost() {
+        HostPoliteness politeness = new HostPoliteness(100, 10, 2, 0, now::get);
+
+        assertEquals(0, politeness.tryAcquire("a.test"));
+        assertEquals(0, politeness.tryAcquire("a.test"));
+        assertEquals(HostPoliteness.UNTIL_RELEASE, politeness.tryAcquire("a.test"));
+        assertEquals(0, politeness.tryAcquire("b.test"));
+
+        politeness.release("a.test");
+
+        assertEquals(0, politeness.tryAcquire("a.test"));
+        assertEquals(2, politeness.inFlight("a.test"));
+    }
+
+    @Test
+    void tryAcquireShouldRefillTokensAtTheConfiguredRate() {
+        HostPoliteness politeness = new HostPoliteness(2, 1, 10, 0, now::get);
+
+        assertEquals(0, politeness.tryAcquire("a.test"));
+        long wait = politeness.tryAcquire("a.test");
+        assertTrue(wait > 0 && wait <= SECOND / 2, "wait was " + wait);
+
+        now.addAndGet(wait);
+
+        assertEquals(0, politeness.tryAcquire("a.test"));
+    }
+
+    @Test
+    void tryAcquireShouldKeepTheMinimumDelayBetweenStarts() {
+        HostPoliteness politeness = new HostPoliteness(100, 10, 10, SECOND, now::get);
+
+        assertEquals(0, politeness.tryAcquire("a.test"));
+        assertEquals(SECOND, politeness.tryAcquire("a.test"));
+
+        now.addAndGet(SECOND);
+
+        assertEquals(0, politeness.tryAcquire("a.test"));
+    }
+
+    @Test
+    void hostOfShouldIncludeExplicitPortsAndIgnoreCase() {
+        assertEquals("example.com", HostPoliteness.hostOf("https://Example.COM/a"));
+        assertEquals("localhost:8080", HostPoliteness.hostOf("http://localhost:8080/"));
+        assertEquals("", HostPoliteness.hostOf("not a url"));
+    }
+}
@@ -0,0 +1,63 @@
+package space.lasf.sparkjava.helper;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class HostSchedulerTest {
+
+    @Test
+    void pollShouldServeAnotherHostWhileOneIsBusy() {
+        HostScheduler scheduler = new HostScheduler(new HostPoliteness(1000, 100, 1, Duration.ZERO));
+        scheduler.add("http://slow.test/1");
+        scheduler.add("http://slow.test/2");
+        scheduler.add("http://fast.test/1");
+
+        assertEquals("http://slow.test/1", scheduler.poll());
+        assertEquals("http://fast.test/1", scheduler.poll());
+        assertNull(scheduler.poll());
+        assertEquals(1, scheduler.size());
+
+        scheduler.release("http://slow.test/1");
+
+        assertEquals("http://slow.test/2", scheduler.poll());
+        assertTrue(scheduler.isEmpty());
+    }
+
+    @Test
+    void pollShouldRotateBetweenHosts() {
+        HostScheduler scheduler = new HostScheduler(new HostPoliteness(1000, 100, 10, Duration.ZERO));
+        scheduler.add("http://a.test/1");
+        scheduler.add("http://a.test/2");
+        scheduler.add("http://b.test/1");
+        scheduler.add("http://b.test/2");
+
+        assertEquals("http://a.test/1", scheduler.poll());
+        assertEquals("http://b.test/1", scheduler.poll());
+        assertEquals("http://a.test/2", scheduler.poll());
+        assertEquals("http://b.test/2", scheduler.poll());
+    }
+
+    @Test
+    void addShouldReportUrlsDroppedByAFullQueue(@TempDir final Path dir) {
+        HostScheduler scheduler = new HostScheduler(
+                new HostPoliteness(1000, 100, 10, Duration.ZERO),
+                () -> new SpillingFrontier(dir, 1, new SpillingFrontier.Quota(0), 64));
+
+        assertTrue(scheduler.add("http://a.test/1"));
+        assertFalse(scheduler.add("http://a.test/2"));
+        assertTrue(scheduler.add("http://b.test/1"));
+        assertEquals(2, scheduler.size());
+
+        scheduler.close();
+
+        assertFalse(scheduler.add("http://a.test/3"));
+        assertNull(scheduler.poll());
+    }
+}
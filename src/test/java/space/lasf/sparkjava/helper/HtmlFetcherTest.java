@@ -8,7 +8,6 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.net.InetSocketAddress;
 import java.nio.charset.StandardCharsets;
-import java.util.List;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 
@@ -23,26 +22,6 @@ class HtmlFetcherTest {
         }
     }
 
-    @Test
-    void getlinksShouldExtractValidLinksAndIgnoreMailtoJavascriptAndFragments() {
-        String html =
-                """
-            <html>
-              <a href=\"/docs\">Docs</a>
-              <a href=\"../api\">Api</a>
-              <a href=\"mailto:test@example.com\">Mail</a>
-              <a href=\"javascript:void(0)\">Js</a>
-              <a href=\"/page#section\">Section</a>
-            </html>
-            """;
-
-        List<String> links = HtmlFetcher.getlinks(html);
-
-        assertEquals(2, links.size());
-        assertTrue(links.contains("/docs"));
-        assertTrue(links.contains("api"));
-    }
-
     @Test
     void resolveShouldBuildAbsoluteUrlAndRemoveFragment() {
         String resolved = HtmlFetcher.resolve("https://example.com/base/", "../docs/page#part");
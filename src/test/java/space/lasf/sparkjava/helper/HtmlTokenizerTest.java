@@ -0,0 +1,142 @@
+package space.lasf.sparkjava.helper;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class HtmlTokenizerTest {
+
+    private static final String PAGE =
+            """
+            <!DOCTYPE html>
+            <html><head><title>Title</title>
+            <style>a > b { color: red }</style>
+            <script>if (a < b) { document.write("<a href='/from-script'>hidden</a>"); }</script>
+            </head><body>
+            <!-- <a href="/commented">old</a> -->
+            <a href="/double" title="attribute text">Visible</a>
+            <A HREF='/single'>one</A>
+            <a class=x href=/unquoted>two</a>
+            <area href = "/area" />
+            <link href="/style.css">
+            <p>1 < 2 &amp; done</p>
+            </body></html>
+            """;
+
+    @Test
+    void feedShouldEmitHrefsOfLinkTagsInAnyQuotingStyle() {
+        Result result = tokenize(PAGE, PAGE.length());
+
+        assertEquals(List.of("/double", "/single", "/unquoted", "/area"), result.hrefs);
+    }
+
+    @Test
+    void feedShouldForwardOnlyVisibleText() {
+        Result result = tokenize(PAGE, PAGE.length());
+
+        assertEquals(
+                "Title Visible one two 1 < 2 &amp; done",
+                result.text.toString().replaceAll("\\s+", " ").trim());
+    }
+
+    @Test
+    void feedShouldGiveTheSameResultForAnyChunking() {
+        Result whole = tokenize(PAGE, PAGE.length());
+
+        for (int chunk = 1; chunk < 40; chunk++) {
+            Result split = tokenize(PAGE, chunk);
+            assertEquals(whole.hrefs, split.hrefs, "chunk size " + chunk);
+            assertEquals(whole.text.toString(), split.text.toString(), "chunk size " + chunk);
+        }
+    }
+
+    @Test
+    void feedShouldMatchKeywordsInVisibleTextOnly() {
+        KeywordMatcher matcher = new HorspoolMatcher("secret");
+        KeywordMatcher.Scan inScript = matcher.newScan();
+        KeywordMatcher.Scan inAttribute = matcher.newScan();
+        KeywordMatcher.Scan inText = matcher.newScan();
+
+        new HtmlTokenizer(inScript, link -> {}).feed("<script>var secret = 1;</script>");
+        new HtmlTokenizer(inAttribute, link -> {}).feed("<a title=\"secret\" href=\"/x\">x</a>");
+        new HtmlTokenizer(inText, link -> {}).feed("<p>a sec<b>ret</b></p>");
+
+        assertEquals(false, inScript.isFound());
+        assertEquals(false, inAttribute.isFound());
+        assertEquals(true, inText.isFound());
+    }
+
+    @Test
+    void feedShouldSeparateTheTextOfAdjacentBlocksOnly() {
+        Result result = tokenize(
+                "<p>foo</p><p>bar</p><div>a<br>b</div><li>x<li>y</li>"
+                        + "<H1>t</H1 ><blockquote>q</blockquote><b>in</b>line",
+                3);
+
+        assertEquals(
+                "foo bar a b x y t q inline",
+                result.text.toString().replaceAll("\\s+", " ").trim());
+        assertEquals(false, matches("foobar", "<p>foo</p><p>bar</p>"));
+        assertEquals(true, matches("foobar", "<p>foo<i>bar</i></p>"));
+    }
+
+    @Test
+    void feedShouldReportTheVisibleTextOfEachLink() {
+        String html = "<p>Intro</p><a href=\"/docs\">Spark <b>Java</b> docs</a> between "
+                + "<area href=\"/map\"><a href=/next>Next<a href='/last'>  Last page ";
+        for (int chunkSize = 1; chunkSize <= html.length(); chunkSize++) {
+            List<String> links = new ArrayList<>();
+            HtmlTokenizer tokenizer =
+                    HtmlTokenizer.withAnchorTexts(new Result(), (href, text) -> links.add(href + "|" + text));
+            char[] chars = html.toCharArray();
+            for (int start = 0; start < chars.length; start += chunkSize) {
+                tokenizer.feed(chars, start, Math.min(chunkSize, chars.length - start));
+            }
+            tokenizer.finish();
+
+            assertEquals(
+                    List.of("/docs|Spark Java docs", "/map|", "/next|Next", "/last|Last page"),
+                    links,
+                    "chunk size " + chunkSize);
+        }
+    }
+
+    private static boolean matches(final String keyword, final String html) {
+        KeywordMatcher.Scan scan = KeywordMatcher.compile(List.of(keyword)).newScan();
+        new HtmlTokenizer(scan, link -> {}).feed(html);
+        return scan.isFound();
+    }
+
+    private static Result tokenize(final String html, final int chunkSize) {
+        Result result = new Result();
+        HtmlTokenizer tokenizer = new HtmlTokenizer(result, result.hrefs::add);
+        char[] chars = html.toCharArray();
+        for (int start = 0; start < chars.length; start += chunkSize) {
+            tokenizer.feed(chars, start, Math.min(chunkSize, chars.length - start));
+        }
+        return result;
+    }
+
+    /** Records everything the tokenizer emits. */
+    private static final class Result implements KeywordMatcher.Scan {
+        private final List<String> hrefs = new ArrayList<>();
+        private final StringBuilder text = new StringBuilder();
+
+        @Override
+        public void feed(final char[] buffer, final int offset, final int length) {
+            text.append(buffer, offset, length);
+        }
+
+        @Override
+        public void feed(final CharSequence chunk) {
+            text.append(chunk);
+        }
+
+        @Override
+        public boolean isFound() {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package space.lasf.sparkjava.helper;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class HttpResponseCacheTest {
+
+    private static final long ONE_MINUTE = 60_000L;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void storeShouldCommitFullyReadBodyAndSurviveReload() throws IOException {
+        HttpResponseCache cache = new HttpResponseCache(directory, 1024 * 1024, 10, ONE_MINUTE);
+
+        readAll(cache.store(
+                "HTTP://Example.com:80/a/./b#frag",
+                new HttpResponseCache.Metadata("\"v1\"", null, "text/html"),
+                body("<html>one</html>")));
+
+        HttpResponseCache reloaded = new HttpResponseCache(directory, 1024 * 1024, 10, ONE_MINUTE);
+        HttpResponseCache.Entry entry =
+                reloaded.lookup("http://example.com/a/b").orElseThrow();
+        assertEquals("\"v1\"", entry.getEtag());
+        assertEquals("text/html", entry.getContentType());
+        assertTrue(reloaded.isFresh(entry));
+        try (InputStream in = reloaded.openBody(entry)) {
+            assertEquals("<html>one</html>", new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void storeShouldDiscardBodyClosedBeforeTheEnd() throws IOException {
+        HttpResponseCache cache = new HttpResponseCache(directory, 1024 * 1024, 10, ONE_MINUTE);
+
+        try (InputStream in = cache.store(
+                "http://example.com/",
+                new HttpResponseCache.Metadata(null, null, null),
+                body("<html>partial</html>"))) {
+            in.read(new byte[4]);
+        }
+
+        assertFalse(cache.lookup("http://example.com/").isPresent());
+    }
+
+    @Test
+    void storeShouldEvictLeastRecentlyUsedEntries() throws IOException {
+        HttpResponseCache cache = new HttpResponseCache(directory, 1024 * 1024, 2, ONE_MINUTE);
+        readAll(cache.store("http://example.com/1", new HttpResponseCache.Metadata(null, null, null), body("one")));
+        readAll(cache.store("http://example.com/2", new HttpResponseCache.Metadata(null, null, null), body("two")));
+
+        cache.lookup("http://example.com/1");
+        readAll(cache.store("http://example.com/3", new HttpResponseCache.Metadata(null, null, null), body("three")));
+
+        assertEquals(2, cache.size());
+        assertTrue(cache.lookup("http://example.com/1").isPresent());
+        assertFalse(cache.lookup("http://example.com/2").isPresent());
+    }
+
+    @Test
+    void isFreshShouldExpireAfterFreshnessWindow() throws IOException {
+        HttpResponseCache cache = new HttpResponseCache(directory, 1024 * 1024, 10, 0);
+        readAll(cache.store(
+                "http://example.com/",
+                new HttpResponseCache.Metadata(null, "Mon, 01 Jan 2024 00:00:00 GMT", null),
+                body("x")));
+
+        HttpResponseCache.Entry entry = cache.lookup("http://example.com/").orElseThrow();
+
+        assertFalse(cache.isFresh(entry));
+        assertEquals("Mon, 01 Jan 2024 00:00:00 GMT", entry.getLastModified());
+    }
+
+    private static InputStream body(final String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void readAll(final InputStream in) throws IOException {
+        try (in) {
+            in.readAllBytes();
+        }
+    }
+}
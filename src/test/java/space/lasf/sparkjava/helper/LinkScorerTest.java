@@ -0,0 +1,34 @@
+package space.lasf.sparkjava.helper;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class LinkScorerTest {
+
+    private final LinkScorer scorer = new LinkScorer(List.of("Spark Java", "jetty"));
+
+    @Test
+    void scoreShouldRewardKeywordsInTheAnchorTextAndTheUrl() {
+        double plain = scorer.score("https://site.test/about", "About us", 1, 0);
+        double inUrl = scorer.score("https://site.test/docs/spark-java.html", "Read more", 1, 0);
+        double inText = scorer.score("https://site.test/about", "All about SPARK JAVA", 1, 0);
+        double both = scorer.score("https://site.test/jetty/", "Jetty and Spark Java", 1, 0);
+
+        assertEquals(plain + LinkScorer.URL_WEIGHT, inUrl);
+        assertEquals(plain + LinkScorer.ANCHOR_WEIGHT, inText);
+        assertEquals(plain + 2 * LinkScorer.ANCHOR_WEIGHT + LinkScorer.URL_WEIGHT, both);
+    }
+
+    @Test
+    void scoreShouldFavourShallowLinksFromPagesWithHits() {
+        double shallow = scorer.score("https://site.test/a", "", 1, 0);
+        double deep = scorer.score("https://site.test/a", "", 5, 0);
+        double fromHit = scorer.score("https://site.test/a", "", 5, 0.5);
+
+        assertTrue(shallow > deep);
+        assertEquals(deep + LinkScorer.PARENT_WEIGHT * 0.5, fromHit);
+    }
+}
@@ -0,0 +1,61 @@
+package space.lasf.sparkjava.helper;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.Test;
+
+class PipelineStageTest {
+
+    @Test
+    void aFullQueueShouldRunTheTaskOnTheSubmittingThread() throws InterruptedException {
+        PipelineStage stage = new PipelineStage("test", 1, 1);
+        CountDownLatch busy = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(1);
+        AtomicReference<Thread> ranOn = new AtomicReference<>();
+        try {
+            stage.execute(() -> await(busy));
+            stage.execute(done::countDown);
+            awaitQueued(stage, 1);
+
+            StageStats stats = stage.getStats();
+            assertEquals("test", stats.getName());
+            assertEquals(1, stats.getWorkers());
+            assertEquals(1, stats.getActive());
+            assertEquals(1, stats.getCapacity());
+
+            stage.execute(() -> ranOn.set(Thread.currentThread()));
+            assertEquals(Thread.currentThread(), ranOn.get());
+        } finally {
+            busy.countDown();
+        }
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        stage.shutdown();
+    }
+
+    @Test
+    void constructorShouldRejectAStageWithoutWorkersOrQueue() {
+        assertThrows(IllegalArgumentException.class, () -> new PipelineStage("none", 0, 1));
+        assertThrows(IllegalArgumentException.class, () -> new PipelineStage("none", 1, 0));
+    }
+
+    private static void await(final CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void awaitQueued(final PipelineStage stage, final int queued) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (stage.getStats().getQueued() != queued || stage.getStats().getActive() != 1) {
+            assertTrue(System.nanoTime() < deadline, "condition not met in time");
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package space.lasf.sparkjava.helper;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class PriorityFrontierTest {
+
+    @Test
+    void pollShouldReturnTheHighestScoreFirstAndTiesInInsertionOrder() {
+        PriorityFrontier frontier = new PriorityFrontier(100, new MemoryFrontier());
+        frontier.add(new FrontierEntry("http://a.test/low", 1, -0.5));
+        frontier.add(new FrontierEntry("http://a.test/tie-1", 1, 2));
+        frontier.add(new FrontierEntry("http://a.test/best", 2, 7.5));
+        frontier.add(new FrontierEntry("http://a.test/tie-2", 1, 2));
+
+        assertEquals("http://a.test/best", frontier.poll().getUrl());
+        assertEquals("http://a.test/tie-1", frontier.poll().getUrl());
+        assertEquals("http://a.test/tie-2", frontier.poll().getUrl());
+        assertEquals("http://a.test/low", frontier.poll().getUrl());
+        assertNull(frontier.poll());
+    }
+
+    @Test
+    void overflowShouldHoldTheLowestScoresAndKeepTheirScores(@TempDir final Path dir) {
+        SpillingFrontier overflow = new SpillingFrontier(dir, 1, new SpillingFrontier.Quota(1 << 20), 128);
+        PriorityFrontier frontier = new PriorityFrontier(3, overflow);
+        for (int i = 0; i < 20; i++) {
+            frontier.add(new FrontierEntry("http://a.test/" + i, i % 4, (i * 7) % 20));
+        }
+
+        assertEquals(20, frontier.size());
+        assertEquals(17, overflow.size());
+        List<Double> scores = new ArrayList<>();
+        for (FrontierEntry entry = frontier.poll(); entry != null; entry = frontier.poll()) {
+            int i = Integer.parseInt(entry.getUrl().substring("http://a.test/".length()));
+            assertEquals(i % 4, entry.getDepth());
+            assertEquals((i * 7) % 20, entry.getScore());
+            scores.add(entry.getScore());
+        }
+
+        assertEquals(20, scores.size());
+        // The three best entries ever added leave first, the rest is drained best-first by batch.
+        assertEquals(List.of(19.0, 18.0, 17.0), scores.subList(0, 3));
+    }
+}
@@ -8,7 +8,9 @@ import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
 import com.google.gson.Gson;
+import java.util.List;
 import org.junit.jupiter.api.Test;
+import space.lasf.sparkjava.dto.CrawlRequestDto;
 import space.lasf.sparkjava.exception.InvalidRequestException;
 import spark.Request;
 
@@ -58,6 +60,28 @@ class RequestUtilTest {
         assertThrows(InvalidRequestException.class, () -> RequestUtil.getBodyKeyword(missingKeywordRequest, GSON));
     }
 
+    @Test
+    void getBodyCrawlRequestShouldMergeKeywordAndKeywords() {
+        Request request = mock(Request.class);
+        when(request.body()).thenReturn("{\"keyword\":\"spring\",\"keywords\":[\"java\",\" \",\"spring\",\"kotlin\"]}");
+
+        CrawlRequestDto crawlRequest = RequestUtil.getBodyCrawlRequest(request, GSON);
+
+        assertEquals(List.of("spring", "java", "kotlin"), crawlRequest.getKeywords());
+    }
+
+    @Test
+    void getBodyCrawlRequestShouldThrowWhenNoKeywordIsGiven() {
+        Request emptyListRequest = mock(Request.class);
+        when(emptyListRequest.body()).thenReturn("{\"keywords\":[]}");
+
+        Request emptyBodyRequest = mock(Request.class);
+        when(emptyBodyRequest.body()).thenReturn("");
+
+        assertThrows(InvalidRequestException.class, () -> RequestUtil.getBodyCrawlRequest(emptyListRequest, GSON));
+        assertThrows(InvalidRequestException.class, () -> RequestUtil.getBodyCrawlRequest(emptyBodyRequest, GSON));
+    }
+
     @Test
     void getBodyKeywordShouldThrowWhenJsonIsInvalid() {
         Request request = mock(Request.class);
@@ -0,0 +1,54 @@
+package space.lasf.sparkjava.helper;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.concurrent.CompletionException;
+import org.junit.jupiter.api.Test;
+import space.lasf.sparkjava.exception.HttpStatusException;
+
+class RetryPolicyTest {
+
+    private final RetryPolicy policy = new RetryPolicy(2, Duration.ofMillis(100), Duration.ofSeconds(1));
+
+    @Test
+    void isTransientShouldAcceptTimeoutsServerErrorsAndThrottling() {
+        assertTrue(RetryPolicy.isTransient(new CompletionException(new HttpTimeoutException("timeout"))));
+        assertTrue(RetryPolicy.isTransient(new ConnectException("refused")));
+        assertTrue(RetryPolicy.isTransient(status(503, null)));
+        assertTrue(RetryPolicy.isTransient(status(429, null)));
+        assertFalse(RetryPolicy.isTransient(status(404, null)));
+        assertFalse(RetryPolicy.isTransient(new IOException("broken body")));
+    }
+
+    @Test
+    void shouldRetryShouldStopWhenTheBudgetIsSpent() {
+        assertTrue(policy.shouldRetry(status(500, null), 1));
+        assertTrue(policy.shouldRetry(status(500, null), 2));
+        assertFalse(policy.shouldRetry(status(500, null), 3));
+    }
+
+    @Test
+    void backoffShouldStayWithinTheExponentialCeiling() {
+        for (int i = 0; i < 100; i++) {
+            assertTrue(policy.backoff(status(500, null), 1).toMillis() <= 100);
+            assertTrue(policy.backoff(status(500, null), 3).toMillis() <= 400);
+            assertTrue(policy.backoff(status(500, null), 20).toMillis() <= 1000);
+        }
+    }
+
+    @Test
+    void backoffShouldHonourRetryAfterUpToTheMaximumDelay() {
+        assertTrue(policy.backoff(status(429, Duration.ofMillis(700)), 1).toMillis() >= 700);
+        assertEquals(1000, policy.backoff(status(429, Duration.ofMinutes(5)), 1).toMillis());
+    }
+
+    private static HttpStatusException status(final int code, final Duration retryAfter) {
+        return new HttpStatusException("HTTP " + code, code, retryAfter);
+    }
+}
@@ -0,0 +1,124 @@
+package space.lasf.sparkjava.helper;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+import org.junit.jupiter.api.Test;
+
+class SitemapReaderTest {
+
+    private static final String URLSET = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+            + "<urlset xmlns=\"http://www.sitemaps.org/schemas/sitemap/0.9\">"
+            + "<url><loc> https://site.test/a </loc><lastmod>2024-01-01</lastmod></url>"
+            + "<url><loc>https://site.test/b?x=1&amp;y=2</loc><priority>0.5</priority></url>"
+            + "<url><loc>https://site.test/c</loc></url>"
+            + "</urlset>";
+
+    @Test
+    void readShouldHandOverThePagesOfASitemap() throws IOException {
+        List<String> pages = new ArrayList<>();
+        List<String> sitemaps = new ArrayList<>();
+
+        SitemapReader.read(stream(URLSET.getBytes(StandardCharsets.UTF_8)), pages::add, sitemaps::add);
+
+        assertEquals(List.of("https://site.test/a", "https://site.test/b?x=1&y=2", "https://site.test/c"), pages);
+        assertTrue(sitemaps.isEmpty());
+    }
+
+    @Test
+    void readShouldHandOverTheSitemapsOfAGzippedIndex() throws IOException {
+        String index = "<sitemapindex xmlns=\"http://www.sitemaps.org/schemas/sitemap/0.9\">"
+                + "<sitemap><loc>https://site.test/pages.xml.gz</loc></sitemap>"
+                + "<sitemap><loc>https://site.test/posts.xml</loc></sitemap>"
+                + "</sitemapindex>";
+        List<String> pages = new ArrayList<>();
+        List<String> sitemaps = new ArrayList<>();
+
+        SitemapReader.read(stream(gzip(index)), pages::add, sitemaps::add);
+
+        assertEquals(List.of("https://site.test/pages.xml.gz", "https://site.test/posts.xml"), sitemaps);
+        assertTrue(pages.isEmpty());
+    }
+
+    @Test
+    void readShouldIgnoreTheLocationsOfImageAndVideoExtensions() throws IOException {
+        String sitemap = "<urlset xmlns=\"http://www.sitemaps.org/schemas/sitemap/0.9\""
+                + " xmlns:image=\"http://www.google.com/schemas/sitemap-image/1.1\""
+                + " xmlns:video=\"http://www.google.com/schemas/sitemap-video/1.1\">"
+                + "<url><loc>https://site.test/gallery</loc>"
+                + "<image:image><image:loc>https://site.test/photo.jpg</image:loc></image:image>"
+                + "<video:video><video:content_loc>https://site.test/clip.mp4</video:content_loc>"
+                + "<video:loc>https://site.test/clip</video:loc></video:video></url>"
+                + "<url><image:image><image:loc>https://site.test/orphan.jpg</image:loc></image:image>"
+                + "<loc>https://site.test/about</loc></url>"
+                + "<loc>https://site.test/stray</loc>"
+                + "</urlset>";
+        List<String> pages = new ArrayList<>();
+
+        SitemapReader.read(stream(sitemap.getBytes(StandardCharsets.UTF_8)), pages::add, s -> true);
+
+        assertEquals(List.of("https://site.test/gallery", "https://site.test/about"), pages);
+    }
+
+    @Test
+    void readShouldStopOnceTheConsumerHasEnough() throws IOException {
+        List<String> pages = new ArrayList<>();
+
+        SitemapReader.read(
+                stream(URLSET.getBytes(StandardCharsets.UTF_8)),
+                page -> {
+                    pages.add(page);
+                    return false;
+                },
+                s -> true);
+
+        assertEquals(List.of("https://site.test/a"), pages);
+    }
+
+    @Test
+    void readShouldRejectMalformedFilesAndNeverResolveEntities() {
+        String external = "<!DOCTYPE urlset [<!ENTITY secret SYSTEM \"file:///etc/passwd\">]>"
+                + "<urlset><url><loc>&secret;</loc></url></urlset>";
+        List<String> pages = new ArrayList<>();
+
+        assertThrows(
+                IOException.class,
+                () -> SitemapReader.read(
+                        stream("<html><body>".getBytes(StandardCharsets.UTF_8)), pages::add, s -> true));
+        assertThrows(
+                IOException.class,
+                () -> SitemapReader.read(stream(external.getBytes(StandardCharsets.UTF_8)), pages::add, s -> true));
+        assertTrue(pages.isEmpty());
+    }
+
+    @Test
+    void sitemapsInRobotsShouldFindTheSitemapLines() {
+        String robots = "User-agent: *\nDisallow: /private\n"
+                + "Sitemap: https://site.test/sitemap_index.xml\n  SITEMAP:https://cdn.site.test/more.xml.gz\nsitemap:\n";
+
+        assertEquals(
+                List.of("https://site.test/sitemap_index.xml", "https://cdn.site.test/more.xml.gz"),
+                SitemapReader.sitemapsInRobots(robots));
+    }
+
+    private static InputStream stream(final byte[] bytes) {
+        return new ByteArrayInputStream(bytes);
+    }
+
+    private static byte[] gzip(final String text) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(bytes)) {
+            out.write(text.getBytes(StandardCharsets.UTF_8));
+        }
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,168 @@
+package space.lasf.sparkjava.helper;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import space.lasf.sparkjava.entity.FrontierLimits;
+
+class SpillingFrontierTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void pollShouldReturnSpilledUrlsInInsertionOrder() {
+        SpillingFrontier frontier = new SpillingFrontier(dir, 10, new SpillingFrontier.Quota(1 << 20), 256);
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(frontier.add(FrontierEntry.of("http://a.test/page-" + i)));
+            if (i % 7 == 0) {
+                assertEquals("http://a.test/page-" + (i / 7), frontier.poll().getUrl());
+            }
+        }
+
+        assertTrue(frontier.getSpilledUrls() > 0);
+        for (int i = 143; i < 1000; i++) {
+            assertEquals("http://a.test/page-" + i, frontier.poll().getUrl());
+        }
+        assertNull(frontier.poll());
+        assertEquals(0, frontier.size());
+    }
+
+    @Test
+    void forEachShouldVisitSpilledUrlsWithoutConsumingThem() {
+        SpillingFrontier frontier = new SpillingFrontier(dir, 10, new SpillingFrontier.Quota(1 << 20), 256);
+        for (int i = 0; i < 100; i++) {
+            frontier.add(new FrontierEntry("http://a.test/page-" + i, i % 3, i));
+        }
+        frontier.poll();
+
+        List<FrontierEntry> seen = new ArrayList<>();
+        frontier.forEach(seen::add);
+
+        assertEquals(99, seen.size());
+        for (int i = 1; i < 100; i++) {
+            FrontierEntry entry = seen.get(i - 1);
+            assertEquals("http://a.test/page-" + i, entry.getUrl());
+            assertEquals(i % 3, entry.getDepth());
+            assertEquals(i, entry.getScore());
+        }
+        assertEquals(99, frontier.size());
+        assertEquals("http://a.test/page-1", frontier.poll().getUrl());
+    }
+
+    @Test
+    void segmentsShouldBeDeletedOnceRead() throws IOException {
+        SpillingFrontier frontier = new SpillingFrontier(dir, 2, new SpillingFrontier.Quota(1 << 20), 64);
+        for (int i = 0; i < 50; i++) {
+            frontier.add(FrontierEntry.of("http://a.test/" + i));
+        }
+        assertTrue(segmentCount() > 1);
+
+        int polled = 0;
+        while (frontier.poll() != null) {
+            polled++;
+        }
+
+        assertEquals(50, polled);
+        assertEquals(0, segmentCount());
+        assertTrue(frontier.add(FrontierEntry.of("http://a.test/again")));
+        assertEquals(0, frontier.getSpilledUrls());
+    }
+
+    @Test
+    void addShouldDropUrlsOnceTheDiskQuotaIsFull() {
+        SpillingFrontier.Quota quota = new SpillingFrontier.Quota(70);
+        SpillingFrontier first = new SpillingFrontier(dir, 1, quota, 64);
+        SpillingFrontier second = new SpillingFrontier(dir, 1, quota, 64);
+
+        assertTrue(first.add(FrontierEntry.of("http://a.test/0")));
+        assertTrue(first.add(FrontierEntry.of("http://a.test/1")));
+        assertTrue(second.add(FrontierEntry.of("http://b.test/0")));
+        assertTrue(second.add(FrontierEntry.of("http://b.test/1")));
+        assertFalse(second.add(FrontierEntry.of("http://b.test/2")));
+        assertEquals(62, quota.getUsed());
+
+        first.poll();
+        first.poll();
+        assertTrue(second.add(FrontierEntry.of("http://b.test/2")));
+    }
+
+    @Test
+    void frontiersShouldShareTheMemoryQuotaAndReadFromDiskOnceItIsTaken() {
+        SpillingFrontier.Quota memory = new SpillingFrontier.Quota(2);
+        SpillingFrontier first = new SpillingFrontier(dir, memory, new SpillingFrontier.Quota(1 << 20), 64);
+        SpillingFrontier second = new SpillingFrontier(dir, memory, new SpillingFrontier.Quota(1 << 20), 64);
+        for (int i = 0; i < 3; i++) {
+            first.add(FrontierEntry.of("http://a.test/" + i));
+        }
+        for (int i = 0; i < 3; i++) {
+            second.add(FrontierEntry.of("http://b.test/" + i));
+        }
+
+        assertEquals(2, memory.getUsed());
+        assertEquals(1, first.getSpilledUrls());
+        assertEquals(3, second.getSpilledUrls());
+        for (int i = 0; i < 3; i++) {
+            assertEquals("http://b.test/" + i, second.poll().getUrl());
+            assertEquals(2, memory.getUsed());
+        }
+        for (int i = 0; i < 3; i++) {
+            assertEquals("http://a.test/" + i, first.poll().getUrl());
+        }
+        assertEquals(0, memory.getUsed());
+        assertNull(first.poll());
+        assertNull(second.poll());
+    }
+
+    @Test
+    void logsShouldBeChargedToTheDiskQuotaOfTheirFactory() {
+        SpillingFrontier.Factory factory = SpillingFrontier.factory(new FrontierLimits(1, 70), false);
+        Frontier frontier = factory.get();
+        Frontier log = factory.newLog();
+        try {
+            assertTrue(frontier.add(FrontierEntry.of("http://a.test/0")));
+            assertTrue(log.add(FrontierEntry.of("http://a.test/0")));
+            assertTrue(log.add(FrontierEntry.of("http://a.test/1")));
+
+            assertFalse(frontier.add(FrontierEntry.of("http://a.test/1")));
+            assertFalse(log.add(FrontierEntry.of("http://a.test/2")));
+            assertEquals(2, log.size());
+        } finally {
+            frontier.close();
+            log.close();
+        }
+    }
+
+    @Test
+    void closeShouldDeleteTheSpilledUrls() throws IOException {
+        SpillingFrontier.Quota quota = new SpillingFrontier.Quota(1 << 20);
+        SpillingFrontier frontier = new SpillingFrontier(dir, 1, quota, 64);
+        for (int i = 0; i < 20; i++) {
+            frontier.add(FrontierEntry.of("http://a.test/" + i));
+        }
+
+        frontier.close();
+
+        assertEquals(0, quota.getUsed());
+        assertTrue(frontier.isEmpty());
+        try (Stream<Path> files = Files.list(dir)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    private long segmentCount() throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            return files.filter(path -> path.toString().endsWith(".seg")).count();
+        }
+    }
+}
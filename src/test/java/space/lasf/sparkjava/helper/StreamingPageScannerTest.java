@@ -0,0 +1,80 @@
+package space.lasf.sparkjava.helper;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class StreamingPageScannerTest {
+
+    private static final KeywordMatcher MATCHER = new HorspoolMatcher("needle");
+
+    @Test
+    void scanShouldFindKeywordAndLinksAcrossBufferBoundaries() throws IOException {
+        StringBuilder html = new StringBuilder("<html>");
+        for (int i = 0; i < 2000; i++) {
+            html.append("<a href=\"/page").append(i).append("\">p</a>");
+        }
+        html.append("NeEdLe</html>");
+
+        PageScan scan = StreamingPageScanner.scan(stream(html.toString()), StandardCharsets.UTF_8, MATCHER, -1, true);
+
+        assertTrue(scan.isKeywordFound());
+        assertEquals(2000, scan.getLinks().size());
+        assertEquals("/page1999", scan.getLinks().get(1999));
+        assertFalse(scan.isTruncated());
+    }
+
+    @Test
+    void scanShouldKeepFollowableLinksAndIgnoreMailtoJavascriptAndFragments() {
+        String html =
+                """
+            <html>
+              <a href="/docs">Docs</a>
+              <a href="../api">Api</a>
+              <a href="mailto:test@example.com">Mail</a>
+              <a href="javascript:void(0)">Js</a>
+              <a href="#top">Top</a>
+              <a href="/page#section">Section</a>
+            </html>
+            """;
+
+        PageScan scan = StreamingPageScanner.scan(html, MATCHER);
+
+        assertEquals(List.of("/docs", "../api", "/page#section"), scan.getLinks());
+        assertEquals(List.of("Docs", "Api", "Section"), scan.getAnchorTexts());
+    }
+
+    @Test
+    void scanShouldStopAtBodySizeLimit() throws IOException {
+        String html = "<a href=\"/first\">x</a>" + "x".repeat(50_000) + "needle <a href=\"/late\">y</a>";
+
+        PageScan scan = StreamingPageScanner.scan(stream(html), StandardCharsets.UTF_8, MATCHER, 1024, true);
+
+        assertTrue(scan.isTruncated());
+        assertEquals(1024, scan.getBytesRead());
+        assertFalse(scan.isKeywordFound());
+        assertEquals(1, scan.getLinks().size());
+    }
+
+    @Test
+    void scanShouldStopReadingAtFirstMatchWhenLinksAreNotNeeded() throws IOException {
+        String html = "needle" + "x".repeat(100_000);
+
+        PageScan scan = StreamingPageScanner.scan(stream(html), StandardCharsets.UTF_8, MATCHER, -1, false);
+
+        assertTrue(scan.isKeywordFound());
+        assertTrue(scan.getBytesRead() < html.length());
+        assertTrue(scan.getLinks().isEmpty());
+    }
+
+    private static InputStream stream(final String html) {
+        return new ByteArrayInputStream(html.getBytes(StandardCharsets.UTF_8));
+    }
+}
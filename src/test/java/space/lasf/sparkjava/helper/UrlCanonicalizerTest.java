@@ -0,0 +1,92 @@
+package space.lasf.sparkjava.helper;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class UrlCanonicalizerTest {
+
+    private static final UrlCanonicalizer.Base BASE = UrlCanonicalizer.parseBase("http://a/b/c/d;p?q");
+
+    @ParameterizedTest
+    @CsvSource({
+        // RFC 3986, section 5.4 (fragments are dropped, empty paths become "/")
+        "g, http://a/b/c/g",
+        "./g, http://a/b/c/g",
+        "g/, http://a/b/c/g/",
+        "/g, http://a/g",
+        "//g, http://g/",
+        "?y, http://a/b/c/d;p?y",
+        "g?y, http://a/b/c/g?y",
+        "#s, http://a/b/c/d;p?q",
+        "g#s, http://a/b/c/g",
+        "'', http://a/b/c/d;p?q",
+        "., http://a/b/c/",
+        "./, http://a/b/c/",
+        ".., http://a/b/",
+        "../g, http://a/b/g",
+        "../.., http://a/",
+        "../../g, http://a/g",
+        "../../../g, http://a/g",
+        "/./g, http://a/g",
+        "/../g, http://a/g",
+        "g., http://a/b/c/g.",
+        "..g, http://a/b/c/..g",
+        "./g/., http://a/b/c/g/",
+        "g/../h, http://a/b/c/h",
+        "g;x=1/../y, http://a/b/c/y",
+        "https://other/x, https://other/x"
+    })
+    void resolveShouldFollowTheReferenceResolutionExamples(final String link, final String expected) {
+        assertEquals(expected, UrlCanonicalizer.resolve(BASE, link));
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+        "HTTP://Example.COM:80/a, http://example.com/a",
+        "https://example.com:443, https://example.com/",
+        "http://example.com:8080/, http://example.com:8080/",
+        "http://example.com:/x, http://example.com/x",
+        "http://example.com/%7euser/%2fdocs/%e2%82%ac, http://example.com/~user/%2Fdocs/%E2%82%AC",
+        "http://example.com/a/%2E%2E/b, http://example.com/b",
+        "http://example.com/a b/ç?q=a b&r=%, http://example.com/a%20b/%C3%A7?q=a%20b&r=%25",
+        "'  http://example.com/x?  ', http://example.com/x",
+        "http://user:pw@Example.com/, http://user:pw@example.com/",
+        "http://[2001:DB8::1]:8080/, http://[2001:db8::1]:8080/",
+        "http://bücher.example/, http://xn--bcher-kva.example/"
+    })
+    void canonicalizeShouldNormalizeEquivalentSpellings(final String url, final String expected) {
+        assertEquals(expected, UrlCanonicalizer.canonicalize(url));
+    }
+
+    @ParameterizedTest
+    @ValueSource(
+            strings = {
+                "mailto:someone@example.com",
+                "ftp://example.com/file",
+                "http:relative",
+                "http://",
+                "http://exa mple.com/",
+                "http://example.com:99999/",
+                "http://example.com:8o/",
+                "/relative/without/base"
+            })
+    void canonicalizeShouldRejectUrlsThatAreNotAbsoluteWebUrls(final String url) {
+        assertNull(UrlCanonicalizer.canonicalize(url));
+    }
+
+    @Test
+    void resolveAllShouldResolveEveryLinkAgainstThePageInOrder() {
+        List<String> links = List.of("b.html", "../y/", "mailto:x@a", "/top");
+
+        List<String> urls = UrlCanonicalizer.resolveAll("http://a/docs/x/page.html", links);
+
+        assertEquals(Arrays.asList("http://a/docs/x/b.html", "http://a/docs/y/", null, "http://a/top"), urls);
+    }
+}
@@ -0,0 +1,144 @@
+package space.lasf.sparkjava.helper;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class VisitedSetTest {
+
+    private static final int URLS = 200_000;
+
+    @ParameterizedTest
+    @ValueSource(strings = {"exact", "hash", "bloom"})
+    void addShouldReportEveryUrlAsNewOnlyOnce(final String mode) {
+        VisitedSet visited = VisitedSet.create(mode, BloomVisitedSet.DEFAULT_FALSE_POSITIVE_RATE);
+
+        assertTrue(visited.add("https://example.com/"));
+        assertFalse(visited.add("https://example.com/"));
+        assertTrue(visited.add("https://example.com/a"));
+        assertEquals(2, visited.size());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"exact", "hash"})
+    void exactModesShouldNeverConfuseDistinctUrls(final String mode) {
+        VisitedSet visited = VisitedSet.create(mode, BloomVisitedSet.DEFAULT_FALSE_POSITIVE_RATE);
+
+        for (int i = 0; i < URLS; i++) {
+            assertTrue(visited.add(url(i)), url(i));
+        }
+        for (int i = 0; i < URLS; i++) {
+            assertFalse(visited.add(url(i)), url(i));
+        }
+        assertEquals(URLS, visited.size());
+    }
+
+    @Test
+    void hashSetShouldForgetRemovedUrlsAndKeepTheOthers() {
+        HashVisitedSet visited = new HashVisitedSet();
+        for (int i = 0; i < URLS; i++) {
+            visited.add(url(i));
+        }
+
+        for (int i = 0; i < URLS; i += 2) {
+            assertTrue(visited.remove(url(i)), url(i));
+        }
+
+        assertFalse(visited.remove(url(0)));
+        assertEquals(URLS / 2, visited.size());
+        for (int i = 0; i < URLS; i++) {
+            assertEquals(i % 2 == 0, visited.add(url(i)), url(i));
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"exact", "hash", "bloom"})
+    void writeToShouldRestoreEveryUrl(final String mode) throws IOException {
+        VisitedSet visited = VisitedSet.create(mode, BloomVisitedSet.DEFAULT_FALSE_POSITIVE_RATE);
+        for (int i = 0; i < 1_000; i++) {
+            visited.add(url(i));
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        visited.writeTo(new DataOutputStream(bytes));
+        VisitedSet restored = VisitedSet.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+        assertEquals(visited.getClass(), restored.getClass());
+        assertEquals(1_000, restored.size());
+        for (int i = 0; i < 1_000; i++) {
+            assertFalse(restored.add(url(i)), url(i));
+        }
+        assertTrue(restored.add(url(1_000)));
+    }
+
+    @Test
+    void bloomModeShouldStayWithinItsFalsePositiveRateAsItGrows() {
+        VisitedSet visited = new BloomVisitedSet(0.01);
+
+        int falsePositives = 0;
+        for (int i = 0; i < URLS; i++) {
+            if (!visited.add(url(i))) {
+                falsePositives++;
+            }
+        }
+
+        assertTrue(falsePositives < URLS * 0.01, "false positives: " + falsePositives);
+        for (int i = 0; i < URLS; i++) {
+            assertFalse(visited.add(url(i)), url(i));
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"exact", "hash", "bloom"})
+    void concurrentAddsOfTheSameUrlsShouldReportEachOnce(final String mode) throws Exception {
+        VisitedSet visited = VisitedSet.create(mode, 1e-9);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Integer>> added = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                added.add(executor.submit(() -> {
+                    int count = 0;
+                    for (int i = 0; i < URLS / 4; i++) {
+                        count += visited.add(url(i)) ? 1 : 0;
+                    }
+                    return count;
+                }));
+            }
+            int total = 0;
+            for (Future<Integer> future : added) {
+                total += future.get();
+            }
+            assertEquals(URLS / 4, total);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void createShouldSelectTheImplementationByName() {
+        assertInstanceOf(HashVisitedSet.class, VisitedSet.create(" Hash ", 0.01));
+        assertInstanceOf(BloomVisitedSet.class, VisitedSet.create("bloom", 0.01));
+        assertInstanceOf(ExactVisitedSet.class, VisitedSet.create("unknown", 0.01));
+        assertThrows(IllegalArgumentException.class, () -> new BloomVisitedSet(0));
+    }
+
+    private static String url(final int i) {
+        return "https://www.example.com/catalog/" + (i % 97) + "/item-" + i + "?page=" + (i % 10);
+    }
+}
@@ -2,10 +2,6 @@ package space.lasf.sparkjava.route;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
-import static spark.Spark.awaitInitialization;
-import static spark.Spark.awaitStop;
-import static spark.Spark.port;
-import static spark.Spark.stop;
 
 import com.google.gson.Gson;
 import java.io.BufferedReader;
@@ -23,18 +19,30 @@ import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import space.lasf.sparkjava.controller.ControllerInterface;
+import space.lasf.sparkjava.dto.ClusterBatchDto;
+import space.lasf.sparkjava.dto.ClusterJobDto;
+import space.lasf.sparkjava.dto.ClusterStatusDto;
+import space.lasf.sparkjava.dto.CrawlRequestDto;
 import space.lasf.sparkjava.dto.CrawlerDto;
+import space.lasf.sparkjava.dto.PipelineStageDto;
+import space.lasf.sparkjava.dto.ScheduleDto;
+import space.lasf.sparkjava.helper.ClusterClient;
+import spark.Service;
 
 class ApiRoutesIntegrationTest {
 
     private static final Gson GSON = new Gson();
     private static final String BASE_URL_KEY = "BASE_URL";
+    private static final String CLUSTER_SECRET_KEY = "CLUSTER_SECRET";
+    private static final String SECRET = "s3cret";
 
     private ExecutorService executor;
+    private Service http;
     private int testPort;
     private FakeController fakeController;
 
@@ -42,19 +50,21 @@ class ApiRoutesIntegrationTest {
     void setUp() throws IOException {
         executor = Executors.newFixedThreadPool(2);
         testPort = findFreePort();
-        port(testPort);
+        http = Service.ignite().port(testPort);
 
         fakeController = new FakeController();
-        ApiRoutes.defineRoutes(fakeController, executor);
-        awaitInitialization();
+        System.setProperty(CLUSTER_SECRET_KEY, SECRET);
+        ApiRoutes.defineRoutes(http, fakeController, executor);
+        http.awaitInitialization();
     }
 
     @AfterEach
     void tearDown() {
-        stop();
-        awaitStop();
+        http.stop();
+        http.awaitStop();
         executor.shutdownNow();
         System.clearProperty(BASE_URL_KEY);
+        System.clearProperty(CLUSTER_SECRET_KEY);
     }
 
     @Test
@@ -75,6 +85,83 @@ class ApiRoutesIntegrationTest {
         assertTrue(response.body().contains("\"id\":\"ABCD1234\""));
     }
 
+    @Test
+    void deleteCrawlShouldReturnCancelledCrawlerJson() throws IOException {
+        HttpResponse response = sendRequest("DELETE", "/crawl/ABCD1234", null);
+
+        assertEquals(200, response.statusCode());
+        assertTrue(response.body().contains("\"id\":\"ABCD1234\""));
+        assertTrue(response.body().contains("\"status\":\"cancelled\""));
+    }
+
+    @Test
+    void getPipelineShouldReturnTheStagesJson() throws IOException {
+        HttpResponse response = sendRequest("GET", "/pipeline", null);
+
+        assertEquals(200, response.statusCode());
+        assertTrue(response.body().contains("\"name\":\"fetch\""));
+        assertTrue(response.body().contains("\"queued\":2"));
+    }
+
+    @Test
+    void getAndDeleteScheduleShouldReturnTheScheduleJson() throws IOException {
+        HttpResponse found = sendRequest("GET", "/schedule/ABCD1234", null);
+        HttpResponse cancelled = sendRequest("DELETE", "/schedule/ABCD1234", null);
+
+        assertEquals(200, found.statusCode());
+        assertTrue(found.body().contains("\"every\":\"PT1H\""));
+        assertTrue(found.body().contains("\"active\":true"));
+        assertEquals(200, cancelled.statusCode());
+        assertTrue(cancelled.body().contains("\"active\":false"));
+    }
+
+    @Test
+    void clusterEndpointsShouldMapTheJobStatus() throws IOException {
+        String job = GSON.toJson(Map.of(
+                "id", "ABCD1234",
+                "baseUrl", "http://localhost:9999/base",
+                "coordinator", "http://localhost:8081",
+                "keywords", List.of("spring")));
+        String batch = GSON.toJson(Map.of("urls", List.of(Map.of("url", "http://localhost:9999/base/a", "depth", 1))));
+
+        HttpResponse joined = sendRequest("POST", "/cluster/jobs", job, SECRET);
+        HttpResponse accepted = sendRequest("POST", "/cluster/jobs/ABCD1234/batch", batch, SECRET);
+        HttpResponse status = sendRequest("GET", "/cluster/jobs/ABCD1234", null, SECRET);
+        HttpResponse finished = sendRequest("POST", "/cluster/jobs/ABCD1234/finish", null, SECRET);
+        HttpResponse cancelled = sendRequest("DELETE", "/cluster/jobs/ABCD1234", null, SECRET);
+        HttpResponse empty = sendRequest("POST", "/cluster/jobs", "", SECRET);
+
+        assertEquals(200, joined.statusCode());
+        assertTrue(joined.body().contains("\"id\":\"ABCD1234\""));
+        assertEquals(200, accepted.statusCode());
+        assertTrue(accepted.body().contains("\"received\":1"));
+        assertTrue(status.body().contains("\"idle\":false"));
+        assertTrue(finished.body().contains("\"idle\":true"));
+        assertTrue(cancelled.body().contains("\"idle\":true"));
+        assertEquals(400, empty.statusCode());
+    }
+
+    @Test
+    void clusterEndpointsShouldRejectCallsWithoutTheSecret() throws IOException {
+        String job = GSON.toJson(Map.of(
+                "id", "ABCD1234",
+                "baseUrl", "http://localhost:9999/base",
+                "coordinator", "http://attacker.test",
+                "keywords", List.of("spring")));
+
+        HttpResponse anonymous = sendRequest("POST", "/cluster/jobs", job);
+        HttpResponse forged = sendRequest("POST", "/cluster/jobs", job, "guess");
+        HttpResponse status = sendRequest("GET", "/cluster/jobs/ABCD1234", null);
+        HttpResponse cancelled = sendRequest("DELETE", "/cluster/jobs/ABCD1234", null, "");
+
+        assertEquals(401, anonymous.statusCode());
+        assertEquals(401, forged.statusCode());
+        assertEquals(401, status.statusCode());
+        assertEquals(401, cancelled.statusCode());
+        assertTrue(anonymous.body().contains("cluster secret"));
+        assertEquals(0, fakeController.clusterCalls.get());
+    }
+
     @Test
     void postCrawlShouldReturn500WhenBaseUrlIsMissing() throws IOException {
         System.clearProperty(BASE_URL_KEY);
@@ -101,11 +188,32 @@ class ApiRoutesIntegrationTest {
         assertEquals("CREATED01", fakeController.getProcessedId());
     }
 
+    @Test
+    void postCrawlShouldAcceptSeedsWithoutBaseUrl() throws Exception {
+        System.clearProperty(BASE_URL_KEY);
+        String payload =
+                GSON.toJson(Map.of("keyword", "spring", "seeds", List.of("https://a.test/", "https://b.test/docs/")));
+
+        HttpResponse response = sendRequest("POST", "/crawl", payload);
+
+        assertEquals(200, response.statusCode());
+        assertTrue(fakeController.awaitProcess(2, TimeUnit.SECONDS));
+        assertEquals("CREATED01", fakeController.getProcessedId());
+        assertEquals(List.of("https://a.test/", "https://b.test/docs/"), fakeController.getRequestedSeeds());
+    }
+
     private HttpResponse sendRequest(String method, String path, String body) throws IOException {
+        return sendRequest(method, path, body, null);
+    }
+
+    private HttpResponse sendRequest(String method, String path, String body, String secret) throws IOException {
         URL url = new URL("http://localhost:" + testPort + path);
         HttpURLConnection connection = (HttpURLConnection) url.openConnection();
         connection.setRequestMethod(method);
         connection.setRequestProperty("Content-Type", "application/json");
+        if (secret != null) {
+            connection.setRequestProperty(ClusterClient.SECRET_HEADER, secret);
+        }
 
         if (body != null) {
             connection.setDoOutput(true);
@@ -150,6 +258,8 @@ class ApiRoutesIntegrationTest {
         private final CountDownLatch processLatch = new CountDownLatch(1);
         private volatile String processedBase;
         private volatile String processedId;
+        private volatile List<String> requestedSeeds;
+        private final AtomicInteger clusterCalls = new AtomicInteger();
 
         @Override
         public void process(String base, String id) {
@@ -167,6 +277,12 @@ class ApiRoutesIntegrationTest {
             return dto;
         }
 
+        @Override
+        public CrawlerDto createFromRequest(CrawlRequestDto request) {
+            this.requestedSeeds = request.getSeeds();
+            return create(request.getKeywords().get(0));
+        }
+
         @Override
         public CrawlerDto findById(String id) {
             CrawlerDto dto = new CrawlerDto();
@@ -176,6 +292,74 @@ class ApiRoutesIntegrationTest {
             return dto;
         }
 
+        @Override
+        public CrawlerDto cancel(String id) {
+            CrawlerDto dto = findById(id);
+            dto.setStatus("cancelled");
+            return dto;
+        }
+
+        @Override
+        public List<PipelineStageDto> findPipelineStages() {
+            PipelineStageDto fetch = new PipelineStageDto();
+            fetch.setName("fetch");
+            fetch.setActive(16);
+            fetch.setQueued(2);
+            fetch.setCapacity(16);
+            return List.of(fetch);
+        }
+
+        @Override
+        public ScheduleDto findSchedule(String id) {
+            ScheduleDto dto = new ScheduleDto();
+            dto.setId(id);
+            dto.setEvery("PT1H");
+            dto.setActive(true);
+            dto.setRuns(List.of(id));
+            return dto;
+        }
+
+        @Override
+        public ScheduleDto cancelSchedule(String id) {
+            ScheduleDto dto = findSchedule(id);
+            dto.setActive(false);
+            return dto;
+        }
+
+        @Override
+        public ClusterStatusDto joinClusterJob(ClusterJobDto job) {
+            return clusterStatus(job.getId(), false, 0);
+        }
+
+        @Override
+        public ClusterStatusDto acceptClusterBatch(String id, ClusterBatchDto batch) {
+            return clusterStatus(id, batch.getUrls().isEmpty(), 1);
+        }
+
+        @Override
+        public ClusterStatusDto findClusterStatus(String id) {
+            return clusterStatus(id, false, 1);
+        }
+
+        @Override
+        public ClusterStatusDto finishClusterJob(String id) {
+            return clusterStatus(id, true, 1);
+        }
+
+        @Override
+        public ClusterStatusDto cancelClusterJob(String id) {
+            return clusterStatus(id, true, 1);
+        }
+
+        private ClusterStatusDto clusterStatus(String id, boolean idle, long received) {
+            clusterCalls.incrementAndGet();
+            ClusterStatusDto dto = new ClusterStatusDto();
+            dto.setId(id);
+            dto.setIdle(idle);
+            dto.setReceived(received);
+            return dto;
+        }
+
         @Override
         public List<CrawlerDto> findAll() {
             CrawlerDto dto = new CrawlerDto();
@@ -196,5 +380,9 @@ class ApiRoutesIntegrationTest {
         String getProcessedId() {
             return processedId;
         }
+
+        List<String> getRequestedSeeds() {
+            return requestedSeeds;
+        }
     }
 }